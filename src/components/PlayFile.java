@@ -1,9 +1,14 @@
 package components;
 
+import components.audio.AudioBackend;
+import components.audio.LinePool;
+
 import javax.sound.sampled.*;
 import java.io.File;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * PlayFile class that extends the Thread class. This has been done to allow multiple sounds be played at the same
@@ -12,20 +17,45 @@ import java.net.URL;
  * @author Gareth Iguasnia
  * @date 26/12/2019
  */
-public class PlayFile implements Runnable {
+public class PlayFile {
     // The name of the file to play
     private String filename;
 
     // Holding the Clip of the WAV file
     private Clip clip;
 
+    // The pool the Clip was borrowed from. If this is null, the Clip is opened and closed by this object
+    private LinePool linePool;
+
+    // Whether the Clip belongs to a SoundBank, in which case it is rewound rather than closed once it has been played
+    private boolean resident;
+
+    // The listeners added through this object so that they can be taken off a Clip that is shared through the cache
+    private ArrayList<LineListener> lineListeners;
+
+    // Set once the Clip has been given back so that it is not given back twice
+    private final AtomicBoolean released = new AtomicBoolean();
+
     /**
      * Constructor for the PlayFile Class.
      *
      * @param filename String object that represents the file path of the WAV file to be played
      */
     public PlayFile(String filename) {
+        this(filename, null);
+    }
+
+    /**
+     * Constructor for the PlayFile Class where the Clip is borrowed from a LinePool. The Clip is given back to the
+     * pool once it has finished playing
+     *
+     * @param filename String object that represents the file path of the WAV file to be played
+     * @param linePool LinePool object that the Clip is borrowed from
+     */
+    public PlayFile(String filename, LinePool linePool) {
         this.filename = filename;
+        this.linePool = linePool;
+        this.lineListeners = new ArrayList<>();
 
         // This converts the WAV into a clip
         initiateClip();
@@ -33,23 +63,56 @@ public class PlayFile implements Runnable {
     }
 
     /**
-     * Method to initiate the thread object. The PlayFile object will play the WAV file
-     * associated to the clip
+     * Constructor for the PlayFile Class where the Clip is already open i.e. it is kept by a SoundBank. Nothing is
+     * decoded or opened
+     *
+     * @param filename String object that represents the file path of the WAV file to be played
+     * @param clip The open Clip object holding the audio of the WAV file
+     * @param resident true if the Clip should be rewound rather than closed once it has been played
      */
-    public void run() {
-        try {
-            this.clip.start();
+    public PlayFile(String filename, Clip clip, boolean resident) {
+        this.filename = filename;
+        this.clip = clip;
+        this.resident = resident;
+        this.lineListeners = new ArrayList<>();
+        clip.setFramePosition(0);
+    }
 
-            // To keep the sound playing for the exact amount of time needed
-            while(this.clip.getMicrosecondLength() != this.clip.getMicrosecondPosition());
+    /**
+     * Method starts the clip without waiting for it to finish. The Clip is given back once it has stopped, or when
+     * finish() is called in case the mixer never delivers the STOP event
+     */
+    public void start() {
+        // Added after the listeners of the caller so that they are notified before the Clip is given back
+        addLineListener(new LineListener() {
+            @Override
+            public void update(LineEvent event) {
+                if (event.getType() == LineEvent.Type.STOP)
+                    finish();
+            }
+        });
+        this.clip.start();
+    }
 
-            // Cleaning up
-            this.clip.drain();
-            this.clip.stop();
+    /**
+     * Method stops the clip if it is still playing and gives it back. Calling this more than once has no effect
+     */
+    public void finish() {
+        if (this.clip == null || released.get())
+            return;
+        this.clip.stop();
+        releaseClip();
+    }
 
-        } catch (Exception ex) {
-            ex.printStackTrace();
-        }
+    /**
+     * Method adds a LineListener to the Clip. Listeners added through this method are removed once the clip has
+     * finished playing so that a Clip that is played again does not notify the listeners of a previous run
+     *
+     * @param lineListener A LineListener object to be notified of the START and STOP events of the Clip
+     */
+    public void addLineListener(LineListener lineListener) {
+        lineListeners.add(lineListener);
+        clip.addLineListener(lineListener);
     }
 
     /**
@@ -79,6 +142,25 @@ public class PlayFile implements Runnable {
         return filename;
     }
 
+    /* Helper method that takes off the listeners of this run and then rewinds the Clip if it is resident, gives it
+     * back to the pool, or closes it if it was not borrowed. Events that have already been posted by the Clip are
+     * still delivered */
+    private void releaseClip() {
+        if (!released.compareAndSet(false, true))
+            return;
+
+        for (LineListener lineListener: lineListeners)
+            clip.removeLineListener(lineListener);
+        lineListeners.clear();
+
+        if (resident)
+            clip.setFramePosition(0);
+        else if (linePool != null)
+            linePool.release(clip);
+        else
+            clip.close();
+    }
+
     /* Method to convert the WAV file into a clip */ // PUT THIS IN A THREAD
     /*private void initiateClip() {
         try {
@@ -94,9 +176,14 @@ public class PlayFile implements Runnable {
     }*/
     private void initiateClip() {
         try {
+            if (linePool != null) {
+                clip = linePool.borrowClip(filename);
+                return;
+            }
+
             ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
             URL url = classLoader.getResource(filename);
-            Clip salsaClip = AudioSystem.getClip();
+            Clip salsaClip = AudioBackend.create().getClip();
             AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(url);
             salsaClip.open(audioInputStream);
             clip = salsaClip;
@@ -123,6 +210,12 @@ public class PlayFile implements Runnable {
             }
         });
 
-        testing2.run();
+        testing2.start();
+        try {
+            Thread.sleep(testing2.getMillisecondLength());
+        } catch (InterruptedException ex) {
+            ex.printStackTrace();
+        }
+        testing2.finish();
     }
 }
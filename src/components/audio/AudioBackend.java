@@ -0,0 +1,57 @@
+package components.audio;
+
+import javax.sound.sampled.*;
+
+/**
+ * AudioBackend interface that is implemented by anything that can give the application its output lines. The lines
+ * of the sound card are given by the SystemAudioBackend, whereas the NullAudioBackend gives lines that play silently
+ * but keep the same timing, so that the game can be run on machines without a sound device.
+ *
+ * The backend is chosen with the system property salsa.audio, which can be set to "system" or "null". If it is not
+ * set, the NullAudioBackend is only used when there is no sound device. The speed of the NullAudioBackend is set with
+ * the system property salsa.audio.speed.
+ *
+ * @author Gareth Iguasnia
+ * @date 16/04/2020
+ */
+public interface AudioBackend {
+    String BACKEND_PROPERTY = "salsa.audio";
+    String SPEED_PROPERTY = "salsa.audio.speed";
+
+    /**
+     * Method returns a Clip that has not been opened yet
+     *
+     * @return A Clip object
+     * @throws LineUnavailableException If the backend cannot give another line
+     */
+    Clip getClip() throws LineUnavailableException;
+
+    /**
+     * Method returns a SourceDataLine that has not been opened yet
+     *
+     * @param format AudioFormat object of the PCM data that will be written to the line
+     * @return A SourceDataLine object
+     * @throws LineUnavailableException If the backend cannot give another line
+     */
+    SourceDataLine getSourceDataLine(AudioFormat format) throws LineUnavailableException;
+
+    String getName();
+
+    /**
+     * Method creates the backend chosen by the system properties
+     *
+     * @return An AudioBackend object
+     */
+    static AudioBackend create() {
+        String backend = System.getProperty(BACKEND_PROPERTY, "");
+
+        if (backend.equals("null"))
+            return new NullAudioBackend(Double.parseDouble(System.getProperty(SPEED_PROPERTY, "1")));
+
+        if (backend.equals("system") || SystemAudioBackend.isAvailable())
+            return new SystemAudioBackend();
+
+        System.out.println("No sound device was found, so the audio will be played silently");
+        return new NullAudioBackend(1);
+    }
+}
@@ -0,0 +1,79 @@
+package components.audio;
+
+/**
+ * AudioClock Class that uses the frame position of the line of the StreamingPlaybackEngine as the master clock of the
+ * game. The frame position is exactly where the user is in the music, whereas the system clock drifts away from the
+ * audio and only knows when a line event was delivered, not when the sound was heard.
+ *
+ * Some mixers only move the frame position on when a whole buffer has been played. The position is therefore
+ * extrapolated with System.nanoTime() from the last time it moved, by no more than the size of the line buffer.
+ *
+ * @author Gareth Iguasnia
+ * @date 14/04/2020
+ */
+public class AudioClock {
+    // The line whose frame position is the clock
+    private final StreamingPlaybackEngine playbackEngine;
+
+    // The last frame position read from the line and the System.nanoTime() at which it was first seen
+    private long anchorFrame = -1;
+    private long anchorNanos;
+
+    /**
+     * Constructor for the AudioClock Class.
+     *
+     * @param playbackEngine The StreamingPlaybackEngine object playing the Salsa audio
+     */
+    public AudioClock(StreamingPlaybackEngine playbackEngine) {
+        this.playbackEngine = playbackEngine;
+    }
+
+    /**
+     * Method returns the frame of the line that is being heard right now
+     *
+     * @return A long representing the current frame position of the line
+     */
+    public long getFramePosition() {
+        return getFramePosition(System.nanoTime());
+    }
+
+    /**
+     * Method converts a System.nanoTime() timestamp into the frame of the line that was being heard at that time. This
+     * is used to convert the timestamp of the user's input into the timebase of the audio
+     *
+     * @param nanoTime A long representing a timestamp taken with System.nanoTime()
+     * @return A long representing the frame position of the line at that timestamp
+     */
+    public synchronized long getFramePosition(long nanoTime) {
+        float frameRate = playbackEngine.getFrameRate();
+        long now = System.nanoTime();
+        long linePosition = playbackEngine.getFramePosition();
+
+        if (linePosition != anchorFrame) {
+            anchorFrame = linePosition;
+            anchorNanos = now;
+        }
+        if (frameRate <= 0)
+            return linePosition;
+
+        // Extrapolating from the last time the line moved on, but never by more than one line buffer
+        long maxExtrapolation = playbackEngine.getLineBufferFrames();
+        long extrapolated = Math.min(nanosToFrames(now - anchorNanos, frameRate), maxExtrapolation);
+
+        return linePosition + extrapolated - nanosToFrames(now - nanoTime, frameRate);
+    }
+
+    /**
+     * Method returns the frame rate of the clock
+     *
+     * @return A float representing the number of frames per second, or 0 if the line has not been opened
+     */
+    public float getFrameRate() {
+        return playbackEngine.getFrameRate();
+    }
+
+    /* Helper method that converts a duration in nanoseconds into frames */
+    private long nanosToFrames(long nanos, float frameRate) {
+        return Math.round(nanos * (double) frameRate / 1_000_000_000L);
+    }
+}
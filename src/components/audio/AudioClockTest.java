@@ -0,0 +1,81 @@
+package components.audio;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioClockTest {
+    // 10 ms at 44.1 kHz
+    private static final long LINE_BUFFER_FRAMES = 441;
+
+    @Test
+    void extrapolationIsCappedAtOneLineBuffer() throws Exception {
+        LinePosition linePosition = new LinePosition(44100);
+        AudioClock audioClock = new AudioClock(linePosition);
+
+        // The line has just moved on, so there is nothing to extrapolate
+        linePosition.framePosition = 1000;
+        long now = System.nanoTime();
+        assertEquals(1000, audioClock.getFramePosition(now), 44);
+
+        // The line has not moved for far longer than its buffer, so the position is only moved on by the buffer
+        Thread.sleep(50);
+        now = System.nanoTime();
+        assertEquals(1000 + LINE_BUFFER_FRAMES, audioClock.getFramePosition(now), 44);
+
+        // The extrapolation starts again once the line moves on
+        linePosition.framePosition = 5000;
+        now = System.nanoTime();
+        assertEquals(5000, audioClock.getFramePosition(now), 44);
+    }
+
+    @Test
+    void timestampIsConvertedToTheFrameHeardAtThatTime() {
+        LinePosition linePosition = new LinePosition(44100);
+        AudioClock audioClock = new AudioClock(linePosition);
+        linePosition.framePosition = 10000;
+
+        // An input from 5 ms ago was heard 220 frames before the frame being heard now
+        long now = System.nanoTime();
+        assertEquals(10000 - 220, audioClock.getFramePosition(now - 5_000_000L), 44);
+    }
+
+    @Test
+    void positionIsNotExtrapolatedBeforeTheLineIsOpened() throws Exception {
+        LinePosition linePosition = new LinePosition(0);
+        AudioClock audioClock = new AudioClock(linePosition);
+
+        audioClock.getFramePosition();
+        Thread.sleep(20);
+        assertEquals(0, audioClock.getFramePosition(System.nanoTime() - 5_000_000L));
+    }
+
+    /**
+     * LinePosition Innerclass that extends the StreamingPlaybackEngine so that the frame position of its line can be
+     * set by the test instead of moving on in real time
+     */
+    private static class LinePosition extends StreamingPlaybackEngine {
+        private final float frameRate;
+        private volatile long framePosition;
+
+        private LinePosition(float frameRate) {
+            super(new LinePool(new NullAudioBackend(1)));
+            this.frameRate = frameRate;
+        }
+
+        @Override
+        public long getFramePosition() {
+            return framePosition;
+        }
+
+        @Override
+        public float getFrameRate() {
+            return frameRate;
+        }
+
+        @Override
+        public long getLineBufferFrames() {
+            return LINE_BUFFER_FRAMES;
+        }
+    }
+}
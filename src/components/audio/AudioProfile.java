@@ -0,0 +1,117 @@
+package components.audio;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * AudioProfile Enum Class that holds the ways the Salsa audio clips can be kept resident. The STANDARD profile keeps
+ * the decoded PCM as it is, whereas the LOW_MEMORY profile mixes every clip down to mono and encodes it in 8 bit
+ * mu-law when it is loaded, so that it takes a quarter of the memory and is decoded as it is played. The budget of
+ * the ClipCache shrinks by the same amount, so both profiles keep roughly the same number of clips resident.
+ *
+ * The profile is chosen with the system property salsa.audio.profile, which can be set to "standard" or
+ * "low-memory". It is meant for machines with little memory i.e. the kiosks.
+ *
+ * @author Gareth Iguasnia
+ * @date 19/04/2020
+ */
+public enum AudioProfile {
+    STANDARD("standard", ClipCache.DEFAULT_BYTE_BUDGET),
+    LOW_MEMORY("low-memory", ClipCache.DEFAULT_BYTE_BUDGET / 4);
+
+    public static final String PROFILE_PROPERTY = "salsa.audio.profile";
+
+    private final String name;
+    private final long byteBudget;
+
+    /**
+     * Constructor for the AudioProfile Enum class
+     *
+     * @param name String representing the value of the system property that chooses the profile
+     * @param byteBudget A long representing the budget of the ClipCache under the profile
+     */
+    AudioProfile(String name, long byteBudget) {
+        this.name = name;
+        this.byteBudget = byteBudget;
+    }
+
+    /**
+     * Method returns the profile chosen by the system property. The STANDARD profile is used if it is not set
+     *
+     * @return The AudioProfile chosen
+     */
+    public static AudioProfile create() {
+        String profile = System.getProperty(PROFILE_PROPERTY, STANDARD.name);
+        for (AudioProfile audioProfile: values()) {
+            if (audioProfile.name.equals(profile))
+                return audioProfile;
+        }
+
+        System.out.println("There is no audio profile called " + profile + ", so the standard profile is used");
+        return STANDARD;
+    }
+
+    /**
+     * Method converts a decoded clip into the way it is kept resident under the profile
+     *
+     * @param segment AudioSegment object holding the decoded clip
+     * @return The AudioSegment object to keep resident, which is the segment itself under the STANDARD profile
+     * @throws UnsupportedAudioFileException If the clip cannot be converted
+     */
+    public AudioSegment compact(AudioSegment segment) throws UnsupportedAudioFileException {
+        if (this == STANDARD)
+            return segment;
+        return MuLawSegment.encode(segment);
+    }
+
+    /**
+     * Method describes how much memory a clip saves under the profile and how much of its quality is lost. The loss
+     * is the signal to noise ratio of the compacted clip against the clip mixed down to mono, as the stereo image is
+     * dropped on purpose
+     *
+     * @param decoded AudioSegment object holding the decoded clip
+     * @param compacted AudioSegment object that compact(decoded) returned
+     * @return A String object describing the size and quality of the compacted clip
+     */
+    public static String report(AudioSegment decoded, AudioSegment compacted) {
+        byte[] original = new byte[(int) decoded.getByteLength()];
+        byte[] converted = new byte[original.length];
+        decoded.read(0, original, 0, original.length);
+        compacted.read(0, converted, 0, converted.length);
+
+        // The samples are compared a frame at a time as 16 bit PCM, against the mean of the channels of the frame
+        boolean bigEndian = decoded.getFormat().isBigEndian();
+        int channels = decoded.getFormat().getChannels();
+        int frameSize = decoded.getFormat().getFrameSize();
+        double signal = 0;
+        double noise = 0;
+        for (int frame = 0; frame + frameSize <= original.length; frame += frameSize) {
+            int sum = 0;
+            for (int channel = 0; channel < channels; channel++)
+                sum += readSample(original, frame + 2 * channel, bigEndian);
+            int mono = sum / channels;
+            int error = readSample(converted, frame, bigEndian) - mono;
+            signal += (double) mono * mono;
+            noise += (double) error * error;
+        }
+        double snr = noise == 0 ? Double.POSITIVE_INFINITY : 10 * Math.log10(signal / noise);
+
+        return String.format("%s: %d bytes kept in %d bytes (%.1fx smaller), %.1f dB signal to noise against the " +
+                        "mono mix", decoded.getName(), decoded.getResidentBytes(), compacted.getResidentBytes(),
+                (double) decoded.getResidentBytes() / compacted.getResidentBytes(), snr);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getByteBudget() {
+        return byteBudget;
+    }
+
+    /* Helper method that reads a 16 bit sample out of the buffer */
+    private static int readSample(byte[] buffer, int index, boolean bigEndian) {
+        int low = buffer[index + (bigEndian ? 1 : 0)] & 0xFF;
+        int high = buffer[index + (bigEndian ? 0 : 1)];
+        return (short) ((high << 8) | low);
+    }
+}
@@ -0,0 +1,171 @@
+package components.audio;
+
+import components.PlayFile;
+import components.ingame.BeatScheduler;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AudioScheduler Class that starts the Clips of the game at a target System.nanoTime() timestamp from a single thread.
+ * Previously every Clip was handed to a new thread that submitted it to an ExecutorService and waited on the Future, so
+ * a Clip was only started whenever the previous one happened to return.
+ *
+ * The Clips are started and given back as events of a BeatScheduler of its own, which hands them over through a
+ * lock-free queue, so the threads of the game never wait on the scheduler. The scheduler thread parks until just
+ * before the earliest target and then spins for the last LOOKAHEAD_NANOS so that the Clip is not started late because
+ * the thread was woken up late. The number of Clips waiting to be started and how late each Clip was started are
+ * recorded.
+ *
+ * @author Gareth Iguasnia
+ * @date 16/04/2020
+ */
+public class AudioScheduler {
+    // How long before the target the scheduler thread stops parking and spins until the target is reached
+    public static final long LOOKAHEAD_NANOS = 2_000_000L;
+
+    // How long after the expected end of a Clip it is given back in case the mixer never delivers the STOP event
+    private static final long COMPLETION_GRACE_NANOS = 1_000_000_000L;
+
+    // Runs the starts of the Clips and the checks that they have been given back
+    private final BeatScheduler scheduler;
+
+    // The end of the last Clip that was queued with scheduleNext(...) as a System.nanoTime() timestamp
+    private final AtomicLong lastEndNanos;
+
+    // The number of Clips that have been submitted but not started yet
+    private final AtomicInteger queueDepth;
+
+    // How late the Clips were started. These are only written by the scheduler thread
+    private volatile long startedSounds;
+    private volatile long lastLatenessNanos;
+    private volatile long maxLatenessNanos;
+    private volatile long totalLatenessNanos;
+
+    /**
+     * Constructor for the AudioScheduler Class. The scheduler thread is started straight away
+     *
+     * @param threadName String object representing the name of the scheduler thread
+     */
+    public AudioScheduler(String threadName) {
+        this.scheduler = new BeatScheduler(threadName, LOOKAHEAD_NANOS);
+        this.lastEndNanos = new AtomicLong(Long.MIN_VALUE);
+        this.queueDepth = new AtomicInteger();
+    }
+
+    /**
+     * Method queues the Clip to be started at the target timestamp. If the target has already passed, the Clip is
+     * started straight away
+     *
+     * @param playFile PlayFile object holding the Clip to be played
+     * @param targetNanos A long representing the System.nanoTime() at which the Clip should start playing
+     */
+    public void schedule(PlayFile playFile, long targetNanos) {
+        queueDepth.incrementAndGet();
+        scheduler.schedule("Clip", new Runnable() {
+            @Override
+            public void run() {
+                start(playFile, targetNanos);
+            }
+        }, targetNanos);
+    }
+
+    /**
+     * Method queues the Clip to be started as soon as the last Clip queued through this method has finished, or
+     * straight away if nothing is playing. This is how the countdown clip is played
+     *
+     * @param playFile PlayFile object holding the Clip to be played
+     * @return A long representing the System.nanoTime() at which the Clip will start playing
+     */
+    public long scheduleNext(PlayFile playFile) {
+        long lengthNanos = playFile.getMillisecondLength() * 1_000_000L;
+        long targetNanos;
+        long previousEnd;
+
+        do {
+            previousEnd = lastEndNanos.get();
+            long now = System.nanoTime();
+            targetNanos = previousEnd == Long.MIN_VALUE || previousEnd - now < 0 ? now : previousEnd;
+        } while (!lastEndNanos.compareAndSet(previousEnd, targetNanos + lengthNanos));
+
+        schedule(playFile, targetNanos);
+        return targetNanos;
+    }
+
+    /**
+     * Method returns the number of Clips that have been queued but not started yet
+     *
+     * @return An integer representing the depth of the queue
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public long getStartedSounds() {
+        return startedSounds;
+    }
+
+    /**
+     * Method returns how late the last Clip was started compared to its target
+     *
+     * @return A long representing the lateness in nanoseconds
+     */
+    public long getLastLatenessNanos() {
+        return lastLatenessNanos;
+    }
+
+    public long getMaxLatenessNanos() {
+        return maxLatenessNanos;
+    }
+
+    /**
+     * Method returns how late the Clips were started on average compared to their targets
+     *
+     * @return A long representing the mean lateness in nanoseconds, or 0 if no Clip has been started
+     */
+    public long getMeanLatenessNanos() {
+        long started = startedSounds;
+        return started == 0 ? 0 : totalLatenessNanos / started;
+    }
+
+    /**
+     * Method stops the scheduler thread. Clips that have not been started yet are not played
+     */
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "AudioScheduler[queued=" + getQueueDepth() + ", started=" + startedSounds + ", lateness last=" +
+                lastLatenessNanos / 1000 + "us, mean=" + getMeanLatenessNanos() / 1000 + "us, max=" +
+                maxLatenessNanos / 1000 + "us]";
+    }
+
+    /* Helper method run by the scheduler thread that starts the Clip, records how late it was and schedules the check
+     * for the end of the Clip */
+    private void start(PlayFile playFile, long targetNanos) {
+        try {
+            playFile.start();
+        }
+        catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        long startedAt = System.nanoTime();
+        queueDepth.decrementAndGet();
+
+        long lateness = startedAt - targetNanos;
+        lastLatenessNanos = lateness;
+        totalLatenessNanos += lateness;
+        if (lateness > maxLatenessNanos)
+            maxLatenessNanos = lateness;
+        startedSounds++;
+
+        scheduler.schedule("Clip end", new Runnable() {
+            @Override
+            public void run() {
+                playFile.finish();
+            }
+        }, startedAt + playFile.getMillisecondLength() * 1_000_000L + COMPLETION_GRACE_NANOS);
+    }
+}
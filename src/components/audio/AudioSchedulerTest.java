@@ -0,0 +1,85 @@
+package components.audio;
+
+import components.PlayFile;
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.LineEvent;
+import javax.sound.sampled.LineListener;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioSchedulerTest {
+    private final String countdown = "assets/sounds/countdown/countdown_5-0.wav";
+
+    @Test
+    void clipStartsAtItsTarget() throws Exception {
+        LinePool linePool = new LinePool(new NullAudioBackend(1));
+        AudioScheduler audioScheduler = new AudioScheduler("test-audio-scheduler");
+        PlayFile playFile = new PlayFile(countdown, linePool);
+
+        long[] startedAt = new long[1];
+        CountDownLatch started = new CountDownLatch(1);
+        playFile.addLineListener(new LineListener() {
+            @Override
+            public void update(LineEvent event) {
+                if (event.getType() == LineEvent.Type.START) {
+                    startedAt[0] = System.nanoTime();
+                    started.countDown();
+                }
+            }
+        });
+
+        long target = System.nanoTime() + 50_000_000L;
+        audioScheduler.schedule(playFile, target);
+        assertEquals(1, audioScheduler.getQueueDepth());
+
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        assertTrue(startedAt[0] - target >= 0);
+
+        // The START event can be delivered before the scheduler has recorded the start
+        while (audioScheduler.getStartedSounds() == 0)
+            Thread.sleep(1);
+        assertEquals(0, audioScheduler.getQueueDepth());
+        assertEquals(1, audioScheduler.getStartedSounds());
+        assertTrue(audioScheduler.getMaxLatenessNanos() < 20_000_000L);
+
+        playFile.finish();
+        assertEquals(0, linePool.getBorrowedLines());
+        audioScheduler.shutdown();
+        linePool.closeAll();
+    }
+
+    @Test
+    void clipsAreQueuedBackToBack() throws Exception {
+        LinePool linePool = new LinePool(new NullAudioBackend(20));
+        AudioScheduler audioScheduler = new AudioScheduler("test-audio-scheduler");
+        PlayFile first = new PlayFile(countdown, linePool);
+        PlayFile second = new PlayFile(countdown, linePool);
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        second.addLineListener(new LineListener() {
+            @Override
+            public void update(LineEvent event) {
+                if (event.getType() == LineEvent.Type.STOP)
+                    stopped.countDown();
+            }
+        });
+
+        long firstTarget = audioScheduler.scheduleNext(first);
+        long secondTarget = audioScheduler.scheduleNext(second);
+
+        // The second clip is targeted at the end of the first one
+        assertEquals(first.getMillisecondLength() * 1_000_000L, secondTarget - firstTarget);
+
+        assertTrue(stopped.await(first.getMillisecondLength() * 2 + 1000, TimeUnit.MILLISECONDS));
+        assertEquals(2, audioScheduler.getStartedSounds());
+
+        // Both Clips are given back once they have stopped
+        Thread.sleep(100);
+        assertEquals(0, linePool.getBorrowedLines());
+        audioScheduler.shutdown();
+        linePool.closeAll();
+    }
+}
@@ -0,0 +1,84 @@
+package components.audio;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * AudioSegment interface that will be implemented by any piece of audio that the StreamingPlaybackEngine can write
+ * into its line i.e. a decoded Salsa audio clip. Reading is done by position so that the same AudioSegment can be
+ * queued several times without holding on to any state about how far it has been played.
+ *
+ * @author Gareth Iguasnia
+ * @date 08/04/2020
+ */
+public interface AudioSegment {
+
+    /**
+     * Method returns the name of the segment. For a WAV file this is its resource path
+     *
+     * @return A String object representing the name of the segment
+     */
+    String getName();
+
+    /**
+     * Method returns the format of the PCM data that read(...) copies out of the segment
+     *
+     * @return An AudioFormat object
+     */
+    AudioFormat getFormat();
+
+    /**
+     * Method returns the length of the segment in sample frames
+     *
+     * @return A long representing the number of frames in the segment
+     */
+    long getFrameLength();
+
+    /**
+     * Method copies the PCM data of the segment starting at bytePosition into the buffer
+     *
+     * @param bytePosition The position in bytes from the start of the segment to read from
+     * @param buffer The byte array to copy the PCM data into
+     * @param offset The position in the buffer to start copying to
+     * @param length The maximum number of bytes to copy
+     * @return The number of bytes copied, or -1 if bytePosition is at the end of the segment
+     */
+    int read(long bytePosition, byte[] buffer, int offset, int length);
+
+    /**
+     * Method returns the length of the segment in milliseconds
+     *
+     * @return A long representing the length of the segment in milliseconds
+     */
+    default long getMillisecondLength() {
+        return (long) (getFrameLength() * 1000 / getFormat().getFrameRate());
+    }
+
+    /**
+     * Method returns the length of the segment in bytes
+     *
+     * @return A long representing the number of bytes of PCM data in the segment
+     */
+    default long getByteLength() {
+        return getFrameLength() * getFormat().getFrameSize();
+    }
+
+    /**
+     * Method returns the amount of memory the audio of the segment is held in. This is the length in bytes unless the
+     * segment holds its audio more compactly than it is read i.e. a MuLawSegment
+     *
+     * @return A long representing the number of bytes held by the segment
+     */
+    default long getResidentBytes() {
+        return getByteLength();
+    }
+
+    /**
+     * Method returns the frame of each beat from the start of the segment when the segment knows where its beats are
+     * i.e. because it was sequenced or stretched. The beats of a recording are found by the BeatTableIndex instead
+     *
+     * @return An array of longs representing the frame of each beat, or null if the segment does not know its beats
+     */
+    default long[] getBeatFrames() {
+        return null;
+    }
+}
@@ -0,0 +1,297 @@
+package components.audio;
+
+import components.ingame.BeatTimeline;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+
+/**
+ * BeatTableIndex Class that holds the frame of each beat of every Salsa audio recording, as found by the
+ * OnsetDetector. Detecting the beats of every recording takes a while, so it is only done once and the beat tables
+ * are kept in a small binary file next to the JAR file or the classes folder.
+ *
+ * The tables are keyed by the CRC32 and length of the WAV file rather than by its resource path, so a recording that
+ * is edited is analysed again and one that is renamed is not. The file is laid out as follows:
+ * - Header: magic number, version, number of tables
+ * - For each table: the key of the WAV file, the number of beats and the frame of each beat
+ *
+ * @author Gareth Iguasnia
+ * @date 18/04/2020
+ */
+public class BeatTableIndex {
+    // The name of the index file that is looked for next to the JAR file or the classes folder
+    public static final String DEFAULT_FILE_NAME = "beats.idx";
+
+    // "SLBT" - Used to check that the file is a beat table index
+    private static final int MAGIC = 0x534C4254;
+    private static final int VERSION = 1;
+
+    // The file the tables are loaded from and saved to. This is null if the tables are only kept in memory
+    private final File indexFile;
+
+    // Key - The key of a WAV file. Value - The frame of each beat from the start of the recording
+    private final Map<Long, long[]> tablesByKey;
+
+    // Key - Resource path of a WAV file. Value - Its beat table, once the file has been looked up
+    private final Map<String, long[]> tablesByFile;
+
+    /**
+     * Constructor for the BeatTableIndex Class. The index is empty until load(...) or build(...) is called
+     *
+     * @param indexFile File object that the tables are saved to, or null to keep them in memory only
+     */
+    public BeatTableIndex(File indexFile) {
+        this.indexFile = indexFile;
+        this.tablesByKey = new ConcurrentHashMap<>();
+        this.tablesByFile = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Method looks for the index file next to the JAR file, or in the classes folder when running from an IDE, and
+     * loads its tables. The index is empty if the file has not been created yet
+     *
+     * @param fileName String object representing the name of the index file
+     * @return A BeatTableIndex object that saves to that file
+     */
+    public static BeatTableIndex find(String fileName) {
+        File indexFile = null;
+        try {
+            File codeSource = new File(BeatTableIndex.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            indexFile = new File(codeSource.isFile() ? codeSource.getParentFile() : codeSource, fileName);
+        }
+        catch (URISyntaxException e) {
+            e.printStackTrace();
+        }
+
+        BeatTableIndex index = new BeatTableIndex(indexFile);
+        if (indexFile != null && indexFile.isFile()) {
+            try {
+                index.load();
+            }
+            catch (IOException e) {
+                // The tables will be detected again and the file overwritten
+                e.printStackTrace();
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Method returns the frame of each beat of the recording
+     *
+     * @param filename String object representing the resource path of the WAV file
+     * @return An array of longs representing the frame of each beat from the start of the recording, or null if the
+     * recording has not been analysed yet
+     */
+    public long[] getBeatFrames(String filename) {
+        return filename == null ? null : tablesByFile.get(filename);
+    }
+
+    /**
+     * Method detects the beats of every recording that is not in the index yet, using a pool of threads, and then
+     * saves the index if anything was added. Recordings that are already in the index are only hashed
+     *
+     * @param filenames A List of String objects representing the resource paths of the WAV files
+     * @param beats Integer representing the number of beats each recording was cut to
+     * @param threads The number of threads detecting the beats
+     * @return The number of recordings whose beats had to be detected
+     * @throws InterruptedException If the thread is interrupted while waiting for the pool
+     */
+    public int build(List<String> filenames, int beats, int threads) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "salsa-beat-detection");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (String filename: filenames) {
+            tasks.add(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    return analyse(filename, beats);
+                }
+            });
+        }
+
+        int detected = 0;
+        try {
+            for (Future<Boolean> result: executor.invokeAll(tasks)) {
+                try {
+                    if (result.get())
+                        detected++;
+                }
+                catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        if (detected > 0 && indexFile != null) {
+            try {
+                save();
+            }
+            catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return detected;
+    }
+
+    /**
+     * Method builds the index on a background thread using every core but one, so that the application can start up
+     * straight away. Recordings played before they are analysed use evenly spaced beats
+     *
+     * @param filenames A List of String objects representing the resource paths of the WAV files
+     * @param beats Integer representing the number of beats each recording was cut to
+     */
+    public void buildInBackground(List<String> filenames, int beats) {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    long start = System.currentTimeMillis();
+                    int detected = build(filenames, beats, threads);
+                    System.out.println("Beat tables ready for " + tablesByFile.size() + " recordings (" + detected +
+                            " detected) in " + (System.currentTimeMillis() - start) + " ms");
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, "salsa-beat-index");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Method loads the tables from the index file
+     *
+     * @throws IOException If the file cannot be read or is not a beat table index
+     */
+    public void load() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException(indexFile + " is not a beat table index");
+            int version = in.readInt();
+            if (version != VERSION)
+                throw new IOException(indexFile + " is version " + version + " of the beat table format, expected " +
+                        VERSION);
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long key = in.readLong();
+                long[] beatFrames = new long[in.readInt()];
+                for (int beat = 0; beat < beatFrames.length; beat++)
+                    beatFrames[beat] = in.readInt();
+                tablesByKey.put(key, beatFrames);
+            }
+        }
+    }
+
+    /**
+     * Method saves the tables to the index file. The file is written next to it and then moved into place, so a
+     * half written index is never read
+     *
+     * @throws IOException If the file cannot be written
+     */
+    public synchronized void save() throws IOException {
+        File temporary = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            // Taking a copy as the tables can still be added to while saving
+            List<Map.Entry<Long, long[]>> entries = new ArrayList<>(tablesByKey.entrySet());
+            out.writeInt(entries.size());
+            for (Map.Entry<Long, long[]> entry: entries) {
+                out.writeLong(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                for (long frame: entry.getValue())
+                    out.writeInt((int) frame);
+            }
+        }
+        Files.move(temporary.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Method returns the key of the WAV file: its CRC32 in the high 32 bits and its length in the low 32 bits
+     *
+     * @param filename String object representing the resource path of the WAV file
+     * @return A long representing the key of the contents of the file
+     * @throws IOException If the WAV file cannot be found or read
+     */
+    public static long contentKey(String filename) throws IOException {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        URL url = classLoader.getResource(filename);
+        if (url == null)
+            throw new IOException("No sound asset found at " + filename);
+
+        CRC32 crc = new CRC32();
+        long length = 0;
+        byte[] chunk = new byte[64 * 1024];
+        try (InputStream in = url.openStream()) {
+            int read;
+            while ((read = in.read(chunk)) > 0) {
+                crc.update(chunk, 0, read);
+                length += read;
+            }
+        }
+        return (crc.getValue() << 32) | (length & 0xFFFFFFFFL);
+    }
+
+    public int size() {
+        return tablesByKey.size();
+    }
+
+    /**
+     * Method detects the beats of every Salsa audio file and writes the index. This is run when packaging the
+     * application so that the beats do not have to be detected the first time it is run
+     *
+     * @param args The path of the index file to write. This defaults to beats.idx
+     */
+    public static void main(String[] args) throws InterruptedException {
+        File indexFile = new File(args.length > 0 ? args[0] : DEFAULT_FILE_NAME);
+        List<String> filenames = SoundAssetIndex.build("assets/sounds/").getAllFiles();
+
+        BeatTableIndex index = new BeatTableIndex(indexFile);
+        long start = System.currentTimeMillis();
+        index.build(filenames, BeatTimeline.BEATS_PER_STATE, Runtime.getRuntime().availableProcessors());
+        System.out.println("Detected the beats of " + index.size() + " WAV files in " +
+                (System.currentTimeMillis() - start) + " ms (" + indexFile.length() + " bytes)");
+    }
+
+    /* Helper method that looks up the beat table of the file, detecting its beats if it is not in the index. Returns
+     * true if the beats had to be detected */
+    private boolean analyse(String filename, int beats) throws IOException, UnsupportedAudioFileException {
+        long key = contentKey(filename);
+        long[] beatFrames = tablesByKey.get(key);
+        boolean detected = false;
+
+        if (beatFrames == null || beatFrames.length != beats) {
+            beatFrames = OnsetDetector.detectBeats(PcmSegment.decode(filename), beats);
+            tablesByKey.put(key, beatFrames);
+            detected = true;
+        }
+        tablesByFile.put(filename, beatFrames);
+        return detected;
+    }
+}
@@ -0,0 +1,33 @@
+package components.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BeatTableIndexTest {
+    private final String recording = "assets/sounds/180/piano/piano1.wav";
+
+    @Test
+    void buildSaveAndLoad() throws Exception {
+        File indexFile = File.createTempFile("beats", ".idx");
+        indexFile.deleteOnExit();
+        List<String> filenames = Collections.singletonList(recording);
+
+        BeatTableIndex index = new BeatTableIndex(indexFile);
+        assertEquals(1, index.build(filenames, 32, 1));
+        long[] beatFrames = index.getBeatFrames(recording);
+        assertEquals(32, beatFrames.length);
+
+        // The saved table is found by the key of the file, so nothing has to be detected again
+        BeatTableIndex loaded = new BeatTableIndex(indexFile);
+        loaded.load();
+        assertEquals(1, loaded.size());
+        assertNull(loaded.getBeatFrames(recording));
+        assertEquals(0, loaded.build(filenames, 32, 1));
+        assertArrayEquals(beatFrames, loaded.getBeatFrames(recording));
+    }
+}
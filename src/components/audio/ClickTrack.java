@@ -0,0 +1,62 @@
+package components.audio;
+
+import javax.sound.sampled.AudioFormat;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * ClickTrack Class that synthesises a metronome as a PcmSegment so that it can be played through the
+ * StreamingPlaybackEngine like any Salsa audio clip. The first click of every 4 is pitched higher so that the user
+ * can find the pulse. The PCM data is in the same format as the WAV files so that the line does not need reopening.
+ *
+ * @author Gareth Iguasnia
+ * @date 17/04/2020
+ */
+public class ClickTrack {
+    // The format of the Salsa audio WAV files
+    public static final AudioFormat FORMAT = new AudioFormat(44100, 16, 2, true, false);
+
+    // How long each click rings for
+    private static final double CLICK_SECONDS = 0.03;
+
+    // The pitch of the first click of every 4 and of the other clicks
+    private static final double ACCENT_FREQUENCY = 1500;
+    private static final double CLICK_FREQUENCY = 1000;
+
+    // The peak amplitude of a click as a fraction of full scale
+    private static final double AMPLITUDE = 0.8;
+
+    /**
+     * Method creates a click track. Click i starts exactly i * intervalMillis after the start of the segment
+     *
+     * @param clicks Integer representing the number of clicks
+     * @param intervalMillis A long representing the time between two clicks in milliseconds
+     * @return A PcmSegment object holding the click track
+     */
+    public static PcmSegment create(int clicks, long intervalMillis) {
+        float frameRate = FORMAT.getFrameRate();
+        int frameSize = FORMAT.getFrameSize();
+        int channels = FORMAT.getChannels();
+
+        long frameLength = Math.round(clicks * intervalMillis * frameRate / 1000.0);
+        ByteBuffer data = ByteBuffer.allocate((int) (frameLength * frameSize)).order(ByteOrder.LITTLE_ENDIAN);
+        int clickFrames = (int) (CLICK_SECONDS * frameRate);
+
+        for (int i = 0; i < clicks; i++) {
+            long firstFrame = Math.round(i * intervalMillis * frameRate / 1000.0);
+            double frequency = i % 4 == 0 ? ACCENT_FREQUENCY : CLICK_FREQUENCY;
+
+            for (int frame = 0; frame < clickFrames && firstFrame + frame < frameLength; frame++) {
+                // A sine wave that dies away over the length of the click
+                double envelope = Math.exp(-5.0 * frame / clickFrames);
+                short sample = (short) (Short.MAX_VALUE * AMPLITUDE * envelope *
+                        Math.sin(2 * Math.PI * frequency * frame / frameRate));
+
+                int position = (int) ((firstFrame + frame) * frameSize);
+                for (int channel = 0; channel < channels; channel++)
+                    data.putShort(position + channel * 2, sample);
+            }
+        }
+        return new PcmSegment("click track " + clicks + "x" + intervalMillis + "ms", FORMAT, data);
+    }
+}
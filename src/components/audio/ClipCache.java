@@ -0,0 +1,256 @@
+package components.audio;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * ClipCache Class that keeps the decoded Salsa audio clips resident so that revisiting a State does not decode the
+ * WAV file all over again. The clips are keyed by their resource path which already holds the BPM, the combination of
+ * instruments and the file i.e. assets/sounds/180/piano_bass/bass1_piano2.wav
+ *
+ * The clips are held as AudioSegments that are written to the line of the StreamingPlaybackEngine, so no line is held
+ * per clip. The cache is given a budget in bytes. Once the decoded clips go over this budget, the least recently used
+ * clips are dropped from the cache.
+ *
+ * The clips are kept in the way set by the AudioProfile of the cache. The first clip loaded under a profile that
+ * compacts the clips is reported along with the memory it saved and the quality it lost.
+ *
+ * @author Gareth Iguasnia
+ * @date 02/04/2020
+ */
+public class ClipCache {
+    // Default budget of the cache - this holds roughly 30 of the Salsa audio clips
+    public static final long DEFAULT_BYTE_BUDGET = 64L * 1024 * 1024;
+
+    // Access ordered so that iterating over the map goes from the least recently used clip to the most recent one
+    private final LinkedHashMap<String, AudioSegment> clips;
+
+    // The maximum amount of bytes of decoded audio that the cache will hold on to
+    private long byteBudget;
+
+    // The amount of bytes of decoded audio that is currently held by the cache
+    private long residentBytes;
+
+    // The way the decoded clips are kept resident, and whether a clip has been reported under it
+    private AudioProfile profile;
+    private boolean reported;
+
+    // Counters so that the budget can be sized for the machine the application is running on
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Constructor for the ClipCache Class.
+     *
+     * @param byteBudget A long representing the maximum amount of bytes of decoded audio the cache can hold
+     */
+    public ClipCache(long byteBudget) {
+        this(byteBudget, AudioProfile.STANDARD);
+    }
+
+    /**
+     * Constructor for the ClipCache Class.
+     *
+     * @param byteBudget A long representing the maximum amount of bytes of decoded audio the cache can hold
+     * @param profile The AudioProfile that sets how the decoded clips are kept resident
+     */
+    public ClipCache(long byteBudget, AudioProfile profile) {
+        this.byteBudget = byteBudget;
+        this.profile = profile;
+        this.clips = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Method returns the decoded audio of the WAV file found at the resource path. If the clip is not resident, then it
+     * is decoded first. A segment that has been evicted can still be played by anything that is holding on to it.
+     *
+     * @param filename String object representing the resource path of the WAV file
+     * @return An AudioSegment object holding the decoded audio of the WAV file
+     * @throws IOException If the WAV file cannot be read
+     * @throws UnsupportedAudioFileException If the WAV file is not in a supported format
+     */
+    public synchronized AudioSegment get(String filename) throws IOException, UnsupportedAudioFileException {
+        AudioSegment segment = clips.get(filename);
+
+        if (segment != null) {
+            hits++;
+        }
+        else {
+            misses++;
+            segment = load(filename);
+            clips.put(filename, segment);
+            residentBytes += segment.getResidentBytes();
+
+            // The newly decoded clip might have taken the cache over its budget
+            evictOverBudget();
+        }
+        return segment;
+    }
+
+    /**
+     * Method returns the clip if it is resident, without loading it when it is not
+     *
+     * @param key String object representing the resource path of the WAV file, or the key the clip was put under
+     * @return The AudioSegment object held by the cache, or null if the clip is not resident
+     */
+    public synchronized AudioSegment getIfPresent(String key) {
+        AudioSegment segment = clips.get(key);
+        if (segment != null)
+            hits++;
+        return segment;
+    }
+
+    /**
+     * Method adds audio that was not decoded from a WAV file to the cache i.e. a recording that has been stretched to
+     * another tempo. The audio counts towards the budget like any other clip
+     *
+     * @param key String object that the audio is looked up by
+     * @param segment AudioSegment object holding the audio
+     */
+    public synchronized void put(String key, AudioSegment segment) {
+        AudioSegment previous = clips.put(key, segment);
+        if (previous != null)
+            residentBytes -= previous.getResidentBytes();
+        residentBytes += segment.getResidentBytes();
+        evictOverBudget();
+    }
+
+    /**
+     * Method decodes the clip into the cache if it is not resident, without counting it as a hit or a miss. Unlike
+     * get(...), the WAV file is decoded outside of the lock of the cache so that several clips can be warmed at once
+     *
+     * @param filename String object representing the resource path of the WAV file
+     * @return The AudioSegment object that was decoded into the cache, or null if the clip was already resident
+     * @throws IOException If the WAV file cannot be read
+     * @throws UnsupportedAudioFileException If the WAV file is not in a supported format
+     */
+    public AudioSegment warm(String filename) throws IOException, UnsupportedAudioFileException {
+        AudioProfile profile = getProfile();
+        if (contains(filename))
+            return null;
+
+        AudioSegment segment = load(filename);
+        synchronized (this) {
+            // Another thread might have decoded the clip, or the profile changed, while it was being decoded
+            if (clips.containsKey(filename) || this.profile != profile)
+                return null;
+            clips.put(filename, segment);
+            residentBytes += segment.getResidentBytes();
+            evictOverBudget();
+        }
+        return segment;
+    }
+
+    /**
+     * Method checks whether the clip is resident without counting it as a hit or marking it as recently used
+     *
+     * @param filename String object representing the resource path of the WAV file
+     * @return true if the decoded clip is held by the cache, false otherwise
+     */
+    public synchronized boolean contains(String filename) {
+        return clips.containsKey(filename);
+    }
+
+    /**
+     * Method changes the byte budget of the cache. Clips are evicted straight away if the cache is over the new budget
+     *
+     * @param byteBudget A long representing the maximum amount of bytes of decoded audio the cache can hold
+     */
+    public synchronized void setByteBudget(long byteBudget) {
+        this.byteBudget = byteBudget;
+        evictOverBudget();
+    }
+
+    /**
+     * Method changes the way the decoded clips are kept resident. The clips held by the cache are dropped so that
+     * every clip is kept the same way
+     *
+     * @param profile The AudioProfile that sets how the decoded clips are kept resident
+     */
+    public synchronized void setProfile(AudioProfile profile) {
+        if (this.profile == profile)
+            return;
+        this.profile = profile;
+        this.reported = false;
+        clear();
+    }
+
+    public synchronized AudioProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Method drops every clip held by the cache
+     */
+    public synchronized void clear() {
+        evictions += clips.size();
+        clips.clear();
+        residentBytes = 0;
+    }
+
+    public synchronized long getByteBudget() {
+        return byteBudget;
+    }
+
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    public synchronized int getResidentClips() {
+        return clips.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ClipCache[profile=" + profile.getName() + ", clips=" + clips.size() + ", resident=" + residentBytes +
+                "/" + byteBudget + " bytes, hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "]";
+    }
+
+    /**
+     * Method decodes the WAV file into an AudioSegment kept the way set by the AudioProfile. This has been left
+     * protected so that the way the audio is loaded can be swapped out without changing the eviction logic
+     *
+     * @param filename String object representing the resource path of the WAV file
+     * @return A newly decoded AudioSegment object
+     */
+    protected AudioSegment load(String filename) throws IOException, UnsupportedAudioFileException {
+        PcmSegment decoded = PcmSegment.decode(filename);
+        AudioProfile profile = getProfile();
+        AudioSegment segment = profile.compact(decoded);
+
+        synchronized (this) {
+            if (segment != decoded && !reported) {
+                System.out.println("Audio profile " + profile.getName() + " - " + AudioProfile.report(decoded, segment));
+                reported = true;
+            }
+        }
+        return segment;
+    }
+
+    /* Helper method that drops the least recently used clips until the cache is back within its budget. The most
+     * recently used clip is always kept */
+    private void evictOverBudget() {
+        Iterator<AudioSegment> iterator = clips.values().iterator();
+        while (residentBytes > byteBudget && clips.size() > 1 && iterator.hasNext()) {
+            AudioSegment segment = iterator.next();
+            residentBytes -= segment.getResidentBytes();
+            evictions++;
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package components.audio;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.AudioFormat;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClipCacheTest {
+    private final AudioFormat format = new AudioFormat(44100, 16, 2, true, false);
+
+    @Test
+    void leastRecentlyUsedClipIsEvicted() throws Exception {
+        // Every clip is 100 bytes, so the cache holds three of them
+        ArrayList<String> loaded = new ArrayList<>();
+        ClipCache clipCache = cache(300, loaded);
+
+        clipCache.get("a");
+        clipCache.get("b");
+        clipCache.get("c");
+        assertEquals(300, clipCache.getResidentBytes());
+        assertEquals(0, clipCache.getEvictions());
+
+        // Using a makes b the least recently used clip
+        clipCache.get("a");
+        clipCache.get("d");
+
+        assertTrue(clipCache.contains("a"));
+        assertFalse(clipCache.contains("b"));
+        assertTrue(clipCache.contains("c"));
+        assertTrue(clipCache.contains("d"));
+        assertEquals(300, clipCache.getResidentBytes());
+        assertEquals(1, clipCache.getEvictions());
+
+        // Only the misses were decoded, and b is decoded again once it has been evicted
+        clipCache.get("b");
+        assertEquals(5, loaded.size());
+        assertEquals(1, clipCache.getHits());
+        assertEquals(5, clipCache.getMisses());
+    }
+
+    @Test
+    void cacheIsKeptWithinItsByteBudget() throws Exception {
+        ClipCache clipCache = cache(250, new ArrayList<>());
+
+        clipCache.get("a");
+        clipCache.get("b");
+        clipCache.put("stretched", segment("stretched", 100));
+        assertEquals(200, clipCache.getResidentBytes());
+        assertFalse(clipCache.contains("a"));
+
+        // Replacing a clip only counts the new audio
+        clipCache.put("stretched", segment("stretched", 40));
+        assertEquals(140, clipCache.getResidentBytes());
+
+        // Lowering the budget evicts straight away, but the most recently used clip is always kept
+        clipCache.setByteBudget(10);
+        assertEquals(1, clipCache.getResidentClips());
+        assertTrue(clipCache.contains("stretched"));
+        assertEquals(40, clipCache.getResidentBytes());
+
+        clipCache.clear();
+        assertEquals(0, clipCache.getResidentBytes());
+        assertEquals(0, clipCache.getResidentClips());
+    }
+
+    /* Helper method that returns a cache whose clips are 100 bytes of silence rather than decoded WAV files */
+    private ClipCache cache(long byteBudget, ArrayList<String> loaded) {
+        return new ClipCache(byteBudget) {
+            @Override
+            protected AudioSegment load(String filename) {
+                loaded.add(filename);
+                return segment(filename, 100);
+            }
+        };
+    }
+
+    /* Helper method that returns a segment of silence of the given length in bytes */
+    private PcmSegment segment(String name, int bytes) {
+        return new PcmSegment(name, format, ByteBuffer.allocate(bytes));
+    }
+}
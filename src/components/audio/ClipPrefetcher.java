@@ -0,0 +1,179 @@
+package components.audio;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * ClipPrefetcher Class that decodes the Salsa audio clips of the States the game could move on to next into the
+ * ClipCache while the current clip is playing. This means that the clip chosen at the end of the State is already
+ * resident when the transition happens and does not have to be decoded at the very last moment.
+ *
+ * The clips are decoded on a small pool of low priority threads with a bounded queue, so the prefetching never
+ * competes with the audio threads. Each call to prefetch(...) starts a new round and drops whatever was still queued
+ * from the previous round. The accuracy of the prefetching and the bytes decoded for nothing are recorded.
+ *
+ * @author Gareth Iguasnia
+ * @date 13/04/2020
+ */
+public class ClipPrefetcher {
+    // The most clips that can be waiting to be decoded at once
+    private final int QUEUE_CAPACITY = 16;
+
+    // The cache that the clips are decoded into
+    private final ClipCache clipCache;
+
+    private final ThreadPoolExecutor executor;
+
+    // Key - Resource path of a clip of the current round. Value - The bytes decoded for it, 0 if it was resident
+    private final Map<String, Long> currentRound;
+
+    // Statistics of the prefetching
+    private long rounds;
+    private long prefetchedClips;
+    private long prefetchedBytes;
+    private long hits;
+    private long misses;
+    private long wastedBytes;
+
+    /**
+     * Constructor for the ClipPrefetcher Class.
+     *
+     * @param clipCache The ClipCache object that the clips are decoded into
+     * @param threads The number of threads decoding the clips
+     */
+    public ClipPrefetcher(ClipCache clipCache, int threads) {
+        this.clipCache = clipCache;
+        this.currentRound = new HashMap<>();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "salsa-audio-prefetch");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * Method starts a new round of prefetching. The clips that are not already resident are queued to be decoded into
+     * the ClipCache, and anything left over from the previous round is dropped
+     *
+     * @param filenames A Collection of String objects representing the resource paths of the likely next clips
+     */
+    public synchronized void prefetch(Collection<String> filenames) {
+        endRound();
+        executor.getQueue().clear();
+        rounds++;
+
+        for (String filename: filenames) {
+            if (currentRound.containsKey(filename))
+                continue;
+            currentRound.put(filename, 0L);
+
+            if (!clipCache.contains(filename))
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        decode(filename);
+                    }
+                });
+        }
+    }
+
+    /**
+     * Method records the clip that was actually chosen for the next State. This ends the current round
+     *
+     * @param filename String object representing the resource path of the clip that is about to be played
+     */
+    public synchronized void recordChosen(String filename) {
+        if (rounds == 0)
+            return;
+
+        if (currentRound.containsKey(filename)) {
+            hits++;
+            currentRound.remove(filename);
+        }
+        else
+            misses++;
+        endRound();
+    }
+
+    /**
+     * Method returns the fraction of the transitions where the chosen clip had been prefetched
+     *
+     * @return A double between 0 and 1, or 0 if no transition has been recorded
+     */
+    public synchronized double getAccuracy() {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getPrefetchedClips() {
+        return prefetchedClips;
+    }
+
+    public synchronized long getPrefetchedBytes() {
+        return prefetchedBytes;
+    }
+
+    public synchronized long getWastedBytes() {
+        return wastedBytes;
+    }
+
+    /**
+     * Method stops the threads of the prefetcher. Anything still queued is dropped
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ClipPrefetcher[rounds=" + rounds + ", hits=" + hits + ", misses=" + misses + ", accuracy=" +
+                Math.round(getAccuracy() * 100) + "%, prefetched=" + prefetchedClips + " clips/" + prefetchedBytes +
+                " bytes, wasted=" + wastedBytes + " bytes]";
+    }
+
+    /* Helper method run by the prefetch threads to decode a clip into the cache */
+    private void decode(String filename) {
+        try {
+            // The clip is decoded outside of the lock of the cache, so the game is not held up getting its own clip, and
+            // is not counted as a miss. Nothing is decoded if the game has decoded the clip since it was queued
+            AudioSegment segment = clipCache.warm(filename);
+            if (segment == null)
+                return;
+            long bytes = segment.getResidentBytes();
+
+            synchronized (this) {
+                prefetchedClips++;
+                prefetchedBytes += bytes;
+                if (currentRound.containsKey(filename))
+                    currentRound.put(filename, bytes);
+                else
+                    // The round ended before the clip was decoded
+                    wastedBytes += bytes;
+            }
+        }
+        catch (IOException | UnsupportedAudioFileException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /* Helper method that counts the clips decoded in the current round that were not chosen as wasted */
+    private void endRound() {
+        for (long bytes: currentRound.values())
+            wastedBytes += bytes;
+        currentRound.clear();
+    }
+}
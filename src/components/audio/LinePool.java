@@ -0,0 +1,247 @@
+package components.audio;
+
+import javax.sound.sampled.*;
+import java.io.IOException;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * LinePool Class that keeps the output lines of the application open so that they can be borrowed and given back
+ * instead of a new line being opened for every sound. Opening a line allocates a native buffer in the mixer, and
+ * some mixers refuse to open new lines once too many of them have been left open.
+ *
+ * Two kinds of line are pooled:
+ * - Clips, which hold the audio of one WAV file. These are pooled by the resource path of the file i.e. the countdown
+ * - SourceDataLines, which are written to by the StreamingPlaybackEngine. These are pooled by their AudioFormat
+ *
+ * Every line is closed by closeAll() at the end of a game. Lines that are still borrowed at that point are closed as
+ * soon as they are given back. The gauges of the pool can be used to check that no line is left open.
+ *
+ * @author Gareth Iguasnia
+ * @date 15/04/2020
+ */
+public class LinePool {
+    // Key - Resource path of the WAV file. Value - The open Clips holding that file that are not being used
+    private final Map<String, ArrayDeque<Clip>> idleClips;
+
+    // Open SourceDataLines that are not being used
+    private final ArrayList<SourceDataLine> idleSourceLines;
+
+    // Key - A line that has been borrowed. Value - The resource path of a Clip, or null for a SourceDataLine
+    private final Map<Line, String> borrowedLines;
+
+    // Lines that were borrowed when closeAll() was called and need to be closed once they are given back
+    private final Set<Line> closeOnRelease;
+
+    // Key - A line opened by the pool. Value - The size of its native buffer in bytes
+    private final Map<Line, Long> bufferedBytes;
+
+    // Counters so that it can be checked that every line that is opened is closed again
+    private long linesOpened;
+    private long linesClosed;
+
+    // Gives the pool its lines i.e. the sound card, or silent lines when there is no sound device
+    private final AudioBackend audioBackend;
+
+    /**
+     * Constructor for the LinePool Class. The lines are taken from the backend chosen by the system properties
+     */
+    public LinePool() {
+        this(AudioBackend.create());
+    }
+
+    /**
+     * Constructor for the LinePool Class. No line is opened until it is first borrowed
+     *
+     * @param audioBackend AudioBackend object that gives the pool its lines
+     */
+    public LinePool(AudioBackend audioBackend) {
+        this.audioBackend = audioBackend;
+        this.idleClips = new HashMap<>();
+        this.idleSourceLines = new ArrayList<>();
+        this.borrowedLines = new IdentityHashMap<>();
+        this.closeOnRelease = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.bufferedBytes = new IdentityHashMap<>();
+    }
+
+    /**
+     * Method borrows a Clip holding the audio of the WAV file, rewound to its first frame. The Clip is only opened
+     * if there is no idle Clip of the file in the pool
+     *
+     * @param filename String object representing the resource path of the WAV file
+     * @return An open Clip object holding the audio of the WAV file
+     * @throws LineUnavailableException If the mixer cannot open another line
+     * @throws IOException If the WAV file cannot be found or read
+     * @throws UnsupportedAudioFileException If the WAV file is not in a supported format
+     */
+    public synchronized Clip borrowClip(String filename)
+            throws LineUnavailableException, IOException, UnsupportedAudioFileException {
+        ArrayDeque<Clip> clips = idleClips.get(filename);
+        Clip clip = clips == null ? null : clips.poll();
+
+        if (clip == null) {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            URL url = classLoader.getResource(filename);
+            if (url == null)
+                throw new IOException("No sound asset found at " + filename);
+
+            clip = audioBackend.getClip();
+            try (AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(url)) {
+                clip.open(audioInputStream);
+            }
+            opened(clip, clip.getFrameLength() * (long) clip.getFormat().getFrameSize());
+        }
+        else
+            clip.setFramePosition(0);
+
+        borrowedLines.put(clip, filename);
+        return clip;
+    }
+
+    /**
+     * Method borrows a SourceDataLine that has been opened in the AudioFormat with a buffer of the given size. The
+     * line is only opened if there is no matching idle line in the pool
+     *
+     * @param format AudioFormat object of the PCM data that will be written to the line
+     * @param bufferSize Integer representing the size of the buffer of the line in bytes
+     * @return An open SourceDataLine object that has not been started
+     * @throws LineUnavailableException If the mixer cannot open another line
+     */
+    public synchronized SourceDataLine borrowSourceLine(AudioFormat format, int bufferSize)
+            throws LineUnavailableException {
+        SourceDataLine line = null;
+
+        for (Iterator<SourceDataLine> iterator = idleSourceLines.iterator(); iterator.hasNext(); ) {
+            SourceDataLine idleLine = iterator.next();
+            if (idleLine.getFormat().matches(format) && bufferedBytes.get(idleLine) == bufferSize) {
+                line = idleLine;
+                iterator.remove();
+                break;
+            }
+        }
+
+        if (line == null) {
+            line = audioBackend.getSourceDataLine(format);
+            line.open(format, bufferSize);
+            opened(line, bufferSize);
+        }
+
+        borrowedLines.put(line, null);
+        return line;
+    }
+
+    /**
+     * Method opens a SourceDataLine ahead of time and leaves it idle in the pool so that borrowing it later does not
+     * have to wait for the mixer
+     *
+     * @param format AudioFormat object of the PCM data that will be written to the line
+     * @param bufferSize Integer representing the size of the buffer of the line in bytes
+     * @throws LineUnavailableException If the mixer cannot open another line
+     */
+    public synchronized void prepareSourceLine(AudioFormat format, int bufferSize) throws LineUnavailableException {
+        release(borrowSourceLine(format, bufferSize));
+    }
+
+    /**
+     * Method gives back a line that was borrowed from the pool. The line is stopped and kept open for the next time
+     * it is needed, unless closeAll() was called while it was borrowed
+     *
+     * @param line The Line object that was borrowed
+     */
+    public synchronized void release(Line line) {
+        if (line == null || !borrowedLines.containsKey(line))
+            return;
+        String filename = borrowedLines.remove(line);
+
+        if (closeOnRelease.remove(line) || !line.isOpen()) {
+            close(line);
+            return;
+        }
+
+        if (line instanceof SourceDataLine) {
+            SourceDataLine sourceLine = (SourceDataLine) line;
+            sourceLine.stop();
+            sourceLine.flush();
+            idleSourceLines.add(sourceLine);
+        }
+        else {
+            Clip clip = (Clip) line;
+            clip.stop();
+            idleClips.computeIfAbsent(filename, k -> new ArrayDeque<>()).add(clip);
+        }
+    }
+
+    /**
+     * Method closes every idle line straight away and every borrowed line once it is given back. This is called once
+     * a game has finished so that no native buffers are held while the user is in the menus
+     */
+    public synchronized void closeAll() {
+        for (ArrayDeque<Clip> clips: idleClips.values()) {
+            for (Clip clip: clips)
+                close(clip);
+        }
+        idleClips.clear();
+
+        for (SourceDataLine line: idleSourceLines)
+            close(line);
+        idleSourceLines.clear();
+
+        closeOnRelease.addAll(borrowedLines.keySet());
+    }
+
+    /**
+     * Method returns the number of lines opened by the pool that have not been closed yet
+     *
+     * @return An integer representing the number of open lines, both idle and borrowed
+     */
+    public synchronized int getOpenLines() {
+        return bufferedBytes.size();
+    }
+
+    public synchronized int getBorrowedLines() {
+        return borrowedLines.size();
+    }
+
+    /**
+     * Method returns the size of the native buffers held by the lines that are open
+     *
+     * @return A long representing the number of bytes buffered by the open lines
+     */
+    public synchronized long getBufferedBytes() {
+        long total = 0;
+        for (long bytes: bufferedBytes.values())
+            total += bytes;
+        return total;
+    }
+
+    public AudioBackend getAudioBackend() {
+        return audioBackend;
+    }
+
+    public synchronized long getLinesOpened() {
+        return linesOpened;
+    }
+
+    public synchronized long getLinesClosed() {
+        return linesClosed;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "LinePool[backend=" + audioBackend.getName() + ", open=" + getOpenLines() + ", borrowed=" + borrowedLines.size() + ", buffered=" +
+                getBufferedBytes() + " bytes, opened=" + linesOpened + ", closed=" + linesClosed + "]";
+    }
+
+    /* Helper method that records a line that has just been opened */
+    private void opened(Line line, long bytes) {
+        bufferedBytes.put(line, bytes);
+        linesOpened++;
+    }
+
+    /* Helper method that closes a line and stops counting its buffer */
+    private void close(Line line) {
+        line.close();
+        if (bufferedBytes.remove(line) != null)
+            linesClosed++;
+    }
+}
@@ -0,0 +1,89 @@
+package components.audio;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.Clip;
+import javax.sound.sampled.SourceDataLine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinePoolTest {
+    private final AudioFormat stereo = new AudioFormat(44100, 16, 2, true, false);
+    private final AudioFormat mono = new AudioFormat(44100, 16, 1, true, false);
+
+    @Test
+    void sourceLineIsReusedByFormatAndBufferSize() throws Exception {
+        LinePool linePool = new LinePool(new NullAudioBackend(1));
+
+        SourceDataLine line = linePool.borrowSourceLine(stereo, 1764);
+        linePool.release(line);
+        assertEquals(0, linePool.getBorrowedLines());
+        assertTrue(line.isOpen());
+
+        // The idle line is given out again when the format and the buffer size match
+        assertSame(line, linePool.borrowSourceLine(stereo, 1764));
+        assertEquals(1, linePool.getLinesOpened());
+        linePool.release(line);
+
+        // Otherwise a new line is opened and the idle one is left in the pool
+        SourceDataLine larger = linePool.borrowSourceLine(stereo, 3528);
+        SourceDataLine monoLine = linePool.borrowSourceLine(mono, 1764);
+        assertNotSame(line, larger);
+        assertNotSame(line, monoLine);
+        assertEquals(3, linePool.getOpenLines());
+        assertEquals(1764 + 3528 + 1764, linePool.getBufferedBytes());
+
+        linePool.release(larger);
+        linePool.release(monoLine);
+        linePool.closeAll();
+        assertEquals(0, linePool.getOpenLines());
+        assertEquals(3, linePool.getLinesClosed());
+    }
+
+    @Test
+    void borrowedLineIsClosedOnReleaseAfterCloseAll() throws Exception {
+        LinePool linePool = new LinePool(new NullAudioBackend(1));
+        SourceDataLine idle = linePool.borrowSourceLine(stereo, 1764);
+        SourceDataLine borrowed = linePool.borrowSourceLine(stereo, 1764);
+        linePool.release(idle);
+
+        // The idle line is closed straight away, but the borrowed one is left playing until it is given back
+        linePool.closeAll();
+        assertFalse(idle.isOpen());
+        assertTrue(borrowed.isOpen());
+        assertEquals(1, linePool.getOpenLines());
+
+        linePool.release(borrowed);
+        assertFalse(borrowed.isOpen());
+        assertEquals(0, linePool.getOpenLines());
+        assertEquals(0, linePool.getBorrowedLines());
+        assertEquals(linePool.getLinesOpened(), linePool.getLinesClosed());
+
+        // A line borrowed after closeAll() is pooled as usual
+        SourceDataLine next = linePool.borrowSourceLine(stereo, 1764);
+        linePool.release(next);
+        assertTrue(next.isOpen());
+        linePool.closeAll();
+    }
+
+    @Test
+    void clipIsReusedByFile() throws Exception {
+        LinePool linePool = new LinePool(new NullAudioBackend(1));
+        String countdown = "assets/sounds/countdown/countdown_5-0.wav";
+
+        Clip clip = linePool.borrowClip(countdown);
+        clip.setFramePosition(100);
+        linePool.release(clip);
+
+        // The Clip is rewound when it is borrowed again
+        assertSame(clip, linePool.borrowClip(countdown));
+        assertEquals(0, clip.getLongFramePosition());
+        assertEquals(1, linePool.getLinesOpened());
+
+        linePool.closeAll();
+        assertTrue(clip.isOpen());
+        linePool.release(clip);
+        assertFalse(clip.isOpen());
+    }
+}
@@ -0,0 +1,109 @@
+package components.audio;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * MixedSegment Class that implements the AudioSegment interface. Instead of holding a pre-mixed recording, the segment
+ * holds one stem per instrument that is playing and sums them together, each with its own gain, every time the
+ * StreamingPlaybackEngine reads from it. The mixing works on primitive arrays only and does not allocate any memory,
+ * so it can keep up with the line on a single core.
+ *
+ * @author Gareth Iguasnia
+ * @date 11/04/2020
+ */
+public class MixedSegment implements AudioSegment {
+    private final String name;
+    private final AudioFormat format;
+
+    // The interleaved 16 bit samples of each stem
+    private final short[][] stems;
+
+    // The gain applied to each stem before it is summed
+    private final float[] gains;
+
+    // The length of the mix in frames. This is the length of the longest stem
+    private final long frameLength;
+
+    /**
+     * Constructor for the MixedSegment Class.
+     *
+     * @param name String object representing the name of the segment
+     * @param format AudioFormat object of the stems. This must be 16 bit signed little endian PCM
+     * @param stems The interleaved 16 bit samples of each stem to be mixed
+     * @param gains The gain of each stem
+     */
+    public MixedSegment(String name, AudioFormat format, short[][] stems, float[] gains) {
+        this.name = name;
+        this.format = format;
+        this.stems = stems;
+        this.gains = gains;
+
+        int longest = 0;
+        for (short[] stem: stems)
+            longest = Math.max(longest, stem.length);
+        this.frameLength = longest / format.getChannels();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public long getFrameLength() {
+        return frameLength;
+    }
+
+    @Override
+    public int read(long bytePosition, byte[] buffer, int offset, int length) {
+        long byteLength = getByteLength();
+        if (bytePosition >= byteLength)
+            return -1;
+
+        // Only whole frames are mixed
+        int toMix = (int) Math.min(length, byteLength - bytePosition);
+        toMix -= toMix % format.getFrameSize();
+
+        mix(stems, gains, (int) (bytePosition / 2), toMix / 2, buffer, offset);
+        return toMix;
+    }
+
+    /**
+     * Method sums the samples of the stems, applying the gain of each stem, and writes the mix into the buffer as 16
+     * bit signed little endian PCM. Stems that are shorter than the mix are treated as silence once they have ended.
+     * Samples that go over the range of a short are clipped.
+     *
+     * @param stems The interleaved 16 bit samples of each stem
+     * @param gains The gain of each stem
+     * @param firstSample The index of the first sample to mix
+     * @param sampleCount The number of samples to mix
+     * @param buffer The byte array to write the mix into
+     * @param offset The position in the buffer to start writing to
+     */
+    public static void mix(short[][] stems, float[] gains, int firstSample, int sampleCount,
+                           byte[] buffer, int offset) {
+        for (int i = 0; i < sampleCount; i++) {
+            int sample = firstSample + i;
+            float sum = 0;
+
+            for (int s = 0; s < stems.length; s++) {
+                if (sample < stems[s].length)
+                    sum += stems[s][sample] * gains[s];
+            }
+
+            int mixed = Math.round(sum);
+            if (mixed > Short.MAX_VALUE)
+                mixed = Short.MAX_VALUE;
+            else if (mixed < Short.MIN_VALUE)
+                mixed = Short.MIN_VALUE;
+
+            buffer[offset + 2*i] = (byte) mixed;
+            buffer[offset + 2*i + 1] = (byte) (mixed >> 8);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package components.audio;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.AudioFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MixedSegmentTest {
+
+    @Test
+    void mix() {
+        short[][] stems = {{1000, -1000, 30000, -30000}, {500, 500, 30000, -30000}};
+        float[] gains = {1f, 0.5f};
+        byte[] buffer = new byte[8];
+
+        MixedSegment.mix(stems, gains, 0, 4, buffer, 0);
+
+        // The samples are summed with their gains and clipped to the range of a short
+        assertEquals(1250, readSample(buffer, 0));
+        assertEquals(-750, readSample(buffer, 1));
+        assertEquals(Short.MAX_VALUE, readSample(buffer, 2));
+        assertEquals(Short.MIN_VALUE, readSample(buffer, 3));
+    }
+
+    @Test
+    void read() {
+        AudioFormat format = new AudioFormat(44100, 16, 2, true, false);
+        short[][] stems = {{1, 2, 3, 4, 5, 6}, {10, 20}};
+        MixedSegment segment = new MixedSegment("test", format, stems, new float[]{1f, 1f});
+
+        // The mix is as long as the longest stem
+        assertEquals(3, segment.getFrameLength());
+
+        // The shorter stem is silent once it has ended and only whole frames are read
+        byte[] buffer = new byte[12];
+        assertEquals(8, segment.read(4, buffer, 0, 10));
+        assertEquals(3, readSample(buffer, 0));
+        assertEquals(6, readSample(buffer, 3));
+        assertEquals(-1, segment.read(12, buffer, 0, 4));
+    }
+
+    /* Helper method that reads a little endian sample out of the buffer */
+    private int readSample(byte[] buffer, int index) {
+        return (short) ((buffer[2*index + 1] << 8) | (buffer[2*index] & 0xFF));
+    }
+}
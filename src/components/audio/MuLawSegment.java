@@ -0,0 +1,160 @@
+package components.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * MuLawSegment Class that implements the AudioSegment interface. The audio is kept in a quarter of the memory of 16 bit
+ * stereo PCM by mixing it down to mono and encoding each sample in 8 bit mu-law. The samples are decoded again as the
+ * segment is read, so it is read in the format of the audio it was encoded from and the frames are where they were.
+ *
+ * @author Gareth Iguasnia
+ * @date 19/04/2020
+ */
+public class MuLawSegment implements AudioSegment {
+    // The loudest sample that can be encoded and the bias added before encoding, as in G.711
+    private static final int CLIP = 32635;
+    private static final int BIAS = 0x84;
+
+    // The sample each of the 256 codes is decoded to
+    private static final short[] DECODED = new short[256];
+    static {
+        for (int code = 0; code < 256; code++) {
+            int inverted = ~code & 0xFF;
+            int exponent = (inverted >> 4) & 0x07;
+            int mantissa = inverted & 0x0F;
+            int magnitude = (((mantissa << 3) + BIAS) << exponent) - BIAS;
+            DECODED[code] = (short) ((inverted & 0x80) != 0 ? -magnitude : magnitude);
+        }
+    }
+
+    private final String name;
+    private final AudioFormat format;
+
+    // One mu-law code for each frame
+    private final byte[] codes;
+
+    /**
+     * Constructor for the MuLawSegment Class.
+     *
+     * @param name String object representing the name of the segment
+     * @param format AudioFormat object of the 16 bit PCM that the segment is read in
+     * @param codes The mu-law code of each frame
+     */
+    public MuLawSegment(String name, AudioFormat format, byte[] codes) {
+        this.name = name;
+        this.format = format;
+        this.codes = codes;
+    }
+
+    /**
+     * Method mixes the audio of a segment down to mono and encodes it in mu-law
+     *
+     * @param segment AudioSegment object of 16 bit signed PCM
+     * @return A MuLawSegment object that is read in the format of the segment
+     * @throws UnsupportedAudioFileException If the segment is not 16 bit signed PCM
+     */
+    public static MuLawSegment encode(AudioSegment segment) throws UnsupportedAudioFileException {
+        AudioFormat format = segment.getFormat();
+        if (format.getEncoding() != AudioFormat.Encoding.PCM_SIGNED || format.getSampleSizeInBits() != 16)
+            throw new UnsupportedAudioFileException(segment.getName() + " is not 16 bit signed PCM");
+
+        int channels = format.getChannels();
+        int frameSize = format.getFrameSize();
+        boolean bigEndian = format.isBigEndian();
+        byte[] codes = new byte[(int) segment.getFrameLength()];
+
+        // Encoding a second of audio at a time so that the whole of the PCM is never held at once
+        byte[] chunk = new byte[(int) format.getFrameRate() * frameSize];
+        long position = 0;
+        int frame = 0;
+        int read;
+        while (frame < codes.length && (read = segment.read(position, chunk, 0, chunk.length)) > 0) {
+            for (int offset = 0; offset + frameSize <= read && frame < codes.length; offset += frameSize) {
+                int sum = 0;
+                for (int channel = 0; channel < channels; channel++) {
+                    int index = offset + 2 * channel;
+                    int low = chunk[index + (bigEndian ? 1 : 0)] & 0xFF;
+                    int high = chunk[index + (bigEndian ? 0 : 1)];
+                    sum += (short) ((high << 8) | low);
+                }
+                codes[frame++] = encodeSample(sum / channels);
+            }
+            position += read;
+        }
+        return new MuLawSegment(segment.getName(), format, codes);
+    }
+
+    /**
+     * Method encodes a 16 bit sample in 8 bit mu-law
+     *
+     * @param sample An integer representing the sample
+     * @return A byte representing the mu-law code of the sample
+     */
+    public static byte encodeSample(int sample) {
+        int sign = sample < 0 ? 0x80 : 0;
+        int magnitude = Math.min(Math.abs(sample), CLIP) + BIAS;
+
+        // The position of the highest bit above the 8th gives the exponent, and the 4 bits below it the mantissa
+        int exponent = 7;
+        for (int mask = 0x4000; (magnitude & mask) == 0 && exponent > 0; mask >>= 1)
+            exponent--;
+        int mantissa = (magnitude >> (exponent + 3)) & 0x0F;
+        return (byte) ~(sign | (exponent << 4) | mantissa);
+    }
+
+    /**
+     * Method decodes a mu-law code into a 16 bit sample
+     *
+     * @param code A byte representing the mu-law code
+     * @return A short representing the sample
+     */
+    public static short decodeSample(byte code) {
+        return DECODED[code & 0xFF];
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public long getFrameLength() {
+        return codes.length;
+    }
+
+    @Override
+    public int read(long bytePosition, byte[] buffer, int offset, int length) {
+        int frameSize = format.getFrameSize();
+        long byteLength = getByteLength();
+        if (bytePosition >= byteLength)
+            return -1;
+
+        // Only whole frames are read
+        int toRead = (int) Math.min(length, byteLength - bytePosition);
+        toRead -= toRead % frameSize;
+
+        int channels = format.getChannels();
+        boolean bigEndian = format.isBigEndian();
+        int firstFrame = (int) (bytePosition / frameSize);
+        for (int frame = 0; frame < toRead / frameSize; frame++) {
+            short sample = DECODED[codes[firstFrame + frame] & 0xFF];
+            for (int channel = 0; channel < channels; channel++) {
+                int index = offset + frame * frameSize + 2 * channel;
+                buffer[index + (bigEndian ? 1 : 0)] = (byte) sample;
+                buffer[index + (bigEndian ? 0 : 1)] = (byte) (sample >> 8);
+            }
+        }
+        return toRead;
+    }
+
+    @Override
+    public long getResidentBytes() {
+        return codes.length;
+    }
+}
@@ -0,0 +1,42 @@
+package components.audio;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MuLawSegmentTest {
+
+    @Test
+    void encodeSample() {
+        // Silence and the extremes survive, and every other sample is within the step of its segment of the curve
+        assertEquals(0, MuLawSegment.decodeSample(MuLawSegment.encodeSample(0)));
+        assertEquals(32124, MuLawSegment.decodeSample(MuLawSegment.encodeSample(Short.MAX_VALUE)));
+        assertEquals(-32124, MuLawSegment.decodeSample(MuLawSegment.encodeSample(Short.MIN_VALUE)));
+        for (int sample = -32000; sample <= 32000; sample += 7) {
+            int decoded = MuLawSegment.decodeSample(MuLawSegment.encodeSample(sample));
+            assertTrue(Math.abs(decoded - sample) <= Math.max(8, Math.abs(sample) / 16),
+                    sample + " was decoded to " + decoded);
+        }
+    }
+
+    @Test
+    void readsInTheFormatItWasEncodedFrom() throws Exception {
+        PcmSegment clickTrack = ClickTrack.create(4, 300);
+        MuLawSegment segment = MuLawSegment.encode(clickTrack);
+
+        // Stereo 16 bit PCM is kept in a quarter of the memory and is read back in the same format
+        assertEquals(clickTrack.getFormat(), segment.getFormat());
+        assertEquals(clickTrack.getFrameLength(), segment.getFrameLength());
+        assertEquals(clickTrack.getByteLength(), segment.getByteLength());
+        assertEquals(clickTrack.getResidentBytes() / 4, segment.getResidentBytes());
+
+        // Reading part of the way in gives whole frames
+        byte[] buffer = new byte[10];
+        assertEquals(8, segment.read(4, buffer, 0, buffer.length));
+        assertEquals(-1, segment.read(segment.getByteLength(), buffer, 0, buffer.length));
+
+        String report = AudioProfile.report(clickTrack, AudioProfile.LOW_MEMORY.compact(clickTrack));
+        double snr = Double.parseDouble(report.substring(report.lastIndexOf(", ") + 2, report.lastIndexOf(" dB")));
+        assertTrue(snr > 30, report);
+    }
+}
@@ -0,0 +1,519 @@
+package components.audio;
+
+import javax.sound.sampled.*;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * NullAudioBackend Class that implements the AudioBackend interface. The lines of this backend do not make any sound,
+ * but they behave like the lines of a real mixer: the frame position moves on in real time once a line has been
+ * started, a Clip stops by itself once its last frame has been played, writing to a SourceDataLine blocks while its
+ * buffer is full, and the START, STOP, OPEN and CLOSE LineEvents are delivered on a separate thread.
+ *
+ * This allows whole games to be played on machines without a sound device, i.e. for benchmarks and soak tests. The
+ * lines can be sped up so that the audio is played faster than real time.
+ *
+ * @author Gareth Iguasnia
+ * @date 16/04/2020
+ */
+public class NullAudioBackend implements AudioBackend {
+    // Delivers the LineEvents and stops the Clips that have finished, like the event thread of a real mixer
+    private static final ScheduledExecutorService eventDispatcher =
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "salsa-null-audio");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    // How much faster than real time the lines play
+    private final double speed;
+
+    /**
+     * Constructor for the NullAudioBackend Class.
+     *
+     * @param speed A double representing how much faster than real time the lines play. 1 is real time
+     */
+    public NullAudioBackend(double speed) {
+        if (speed <= 0)
+            throw new IllegalArgumentException("The speed of the lines must be above 0, not " + speed);
+        this.speed = speed;
+    }
+
+    @Override
+    public Clip getClip() {
+        return new NullClip(speed);
+    }
+
+    @Override
+    public SourceDataLine getSourceDataLine(AudioFormat format) {
+        return new NullSourceDataLine(speed, format);
+    }
+
+    @Override
+    public String getName() {
+        return "null";
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * NullDataLine abstract Innerclass that implements the DataLine interface. This holds the clock shared by the Clips
+     * and the SourceDataLines of the backend
+     *
+     * @author Gareth Iguasnia
+     * @date 16/04/2020
+     */
+    private abstract static class NullDataLine implements DataLine {
+        private final double speed;
+        private final List<LineListener> listeners;
+
+        protected AudioFormat format;
+        protected int bufferSize;
+        private boolean open;
+        private boolean running;
+
+        // The frame position when the line was last started, moved or stopped, and the time at which that happened
+        private long anchorPosition;
+        private long anchorNanos;
+
+        /* Constructor for the NullDataLine Class */
+        private NullDataLine(double speed, AudioFormat format) {
+            this.speed = speed;
+            this.format = format;
+            this.listeners = new CopyOnWriteArrayList<>();
+        }
+
+        /**
+         * Method returns the frame that the line cannot play past i.e. the end of a Clip or the last frame written to
+         * a SourceDataLine
+         *
+         * @return A long representing the last frame position the line can reach
+         */
+        protected abstract long getEndPosition();
+
+        @Override
+        public synchronized void start() {
+            if (!open || running)
+                return;
+            running = true;
+            anchorNanos = System.nanoTime();
+            sendEvent(LineEvent.Type.START);
+            started();
+        }
+
+        @Override
+        public synchronized void stop() {
+            if (!running)
+                return;
+            anchorPosition = getLongFramePosition();
+            running = false;
+            sendEvent(LineEvent.Type.STOP);
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!open)
+                return;
+            stop();
+            open = false;
+            sendEvent(LineEvent.Type.CLOSE);
+            notifyAll();
+        }
+
+        @Override
+        public synchronized boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public synchronized boolean isRunning() {
+            return running;
+        }
+
+        @Override
+        public synchronized boolean isActive() {
+            return running && getLongFramePosition() < getEndPosition();
+        }
+
+        @Override
+        public synchronized long getLongFramePosition() {
+            if (!running)
+                return anchorPosition;
+            long elapsed = nanosToFrames(System.nanoTime() - anchorNanos);
+            return Math.min(anchorPosition + elapsed, getEndPosition());
+        }
+
+        @Override
+        public int getFramePosition() {
+            return (int) getLongFramePosition();
+        }
+
+        @Override
+        public long getMicrosecondPosition() {
+            return Math.round(getLongFramePosition() * 1_000_000.0 / format.getFrameRate());
+        }
+
+        @Override
+        public AudioFormat getFormat() {
+            return format;
+        }
+
+        @Override
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        @Override
+        public float getLevel() {
+            return AudioSystem.NOT_SPECIFIED;
+        }
+
+        @Override
+        public Control[] getControls() {
+            return new Control[0];
+        }
+
+        @Override
+        public boolean isControlSupported(Control.Type control) {
+            return false;
+        }
+
+        @Override
+        public Control getControl(Control.Type control) {
+            throw new IllegalArgumentException("The null audio backend does not support " + control);
+        }
+
+        @Override
+        public void addLineListener(LineListener listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void removeLineListener(LineListener listener) {
+            listeners.remove(listener);
+        }
+
+        @Override
+        public void open() throws LineUnavailableException {
+            throw new LineUnavailableException("The format of the line needs to be given to open it");
+        }
+
+        /**
+         * Method is called once the line has been started so that the subclass can react to it
+         */
+        protected void started() {
+        }
+
+        /* Helper method that marks the line as open and sends the OPEN event */
+        protected synchronized void opened(AudioFormat format, int bufferSize) {
+            if (open)
+                throw new IllegalStateException("The line is already open");
+            this.format = format;
+            this.bufferSize = bufferSize;
+            this.open = true;
+            this.anchorPosition = 0;
+            sendEvent(LineEvent.Type.OPEN);
+        }
+
+        /* Helper method that moves the frame position of the line */
+        protected synchronized void moveTo(long position) {
+            anchorPosition = position;
+            anchorNanos = System.nanoTime();
+        }
+
+        /* Helper method that converts a number of frames into the real time it takes the line to play them */
+        protected long framesToNanos(long frames) {
+            return Math.round(frames * 1_000_000_000.0 / (format.getFrameRate() * speed));
+        }
+
+        /* Helper method that converts real time into the number of frames the line plays in that time */
+        private long nanosToFrames(long nanos) {
+            return (long) (nanos * speed * format.getFrameRate() / 1_000_000_000.0);
+        }
+
+        /* Helper method that delivers a LineEvent to the listeners on the event thread */
+        private void sendEvent(LineEvent.Type type) {
+            LineEvent event = new LineEvent(this, type, getLongFramePosition());
+            LineListener[] snapshot = listeners.toArray(new LineListener[0]);
+
+            eventDispatcher.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (LineListener listener: snapshot) {
+                        try {
+                            listener.update(event);
+                        }
+                        catch (RuntimeException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * NullClip Innerclass that extends NullDataLine and implements the Clip interface. The Clip only keeps the length
+     * of the audio it has been opened with
+     *
+     * @author Gareth Iguasnia
+     * @date 16/04/2020
+     */
+    private static class NullClip extends NullDataLine implements Clip {
+        private int frameLength;
+
+        // The number of times the Clip plays again once it reaches its end
+        private int loopCount;
+
+        // Used to ignore the end of the Clip that was scheduled before the Clip was moved or stopped
+        private long playCounter;
+
+        /* Constructor for the NullClip Class */
+        private NullClip(double speed) {
+            super(speed, null);
+        }
+
+        @Override
+        public void open(AudioFormat format, byte[] data, int offset, int bufferSize) {
+            frameLength = bufferSize / format.getFrameSize();
+            opened(format, bufferSize);
+        }
+
+        @Override
+        public void open(AudioInputStream stream) throws IOException {
+            AudioFormat streamFormat = stream.getFormat();
+            long frames = stream.getFrameLength();
+
+            // The length is only known once the whole stream has been read
+            if (frames == AudioSystem.NOT_SPECIFIED)
+                frames = stream.readAllBytes().length / streamFormat.getFrameSize();
+
+            frameLength = (int) frames;
+            opened(streamFormat, frameLength * streamFormat.getFrameSize());
+        }
+
+        @Override
+        public synchronized void loop(int count) {
+            loopCount = count;
+            start();
+        }
+
+        @Override
+        public synchronized void stop() {
+            playCounter++;
+            super.stop();
+        }
+
+        @Override
+        public int getFrameLength() {
+            return frameLength;
+        }
+
+        @Override
+        public long getMicrosecondLength() {
+            return Math.round(frameLength * 1_000_000.0 / format.getFrameRate());
+        }
+
+        @Override
+        public synchronized void setFramePosition(int frames) {
+            moveTo(frames);
+            if (isRunning())
+                scheduleEnd();
+        }
+
+        @Override
+        public void setMicrosecondPosition(long microseconds) {
+            setFramePosition((int) Math.round(microseconds * format.getFrameRate() / 1_000_000.0));
+        }
+
+        @Override
+        public void setLoopPoints(int start, int end) {
+            // Looping always goes over the whole Clip
+        }
+
+        @Override
+        public void drain() {
+            // The Clip holds all of its audio, so there is nothing to wait for
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public int available() {
+            return 0;
+        }
+
+        @Override
+        public Line.Info getLineInfo() {
+            return new DataLine.Info(Clip.class, format);
+        }
+
+        @Override
+        protected long getEndPosition() {
+            if (loopCount == LOOP_CONTINUOUSLY)
+                return Long.MAX_VALUE;
+            return frameLength * (long) (loopCount + 1);
+        }
+
+        @Override
+        protected void started() {
+            scheduleEnd();
+        }
+
+        /* Helper method that stops the Clip once it has played up to its last frame */
+        private synchronized void scheduleEnd() {
+            // A Clip that loops forever only stops when it is told to
+            if (loopCount == LOOP_CONTINUOUSLY)
+                return;
+
+            long remaining = getEndPosition() - getLongFramePosition();
+            long counter = ++playCounter;
+            eventDispatcher.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (NullClip.this) {
+                        if (counter != playCounter || !isRunning())
+                            return;
+                        if (getLongFramePosition() >= getEndPosition()) {
+                            loopCount = 0;
+                            stop();
+                        }
+                        else
+                            scheduleEnd();
+                    }
+                }
+            }, framesToNanos(Math.max(remaining, 0)), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * NullSourceDataLine Innerclass that extends NullDataLine and implements the SourceDataLine interface. The audio
+     * written to the line is thrown away, but the writes block as they would on a real line once the buffer is full
+     *
+     * @author Gareth Iguasnia
+     * @date 16/04/2020
+     */
+    private static class NullSourceDataLine extends NullDataLine implements SourceDataLine {
+        // Half a second of audio if the size of the buffer is not given
+        private final float DEFAULT_BUFFER_SECONDS = 0.5f;
+
+        // Number of frames that have been written to the line
+        private long framesWritten;
+
+        // Incremented every time the line is flushed so that a blocked write returns
+        private long flushCounter;
+
+        /* Constructor for the NullSourceDataLine Class */
+        private NullSourceDataLine(double speed, AudioFormat format) {
+            super(speed, format);
+        }
+
+        @Override
+        public void open(AudioFormat format, int bufferSize) {
+            int frameSize = format.getFrameSize();
+            opened(format, Math.max(bufferSize / frameSize, 1) * frameSize);
+        }
+
+        @Override
+        public void open(AudioFormat format) {
+            open(format, (int) (format.getFrameRate() * DEFAULT_BUFFER_SECONDS) * format.getFrameSize());
+        }
+
+        @Override
+        public int write(byte[] buffer, int offset, int length) {
+            int frameSize = format.getFrameSize();
+            if (length % frameSize != 0)
+                throw new IllegalArgumentException("Only whole frames can be written to the line");
+
+            long remainingFrames = length / frameSize;
+            long bufferFrames = bufferSize / frameSize;
+            int written = 0;
+
+            synchronized (this) {
+                long flushes = flushCounter;
+
+                while (remainingFrames > 0 && isOpen() && flushes == flushCounter) {
+                    long position = getLongFramePosition();
+
+                    // The line ran out of audio, so its clock waits for the new audio
+                    if (isRunning() && position == framesWritten)
+                        moveTo(position);
+
+                    long free = bufferFrames - (framesWritten - position);
+                    if (free > 0) {
+                        long frames = Math.min(free, remainingFrames);
+                        framesWritten += frames;
+                        remainingFrames -= frames;
+                        written += frames * frameSize;
+                        continue;
+                    }
+
+                    // Waiting for the line to play enough of its buffer. A stopped line waits until it is started
+                    try {
+                        long waitNanos = isRunning() ? framesToNanos(Math.min(remainingFrames, bufferFrames / 4) + 1)
+                                : 0;
+                        wait(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+            return written;
+        }
+
+        @Override
+        public synchronized void drain() {
+            while (isOpen() && isRunning() && getLongFramePosition() < framesWritten) {
+                try {
+                    long waitNanos = framesToNanos(framesWritten - getLongFramePosition()) + 1;
+                    wait(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public synchronized void flush() {
+            // Throwing away the audio that has not been played yet
+            framesWritten = getLongFramePosition();
+            flushCounter++;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void start() {
+            super.start();
+            notifyAll();
+        }
+
+        @Override
+        public synchronized int available() {
+            long buffered = framesWritten - getLongFramePosition();
+            return (int) (bufferSize - buffered * format.getFrameSize());
+        }
+
+        @Override
+        public Line.Info getLineInfo() {
+            return new DataLine.Info(SourceDataLine.class, format);
+        }
+
+        @Override
+        protected long getEndPosition() {
+            return framesWritten;
+        }
+    }
+}
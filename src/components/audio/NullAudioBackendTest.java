@@ -0,0 +1,83 @@
+package components.audio;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.Clip;
+import javax.sound.sampled.LineEvent;
+import javax.sound.sampled.LineListener;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NullAudioBackendTest {
+    private final AudioFormat format = new AudioFormat(44100, 16, 2, true, false);
+
+    @Test
+    void clipStopsAtItsEnd() throws Exception {
+        // One second of audio played 20 times faster than real time
+        NullAudioBackend backend = new NullAudioBackend(20);
+        Clip clip = backend.getClip();
+        clip.open(format, new byte[44100 * 4], 0, 44100 * 4);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch stopped = new CountDownLatch(1);
+        clip.addLineListener(new LineListener() {
+            @Override
+            public void update(LineEvent event) {
+                if (event.getType() == LineEvent.Type.START)
+                    started.countDown();
+                else if (event.getType() == LineEvent.Type.STOP)
+                    stopped.countDown();
+            }
+        });
+
+        assertEquals(1000, clip.getMicrosecondLength() / 1000);
+        clip.start();
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        assertTrue(stopped.await(1, TimeUnit.SECONDS));
+
+        // The Clip stops on its last frame
+        assertFalse(clip.isRunning());
+        assertEquals(44100, clip.getLongFramePosition());
+        clip.close();
+    }
+
+    @Test
+    void segmentsPlayBackToBack() throws Exception {
+        LinePool linePool = new LinePool(new NullAudioBackend(20));
+        StreamingPlaybackEngine playbackEngine = new StreamingPlaybackEngine(linePool);
+
+        // Two half second segments
+        AudioSegment first = new PcmSegment("first", format, ByteBuffer.allocate(22050 * 4));
+        AudioSegment second = new PcmSegment("second", format, ByteBuffer.allocate(22050 * 4));
+
+        long[] startFrames = new long[2];
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        playbackEngine.enqueue(first, new StreamingPlaybackEngine.SegmentListener() {
+            @Override
+            public void segmentStarted(AudioSegment segment, long startFrame) {
+                startFrames[0] = startFrame;
+                bothStarted.countDown();
+            }
+        });
+        playbackEngine.enqueue(second, new StreamingPlaybackEngine.SegmentListener() {
+            @Override
+            public void segmentStarted(AudioSegment segment, long startFrame) {
+                startFrames[1] = startFrame;
+                bothStarted.countDown();
+            }
+        });
+
+        assertTrue(bothStarted.await(2, TimeUnit.SECONDS));
+
+        // The second segment starts on the frame straight after the first one
+        assertEquals(first.getFrameLength(), startFrames[1] - startFrames[0]);
+        assertEquals(0, playbackEngine.getTotalGapFrames());
+
+        playbackEngine.shutdown();
+        linePool.closeAll();
+    }
+}
@@ -0,0 +1,160 @@
+package components.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * OneShot Class that holds a single short hit of an instrument i.e. one strike of the claves or one note of the bass,
+ * as mono 16 bit samples. The PatternSequencer places copies of the one-shots on the steps of each SalsaPattern, so
+ * a whole Salsa audio clip at any tempo is built from a few kilobytes of samples.
+ *
+ * The default one-shots are synthesised so that the application does not need any extra assets, but a one-shot can
+ * also be loaded from a WAV file.
+ *
+ * @author Gareth Iguasnia
+ * @date 19/04/2020
+ */
+public class OneShot {
+    private final String name;
+
+    // The mono samples of the hit at the frame rate of ClickTrack.FORMAT
+    private final short[] samples;
+
+    /**
+     * Constructor for the OneShot Class.
+     *
+     * @param name String object representing the name of the one-shot
+     * @param samples The mono 16 bit samples of the hit
+     */
+    public OneShot(String name, short[] samples) {
+        this.name = name;
+        this.samples = samples;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public short[] getSamples() {
+        return samples;
+    }
+
+    /**
+     * Method decodes a WAV file of a single hit. Every channel is mixed down into one
+     *
+     * @param filename String object representing the resource path of the WAV file
+     * @return A OneShot object holding the hit
+     * @throws IOException If the WAV file cannot be found or read
+     * @throws UnsupportedAudioFileException If the WAV file is not 16 bit signed PCM at the frame rate of the
+     * Salsa audio
+     */
+    public static OneShot load(String filename) throws IOException, UnsupportedAudioFileException {
+        PcmSegment segment = PcmSegment.decode(filename);
+        AudioFormat format = segment.getFormat();
+        if (format.getEncoding() != AudioFormat.Encoding.PCM_SIGNED || format.getSampleSizeInBits() != 16
+                || format.getFrameRate() != ClickTrack.FORMAT.getFrameRate())
+            throw new UnsupportedAudioFileException(filename + " is not 16 bit signed PCM at " +
+                    ClickTrack.FORMAT.getFrameRate() + " Hz");
+
+        byte[] pcm = new byte[(int) segment.getByteLength()];
+        segment.read(0, pcm, 0, pcm.length);
+
+        int channels = format.getChannels();
+        boolean bigEndian = format.isBigEndian();
+        short[] samples = new short[(int) segment.getFrameLength()];
+        for (int frame = 0; frame < samples.length; frame++) {
+            int sum = 0;
+            for (int channel = 0; channel < channels; channel++) {
+                int index = 2 * (frame * channels + channel);
+                int low = pcm[index + (bigEndian ? 1 : 0)] & 0xFF;
+                int high = pcm[index + (bigEndian ? 0 : 1)];
+                sum += (high << 8) | low;
+            }
+            samples[frame] = (short) (sum / channels);
+        }
+        return new OneShot(filename, samples);
+    }
+
+    /**
+     * Method synthesises the strike of a pair of claves: a high pitched wooden knock that dies away quickly
+     *
+     * @return A OneShot object holding the hit
+     */
+    public static OneShot clave() {
+        return tone("clave", new double[]{2500, 5100}, new double[]{1, 0.3}, 0.06, 0.7);
+    }
+
+    /**
+     * Method synthesises a stick hitting the shell of the timbales, which is what the cascara is played on. This is a
+     * short burst of noise along with the ring of the shell
+     *
+     * @param accent true for the louder hits of the pattern
+     * @return A OneShot object holding the hit
+     */
+    public static OneShot cascara(boolean accent) {
+        double amplitude = accent ? 0.6 : 0.4;
+        short[] shell = tone("shell", new double[]{1750, 3300}, new double[]{1, 0.5}, 0.05, amplitude).getSamples();
+
+        // The noise is seeded so that every run renders the same audio
+        Random noise = new Random(accent ? 1 : 2);
+        for (int i = 0; i < shell.length; i++) {
+            double envelope = Math.exp(-12.0 * i / shell.length);
+            int sample = shell[i] + (int) (Short.MAX_VALUE * amplitude * 0.5 * envelope * (2 * noise.nextDouble() - 1));
+            shell[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, sample));
+        }
+        return new OneShot(accent ? "cascara accent" : "cascara", shell);
+    }
+
+    /**
+     * Method synthesises a plucked note of the bass
+     *
+     * @param frequency The pitch of the note in Hz
+     * @return A OneShot object holding the note
+     */
+    public static OneShot bass(double frequency) {
+        return tone("bass " + Math.round(frequency) + "Hz", new double[]{frequency, 2 * frequency, 3 * frequency},
+                new double[]{1, 0.4, 0.15}, 0.35, 0.7);
+    }
+
+    /**
+     * Method synthesises a chord struck on the piano
+     *
+     * @param frequencies The pitch of each note of the chord in Hz
+     * @return A OneShot object holding the chord
+     */
+    public static OneShot piano(double... frequencies) {
+        double[] partials = new double[frequencies.length * 2];
+        double[] weights = new double[frequencies.length * 2];
+        for (int i = 0; i < frequencies.length; i++) {
+            partials[2*i] = frequencies[i];
+            weights[2*i] = 1.0 / frequencies.length;
+            partials[2*i + 1] = 2 * frequencies[i];
+            weights[2*i + 1] = 0.3 / frequencies.length;
+        }
+        return tone("piano", partials, weights, 0.25, 0.6);
+    }
+
+    /* Helper method that synthesises a sum of sine waves that dies away over the length of the hit. A few samples of
+     * attack stop the hit from clicking */
+    private static OneShot tone(String name, double[] frequencies, double[] weights, double seconds,
+                                double amplitude) {
+        float frameRate = ClickTrack.FORMAT.getFrameRate();
+        short[] samples = new short[(int) (seconds * frameRate)];
+        int attack = (int) (0.002 * frameRate);
+
+        double totalWeight = 0;
+        for (double weight: weights)
+            totalWeight += weight;
+
+        for (int i = 0; i < samples.length; i++) {
+            double envelope = Math.exp(-5.0 * i / samples.length) * Math.min(1.0, (double) i / attack);
+            double sum = 0;
+            for (int p = 0; p < frequencies.length; p++)
+                sum += weights[p] * Math.sin(2 * Math.PI * frequencies[p] * i / frameRate);
+            samples[i] = (short) (Short.MAX_VALUE * amplitude * envelope * sum / totalWeight);
+        }
+        return new OneShot(name, samples);
+    }
+}
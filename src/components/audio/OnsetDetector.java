@@ -0,0 +1,232 @@
+package components.audio;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * OnsetDetector Class that finds where the beats of a Salsa audio recording really are. The recordings are cut to 32
+ * beats, but the first beat does not sit exactly on the first frame and the musicians do not play perfectly in time,
+ * so an even grid across the clip is slightly off for every beat.
+ *
+ * The onsets are found with the spectral flux of the recording: the increase in the magnitude spectrum from one short
+ * window to the next, which peaks whenever a note is struck. The lead-in of the first beat is the phase of the even
+ * grid that lines up with the most onset energy. Each beat is then moved onto the strongest onset near its place on
+ * that grid, or left on the grid if nothing was struck near it.
+ *
+ * @author Gareth Iguasnia
+ * @date 18/04/2020
+ */
+public class OnsetDetector {
+    // The number of samples in each window of the spectral flux. This must be a power of 2 for the FFT
+    public static final int WINDOW_SIZE = 1024;
+
+    // The number of samples between the start of two windows
+    public static final int HOP_SIZE = 256;
+
+    // The furthest the first beat can be from the start of the clip, as a fraction of a beat
+    private static final double MAX_LEAD_IN = 0.25;
+
+    // The furthest a beat can be moved from its place on the grid, as a fraction of a beat
+    private static final double SEARCH_RADIUS = 0.15;
+
+    // An onset has to be this many standard deviations above the mean flux to move a beat onto it
+    private static final double PEAK_DEVIATIONS = 1.0;
+
+    // The windowing function applied to each window before the FFT
+    private static final double[] HANN = new double[WINDOW_SIZE];
+    static {
+        for (int i = 0; i < WINDOW_SIZE; i++)
+            HANN[i] = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / (WINDOW_SIZE - 1));
+    }
+
+    /* Constructor is private as every method is static */
+    private OnsetDetector() {}
+
+    /**
+     * Method finds the frame of each beat of the recording
+     *
+     * @param segment AudioSegment object of the recording. This must be 16-bit signed PCM
+     * @param beats Integer representing the number of evenly spaced beats the recording was cut to
+     * @return An array of longs representing the frame of each beat from the start of the segment, in ascending order
+     */
+    public static long[] detectBeats(AudioSegment segment, int beats) {
+        float[] flux = onsetEnvelope(segment);
+        double beatFrames = (double) segment.getFrameLength() / beats;
+
+        // The flux of window k is the change between the windows starting at k - 1 and k. The onset is somewhere in
+        // the hop between the centres of those windows, so the flux is placed in the middle of that hop
+        double fluxOffset = (WINDOW_SIZE + HOP_SIZE) / 2.0;
+
+        // Finding the lead-in by sliding the even grid until it lines up with the most onset energy
+        double bestLeadIn = 0;
+        double bestScore = -1;
+        for (double leadIn = 0; leadIn <= MAX_LEAD_IN * beatFrames; leadIn += HOP_SIZE) {
+            double score = 0;
+            for (int beat = 0; beat < beats; beat++)
+                score += fluxAt(flux, leadIn + beat * beatFrames - fluxOffset);
+            if (score > bestScore) {
+                bestScore = score;
+                bestLeadIn = leadIn;
+            }
+        }
+
+        // Moving each beat onto the strongest onset near it, as long as it stands out from the rest of the flux
+        double threshold = mean(flux) + PEAK_DEVIATIONS * standardDeviation(flux);
+        int radius = (int) Math.round(SEARCH_RADIUS * beatFrames / HOP_SIZE);
+
+        long[] beatTable = new long[beats];
+        for (int beat = 0; beat < beats; beat++) {
+            double gridFrame = bestLeadIn + beat * beatFrames;
+            int centre = (int) Math.round((gridFrame - fluxOffset) / HOP_SIZE);
+
+            int peak = -1;
+            for (int k = Math.max(0, centre - radius); k <= Math.min(flux.length - 1, centre + radius); k++) {
+                if (flux[k] > threshold && (peak < 0 || flux[k] > flux[peak]))
+                    peak = k;
+            }
+
+            beatTable[beat] = peak < 0 ? Math.round(gridFrame) : Math.round(peak * (double) HOP_SIZE + fluxOffset);
+
+            // The beats must stay in order
+            if (beat > 0 && beatTable[beat] <= beatTable[beat - 1])
+                beatTable[beat] = beatTable[beat - 1] + 1;
+        }
+        return beatTable;
+    }
+
+    /**
+     * Method works out the spectral flux of the recording. This is high wherever a note is struck
+     *
+     * @param segment AudioSegment object of the recording. This must be 16-bit signed PCM
+     * @return An array of floats representing the flux of each window, HOP_SIZE frames apart
+     */
+    public static float[] onsetEnvelope(AudioSegment segment) {
+        float[] samples = readMono(segment);
+        int windows = samples.length < WINDOW_SIZE ? 0 : (samples.length - WINDOW_SIZE) / HOP_SIZE + 1;
+        float[] flux = new float[windows];
+
+        double[] real = new double[WINDOW_SIZE];
+        double[] imaginary = new double[WINDOW_SIZE];
+        double[] previous = new double[WINDOW_SIZE / 2];
+        double[] magnitude = new double[WINDOW_SIZE / 2];
+
+        for (int window = 0; window < windows; window++) {
+            int start = window * HOP_SIZE;
+            for (int i = 0; i < WINDOW_SIZE; i++) {
+                real[i] = samples[start + i] * HANN[i];
+                imaginary[i] = 0;
+            }
+            fft(real, imaginary);
+
+            // Only increases in the (log compressed) magnitude count, so that notes dying away are not onsets
+            double sum = 0;
+            for (int bin = 0; bin < WINDOW_SIZE / 2; bin++) {
+                magnitude[bin] = Math.log1p(Math.hypot(real[bin], imaginary[bin]));
+                if (window > 0 && magnitude[bin] > previous[bin])
+                    sum += magnitude[bin] - previous[bin];
+            }
+            flux[window] = (float) sum;
+
+            double[] swap = previous;
+            previous = magnitude;
+            magnitude = swap;
+        }
+        return flux;
+    }
+
+    /* Helper method that reads the segment into one channel of samples between -1 and 1 */
+    private static float[] readMono(AudioSegment segment) {
+        AudioFormat format = segment.getFormat();
+        if (!AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding()) || format.getSampleSizeInBits() != 16)
+            throw new IllegalArgumentException(segment.getName() + " is not 16-bit signed PCM");
+
+        int channels = format.getChannels();
+        int frameSize = format.getFrameSize();
+        boolean bigEndian = format.isBigEndian();
+        float[] samples = new float[(int) segment.getFrameLength()];
+
+        byte[] chunk = new byte[frameSize * 4096];
+        long position = 0;
+        int frame = 0;
+        int read;
+        while ((read = segment.read(position, chunk, 0, chunk.length)) > 0) {
+            for (int offset = 0; offset + frameSize <= read && frame < samples.length; offset += frameSize) {
+                int sum = 0;
+                for (int channel = 0; channel < channels; channel++) {
+                    int low = chunk[offset + 2 * channel + (bigEndian ? 1 : 0)] & 0xFF;
+                    int high = chunk[offset + 2 * channel + (bigEndian ? 0 : 1)];
+                    sum += (high << 8) | low;
+                }
+                samples[frame++] = sum / (channels * 32768f);
+            }
+            position += read;
+        }
+        return samples;
+    }
+
+    /* Helper method that returns the flux at a frame, taking the largest of the nearest windows */
+    private static double fluxAt(float[] flux, double frame) {
+        int k = (int) Math.round(frame / HOP_SIZE);
+        double value = 0;
+        for (int i = Math.max(0, k - 1); i <= Math.min(flux.length - 1, k + 1); i++)
+            value = Math.max(value, flux[i]);
+        return value;
+    }
+
+    /* Helper method that returns the mean of the values */
+    private static double mean(float[] values) {
+        double sum = 0;
+        for (float value: values)
+            sum += value;
+        return values.length == 0 ? 0 : sum / values.length;
+    }
+
+    /* Helper method that returns the standard deviation of the values */
+    private static double standardDeviation(float[] values) {
+        double mean = mean(values);
+        double squares = 0;
+        for (float value: values)
+            squares += (value - mean) * (value - mean);
+        return values.length == 0 ? 0 : Math.sqrt(squares / values.length);
+    }
+
+    /* Helper method that carries out an in-place radix-2 FFT. The length of the arrays must be a power of 2 */
+    private static void fft(double[] real, double[] imaginary) {
+        int n = real.length;
+
+        // Bit reversal permutation
+        for (int i = 1, j = 0; i < n; i++) {
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1)
+                j ^= bit;
+            j ^= bit;
+            if (i < j) {
+                double temp = real[i]; real[i] = real[j]; real[j] = temp;
+                temp = imaginary[i]; imaginary[i] = imaginary[j]; imaginary[j] = temp;
+            }
+        }
+
+        for (int length = 2; length <= n; length <<= 1) {
+            double angle = -2 * Math.PI / length;
+            double stepReal = Math.cos(angle);
+            double stepImaginary = Math.sin(angle);
+            for (int start = 0; start < n; start += length) {
+                double wReal = 1;
+                double wImaginary = 0;
+                for (int k = 0; k < length / 2; k++) {
+                    int even = start + k;
+                    int odd = even + length / 2;
+                    double oddReal = real[odd] * wReal - imaginary[odd] * wImaginary;
+                    double oddImaginary = real[odd] * wImaginary + imaginary[odd] * wReal;
+                    real[odd] = real[even] - oddReal;
+                    imaginary[odd] = imaginary[even] - oddImaginary;
+                    real[even] += oddReal;
+                    imaginary[even] += oddImaginary;
+
+                    double nextReal = wReal * stepReal - wImaginary * stepImaginary;
+                    wImaginary = wReal * stepImaginary + wImaginary * stepReal;
+                    wReal = nextReal;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package components.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OnsetDetectorTest {
+
+    @Test
+    void detectBeats() {
+        // 32 clicks 300 ms apart, starting 37 ms into the segment
+        PcmSegment clickTrack = ClickTrack.create(32, 300);
+        int frameSize = clickTrack.getFormat().getFrameSize();
+        int leadIn = (int) (0.037 * 44100);
+
+        byte[] pcm = new byte[(int) clickTrack.getByteLength()];
+        clickTrack.read(0, pcm, 0, pcm.length);
+        ByteBuffer shifted = ByteBuffer.allocate(pcm.length);
+        shifted.position(leadIn * frameSize);
+        shifted.put(pcm, 0, pcm.length - leadIn * frameSize);
+        shifted.flip();
+        AudioSegment segment = new PcmSegment("shifted", clickTrack.getFormat(), shifted);
+
+        long[] beatFrames = OnsetDetector.detectBeats(segment, 32);
+        assertEquals(32, beatFrames.length);
+
+        // Every beat is found within 5 ms of its click
+        for (int beat = 0; beat < 32; beat++) {
+            long clickFrame = leadIn + Math.round(beat * 0.3 * 44100);
+            assertTrue(Math.abs(beatFrames[beat] - clickFrame) < 0.005 * 44100,
+                    "Beat " + beat + " was found at " + beatFrames[beat] + " instead of " + clickFrame);
+        }
+    }
+
+    @Test
+    void silenceStaysOnTheGrid() {
+        AudioSegment silence = new PcmSegment("silence", ClickTrack.FORMAT, ByteBuffer.allocate(32 * 11025 * 4));
+
+        long[] beatFrames = OnsetDetector.detectBeats(silence, 32);
+        for (int beat = 0; beat < 32; beat++)
+            assertEquals(beat * 11025L, beatFrames[beat]);
+    }
+}
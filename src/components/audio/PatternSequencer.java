@@ -0,0 +1,200 @@
+package components.audio;
+
+import components.State;
+import components.enums.Instrument;
+import components.ingame.BeatTimeline;
+
+import javax.sound.sampled.AudioFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * PatternSequencer Class that creates the Salsa audio of a State by placing the one-shots of the SalsaPattern of each
+ * instrument on a grid of quaver steps at the tempo of the State. Unlike the recordings, which only exist at 180, 200
+ * and 220 BPM, a State can be sequenced at any tempo without any more assets or memory, as only the hits are held.
+ *
+ * Every step is placed on the frame nearest to its exact time, worked out from the start of the segment rather than
+ * from the previous step, so the beats of the sequenced audio are exactly where the BeatTimeline expects them. A
+ * single render thread renders ahead of the StreamingPlaybackEngine into the ring buffer of each segment.
+ *
+ * @author Gareth Iguasnia
+ * @date 19/04/2020
+ */
+public class PatternSequencer {
+    // The sequenced audio is in the same format as the WAV files so that the line of the engine does not need reopening
+    public static final AudioFormat FORMAT = ClickTrack.FORMAT;
+
+    // How far the render thread renders ahead of the engine
+    public static final int RENDER_AHEAD_MILLIS = 200;
+
+    // Stops the sum of the four instruments from clipping
+    private static final float MASTER_GAIN = 0.5f;
+
+    // The gain of each instrument, indexed by the value of the Instrument
+    private final float[] gains;
+
+    // The segments whose ring needs topping up
+    private final LinkedBlockingQueue<SequencedSegment> renderQueue;
+    private Thread renderThread;
+
+    private long segmentsSequenced;
+
+    /**
+     * Constructor for the PatternSequencer Class. Every instrument starts with a gain of 1
+     */
+    public PatternSequencer() {
+        this.gains = new float[Instrument.values().length];
+        Arrays.fill(this.gains, 1f);
+        this.renderQueue = new LinkedBlockingQueue<>();
+    }
+
+    /**
+     * Method sequences the Salsa audio of the State at its tempo, lasting the 32 beats of a State
+     *
+     * @param state State object holding the tempo and combination of instruments
+     * @return A SequencedSegment object that renders the patterns of the instruments of the State
+     */
+    public SequencedSegment sequence(State state) {
+        return sequence(state.getInstruments(), state.getBpm().getBPM(), BeatTimeline.BEATS_PER_STATE);
+    }
+
+    /**
+     * Method sequences the patterns of the instruments at any tempo
+     *
+     * @param instruments A List of the Instruments to be played
+     * @param bpm A double representing the tempo in beats per minute
+     * @param beats Integer representing the length of the segment in beats
+     * @return A SequencedSegment object that renders the patterns of the instruments
+     */
+    public synchronized SequencedSegment sequence(List<Instrument> instruments, double bpm, int beats) {
+        if (bpm <= 0 || beats <= 0)
+            throw new IllegalArgumentException("Cannot sequence " + beats + " beats at " + bpm + " BPM");
+
+        float frameRate = FORMAT.getFrameRate();
+        int steps = beats * SalsaPattern.STEPS_PER_BEAT;
+
+        List<SalsaPattern> patterns = new ArrayList<>();
+        StringBuilder name = new StringBuilder("sequence:" + (bpm == Math.rint(bpm) ? String.valueOf((long) bpm) :
+                String.valueOf(bpm)) + "/");
+        for (Instrument instrument: instruments) {
+            patterns.add(SalsaPattern.forInstrument(instrument));
+            if (patterns.size() > 1)
+                name.append("+");
+            name.append(instrument.getName());
+        }
+
+        // Going through the steps in order keeps the hits sorted by the frame they start on
+        List<Long> frames = new ArrayList<>();
+        List<short[]> samples = new ArrayList<>();
+        List<Float> hitGains = new ArrayList<>();
+        for (int step = 0; step < steps; step++) {
+            int stepInCycle = step % SalsaPattern.STEPS_PER_CYCLE;
+            for (SalsaPattern pattern: patterns) {
+                for (int hit = 0; hit < pattern.getHitCount(); hit++) {
+                    if (pattern.getStep(hit) != stepInCycle)
+                        continue;
+                    frames.add(stepFrame(step, bpm, frameRate));
+                    samples.add(pattern.getOneShot(hit).getSamples());
+                    hitGains.add(MASTER_GAIN * pattern.getGain(hit) * gains[pattern.getInstrument().getValue()]);
+                }
+            }
+        }
+
+        long[] hitFrames = new long[frames.size()];
+        float[] hitGainArray = new float[frames.size()];
+        for (int i = 0; i < hitFrames.length; i++) {
+            hitFrames[i] = frames.get(i);
+            hitGainArray[i] = hitGains.get(i);
+        }
+
+        long[] beatFrames = new long[beats];
+        for (int beat = 0; beat < beats; beat++)
+            beatFrames[beat] = stepFrame((long) beat * SalsaPattern.STEPS_PER_BEAT, bpm, frameRate);
+
+        int ringBytes = (int) (frameRate * RENDER_AHEAD_MILLIS / 1000) * FORMAT.getFrameSize();
+        SequencedSegment segment = new SequencedSegment(name.toString(), FORMAT, stepFrame(steps, bpm, frameRate),
+                hitFrames, samples.toArray(new short[0][]), hitGainArray, beatFrames, this, ringBytes);
+        segmentsSequenced++;
+
+        // Rendering the start of the segment before the engine reaches it
+        requestRender(segment);
+        return segment;
+    }
+
+    /**
+     * Method returns the frame a step starts on from the start of the segment. Every step is worked out from the
+     * start so that rounding to a frame does not build up from one step to the next
+     *
+     * @param step A long representing the index of the quaver step
+     * @param bpm A double representing the tempo in beats per minute
+     * @param frameRate A float representing the number of frames per second
+     * @return A long representing the frame of the step
+     */
+    public static long stepFrame(long step, double bpm, float frameRate) {
+        return Math.round(step * 60.0 * frameRate / (bpm * SalsaPattern.STEPS_PER_BEAT));
+    }
+
+    /**
+     * Method sets the gain of an instrument. This is used by the segments sequenced after this method has been called
+     *
+     * @param instrument The Instrument to change the gain of
+     * @param gain A float that the samples of the instrument are multiplied by
+     */
+    public synchronized void setGain(Instrument instrument, float gain) {
+        gains[instrument.getValue()] = gain;
+    }
+
+    public synchronized float getGain(Instrument instrument) {
+        return gains[instrument.getValue()];
+    }
+
+    /**
+     * Method stops the render thread. Segments that are still read afterwards are rendered by the thread reading them
+     */
+    public synchronized void shutdown() {
+        renderQueue.clear();
+        if (renderThread != null) {
+            renderThread.interrupt();
+            renderThread = null;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "PatternSequencer[segments=" + segmentsSequenced + ", queued=" + renderQueue.size() + "]";
+    }
+
+    /* Method called by a segment once half of its ring has been read */
+    synchronized void requestRender(SequencedSegment segment) {
+        startRenderThread();
+        renderQueue.add(segment);
+    }
+
+    /* Helper method that starts the render thread the first time a segment is sequenced */
+    private void startRenderThread() {
+        if (renderThread != null)
+            return;
+
+        renderThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                // The mix of one pass of the render thread
+                float[] scratch = new float[(int) (FORMAT.getFrameRate() * RENDER_AHEAD_MILLIS / 1000)];
+                try {
+                    while (!Thread.currentThread().isInterrupted())
+                        renderQueue.take().renderAhead(scratch);
+                }
+                catch (InterruptedException e) {
+                    // The sequencer has been shut down
+                }
+            }
+        }, "salsa-sequencer");
+        renderThread.setDaemon(true);
+
+        // Below the writer thread of the engine, which only copies the rendered audio to the line
+        renderThread.setPriority(Thread.MAX_PRIORITY - 1);
+        renderThread.start();
+    }
+}
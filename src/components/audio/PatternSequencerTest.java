@@ -0,0 +1,66 @@
+package components.audio;
+
+import components.enums.Instrument;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PatternSequencerTest {
+    private final PatternSequencer sequencer = new PatternSequencer();
+
+    @Test
+    void beatsAreExactAtAnyTempo() {
+        SequencedSegment segment = sequencer.sequence(Collections.singletonList(Instrument.CLAVE), 173, 32);
+
+        // 32 beats at 173 BPM, with every beat worked out from the start of the segment
+        assertEquals(Math.round(32 * 60.0 * 44100 / 173), segment.getFrameLength());
+        long[] beatFrames = segment.getBeatFrames();
+        for (int beat = 0; beat < 32; beat++)
+            assertEquals(Math.round(beat * 60.0 * 44100 / 173), beatFrames[beat]);
+
+        // 5 hits of the clave every 8 beats
+        assertEquals(20, segment.getHitCount());
+
+        // The first hit of the 2-3 clave is on the second beat: silence before it and the clave straight after
+        byte[] pcm = new byte[(int) segment.getByteLength()];
+        segment.render(0, pcm, 0, pcm.length, new float[(int) segment.getFrameLength()]);
+        int frameSize = segment.getFormat().getFrameSize();
+        for (int frame = 0; frame < beatFrames[1]; frame++)
+            assertEquals(0, readSample(pcm, frame * frameSize));
+        assertNotEquals(0, readSample(pcm, (int) (beatFrames[1] + 10) * frameSize));
+        sequencer.shutdown();
+    }
+
+    @Test
+    void renderingAheadMatchesRenderingOnRead() throws InterruptedException {
+        SequencedSegment segment = sequencer.sequence(Arrays.asList(Instrument.values()), 200, 32);
+        byte[] expected = new byte[(int) segment.getByteLength()];
+        segment.render(0, expected, 0, expected.length, new float[(int) segment.getFrameLength()]);
+
+        // Reading through the segment in the chunks of the engine, giving the render thread time to stay ahead
+        byte[] streamed = new byte[expected.length];
+        byte[] chunk = new byte[441 * 4];
+        long position = 0;
+        int read;
+        while ((read = segment.read(position, chunk, 0, chunk.length)) > 0) {
+            System.arraycopy(chunk, 0, streamed, (int) position, read);
+            position += read;
+            Thread.sleep(0, 200_000);
+        }
+        assertArrayEquals(expected, streamed);
+        assertTrue(segment.getBytesRenderedOnRead() < expected.length);
+
+        // Reading from anywhere else renders the same bytes
+        assertEquals(chunk.length, segment.read(1000 * 4, chunk, 0, chunk.length));
+        assertArrayEquals(Arrays.copyOfRange(expected, 4000, 4000 + chunk.length), chunk);
+        sequencer.shutdown();
+    }
+
+    /* Helper method that reads a little endian sample out of the buffer */
+    private int readSample(byte[] buffer, int index) {
+        return (short) ((buffer[index + 1] << 8) | (buffer[index] & 0xFF));
+    }
+}
@@ -0,0 +1,103 @@
+package components.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+
+/**
+ * PcmSegment Class that implements the AudioSegment interface. This holds the decoded PCM data of a WAV file in a
+ * read only ByteBuffer.
+ *
+ * @author Gareth Iguasnia
+ * @date 08/04/2020
+ */
+public class PcmSegment implements AudioSegment {
+    private final String name;
+    private final AudioFormat format;
+    private final ByteBuffer data;
+
+    /**
+     * Constructor for the PcmSegment Class.
+     *
+     * @param name String object representing the name of the segment
+     * @param format AudioFormat object describing the PCM data
+     * @param data ByteBuffer holding the PCM data from its position to its limit
+     */
+    public PcmSegment(String name, AudioFormat format, ByteBuffer data) {
+        this.name = name;
+        this.format = format;
+        this.data = data.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Method decodes the WAV file found at the resource path into a PcmSegment
+     *
+     * @param filename String object representing the resource path of the WAV file
+     * @return A PcmSegment object holding the decoded PCM data of the WAV file
+     * @throws IOException If the WAV file cannot be found or read
+     * @throws UnsupportedAudioFileException If the WAV file is not in a supported format
+     */
+    public static PcmSegment decode(String filename) throws IOException, UnsupportedAudioFileException {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        URL url = classLoader.getResource(filename);
+        if (url == null)
+            throw new IOException("No sound asset found at " + filename);
+
+        try (AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(url)) {
+            AudioFormat format = audioInputStream.getFormat();
+            byte[] pcm = audioInputStream.readAllBytes();
+
+            // Dropping any half frame at the end of the file
+            int length = pcm.length - pcm.length % format.getFrameSize();
+            return new PcmSegment(filename, format, ByteBuffer.wrap(pcm, 0, length));
+        }
+    }
+
+    /**
+     * Method reads the AudioFormat of the WAV file found at the resource path without decoding it
+     *
+     * @param filename String object representing the resource path of the WAV file
+     * @return The AudioFormat object of the WAV file
+     * @throws IOException If the WAV file cannot be found or read
+     * @throws UnsupportedAudioFileException If the WAV file is not in a supported format
+     */
+    public static AudioFormat readFormat(String filename) throws IOException, UnsupportedAudioFileException {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        URL url = classLoader.getResource(filename);
+        if (url == null)
+            throw new IOException("No sound asset found at " + filename);
+
+        return AudioSystem.getAudioFileFormat(url).getFormat();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public long getFrameLength() {
+        return data.remaining() / format.getFrameSize();
+    }
+
+    @Override
+    public int read(long bytePosition, byte[] buffer, int offset, int length) {
+        if (bytePosition >= data.limit())
+            return -1;
+
+        int toCopy = (int) Math.min(length, data.limit() - bytePosition);
+
+        // Absolute read so that the segment can be read by several threads at the same time
+        data.get((int) bytePosition, buffer, offset, toCopy);
+        return toCopy;
+    }
+}
@@ -0,0 +1,106 @@
+package components.audio;
+
+import components.enums.Instrument;
+
+/**
+ * SalsaPattern Enum Class that holds the rhythm played by each instrument, written as the steps of a 2 bar cycle of
+ * quaver (half beat) steps. Step 0 is the first beat of the cycle, step 2 the second beat and step 3 the "and" of the
+ * second beat. Every pattern is in 2-3 son clave so that the instruments lock together.
+ *
+ * Each hit of a pattern names the one-shot it plays, out of the one-shots of the pattern, along with its gain.
+ *
+ * @author Gareth Iguasnia
+ * @date 19/04/2020
+ */
+public enum SalsaPattern {
+    // 2-3 son clave: beats 2 and 3 of the first bar, then beat 1, the "and" of 2 and beat 4 of the second bar
+    SON_CLAVE(Instrument.CLAVE,
+            new OneShot[]{OneShot.clave()},
+            new int[]{2, 4, 8, 11, 14},
+            new int[]{0, 0, 0, 0, 0},
+            new float[]{1f, 1f, 1f, 1f, 1f}),
+
+    // 2-3 cascara on the shell of the timbales, accenting the hits that line up with the clave
+    CASCARA(Instrument.TIMBALES,
+            new OneShot[]{OneShot.cascara(true), OneShot.cascara(false)},
+            new int[]{0, 2, 3, 5, 7, 8, 10, 12, 13, 15},
+            new int[]{0, 0, 1, 1, 1, 0, 1, 0, 1, 1},
+            new float[]{1f, 1f, 0.8f, 0.8f, 0.8f, 1f, 0.8f, 1f, 0.8f, 0.8f}),
+
+    // Tumbao: the bass anticipates the chord on the "and" of 2 and plays the fifth on beat 4, leaving beat 1 empty
+    TUMBAO(Instrument.BASS,
+            new OneShot[]{OneShot.bass(65.41), OneShot.bass(98.00), OneShot.bass(87.31), OneShot.bass(130.81)},
+            new int[]{3, 6, 11, 14},
+            new int[]{0, 1, 2, 3},
+            new float[]{1f, 0.9f, 1f, 0.9f}),
+
+    // Montuno: syncopated chords on the off beats, moving from C major in the first bar to F major in the second
+    MONTUNO(Instrument.PIANO,
+            new OneShot[]{OneShot.piano(261.63, 329.63, 392.00), OneShot.piano(261.63, 349.23, 440.00)},
+            new int[]{1, 3, 4, 6, 9, 11, 12, 14},
+            new int[]{0, 0, 0, 0, 1, 1, 1, 1},
+            new float[]{0.7f, 0.8f, 0.7f, 0.8f, 0.7f, 0.8f, 0.7f, 0.8f});
+
+    // The number of quaver steps in one cycle of every pattern i.e. 2 bars of 4 beats
+    public static final int STEPS_PER_CYCLE = 16;
+    public static final int STEPS_PER_BEAT = 2;
+
+    private final Instrument instrument;
+    private final OneShot[] oneShots;
+
+    // For each hit: the step it is played on, the index of its one-shot and its gain
+    private final int[] steps;
+    private final int[] sounds;
+    private final float[] gains;
+
+    /**
+     * Constructor for the SalsaPattern Enum class
+     *
+     * @param instrument The Instrument that plays the pattern
+     * @param oneShots The one-shots played by the pattern
+     * @param steps The step of each hit, in ascending order
+     * @param sounds The index into oneShots of each hit
+     * @param gains The gain of each hit
+     */
+    SalsaPattern(Instrument instrument, OneShot[] oneShots, int[] steps, int[] sounds, float[] gains) {
+        this.instrument = instrument;
+        this.oneShots = oneShots;
+        this.steps = steps;
+        this.sounds = sounds;
+        this.gains = gains;
+    }
+
+    /**
+     * Method returns the pattern played by the instrument
+     *
+     * @param instrument The Instrument to find the pattern of
+     * @return The SalsaPattern of the instrument
+     */
+    public static SalsaPattern forInstrument(Instrument instrument) {
+        for (SalsaPattern pattern: values()) {
+            if (pattern.instrument == instrument)
+                return pattern;
+        }
+        throw new IllegalArgumentException("There is no pattern for " + instrument.getName());
+    }
+
+    public Instrument getInstrument() {
+        return instrument;
+    }
+
+    public int getHitCount() {
+        return steps.length;
+    }
+
+    public int getStep(int hit) {
+        return steps[hit];
+    }
+
+    public OneShot getOneShot(int hit) {
+        return oneShots[sounds[hit]];
+    }
+
+    public float getGain(int hit) {
+        return gains[hit];
+    }
+}
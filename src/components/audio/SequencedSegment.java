@@ -0,0 +1,250 @@
+package components.audio;
+
+import javax.sound.sampled.AudioFormat;
+import java.util.Arrays;
+
+/**
+ * SequencedSegment Class that implements the AudioSegment interface. The segment holds the hits of the SalsaPatterns
+ * of a State, each with the exact frame it starts on, and renders the audio from the one-shots of the hits. Any
+ * range of the segment is always rendered to the same samples, so the beats are exactly where the hits were placed.
+ *
+ * The render thread of the PatternSequencer renders ahead of the StreamingPlaybackEngine into a ring buffer, so the
+ * writer thread of the engine only copies bytes out of the ring. If the engine reads a range that has not been
+ * rendered yet, i.e. when the segment is read from somewhere other than where the last read ended, the range is
+ * rendered straight into the buffer of the engine instead.
+ *
+ * @author Gareth Iguasnia
+ * @date 19/04/2020
+ */
+public class SequencedSegment implements AudioSegment {
+    private final String name;
+    private final AudioFormat format;
+    private final long frameLength;
+
+    // For each hit, in order of the frame it starts on: the frame, the mono samples of its one-shot and its gain
+    private final long[] hitFrames;
+    private final short[][] hitSamples;
+    private final float[] hitGains;
+
+    // The length of the longest one-shot, so that the hits that are still ringing at a frame can be found
+    private final int longestHit;
+
+    // The frame of each beat from the start of the segment
+    private final long[] beatFrames;
+
+    // The sequencer whose render thread fills the ring
+    private final PatternSequencer sequencer;
+
+    // The audio rendered ahead of the engine. The bytes from readPosition up to writePosition are ready to be read.
+    // The epoch changes whenever the ring is emptied, so that a render started before then is not published
+    private final byte[] ring;
+    private long readPosition;
+    private long writePosition;
+    private int epoch;
+    private boolean renderQueued;
+
+    // The mix of the range rendered by the reading thread when the ring has not got it
+    private float[] readScratch = new float[0];
+
+    // The number of bytes that had to be rendered by the reading thread
+    private volatile long bytesRenderedOnRead;
+
+    /**
+     * Constructor for the SequencedSegment Class. This is only called by the PatternSequencer
+     *
+     * @param name String object representing the name of the segment
+     * @param format AudioFormat object of the rendered audio. This must be 16 bit signed little endian PCM
+     * @param frameLength A long representing the length of the segment in frames
+     * @param hitFrames The frame each hit starts on, in ascending order
+     * @param hitSamples The mono samples of the one-shot of each hit
+     * @param hitGains The gain of each hit
+     * @param beatFrames The frame of each beat from the start of the segment
+     * @param sequencer PatternSequencer object whose render thread fills the ring
+     * @param ringBytes The size of the ring in bytes. This must be a whole number of frames
+     */
+    SequencedSegment(String name, AudioFormat format, long frameLength, long[] hitFrames, short[][] hitSamples,
+                     float[] hitGains, long[] beatFrames, PatternSequencer sequencer, int ringBytes) {
+        this.name = name;
+        this.format = format;
+        this.frameLength = frameLength;
+        this.hitFrames = hitFrames;
+        this.hitSamples = hitSamples;
+        this.hitGains = hitGains;
+        this.beatFrames = beatFrames;
+        this.sequencer = sequencer;
+        this.ring = new byte[ringBytes];
+
+        int longest = 0;
+        for (short[] samples: hitSamples)
+            longest = Math.max(longest, samples.length);
+        this.longestHit = longest;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public long getFrameLength() {
+        return frameLength;
+    }
+
+    @Override
+    public synchronized int read(long bytePosition, byte[] buffer, int offset, int length) {
+        long byteLength = getByteLength();
+        if (bytePosition >= byteLength)
+            return -1;
+
+        // Only whole frames are read
+        int toRead = (int) Math.min(length, byteLength - bytePosition);
+        toRead -= toRead % format.getFrameSize();
+
+        // Reading on from where the last read ended takes the bytes rendered ahead, otherwise the ring is emptied
+        int fromRing = 0;
+        if (bytePosition == readPosition) {
+            fromRing = (int) Math.min(toRead, writePosition - bytePosition);
+            copyFromRing(bytePosition, buffer, offset, fromRing);
+        }
+        else {
+            writePosition = bytePosition;
+            epoch++;
+        }
+
+        if (fromRing < toRead) {
+            int frames = (toRead - fromRing) / format.getFrameSize();
+            if (readScratch.length < frames)
+                readScratch = new float[frames];
+            render(bytePosition + fromRing, buffer, offset + fromRing, toRead - fromRing, readScratch);
+            bytesRenderedOnRead += toRead - fromRing;
+        }
+
+        readPosition = bytePosition + toRead;
+        if (writePosition < readPosition)
+            writePosition = readPosition;
+
+        // Topping the ring up once half of it has been read
+        if (!renderQueued && writePosition - readPosition < ring.length / 2 && writePosition < byteLength) {
+            renderQueued = true;
+            sequencer.requestRender(this);
+        }
+        return toRead;
+    }
+
+    /**
+     * Method returns the frame of each beat from the start of the segment. The hits on the beats start on exactly
+     * these frames
+     *
+     * @return An array of longs representing the frame of each beat
+     */
+    @Override
+    public long[] getBeatFrames() {
+        return beatFrames.clone();
+    }
+
+    public int getHitCount() {
+        return hitFrames.length;
+    }
+
+    /**
+     * Method returns the number of bytes that were rendered by the thread reading the segment, rather than ahead of
+     * time by the render thread
+     *
+     * @return A long representing the bytes rendered when they were read
+     */
+    public long getBytesRenderedOnRead() {
+        return bytesRenderedOnRead;
+    }
+
+    /**
+     * Method renders a range of the segment as 16 bit signed little endian PCM. The same range is always rendered to
+     * the same bytes
+     *
+     * @param bytePosition The position in bytes from the start of the segment to render from. This must be on a frame
+     * @param buffer The byte array to render into
+     * @param offset The position in the buffer to start writing to
+     * @param length The number of bytes to render. This must be a whole number of frames
+     * @param scratch A float array of at least length / frame size elements used to sum the hits
+     */
+    public void render(long bytePosition, byte[] buffer, int offset, int length, float[] scratch) {
+        int channels = format.getChannels();
+        long firstFrame = bytePosition / format.getFrameSize();
+        int frames = length / format.getFrameSize();
+        Arrays.fill(scratch, 0, frames, 0f);
+
+        // The first hit that could still be ringing at the first frame
+        int hit = Arrays.binarySearch(hitFrames, firstFrame - longestHit);
+        if (hit < 0)
+            hit = -hit - 1;
+        while (hit > 0 && hitFrames[hit - 1] >= firstFrame - longestHit)
+            hit--;
+
+        for (; hit < hitFrames.length && hitFrames[hit] < firstFrame + frames; hit++) {
+            short[] samples = hitSamples[hit];
+            float gain = hitGains[hit];
+            long start = Math.max(firstFrame, hitFrames[hit]);
+            long end = Math.min(firstFrame + frames, hitFrames[hit] + samples.length);
+            for (long frame = start; frame < end; frame++)
+                scratch[(int) (frame - firstFrame)] += samples[(int) (frame - hitFrames[hit])] * gain;
+        }
+
+        for (int frame = 0; frame < frames; frame++) {
+            int sample = Math.round(scratch[frame]);
+            if (sample > Short.MAX_VALUE)
+                sample = Short.MAX_VALUE;
+            else if (sample < Short.MIN_VALUE)
+                sample = Short.MIN_VALUE;
+
+            for (int channel = 0; channel < channels; channel++) {
+                int index = offset + 2 * (frame * channels + channel);
+                buffer[index] = (byte) sample;
+                buffer[index + 1] = (byte) (sample >> 8);
+            }
+        }
+    }
+
+    /* Method run by the render thread of the PatternSequencer that fills the free space of the ring. The ring is
+     * rendered into outside of the lock, as the reading thread only copies out the bytes before writePosition */
+    void renderAhead(float[] scratch) {
+        while (true) {
+            long write;
+            int bytes;
+            int renderEpoch;
+            synchronized (this) {
+                renderQueued = false;
+                write = writePosition;
+                renderEpoch = epoch;
+                bytes = (int) Math.min(ring.length - (write - readPosition), getByteLength() - write);
+                bytes = Math.min(bytes, scratch.length * format.getFrameSize());
+                if (bytes <= 0)
+                    return;
+            }
+
+            // The ring is a whole number of frames so a frame is never split across its end
+            int slot = (int) (write % ring.length);
+            int first = Math.min(bytes, ring.length - slot);
+            render(write, ring, slot, first, scratch);
+            if (first < bytes)
+                render(write + first, ring, 0, bytes - first, scratch);
+
+            synchronized (this) {
+                if (epoch == renderEpoch && writePosition == write)
+                    writePosition = write + bytes;
+            }
+        }
+    }
+
+    /* Helper method that copies bytes that have been rendered ahead out of the ring */
+    private void copyFromRing(long bytePosition, byte[] buffer, int offset, int length) {
+        int slot = (int) (bytePosition % ring.length);
+        int first = Math.min(length, ring.length - slot);
+        System.arraycopy(ring, slot, buffer, offset, first);
+        if (first < length)
+            System.arraycopy(ring, 0, buffer, offset + first, length - first);
+    }
+}
@@ -0,0 +1,217 @@
+package components.audio;
+
+import components.State;
+import components.enums.BPM;
+import components.enums.Instrument;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * SoundAssetIndex Class that lists all of the Salsa audio files once when the application starts up. The WAV files
+ * are grouped by the tempo and the combination of instruments of the folder they are in, so that finding the files
+ * for a State does not involve walking through the JAR file or the file system every time the game moves on to a new
+ * State.
+ *
+ * The files are held in a table indexed by the BPM and a bit mask of the instruments, where bit n is set if the
+ * Instrument with the value n is playing.
+ *
+ * @author Gareth Iguasnia
+ * @date 04/04/2020
+ */
+public class SoundAssetIndex {
+    // The folder holding the WAV files i.e. assets/sounds/
+    private final String soundsRoot;
+
+    // [BPM ordinal][instrument mask] -> The resource paths of the WAV files for that combination
+    private final String[][][] files;
+
+    // Total number of WAV files that have been indexed
+    private int size;
+
+    /* Constructor is private as the index should be created with build(...) */
+    private SoundAssetIndex(String soundsRoot) {
+        this.soundsRoot = soundsRoot.endsWith("/") ? soundsRoot : soundsRoot + "/";
+        this.files = new String[BPM.values().length][1 << Instrument.values().length][];
+    }
+
+    /**
+     * Method creates the SoundAssetIndex by listing the WAV files found under the sounds folder. This works whether the
+     * application is running from the JAR file or from an IDE.
+     *
+     * @param soundsRoot String object representing the resource path of the folder holding the WAV files
+     * @return A SoundAssetIndex object holding the resource paths of every Salsa audio file
+     */
+    public static SoundAssetIndex build(String soundsRoot) {
+        SoundAssetIndex index = new SoundAssetIndex(soundsRoot);
+        Map<Integer, ArrayList<String>> found = new HashMap<>();
+
+        try {
+            final File jarFile = new File(SoundAssetIndex.class.getProtectionDomain().getCodeSource().getLocation()
+                    .toURI());
+
+            // This was added so that the directories can be found in the Jar File
+            if (jarFile.isFile()) {
+                try (JarFile jar = new JarFile(jarFile)) {
+                    Enumeration<JarEntry> entries = jar.entries();
+                    while (entries.hasMoreElements())
+                        index.addResource(entries.nextElement().getName(), found);
+                }
+            }
+            // This code works when being executed from an IDE
+            else {
+                ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+                URL url = classLoader.getResource(index.soundsRoot);
+                File[] bpmFolders = url == null ? null : new File(url.toURI()).listFiles();
+
+                if (bpmFolders == null)
+                    System.out.println("No sound assets found at " + index.soundsRoot);
+                else {
+                    for (File bpmFolder: bpmFolders) {
+                        File[] comboFolders = bpmFolder.listFiles();
+                        if (comboFolders == null)
+                            continue;
+                        for (File comboFolder: comboFolders) {
+                            File[] wavFiles = comboFolder.listFiles();
+                            if (wavFiles == null)
+                                continue;
+                            for (File wavFile: wavFiles)
+                                index.addResource(index.soundsRoot + bpmFolder.getName() + "/" +
+                                        comboFolder.getName() + "/" + wavFile.getName(), found);
+                        }
+                    }
+                }
+            }
+        }
+        catch (IOException | URISyntaxException e) {
+            e.printStackTrace();
+        }
+
+        // Freezing the lists into the table. The paths are sorted so that the order does not depend on the file system
+        for (Map.Entry<Integer, ArrayList<String>> entry: found.entrySet()) {
+            String[] paths = entry.getValue().toArray(new String[0]);
+            Arrays.sort(paths);
+            index.files[entry.getKey() / index.files[0].length][entry.getKey() % index.files[0].length] = paths;
+            index.size += paths.length;
+        }
+        return index;
+    }
+
+    /**
+     * Method returns the resource paths of the WAV files recorded with the tempo and combination of instruments
+     *
+     * @param bpm BPM object representing the tempo of the recordings
+     * @param instruments A List of Instrument objects representing the combination of instruments. The order does not
+     *                    matter
+     * @return An unmodifiable List of String objects. This is empty if there are no recordings for the combination
+     */
+    public List<String> getFiles(BPM bpm, List<Instrument> instruments) {
+        String[] paths = files[bpm.ordinal()][createMask(instruments)];
+        if (paths == null)
+            return Collections.emptyList();
+        return Collections.unmodifiableList(Arrays.asList(paths));
+    }
+
+    /**
+     * Method randomly chooses one of the WAV files that have been recorded for the State
+     *
+     * @param state State object that holds the tempo and combination of instruments
+     * @param randomGenerator Random object used to select the WAV file
+     * @return A String object representing the resource path of the WAV file, or null if there are no recordings
+     */
+    public String randomFile(State state, Random randomGenerator) {
+        String[] paths = files[state.getBpm().ordinal()][createMask(state.getInstruments())];
+        if (paths == null)
+            return null;
+        return paths[randomGenerator.nextInt(paths.length)];
+    }
+
+    /**
+     * Method returns the resource paths of every WAV file that has been indexed, grouped by tempo and combination
+     *
+     * @return A List of String objects representing the resource paths of the WAV files
+     */
+    public List<String> getAllFiles() {
+        ArrayList<String> allFiles = new ArrayList<>(size);
+        for (String[][] bpmFiles: files) {
+            for (String[] paths: bpmFiles) {
+                if (paths != null)
+                    allFiles.addAll(Arrays.asList(paths));
+            }
+        }
+        return allFiles;
+    }
+
+    /**
+     * Method returns the number of WAV files that have been indexed
+     *
+     * @return An integer representing the number of indexed WAV files
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Method creates the bit mask used to index a combination of instruments
+     *
+     * @param instruments A List of Instrument objects
+     * @return An integer where bit n is set if the Instrument with the value n is in the List
+     */
+    public static int createMask(List<Instrument> instruments) {
+        int mask = 0;
+        for (Instrument instrument: instruments)
+            mask |= 1 << instrument.getValue();
+        return mask;
+    }
+
+    /* Helper method that adds a resource path of the form assets/sounds/<bpm>/<instruments>/<file>.wav to the list
+     * of its BPM and combination of instruments. Any other resource is ignored */
+    private void addResource(String path, Map<Integer, ArrayList<String>> found) {
+        if (!path.startsWith(soundsRoot) || !path.endsWith(".wav"))
+            return;
+
+        // <bpm>/<instruments>/<file>.wav - anything nested deeper is not a combination folder
+        String[] parts = path.substring(soundsRoot.length()).split("/");
+        if (parts.length != 3)
+            return;
+
+        BPM bpm = findBPM(parts[0]);
+        int mask = findMask(parts[1]);
+        if (bpm == null || mask <= 0)
+            return;
+
+        int key = bpm.ordinal() * files[0].length + mask;
+        found.computeIfAbsent(key, k -> new ArrayList<>()).add(path);
+    }
+
+    /* Helper method that finds the BPM object of a tempo folder. Returns null if the folder is not a tempo */
+    private BPM findBPM(String folder) {
+        for (BPM bpm: BPM.values()) {
+            if (Integer.toString(bpm.getBPM()).equals(folder))
+                return bpm;
+        }
+        return null;
+    }
+
+    /* Helper method that finds the instrument mask of a folder i.e. piano_bass. Returns -1 if a name is not an
+     * instrument */
+    private int findMask(String folder) {
+        int mask = 0;
+        for (String name: folder.split("_")) {
+            Instrument found = null;
+            for (Instrument instrument: Instrument.values()) {
+                if (instrument.getName().equals(name))
+                    found = instrument;
+            }
+            if (found == null)
+                return -1;
+            mask |= 1 << found.getValue();
+        }
+        return mask;
+    }
+}
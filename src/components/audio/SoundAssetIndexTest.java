@@ -0,0 +1,44 @@
+package components.audio;
+
+import components.State;
+import components.UserProfile;
+import components.enums.BPM;
+import components.enums.Instrument;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SoundAssetIndexTest {
+
+    @Test
+    void getFiles() {
+        SoundAssetIndex index = SoundAssetIndex.build("assets/sounds/");
+
+        // The order of the instruments should not matter
+        ArrayList<Instrument> instruments = new ArrayList<>(2);
+        instruments.add(Instrument.BASS); instruments.add(Instrument.PIANO);
+
+        List<String> files = index.getFiles(BPM.SLOW, instruments);
+
+        assertEquals(6, files.size());
+        for (String file: files)
+            assertTrue(file.startsWith("assets/sounds/180/piano_bass/"));
+    }
+
+    @Test
+    void randomFile() {
+        SoundAssetIndex index = SoundAssetIndex.build("assets/sounds/");
+        Random randomGenerator = new Random(7);
+
+        // Every State in the game should have at least one recording to play
+        for (State state: new UserProfile().getStates().values()) {
+            String file = index.randomFile(state, randomGenerator);
+            assertNotNull(file);
+            assertTrue(file.startsWith("assets/sounds/" + state.getBpm().getBPM() + "/"));
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package components.audio;
+
+import components.PlayFile;
+
+import javax.sound.sampled.Clip;
+import javax.sound.sampled.LineEvent;
+import javax.sound.sampled.LineListener;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SoundBank Class that keeps short sounds i.e. the countdown decoded in open Clips for the whole time the application
+ * is running. The sounds are loaded once at startup, so playing one is only a rewind and a start of a Clip that is
+ * already open. Nothing is decoded or opened when the user presses Start, and the same Clips are used by every game
+ * mode.
+ *
+ * Each sound can have a few voices so that it can be played again before it has finished. The time from a sound being
+ * requested to its Clip starting is recorded so that the delay between the Start click and the countdown being heard
+ * can be checked.
+ *
+ * @author Gareth Iguasnia
+ * @date 18/04/2020
+ */
+public class SoundBank {
+    // Gives the bank its Clips. These are not pooled as they are never closed when a game finishes
+    private final AudioBackend audioBackend;
+
+    // Key - Name of the sound i.e. its resource path. Value - The open Clips of the sound
+    private final Map<String, Clip[]> voices;
+
+    // Key - Name of the sound. Value - The index of the voice that is played next
+    private final Map<String, Integer> nextVoice;
+
+    private long residentBytes;
+
+    // How long after being requested the sounds started playing
+    private long triggers;
+    private long lastDispatchNanos;
+    private long maxDispatchNanos;
+    private long totalDispatchNanos;
+
+    /**
+     * Constructor for the SoundBank Class. The bank is empty until sounds are loaded
+     *
+     * @param audioBackend AudioBackend object that gives the bank its Clips
+     */
+    public SoundBank(AudioBackend audioBackend) {
+        this.audioBackend = audioBackend;
+        this.voices = new HashMap<>();
+        this.nextVoice = new HashMap<>();
+    }
+
+    /**
+     * Method decodes the WAV file and opens its Clips
+     *
+     * @param filename String object representing the resource path of the WAV file. This is the name of the sound
+     * @param voiceCount Integer representing the number of times the sound can be playing at once
+     * @throws IOException If the WAV file cannot be found or read
+     * @throws UnsupportedAudioFileException If the WAV file is not in a supported format
+     * @throws LineUnavailableException If the mixer cannot open the Clips
+     */
+    public void load(String filename, int voiceCount)
+            throws IOException, UnsupportedAudioFileException, LineUnavailableException {
+        load(filename, PcmSegment.decode(filename), voiceCount);
+    }
+
+    /**
+     * Method opens the Clips of a sound that has already been decoded or synthesised
+     *
+     * @param name String object representing the name of the sound
+     * @param segment AudioSegment object holding the PCM data of the sound
+     * @param voiceCount Integer representing the number of times the sound can be playing at once
+     * @throws LineUnavailableException If the mixer cannot open the Clips
+     */
+    public synchronized void load(String name, AudioSegment segment, int voiceCount) throws LineUnavailableException {
+        byte[] pcm = new byte[(int) segment.getByteLength()];
+        segment.read(0, pcm, 0, pcm.length);
+
+        Clip[] clips = new Clip[voiceCount];
+        for (int i = 0; i < voiceCount; i++) {
+            clips[i] = audioBackend.getClip();
+            clips[i].open(segment.getFormat(), pcm, 0, pcm.length);
+            residentBytes += pcm.length;
+        }
+
+        // Closing the Clips of a sound loaded before with the same name
+        Clip[] previous = voices.put(name, clips);
+        if (previous != null)
+            for (Clip clip: previous) {
+                residentBytes -= clip.getFrameLength() * (long) clip.getFormat().getFrameSize();
+                clip.close();
+            }
+        nextVoice.put(name, 0);
+    }
+
+    /**
+     * Method returns whether the sound has been loaded
+     *
+     * @param name String object representing the name of the sound
+     * @return true if the sound is resident in the bank
+     */
+    public synchronized boolean contains(String name) {
+        return voices.containsKey(name);
+    }
+
+    /**
+     * Method returns a PlayFile object that plays one of the open Clips of the sound. A voice that is not playing is
+     * used if there is one. The Clip is rewound, rather than closed, once it has been played
+     *
+     * @param name String object representing the name of the sound
+     * @param requestedNanos A long representing the System.nanoTime() at which the sound was asked for i.e. when
+     *                       Start was clicked. The time until the Clip starts is recorded from this
+     * @return A PlayFile object holding the Clip of the sound, or null if the sound has not been loaded
+     */
+    public synchronized PlayFile getPlayFile(String name, long requestedNanos) {
+        Clip[] clips = voices.get(name);
+        if (clips == null)
+            return null;
+
+        int voice = nextVoice.get(name);
+        for (int i = 0; i < clips.length && clips[voice].isRunning(); i++)
+            voice = (voice + 1) % clips.length;
+        nextVoice.put(name, (voice + 1) % clips.length);
+
+        PlayFile playFile = new PlayFile(name, clips[voice], true);
+        playFile.addLineListener(new LineListener() {
+            @Override
+            public void update(LineEvent event) {
+                if (event.getType() == LineEvent.Type.START)
+                    recordDispatch(System.nanoTime() - requestedNanos);
+            }
+        });
+        return playFile;
+    }
+
+    /**
+     * Method returns the bytes of PCM data held by the open Clips
+     *
+     * @return A long representing the resident bytes of every voice of every sound
+     */
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    public synchronized long getTriggers() {
+        return triggers;
+    }
+
+    /**
+     * Method returns how long the last sound took to start playing after it was requested
+     *
+     * @return A long representing the dispatch time in nanoseconds
+     */
+    public synchronized long getLastDispatchNanos() {
+        return lastDispatchNanos;
+    }
+
+    public synchronized long getMaxDispatchNanos() {
+        return maxDispatchNanos;
+    }
+
+    public synchronized long getMeanDispatchNanos() {
+        return triggers == 0 ? 0 : totalDispatchNanos / triggers;
+    }
+
+    /**
+     * Method closes every Clip of the bank. This is only done when the application is closing
+     */
+    public synchronized void close() {
+        for (Clip[] clips: voices.values())
+            for (Clip clip: clips)
+                clip.close();
+        voices.clear();
+        nextVoice.clear();
+        residentBytes = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "SoundBank[sounds=" + voices.size() + ", resident=" + residentBytes + " bytes, triggers=" + triggers +
+                ", dispatch last=" + lastDispatchNanos / 1000 + "us, mean=" + getMeanDispatchNanos() / 1000 +
+                "us, max=" + maxDispatchNanos / 1000 + "us]";
+    }
+
+    /* Helper method that records how long a sound took to start playing */
+    private synchronized void recordDispatch(long dispatchNanos) {
+        triggers++;
+        lastDispatchNanos = dispatchNanos;
+        totalDispatchNanos += dispatchNanos;
+        if (dispatchNanos > maxDispatchNanos)
+            maxDispatchNanos = dispatchNanos;
+    }
+}
@@ -0,0 +1,69 @@
+package components.audio;
+
+import components.PlayFile;
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.LineEvent;
+import javax.sound.sampled.LineListener;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SoundBankTest {
+
+    @Test
+    void residentClipIsReused() throws Exception {
+        // Four clicks 100 ms apart played 20 times faster than real time
+        SoundBank soundBank = new SoundBank(new NullAudioBackend(20));
+        soundBank.load("clicks", ClickTrack.create(4, 100), 1);
+        assertTrue(soundBank.contains("clicks"));
+        assertEquals(ClickTrack.create(4, 100).getByteLength(), soundBank.getResidentBytes());
+
+        PlayFile first = soundBank.getPlayFile("clicks", System.nanoTime());
+        play(first);
+        PlayFile second = soundBank.getPlayFile("clicks", System.nanoTime());
+        play(second);
+
+        // The same Clip is rewound and played again rather than closed
+        assertSame(first.getClip(), second.getClip());
+        assertTrue(second.getClip().isOpen());
+        assertEquals(0, second.getClip().getLongFramePosition());
+
+        assertEquals(2, soundBank.getTriggers());
+        assertTrue(soundBank.getMaxDispatchNanos() >= soundBank.getLastDispatchNanos());
+        assertNull(soundBank.getPlayFile("missing", System.nanoTime()));
+        soundBank.close();
+    }
+
+    @Test
+    void reloadingASoundFreesTheBytesOfItsPreviousClips() throws Exception {
+        SoundBank soundBank = new SoundBank(new NullAudioBackend(20));
+        soundBank.load("clicks", ClickTrack.create(8, 100), 2);
+        assertEquals(2 * ClickTrack.create(8, 100).getByteLength(), soundBank.getResidentBytes());
+
+        // The shorter sound replaces the longer one, so only its own Clips are resident
+        soundBank.load("clicks", ClickTrack.create(2, 100), 3);
+        assertEquals(3 * ClickTrack.create(2, 100).getByteLength(), soundBank.getResidentBytes());
+        soundBank.close();
+    }
+
+    /* Helper method that plays the sound and waits until it has been rewound */
+    private void play(PlayFile playFile) throws InterruptedException {
+        CountDownLatch stopped = new CountDownLatch(1);
+        playFile.addLineListener(new LineListener() {
+            @Override
+            public void update(LineEvent event) {
+                if (event.getType() == LineEvent.Type.STOP)
+                    stopped.countDown();
+            }
+        });
+        playFile.start();
+        assertTrue(stopped.await(1, TimeUnit.SECONDS));
+
+        // The Clip is rewound by the STOP listener added when it was started
+        long deadline = System.currentTimeMillis() + 1000;
+        while (playFile.getClip().getLongFramePosition() != 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(5);
+    }
+}
@@ -0,0 +1,219 @@
+package components.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.*;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SoundPack Class that reads the Salsa audio from a single uncompressed file holding the raw PCM data of every WAV
+ * file. The file is memory mapped, so getting the audio of a State is a lookup in the offset table followed by a slice
+ * of the mapped buffer. Nothing is inflated, decoded or copied onto the heap, and the cost does not depend on how big
+ * the pack is.
+ *
+ * The pack is laid out as follows:
+ * - Header: magic number, version, number of segments, offset of the offset table
+ * - PCM data: the raw PCM data of each segment one after the other
+ * - Offset table: for each segment, its resource path, its AudioFormat and the offset and length of its PCM data
+ *
+ * The resource path i.e. assets/sounds/180/piano_bass/bass1_piano2.wav is the key of a segment as it holds the BPM, the
+ * combination of instruments and the variant. The pack is created with main(...) as part of packaging the application.
+ *
+ * @author Gareth Iguasnia
+ * @date 12/04/2020
+ */
+public class SoundPack {
+    // The name of the pack file that is looked for next to the JAR file or the classes folder
+    public static final String DEFAULT_FILE_NAME = "sounds.pack";
+
+    // "SLSP" - Used to check that the file is a sound pack
+    private static final int MAGIC = 0x534C5350;
+    private static final int VERSION = 1;
+
+    // Magic number, version, number of segments and offset of the table
+    private static final int HEADER_LENGTH = 4 + 4 + 4 + 8;
+
+    // The whole pack file mapped into memory
+    private final MappedByteBuffer mappedPack;
+
+    // Key - Resource path of the segment. Value - The segment reading from the mapped pack
+    private final Map<String, PcmSegment> segments;
+
+    /* Constructor is private as the pack should be opened with open(...) */
+    private SoundPack(MappedByteBuffer mappedPack) {
+        this.mappedPack = mappedPack;
+        this.segments = new HashMap<>();
+    }
+
+    /**
+     * Method opens the pack file and memory maps it
+     *
+     * @param packFile File object of the pack
+     * @return A SoundPack object reading from the mapped pack file
+     * @throws IOException If the file cannot be read or is not a sound pack
+     */
+    public static SoundPack open(File packFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(packFile.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException(packFile + " is too big to be mapped in one go");
+
+            // The mapping stays valid after the channel has been closed
+            SoundPack pack = new SoundPack(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            pack.readOffsetTable(packFile);
+            return pack;
+        }
+    }
+
+    /**
+     * Method looks for the pack file next to the JAR file, or in the classes folder when running from an IDE
+     *
+     * @param fileName String object representing the name of the pack file
+     * @return A SoundPack object, or null if there is no pack file or it could not be opened
+     */
+    public static SoundPack find(String fileName) {
+        try {
+            File codeSource = new File(SoundPack.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            File packFile = new File(codeSource.isFile() ? codeSource.getParentFile() : codeSource, fileName);
+            if (!packFile.isFile())
+                return null;
+            return open(packFile);
+        }
+        catch (IOException | URISyntaxException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Method returns the segment of the WAV file that was packed from the resource path
+     *
+     * @param filename String object representing the resource path of the WAV file
+     * @return An AudioSegment object reading straight from the mapped pack, or null if the file was not packed
+     */
+    public AudioSegment getSegment(String filename) {
+        return segments.get(filename);
+    }
+
+    public boolean contains(String filename) {
+        return segments.containsKey(filename);
+    }
+
+    public int size() {
+        return segments.size();
+    }
+
+    /**
+     * Method decodes the WAV files one at a time and writes their PCM data into a new pack file
+     *
+     * @param filenames A List of String objects representing the resource paths of the WAV files
+     * @param packFile File object of the pack to be written
+     * @throws IOException If a WAV file cannot be read or the pack cannot be written
+     * @throws UnsupportedAudioFileException If a WAV file is not in a supported format
+     */
+    public static void write(List<String> filenames, File packFile) throws IOException, UnsupportedAudioFileException {
+        ByteArrayOutputStream table = new ByteArrayOutputStream();
+        DataOutputStream tableOut = new DataOutputStream(table);
+        long offset = HEADER_LENGTH;
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(packFile)))) {
+            // The offset of the table is filled in once all of the PCM data has been written
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(filenames.size());
+            out.writeLong(0);
+
+            byte[] chunk = new byte[64 * 1024];
+            for (String filename: filenames) {
+                PcmSegment segment = PcmSegment.decode(filename);
+                AudioFormat format = segment.getFormat();
+
+                tableOut.writeUTF(filename);
+                tableOut.writeUTF(format.getEncoding().toString());
+                tableOut.writeFloat(format.getSampleRate());
+                tableOut.writeInt(format.getSampleSizeInBits());
+                tableOut.writeInt(format.getChannels());
+                tableOut.writeInt(format.getFrameSize());
+                tableOut.writeFloat(format.getFrameRate());
+                tableOut.writeBoolean(format.isBigEndian());
+                tableOut.writeLong(offset);
+                tableOut.writeLong(segment.getByteLength());
+
+                long position = 0;
+                int read;
+                while ((read = segment.read(position, chunk, 0, chunk.length)) > 0) {
+                    out.write(chunk, 0, read);
+                    position += read;
+                }
+                offset += segment.getByteLength();
+            }
+
+            tableOut.flush();
+            table.writeTo(out);
+        }
+
+        try (RandomAccessFile pack = new RandomAccessFile(packFile, "rw")) {
+            pack.seek(12);
+            pack.writeLong(offset);
+        }
+    }
+
+    /**
+     * Method creates the pack of every Salsa audio file. This is run when packaging the application and the pack is
+     * placed next to the JAR file
+     *
+     * @param args The path of the pack file to write. This defaults to sounds.pack
+     */
+    public static void main(String[] args) throws IOException, UnsupportedAudioFileException {
+        File packFile = new File(args.length > 0 ? args[0] : DEFAULT_FILE_NAME);
+        List<String> filenames = SoundAssetIndex.build("assets/sounds/").getAllFiles();
+
+        write(filenames, packFile);
+        System.out.println("Packed " + filenames.size() + " WAV files into " + packFile + " (" + packFile.length() +
+                " bytes)");
+    }
+
+    /* Helper method that reads the offset table and creates a segment for each entry. The segments are slices of the
+     * mapped pack */
+    private void readOffsetTable(File packFile) throws IOException {
+        ByteBuffer header = mappedPack.duplicate();
+        if (header.remaining() < HEADER_LENGTH || header.getInt() != MAGIC)
+            throw new IOException(packFile + " is not a sound pack");
+        int version = header.getInt();
+        if (version != VERSION)
+            throw new IOException(packFile + " is version " + version + " of the sound pack format, expected " +
+                    VERSION);
+
+        int count = header.getInt();
+        long tableOffset = header.getLong();
+        if (tableOffset < HEADER_LENGTH || tableOffset > mappedPack.capacity())
+            throw new IOException(packFile + " is truncated");
+
+        // Copying the table out of the mapped pack so that it can be read as a stream. The PCM data is never copied
+        byte[] table = new byte[mappedPack.capacity() - (int) tableOffset];
+        header.position((int) tableOffset);
+        header.get(table);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(table));
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            AudioFormat format = new AudioFormat(new AudioFormat.Encoding(in.readUTF()), in.readFloat(),
+                    in.readInt(), in.readInt(), in.readInt(), in.readFloat(), in.readBoolean());
+            long offset = in.readLong();
+            long length = in.readLong();
+
+            if (offset < HEADER_LENGTH || offset + length > tableOffset)
+                throw new IOException(packFile + " is truncated at " + name);
+
+            ByteBuffer data = mappedPack.duplicate();
+            data.position((int) offset).limit((int) (offset + length));
+            segments.put(name, new PcmSegment(name, format, data));
+        }
+    }
+}
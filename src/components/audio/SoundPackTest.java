@@ -0,0 +1,41 @@
+package components.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SoundPackTest {
+
+    @Test
+    void writeAndOpen() throws Exception {
+        List<String> filenames = Arrays.asList("assets/sounds/180/piano/piano1.wav",
+                "assets/sounds/countdown/countdown_5-0.wav");
+        File packFile = File.createTempFile("salsa", ".pack");
+        packFile.deleteOnExit();
+
+        SoundPack.write(filenames, packFile);
+        SoundPack pack = SoundPack.open(packFile);
+
+        assertEquals(2, pack.size());
+        assertNull(pack.getSegment("assets/sounds/180/piano/piano2.wav"));
+
+        // The packed segments should hold exactly the same audio as the decoded WAV files
+        for (String filename: filenames) {
+            PcmSegment decoded = PcmSegment.decode(filename);
+            AudioSegment packed = pack.getSegment(filename);
+
+            assertTrue(decoded.getFormat().matches(packed.getFormat()));
+            assertEquals(decoded.getFrameLength(), packed.getFrameLength());
+
+            byte[] expected = new byte[(int) decoded.getByteLength()];
+            byte[] actual = new byte[(int) packed.getByteLength()];
+            decoded.read(0, expected, 0, expected.length);
+            packed.read(0, actual, 0, actual.length);
+            assertArrayEquals(expected, actual);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package components.audio;
+
+import components.State;
+import components.enums.Instrument;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * StemMixer Class that creates the Salsa audio for a State by mixing one recording of each instrument on its own (a
+ * stem) instead of playing a pre-mixed recording of the whole combination. The stems are the WAV files in the folders
+ * that only hold one instrument i.e. assets/sounds/180/piano/piano2.wav. A stem is decoded into 16 bit samples the
+ * first time it is used and put in the ClipCache under its resource path with a "stem:" prefix, so the stems count
+ * towards the byte budget of the AudioProfile and are evicted with the other clips. A mix keeps playing the stems it
+ * was created with even if they are evicted. This allows any combination of instruments to be played, even if it has
+ * never been recorded.
+ *
+ * @author Gareth Iguasnia
+ * @date 11/04/2020
+ */
+public class StemMixer {
+    // Used to find the stems of each instrument at each tempo
+    private final SoundAssetIndex soundAssetIndex;
+
+    // The cache that the decoded stems are kept in
+    private final ClipCache clipCache;
+
+    // The gain of each instrument, indexed by the value of the Instrument
+    private final float[] gains;
+
+    // The format shared by all of the stems
+    private AudioFormat format;
+
+    /**
+     * Constructor for the StemMixer Class. Every instrument starts with a gain of 1
+     *
+     * @param soundAssetIndex SoundAssetIndex object used to find the stems of each instrument
+     * @param clipCache ClipCache object that the decoded stems are kept in
+     */
+    public StemMixer(SoundAssetIndex soundAssetIndex, ClipCache clipCache) {
+        this.soundAssetIndex = soundAssetIndex;
+        this.clipCache = clipCache;
+        this.gains = new float[Instrument.values().length];
+        Arrays.fill(this.gains, 1f);
+    }
+
+    /**
+     * Method checks whether every instrument of the State has a stem recorded at the tempo of the State
+     *
+     * @param state State object holding the tempo and combination of instruments
+     * @return true if the State can be mixed from stems, false otherwise
+     */
+    public boolean hasStems(State state) {
+        for (Instrument instrument: state.getInstruments()) {
+            if (soundAssetIndex.getFiles(state.getBpm(), Collections.singletonList(instrument)).isEmpty())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Method creates the Salsa audio of the State by randomly choosing one stem for each instrument of the State and
+     * mixing them on the fly
+     *
+     * @param state State object holding the tempo and combination of instruments
+     * @param randomGenerator Random object used to choose the stem of each instrument
+     * @return A MixedSegment object that mixes the stems as it is played
+     * @throws IOException If a stem cannot be read
+     * @throws UnsupportedAudioFileException If a stem is not 16 bit PCM or does not match the format of the others
+     */
+    public synchronized MixedSegment mix(State state, Random randomGenerator)
+            throws IOException, UnsupportedAudioFileException {
+        ArrayList<Instrument> instruments = state.getInstruments();
+        short[][] mixStems = new short[instruments.size()][];
+        float[] mixGains = new float[instruments.size()];
+        StringBuilder name = new StringBuilder("mix:" + state.getBpm().getBPM() + "/");
+
+        for (int i = 0; i < instruments.size(); i++) {
+            List<String> files = soundAssetIndex.getFiles(state.getBpm(), Collections.singletonList(instruments.get(i)));
+            if (files.isEmpty())
+                throw new IOException("There is no stem of " + instruments.get(i).getName() + " at " +
+                        state.getBpm().getBPM() + " BPM");
+
+            String file = files.get(randomGenerator.nextInt(files.size()));
+            mixStems[i] = getStem(file);
+            mixGains[i] = gains[instruments.get(i).getValue()];
+
+            if (i > 0)
+                name.append("+");
+            name.append(file.substring(file.lastIndexOf('/') + 1));
+        }
+        return new MixedSegment(name.toString(), format, mixStems, mixGains);
+    }
+
+    /**
+     * Method sets the gain of an instrument. This is used by the mixes created after this method has been called
+     *
+     * @param instrument The Instrument to change the gain of
+     * @param gain A float that the samples of the instrument are multiplied by
+     */
+    public synchronized void setGain(Instrument instrument, float gain) {
+        gains[instrument.getValue()] = gain;
+    }
+
+    public synchronized float getGain(Instrument instrument) {
+        return gains[instrument.getValue()];
+    }
+
+    /**
+     * Method returns the key that a stem is put in the ClipCache under
+     *
+     * @param file String object representing the resource path of the stem
+     * @return A String object representing the key of the decoded stem
+     */
+    public static String getKey(String file) {
+        return "stem:" + file;
+    }
+
+    /* Helper method that returns the samples of a stem, decoding it the first time it is used */
+    private short[] getStem(String file) throws IOException, UnsupportedAudioFileException {
+        AudioSegment cached = clipCache.getIfPresent(getKey(file));
+        if (cached instanceof Stem)
+            return ((Stem) cached).samples;
+
+        PcmSegment segment = PcmSegment.decode(file);
+        AudioFormat stemFormat = segment.getFormat();
+
+        if (stemFormat.getEncoding() != AudioFormat.Encoding.PCM_SIGNED || stemFormat.getSampleSizeInBits() != 16)
+            throw new UnsupportedAudioFileException(file + " is not 16 bit signed PCM");
+        if (format == null)
+            format = new AudioFormat(stemFormat.getSampleRate(), 16, stemFormat.getChannels(), true, false);
+        else if (format.getSampleRate() != stemFormat.getSampleRate()
+                || format.getChannels() != stemFormat.getChannels())
+            throw new UnsupportedAudioFileException(file + " does not match the format of the other stems");
+
+        // Converting the bytes into samples
+        byte[] pcm = new byte[(int) segment.getByteLength()];
+        segment.read(0, pcm, 0, pcm.length);
+        short[] samples = new short[pcm.length / 2];
+        boolean bigEndian = stemFormat.isBigEndian();
+        for (int i = 0; i < samples.length; i++) {
+            int low = pcm[2*i + (bigEndian ? 1 : 0)] & 0xFF;
+            int high = pcm[2*i + (bigEndian ? 0 : 1)];
+            samples[i] = (short) ((high << 8) | low);
+        }
+
+        clipCache.put(getKey(file), new Stem(getKey(file), format, samples));
+        return samples;
+    }
+
+    /**
+     * Stem Class that holds the decoded samples of a stem in the ClipCache. It reads the samples back as little
+     * endian bytes
+     */
+    private static class Stem implements AudioSegment {
+        private final String name;
+        private final AudioFormat format;
+
+        // The interleaved 16 bit samples of the stem
+        private final short[] samples;
+
+        Stem(String name, AudioFormat format, short[] samples) {
+            this.name = name;
+            this.format = format;
+            this.samples = samples;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public AudioFormat getFormat() {
+            return format;
+        }
+
+        @Override
+        public long getFrameLength() {
+            return samples.length / format.getChannels();
+        }
+
+        @Override
+        public long getResidentBytes() {
+            return samples.length * 2L;
+        }
+
+        @Override
+        public int read(long bytePosition, byte[] buffer, int offset, int length) {
+            if (bytePosition >= samples.length * 2L)
+                return -1;
+
+            long end = Math.min(samples.length * 2L, bytePosition + length);
+            int read = 0;
+            for (long position = bytePosition; position < end; position++, read++) {
+                short sample = samples[(int) (position / 2)];
+                buffer[offset + read] = (byte) (position % 2 == 0 ? sample : sample >> 8);
+            }
+            return read;
+        }
+    }
+}
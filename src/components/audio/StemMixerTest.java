@@ -0,0 +1,56 @@
+package components.audio;
+
+import components.State;
+import components.enums.BPM;
+import components.enums.Instrument;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StemMixerTest {
+
+    @Test
+    void stemsAreKeptInTheClipCache() throws Exception {
+        ClipCache clipCache = new ClipCache(Long.MAX_VALUE);
+        StemMixer stemMixer = new StemMixer(SoundAssetIndex.build("assets/sounds/"), clipCache);
+        State state = new State(BPM.SLOW, instruments(Instrument.PIANO, Instrument.BASS));
+
+        MixedSegment mix = stemMixer.mix(state, new Random(3));
+
+        // Both stems count towards the budget of the cache as 16 bit samples
+        assertEquals(2, clipCache.getResidentClips());
+        assertTrue(clipCache.getResidentBytes() >= mix.getByteLength());
+
+        // Mixing the State again uses the stems that are already decoded
+        long hits = clipCache.getHits();
+        stemMixer.mix(state, new Random(3));
+        assertEquals(hits + 2, clipCache.getHits());
+        assertEquals(2, clipCache.getResidentClips());
+    }
+
+    @Test
+    void stemsAreEvictedOverTheBudget() throws Exception {
+        ClipCache clipCache = new ClipCache(1);
+        StemMixer stemMixer = new StemMixer(SoundAssetIndex.build("assets/sounds/"), clipCache);
+        State state = new State(BPM.SLOW, instruments(Instrument.PIANO, Instrument.BASS));
+
+        MixedSegment mix = stemMixer.mix(state, new Random(3));
+
+        // Only the most recent stem is kept, but the mix still plays both
+        assertEquals(1, clipCache.getResidentClips());
+        assertEquals(1, clipCache.getEvictions());
+        byte[] buffer = new byte[4096];
+        assertEquals(buffer.length, mix.read(0, buffer, 0, buffer.length));
+    }
+
+    /* Helper method that returns a list of the instruments */
+    private static ArrayList<Instrument> instruments(Instrument... instruments) {
+        ArrayList<Instrument> list = new ArrayList<>();
+        for (Instrument instrument: instruments)
+            list.add(instrument);
+        return list;
+    }
+}
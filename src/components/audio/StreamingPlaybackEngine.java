@@ -0,0 +1,526 @@
+package components.audio;
+
+import javax.sound.sampled.*;
+import java.util.Arrays;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * StreamingPlaybackEngine Class that plays queued AudioSegments one after the other through a single SourceDataLine
+ * that stays open for the whole of a game. The line is borrowed from a LinePool and given back once nothing has been
+ * queued for a while. The PCM data of the next segment is written straight after
+ * the last byte of the previous segment so that the next State starts on the very next sample, instead of waiting
+ * for a new Clip to be opened and started.
+ *
+ * The frame at which each segment starts is recorded when it is written to the line, and the SegmentListener of the
+ * segment is notified once the line has played up to that frame. If nothing is queued when a segment finishes, silence
+ * is written so that the clock of the line keeps running and the silence is reported as a gap.
+ *
+ * A segment can also be looped, in which case it is written again on the sample after its end for as long as nothing
+ * else has been queued. The segment is only read again, so looping it decodes and allocates nothing.
+ *
+ * The buffer of the line is kept as small as the machine can play without glitches, so that the audio is heard as soon
+ * as possible after it is written. The engine starts with the smallest of the BUFFER_CANDIDATES_MILLIS and counts an
+ * underrun whenever the line has played everything written to it before the next chunk is written. After an underrun
+ * the next larger buffer is used from then on, and the smaller sizes are not tried again. The line is not swapped while
+ * segments are being played back to back, as that would break the run of frames they start on, so the line is swapped
+ * for one with the larger buffer the next time silence is written between two segments, or when a line is borrowed.
+ *
+ * @author Gareth Iguasnia
+ * @date 08/04/2020
+ */
+public class StreamingPlaybackEngine {
+
+    /**
+     * SegmentListener interface to be implemented by anything that needs to know the moment a queued segment starts
+     * being heard i.e. to start the timers of the game
+     */
+    public interface SegmentListener {
+
+        /**
+         * Method called once the line has played up to the first frame of the segment
+         *
+         * @param segment The AudioSegment that has started playing
+         * @param startFrame The frame position of the line at which the segment starts
+         */
+        void segmentStarted(AudioSegment segment, long startFrame);
+    }
+
+    // The sizes of the buffer of the line that are tried, from the smallest. The smaller it is, the sooner a newly
+    // queued segment is heard, but the more likely the line is to run out of audio
+    public static final int[] BUFFER_CANDIDATES_MILLIS = {20, 30, 50, 75, 100, 150, 200};
+
+    // The amount of audio written to the line in one go
+    private final int CHUNK_MILLIS = 10;
+
+    // How long the engine writes silence for before stopping the line when nothing has been queued
+    private final long IDLE_TIMEOUT = 2000;
+
+    // The segments waiting to be written to the line
+    private final LinkedBlockingQueue<QueuedSegment> queue;
+
+    // The segments that have been written to the line but have not been heard yet
+    private final LinkedBlockingQueue<QueuedSegment> notifications;
+
+    // The single line that all of the segments are written to
+    private volatile SourceDataLine line;
+    private byte[] chunk;
+    private boolean lineActive;
+
+    // Number of frames written to the line since it was opened
+    private volatile long framesWritten;
+
+    // Gaps of silence that were written between two segments because the next segment was queued too late
+    private volatile long lastGapFrames;
+    private volatile long totalGapFrames;
+    private volatile long segmentsPlayed;
+
+    // The segment that is being looped, and the number of times a looped segment has been written again
+    private volatile QueuedSegment looping;
+    private volatile long loopIterations;
+
+    // The index of the buffer size used for the next line, which only ever moves up to a larger size
+    private volatile int bufferIndex;
+
+    // The buffer size the current line was borrowed with, in bytes
+    private int lineBufferSize;
+
+    // The frames written when the line was started. The line cannot run out of audio before anything is written
+    private long framesAtStart;
+
+    // Underruns since the engine was created and since the session was started
+    private volatile long underruns;
+    private volatile long sessionUnderruns;
+
+    private Thread writerThread;
+    private Thread notifierThread;
+
+    // The pool that the line is borrowed from
+    private final LinePool linePool;
+
+    /**
+     * Constructor for the StreamingPlaybackEngine Class. The line is only borrowed once the first segment is queued
+     *
+     * @param linePool LinePool object that the line is borrowed from. The line is given back after the engine has
+     *                 been idle for a while
+     */
+    public StreamingPlaybackEngine(LinePool linePool) {
+        this.linePool = linePool;
+        this.queue = new LinkedBlockingQueue<>();
+        this.notifications = new LinkedBlockingQueue<>();
+    }
+
+    /**
+     * Method queues a segment to be played straight after the segments that have already been queued
+     *
+     * @param segment The AudioSegment to be played
+     * @param listener A SegmentListener to be notified when the segment starts being heard. This can be null
+     */
+    public synchronized void enqueue(AudioSegment segment, SegmentListener listener) {
+        startThreads();
+        queue.add(new QueuedSegment(segment, listener));
+    }
+
+    /**
+     * Method queues a segment to be played straight after the segments that have already been queued, and then played
+     * again and again on the sample after its end until another segment is queued or stopLoop() is called. The
+     * iteration being played when that happens is played to its end
+     *
+     * @param segment The AudioSegment to be looped
+     * @param listener A SegmentListener to be notified when the first iteration starts being heard. This can be null
+     */
+    public synchronized void loop(AudioSegment segment, SegmentListener listener) {
+        startThreads();
+        QueuedSegment looped = new QueuedSegment(segment, listener);
+        looped.loop = true;
+        queue.add(looped);
+    }
+
+    /**
+     * Method stops the segment being looped once the iteration being written to the line has been played
+     */
+    public void stopLoop() {
+        QueuedSegment current = looping;
+        if (current != null)
+            current.loop = false;
+    }
+
+    /**
+     * Method opens a line in the AudioFormat ahead of time and leaves it in the pool, so that the first segment does
+     * not have to wait for the mixer to open the line
+     *
+     * @param format AudioFormat object of the segments that will be queued
+     */
+    public void prepareLine(AudioFormat format) {
+        try {
+            linePool.prepareSourceLine(format, getBufferSize(format));
+        }
+        catch (LineUnavailableException | IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Method removes every segment that has been queued but has not started to be written to the line
+     */
+    public void clearQueue() {
+        queue.clear();
+    }
+
+    /**
+     * Method returns the number of frames the line has played since it was opened
+     *
+     * @return A long representing the frame position of the line, or 0 if the line has not been opened
+     */
+    public long getFramePosition() {
+        SourceDataLine current = line;
+        return current == null ? 0 : current.getLongFramePosition();
+    }
+
+    /**
+     * Method returns the sample rate of the line
+     *
+     * @return A float representing the number of frames played per second, or 0 if the line has not been opened
+     */
+    public float getFrameRate() {
+        SourceDataLine current = line;
+        return current == null ? 0 : current.getFormat().getFrameRate();
+    }
+
+    public long getLastGapFrames() {
+        return lastGapFrames;
+    }
+
+    public long getTotalGapFrames() {
+        return totalGapFrames;
+    }
+
+    public long getSegmentsPlayed() {
+        return segmentsPlayed;
+    }
+
+    public long getLoopIterations() {
+        return loopIterations;
+    }
+
+    /**
+     * Method returns the size of the buffer of the line in milliseconds. This is how far the audio written to the line
+     * is ahead of the audio being heard
+     *
+     * @return An integer representing the size of the buffer that the line is moved up to at the next pause
+     */
+    public int getBufferMillis() {
+        return BUFFER_CANDIDATES_MILLIS[bufferIndex];
+    }
+
+    /**
+     * Method returns the size of the buffer of the line that is open, which can be smaller than getBufferMillis() once
+     * an underrun has moved the engine up to a larger buffer for the next line
+     *
+     * @return A long representing the number of frames the buffer of the open line holds, or 0 if no line is open
+     */
+    public long getLineBufferFrames() {
+        SourceDataLine current = line;
+        return current == null ? 0 : current.getBufferSize() / current.getFormat().getFrameSize();
+    }
+
+    public long getUnderruns() {
+        return underruns;
+    }
+
+    /**
+     * Method returns the number of times the line ran out of audio since startSession() was last called
+     *
+     * @return A long representing the underruns of the session
+     */
+    public long getSessionUnderruns() {
+        return sessionUnderruns;
+    }
+
+    /**
+     * Method starts counting the underruns of a new session i.e. a game. The buffer size found in earlier sessions is
+     * kept
+     */
+    public void startSession() {
+        sessionUnderruns = 0;
+    }
+
+    /**
+     * Method stops the engine and gives the line back to the pool. Any queued segments are dropped
+     */
+    public synchronized void shutdown() {
+        queue.clear();
+        if (writerThread != null) {
+            writerThread.interrupt();
+            notifierThread.interrupt();
+            writerThread = null;
+            notifierThread = null;
+        }
+
+        // Stopping the line releases the writer thread if it is blocked writing to the line. The writer thread gives
+        // the line back to the pool as it finishes
+        SourceDataLine current = line;
+        if (current != null) {
+            current.stop();
+            current.flush();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StreamingPlaybackEngine[segments=" + segmentsPlayed + ", lastGap=" + lastGapFrames +
+                " frames, totalGap=" + totalGapFrames + " frames, buffer=" + getBufferMillis() + "ms, underruns=" +
+                sessionUnderruns + "/" + underruns + "]";
+    }
+
+    /* Helper method that starts the writer and notifier threads the first time a segment is queued */
+    private void startThreads() {
+        if (writerThread != null)
+            return;
+
+        writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeSegments();
+            }
+        }, "salsa-audio-writer");
+        writerThread.setDaemon(true);
+        writerThread.setPriority(Thread.MAX_PRIORITY);
+
+        notifierThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                notifySegmentStarts();
+            }
+        }, "salsa-audio-notifier");
+        notifierThread.setDaemon(true);
+        notifierThread.setPriority(Thread.MAX_PRIORITY);
+
+        writerThread.start();
+        notifierThread.start();
+    }
+
+    /* Logic of the writer thread. Segments are written one after the other, with silence in between if the next
+     * segment has not been queued in time */
+    private void writeSegments() {
+        long silentFrames = 0;
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                QueuedSegment next = lineActive ? queue.poll() : queue.take();
+
+                // Nothing to play next: keep the clock of the line running with silence for a while and then give the
+                // line back to the pool
+                if (next == null) {
+                    if (silentFrames * 1000 / line.getFormat().getFrameRate() >= IDLE_TIMEOUT) {
+                        line.drain();
+                        releaseLine();
+                        silentFrames = 0;
+                        continue;
+                    }
+                    // Nothing is running on from the line, so it can be moved up to the larger buffer found after an
+                    // underrun without waiting for the game to end
+                    if (lineBufferSize != getBufferSize(line.getFormat()) && !swapLine())
+                        continue;
+                    silentFrames += writeSilence();
+                    continue;
+                }
+
+                if (!openLine(next.segment.getFormat()))
+                    continue;
+
+                // The silence written since the previous segment was heard as a gap
+                if (lineActive && silentFrames > 0) {
+                    lastGapFrames = silentFrames;
+                    totalGapFrames += silentFrames;
+                }
+                else if (lineActive) {
+                    lastGapFrames = 0;
+                }
+                silentFrames = 0;
+
+                // The segment starts on the frame after the last frame written
+                next.line = line;
+                next.startFrame = framesWritten;
+                notifications.add(next);
+
+                if (!lineActive) {
+                    line.start();
+                    lineActive = true;
+                    framesAtStart = framesWritten;
+                }
+                writeSegment(next.segment);
+                segmentsPlayed++;
+
+                // A looped segment is written again on the sample after its end until something else is queued
+                if (next.loop) {
+                    looping = next;
+                    while (next.loop && queue.isEmpty() && !Thread.currentThread().isInterrupted()) {
+                        writeSegment(next.segment);
+                        loopIterations++;
+                    }
+                    looping = null;
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            // The engine has been shut down
+        }
+        finally {
+            releaseLine();
+        }
+    }
+
+    /* Helper method that writes all of the PCM data of a segment to the line */
+    private void writeSegment(AudioSegment segment) {
+        int frameSize = segment.getFormat().getFrameSize();
+        long position = 0;
+        int read;
+
+        while ((read = segment.read(position, chunk, 0, chunk.length)) > 0) {
+            checkUnderrun();
+            line.write(chunk, 0, read);
+            position += read;
+            framesWritten += read / frameSize;
+        }
+    }
+
+    /* Helper method that writes one chunk of silence and returns the number of frames written */
+    private int writeSilence() {
+        Arrays.fill(chunk, (byte) 0);
+        checkUnderrun();
+        line.write(chunk, 0, chunk.length);
+        int frames = chunk.length / line.getFormat().getFrameSize();
+        framesWritten += frames;
+        return frames;
+    }
+
+    /* Helper method that borrows a line in the format of the segment. The line is swapped if the format changes.
+     * Returns false if no line could be borrowed */
+    private boolean openLine(AudioFormat format) {
+        if (line != null && line.getFormat().matches(format))
+            return true;
+
+        try {
+            // Letting the previous segments finish before switching over
+            if (line != null) {
+                line.drain();
+                releaseLine();
+            }
+
+            int bufferSize = getBufferSize(format);
+            SourceDataLine newLine = linePool.borrowSourceLine(format, bufferSize);
+            lineBufferSize = bufferSize;
+            chunk = new byte[(int) (format.getFrameRate() * CHUNK_MILLIS / 1000) * format.getFrameSize()];
+
+            // A line from the pool may already have played some frames
+            framesWritten = newLine.getLongFramePosition();
+            lineActive = false;
+            line = newLine;
+            return true;
+        }
+        catch (LineUnavailableException | IllegalArgumentException e) {
+            // IllegalArgumentException is thrown when there is no line at all that supports the format
+            e.printStackTrace();
+            line = null;
+            lineActive = false;
+            return false;
+        }
+    }
+
+    /* Helper method that plays out the line and swaps it for one with the current buffer size, carrying on with the
+     * silence on the new line. Returns false if no line could be borrowed */
+    private boolean swapLine() {
+        AudioFormat format = line.getFormat();
+        line.drain();
+        releaseLine();
+        if (!openLine(format))
+            return false;
+
+        line.start();
+        lineActive = true;
+        framesAtStart = framesWritten;
+        System.out.println("The audio line has been swapped for one with a " + getBufferMillis() + " ms buffer");
+        return true;
+    }
+
+    /* Helper method that gives the line back to the pool */
+    private void releaseLine() {
+        if (line != null) {
+            linePool.release(line);
+            line = null;
+        }
+        lineActive = false;
+    }
+
+    /* Helper method that works out the size of the buffer of the line in bytes */
+    private int getBufferSize(AudioFormat format) {
+        int bufferFrames = (int) (format.getFrameRate() * getBufferMillis() / 1000);
+        return bufferFrames * format.getFrameSize();
+    }
+
+    /* Helper method called before each chunk is written that counts an underrun if the line has already played
+     * everything written to it. The next line borrowed then has the next larger buffer */
+    private void checkUnderrun() {
+        if (!lineActive || framesWritten == framesAtStart || line.getLongFramePosition() < framesWritten)
+            return;
+
+        underruns++;
+        sessionUnderruns++;
+
+        // Only moving up one size for each line, as the line keeps running out until it is swapped
+        if (lineBufferSize == getBufferSize(line.getFormat()) && bufferIndex < BUFFER_CANDIDATES_MILLIS.length - 1) {
+            bufferIndex++;
+            System.out.println("The audio line ran out of audio, the buffer is now " + getBufferMillis() + " ms");
+        }
+    }
+
+    /* Logic of the notifier thread. The thread parks until the line has played up to the first frame of the next
+     * segment and then notifies the listener of the segment */
+    private void notifySegmentStarts() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                QueuedSegment started = notifications.take();
+                float frameRate = started.segment.getFormat().getFrameRate();
+
+                while (started.line.isOpen()) {
+                    long remainingFrames = started.startFrame - started.line.getLongFramePosition();
+                    if (remainingFrames <= 0)
+                        break;
+
+                    // Parking until just before the segment starts and then checking the position more often
+                    long remainingNanos = (long) (remainingFrames * 1_000_000_000L / frameRate);
+                    LockSupport.parkNanos(Math.max(remainingNanos - 1_000_000, 100_000));
+                    if (Thread.currentThread().isInterrupted())
+                        throw new InterruptedException();
+                }
+
+                if (started.listener != null) {
+                    try {
+                        started.listener.segmentStarted(started.segment, started.startFrame);
+                    }
+                    catch (RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            // The engine has been shut down
+        }
+    }
+
+    /* A segment along with the listener, the frame it started on and whether it is looped */
+    private static class QueuedSegment {
+        private final AudioSegment segment;
+        private final SegmentListener listener;
+        private volatile SourceDataLine line;
+        private volatile long startFrame;
+        private volatile boolean loop;
+
+        private QueuedSegment(AudioSegment segment, SegmentListener listener) {
+            this.segment = segment;
+            this.listener = listener;
+        }
+    }
+}
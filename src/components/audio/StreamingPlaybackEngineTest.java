@@ -0,0 +1,137 @@
+package components.audio;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.AudioFormat;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingPlaybackEngineTest {
+    private final AudioFormat format = new AudioFormat(44100, 16, 2, true, false);
+
+    @Test
+    void underrunMovesToALargerBuffer() throws Exception {
+        StreamingPlaybackEngine playbackEngine = new StreamingPlaybackEngine(new LinePool(new NullAudioBackend(1)));
+        playbackEngine.startSession();
+        assertEquals(StreamingPlaybackEngine.BUFFER_CANDIDATES_MILLIS[0], playbackEngine.getBufferMillis());
+
+        // Half a second of audio that takes 100 ms to read part of the way through, which is longer than the buffer
+        AudioSegment slow = slowSegment();
+
+        CountDownLatch started = new CountDownLatch(1);
+        playbackEngine.enqueue(slow, null);
+        playbackEngine.enqueue(new PcmSegment("next", format, ByteBuffer.allocate(4410 * 4)),
+                new StreamingPlaybackEngine.SegmentListener() {
+            @Override
+            public void segmentStarted(AudioSegment segment, long startFrame) {
+                started.countDown();
+            }
+        });
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+
+        // The line ran out while the slow segment was being read, so the next line has the next larger buffer
+        assertTrue(playbackEngine.getSessionUnderruns() >= 1);
+        assertEquals(StreamingPlaybackEngine.BUFFER_CANDIDATES_MILLIS[1], playbackEngine.getBufferMillis());
+
+        // A new session starts counting again but keeps the buffer
+        playbackEngine.startSession();
+        assertEquals(0, playbackEngine.getSessionUnderruns());
+        assertEquals(StreamingPlaybackEngine.BUFFER_CANDIDATES_MILLIS[1], playbackEngine.getBufferMillis());
+        playbackEngine.shutdown();
+    }
+
+    @Test
+    void loopedSegmentRepeatsUntilTheNextIsQueued() throws Exception {
+        StreamingPlaybackEngine playbackEngine = new StreamingPlaybackEngine(new LinePool(new NullAudioBackend(20)));
+        PcmSegment looped = new PcmSegment("looped", format, ByteBuffer.allocate(4410 * 4));
+        long[] startFrames = new long[2];
+        CountDownLatch started = new CountDownLatch(2);
+
+        playbackEngine.loop(looped, new StreamingPlaybackEngine.SegmentListener() {
+            @Override
+            public void segmentStarted(AudioSegment segment, long startFrame) {
+                startFrames[0] = startFrame;
+                started.countDown();
+            }
+        });
+        long deadline = System.currentTimeMillis() + 2000;
+        while (playbackEngine.getLoopIterations() < 3 && System.currentTimeMillis() < deadline)
+            Thread.sleep(1);
+        assertTrue(playbackEngine.getLoopIterations() >= 3);
+
+        playbackEngine.enqueue(new PcmSegment("next", format, ByteBuffer.allocate(4410 * 4)),
+                new StreamingPlaybackEngine.SegmentListener() {
+            @Override
+            public void segmentStarted(AudioSegment segment, long startFrame) {
+                startFrames[1] = startFrame;
+                started.countDown();
+            }
+        });
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+
+        // The next segment starts on the sample after the last iteration of the loop, with no gap in between
+        long iterations = 1 + playbackEngine.getLoopIterations();
+        assertEquals(iterations * looped.getFrameLength(), startFrames[1] - startFrames[0]);
+        assertEquals(0, playbackEngine.getTotalGapFrames());
+        playbackEngine.shutdown();
+    }
+
+    @Test
+    void underrunsInOneSessionGrowTheBufferOfTheLineInUse() throws Exception {
+        StreamingPlaybackEngine playbackEngine = new StreamingPlaybackEngine(new LinePool(new NullAudioBackend(1)));
+        playbackEngine.startSession();
+
+        // Each slow segment makes the line run out, and the silence after it moves the line up to the next buffer
+        for (int size = 1; size <= 2; size++) {
+            playbackEngine.enqueue(slowSegment(), null);
+            long bufferFrames = (long) format.getFrameRate() * StreamingPlaybackEngine.BUFFER_CANDIDATES_MILLIS[size] /
+                    1000;
+            long deadline = System.currentTimeMillis() + 2000;
+            while (playbackEngine.getLineBufferFrames() != bufferFrames && System.currentTimeMillis() < deadline)
+                Thread.sleep(1);
+            assertEquals(bufferFrames, playbackEngine.getLineBufferFrames());
+            assertEquals(StreamingPlaybackEngine.BUFFER_CANDIDATES_MILLIS[size], playbackEngine.getBufferMillis());
+        }
+        assertTrue(playbackEngine.getSessionUnderruns() >= 2);
+        playbackEngine.shutdown();
+    }
+
+    /* Helper method that creates half a second of audio that takes 100 ms to read part of the way through */
+    private AudioSegment slowSegment() {
+        PcmSegment pcm = new PcmSegment("slow", format, ByteBuffer.allocate(22050 * 4));
+        return new AudioSegment() {
+            private int reads;
+
+            @Override
+            public String getName() {
+                return pcm.getName();
+            }
+
+            @Override
+            public AudioFormat getFormat() {
+                return pcm.getFormat();
+            }
+
+            @Override
+            public long getFrameLength() {
+                return pcm.getFrameLength();
+            }
+
+            @Override
+            public int read(long bytePosition, byte[] buffer, int offset, int length) {
+                if (++reads == 10) {
+                    try {
+                        Thread.sleep(100);
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return pcm.read(bytePosition, buffer, offset, length);
+            }
+        };
+    }
+}
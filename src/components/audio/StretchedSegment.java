@@ -0,0 +1,82 @@
+package components.audio;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * StretchedSegment Class that implements the AudioSegment interface. This is a Salsa audio recording that has been
+ * stretched to another tempo by the TimeStretcher, along with the beats of the recording moved to where they are in
+ * the stretched audio. The audio is either stretched as it is read by a WsolaSegment or has already been stretched
+ * into a PcmSegment.
+ *
+ * @author Gareth Iguasnia
+ * @date 19/04/2020
+ */
+public class StretchedSegment implements AudioSegment {
+    private final String name;
+
+    // The stretched audio
+    private final AudioSegment audio;
+
+    // The frame of each beat from the start of the stretched audio
+    private final long[] beatFrames;
+
+    private final double bpm;
+
+    /**
+     * Constructor for the StretchedSegment Class.
+     *
+     * @param name String object representing the name of the segment
+     * @param audio AudioSegment object of the stretched audio
+     * @param beatFrames The frame of each beat from the start of the stretched audio
+     * @param bpm A double representing the tempo the recording was stretched to
+     */
+    public StretchedSegment(String name, AudioSegment audio, long[] beatFrames, double bpm) {
+        this.name = name;
+        this.audio = audio;
+        this.beatFrames = beatFrames;
+        this.bpm = bpm;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return audio.getFormat();
+    }
+
+    @Override
+    public long getFrameLength() {
+        return audio.getFrameLength();
+    }
+
+    @Override
+    public int read(long bytePosition, byte[] buffer, int offset, int length) {
+        return audio.read(bytePosition, buffer, offset, length);
+    }
+
+    @Override
+    public long getResidentBytes() {
+        return audio.getResidentBytes();
+    }
+
+    @Override
+    public long[] getBeatFrames() {
+        return beatFrames.clone();
+    }
+
+    public double getBpm() {
+        return bpm;
+    }
+
+    /**
+     * Method returns whether the audio has already been stretched, rather than being stretched as it is read
+     *
+     * @return true if the stretched audio is held in memory
+     */
+    public boolean isRendered() {
+        return !(audio instanceof WsolaSegment);
+    }
+}
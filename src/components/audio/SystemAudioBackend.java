@@ -0,0 +1,37 @@
+package components.audio;
+
+import javax.sound.sampled.*;
+
+/**
+ * SystemAudioBackend Class that implements the AudioBackend interface. The lines are given by the mixers of the sound
+ * card through AudioSystem.
+ *
+ * @author Gareth Iguasnia
+ * @date 16/04/2020
+ */
+public class SystemAudioBackend implements AudioBackend {
+
+    @Override
+    public Clip getClip() throws LineUnavailableException {
+        return AudioSystem.getClip();
+    }
+
+    @Override
+    public SourceDataLine getSourceDataLine(AudioFormat format) throws LineUnavailableException {
+        return AudioSystem.getSourceDataLine(format);
+    }
+
+    @Override
+    public String getName() {
+        return "system";
+    }
+
+    /**
+     * Method checks whether there is a mixer that can play sound on this machine
+     *
+     * @return true if there is a mixer with an output line, false otherwise
+     */
+    public static boolean isAvailable() {
+        return AudioSystem.isLineSupported(new Line.Info(SourceDataLine.class));
+    }
+}
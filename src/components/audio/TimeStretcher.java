@@ -0,0 +1,246 @@
+package components.audio;
+
+import components.ingame.BeatTimeline;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * TimeStretcher Class that plays the Salsa audio recordings at tempos they were not recorded at, keeping their pitch,
+ * so that a State can be played at any tempo between the recorded ones without recording it again. The recordings
+ * are stretched with WSOLA, see WsolaSegment.
+ *
+ * A recording can be stretched ahead of time on a small pool of low priority threads, in which case the stretched
+ * audio is put in the ClipCache under the resource path of the recording and the tempo i.e.
+ * assets/sounds/180/piano/piano2.wav@190bpm. A recording that has not been stretched in time is stretched as it is
+ * played instead.
+ *
+ * @author Gareth Iguasnia
+ * @date 19/04/2020
+ */
+public class TimeStretcher {
+    // The most recordings that can be waiting to be stretched at once
+    private final int QUEUE_CAPACITY = 16;
+
+    // The cache that the recordings are read from and the stretched audio is put in
+    private final ClipCache clipCache;
+
+    private final ThreadPoolExecutor executor;
+
+    // The keys of the recordings queued or being stretched
+    private final Set<String> pending;
+
+    // Statistics of the stretching
+    private long rendered;
+    private long renderedHits;
+    private long streamed;
+
+    /**
+     * Constructor for the TimeStretcher Class.
+     *
+     * @param clipCache ClipCache object that the recordings are read from and the stretched audio is put in
+     * @param threads The number of threads stretching the recordings ahead of time
+     */
+    public TimeStretcher(ClipCache clipCache, int threads) {
+        this.clipCache = clipCache;
+        this.pending = ConcurrentHashMap.newKeySet();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "salsa-time-stretch");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * Method returns the recording stretched to the tempo. The audio stretched ahead of time is used if it is in the
+     * ClipCache, otherwise the recording is stretched as it is played
+     *
+     * @param filename String object representing the resource path of the recording
+     * @param recording AudioSegment object of the recording
+     * @param recordedBpm A double representing the tempo the recording was played at
+     * @param bpm A double representing the tempo to stretch the recording to
+     * @param beatFrames The frame of each beat of the recording, or null if they are evenly spaced
+     * @return A StretchedSegment object of the recording at the new tempo
+     * @throws UnsupportedAudioFileException If the recording is not 16 bit signed PCM
+     */
+    public StretchedSegment stretch(String filename, AudioSegment recording, double recordedBpm, double bpm,
+                                    long[] beatFrames) throws UnsupportedAudioFileException {
+        String key = getKey(filename, bpm);
+        AudioSegment stretched = clipCache.getIfPresent(key);
+        if (stretched instanceof StretchedSegment) {
+            synchronized (this) {
+                renderedHits++;
+            }
+            return (StretchedSegment) stretched;
+        }
+
+        synchronized (this) {
+            streamed++;
+        }
+        double ratio = recordedBpm / bpm;
+        return new StretchedSegment(key, new WsolaSegment(key, getFormat(recording), readSamples(recording), ratio),
+                stretchBeatFrames(beatFrames, recording.getFrameLength(), ratio), bpm);
+    }
+
+    /**
+     * Method queues the recording to be stretched to the tempo and put in the ClipCache. Nothing is queued if it is
+     * already there or on its way
+     *
+     * @param filename String object representing the resource path of the recording
+     * @param recordedBpm A double representing the tempo the recording was played at
+     * @param bpm A double representing the tempo to stretch the recording to
+     * @param beatFrames The frame of each beat of the recording, or null if they are evenly spaced
+     */
+    public void prerender(String filename, double recordedBpm, double bpm, long[] beatFrames) {
+        String key = getKey(filename, bpm);
+        if (clipCache.contains(key) || executor.getQueue().remainingCapacity() == 0 || !pending.add(key))
+            return;
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    // The recording is decoded outside of the lock of the cache, so the game is not held up getting
+                    // its own clips while it is read
+                    AudioSegment recording = clipCache.warm(filename);
+                    if (recording == null)
+                        recording = clipCache.getIfPresent(filename);
+                    if (recording == null)
+                        return;
+                    StretchedSegment stretched = render(key, recording, recordedBpm / bpm, beatFrames, bpm);
+
+                    // The stretched audio is kept the same way as the clips it was stretched from
+                    AudioSegment audio = clipCache.getProfile().compact(stretched);
+                    clipCache.put(key, audio == stretched ? stretched :
+                            new StretchedSegment(key, audio, stretched.getBeatFrames(), bpm));
+                    synchronized (TimeStretcher.this) {
+                        rendered++;
+                    }
+                }
+                catch (IOException | UnsupportedAudioFileException e) {
+                    e.printStackTrace();
+                }
+                finally {
+                    pending.remove(key);
+                }
+            }
+        });
+    }
+
+    /**
+     * Method stretches the whole of the recording into memory
+     *
+     * @param name String object representing the name of the stretched audio
+     * @param recording AudioSegment object of the recording
+     * @param ratio A double representing the length of the stretched audio over the length of the recording
+     * @param beatFrames The frame of each beat of the recording, or null if they are evenly spaced
+     * @param bpm A double representing the tempo the recording is stretched to
+     * @return A StretchedSegment object holding the stretched audio
+     * @throws UnsupportedAudioFileException If the recording is not 16 bit signed PCM
+     */
+    public static StretchedSegment render(String name, AudioSegment recording, double ratio, long[] beatFrames,
+                                          double bpm) throws UnsupportedAudioFileException {
+        AudioFormat format = getFormat(recording);
+        WsolaSegment wsola = new WsolaSegment(name, format, readSamples(recording), ratio);
+
+        byte[] pcm = new byte[(int) wsola.getByteLength()];
+        int position = 0;
+        int read;
+        while (position < pcm.length && (read = wsola.read(position, pcm, position, pcm.length - position)) > 0)
+            position += read;
+
+        return new StretchedSegment(name, new PcmSegment(name, format, ByteBuffer.wrap(pcm)),
+                stretchBeatFrames(beatFrames, recording.getFrameLength(), ratio), bpm);
+    }
+
+    /**
+     * Method moves the beats of the recording to where they are in the stretched audio. WSOLA keeps every window
+     * within WsolaSegment.TOLERANCE frames of this
+     *
+     * @param beatFrames The frame of each beat of the recording, or null if they are evenly spaced
+     * @param recordingFrames A long representing the length of the recording in frames
+     * @param ratio A double representing the length of the stretched audio over the length of the recording
+     * @return An array of longs representing the frame of each beat of the stretched audio
+     */
+    public static long[] stretchBeatFrames(long[] beatFrames, long recordingFrames, double ratio) {
+        int beats = beatFrames == null ? BeatTimeline.BEATS_PER_STATE : beatFrames.length;
+        long[] stretched = new long[beats];
+        for (int beat = 0; beat < beats; beat++) {
+            double frame = beatFrames == null ? beat * (double) recordingFrames / beats : beatFrames[beat];
+            stretched[beat] = Math.round(frame * ratio);
+        }
+        return stretched;
+    }
+
+    /**
+     * Method returns the key that the recording stretched to the tempo is put in the ClipCache under
+     *
+     * @param filename String object representing the resource path of the recording
+     * @param bpm A double representing the tempo the recording is stretched to
+     * @return A String object representing the key of the stretched audio
+     */
+    public static String getKey(String filename, double bpm) {
+        String tempo = bpm == Math.rint(bpm) ? String.valueOf((long) bpm) : String.valueOf(bpm);
+        return filename + "@" + tempo + "bpm";
+    }
+
+    public synchronized long getRendered() {
+        return rendered;
+    }
+
+    public synchronized long getRenderedHits() {
+        return renderedHits;
+    }
+
+    public synchronized long getStreamed() {
+        return streamed;
+    }
+
+    /**
+     * Method stops the threads stretching the recordings ahead of time
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "TimeStretcher[rendered=" + rendered + ", renderedHits=" + renderedHits + ", streamed=" + streamed +
+                ", pending=" + pending.size() + "]";
+    }
+
+    /* Helper method that returns the little endian format the stretched audio is written in */
+    private static AudioFormat getFormat(AudioSegment recording) throws UnsupportedAudioFileException {
+        AudioFormat format = recording.getFormat();
+        if (format.getEncoding() != AudioFormat.Encoding.PCM_SIGNED || format.getSampleSizeInBits() != 16)
+            throw new UnsupportedAudioFileException(recording.getName() + " is not 16 bit signed PCM");
+        return new AudioFormat(format.getSampleRate(), 16, format.getChannels(), true, false);
+    }
+
+    /* Helper method that reads the interleaved samples of the recording */
+    private static short[] readSamples(AudioSegment recording) {
+        byte[] pcm = new byte[(int) recording.getByteLength()];
+        int position = 0;
+        int read;
+        while (position < pcm.length && (read = recording.read(position, pcm, position, pcm.length - position)) > 0)
+            position += read;
+
+        short[] samples = new short[pcm.length / 2];
+        boolean bigEndian = recording.getFormat().isBigEndian();
+        for (int i = 0; i < samples.length; i++) {
+            int low = pcm[2*i + (bigEndian ? 1 : 0)] & 0xFF;
+            int high = pcm[2*i + (bigEndian ? 0 : 1)];
+            samples[i] = (short) ((high << 8) | low);
+        }
+        return samples;
+    }
+}
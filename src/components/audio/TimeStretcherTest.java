@@ -0,0 +1,91 @@
+package components.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeStretcherTest {
+
+    @Test
+    void clicksLandOnTheStretchedBeats() throws Exception {
+        // 8 clicks 300 ms apart i.e. 200 BPM, played at 180 BPM and at 220 BPM
+        PcmSegment clickTrack = ClickTrack.create(8, 300);
+        for (double bpm: new double[]{180, 220}) {
+            double ratio = 200 / bpm;
+            StretchedSegment stretched = TimeStretcher.render("clicks", clickTrack, ratio, null, bpm);
+            assertEquals(Math.round(clickTrack.getFrameLength() * ratio), stretched.getFrameLength());
+
+            byte[] pcm = new byte[(int) stretched.getByteLength()];
+            stretched.read(0, pcm, 0, pcm.length);
+            long[] beatFrames = TimeStretcher.stretchBeatFrames(null, clickTrack.getFrameLength(), ratio);
+
+            // The evenly spaced beats of the 8 clicks, with the grid of the 32 beats of a State laid over them
+            for (int click = 0; click < 8; click++) {
+                long expected = beatFrames[click * 4];
+                long onset = findOnset(pcm, expected - 2 * WsolaSegment.TOLERANCE);
+                assertTrue(Math.abs(onset - expected) <= WsolaSegment.TOLERANCE,
+                        "click " + click + " at " + bpm + " BPM is " + (onset - expected) + " frames out");
+
+                // The pitch of the click is kept: 1500 Hz for the accent and 1000 Hz for the others
+                int expectedCrossings = click % 4 == 0 ? 30 : 20;
+                assertTrue(Math.abs(countZeroCrossings(pcm, onset, 441) - expectedCrossings) <= 2);
+            }
+        }
+    }
+
+    @Test
+    void streamingMatchesRendering() throws Exception {
+        PcmSegment clickTrack = ClickTrack.create(4, 300);
+        StretchedSegment rendered = TimeStretcher.render("clicks", clickTrack, 1.1, null, 180);
+        byte[] expected = new byte[(int) rendered.getByteLength()];
+        rendered.read(0, expected, 0, expected.length);
+
+        // Stretching as the audio is read, in the chunks of the StreamingPlaybackEngine
+        TimeStretcher timeStretcher = new TimeStretcher(new ClipCache(ClipCache.DEFAULT_BYTE_BUDGET), 1);
+        StretchedSegment streamed = timeStretcher.stretch("clicks", clickTrack, 200, 200 / 1.1, null);
+        assertFalse(streamed.isRendered());
+
+        byte[] actual = new byte[expected.length];
+        byte[] chunk = new byte[441 * 4];
+        long position = 0;
+        int read;
+        while ((read = streamed.read(position, chunk, 0, chunk.length)) > 0) {
+            System.arraycopy(chunk, 0, actual, (int) position, read);
+            position += read;
+        }
+        assertArrayEquals(expected, actual);
+
+        // Reading from further back starts the stretch again
+        assertEquals(chunk.length, streamed.read(5000 * 4, chunk, 0, chunk.length));
+        assertArrayEquals(Arrays.copyOfRange(expected, 20000, 20000 + chunk.length), chunk);
+        timeStretcher.shutdown();
+    }
+
+    /* Helper method that returns the first frame from the start frame where the left channel is loud */
+    private long findOnset(byte[] pcm, long startFrame) {
+        for (long frame = Math.max(0, startFrame); frame * 4 < pcm.length; frame++) {
+            if (Math.abs(readSample(pcm, (int) frame * 4)) > 2000)
+                return frame;
+        }
+        return -1;
+    }
+
+    /* Helper method that counts the zero crossings of the left channel */
+    private int countZeroCrossings(byte[] pcm, long startFrame, int frames) {
+        int crossings = 0;
+        for (int frame = 1; frame < frames; frame++) {
+            int previous = readSample(pcm, (int) (startFrame + frame - 1) * 4);
+            int current = readSample(pcm, (int) (startFrame + frame) * 4);
+            if ((previous < 0) != (current < 0))
+                crossings++;
+        }
+        return crossings;
+    }
+
+    /* Helper method that reads a little endian sample out of the buffer */
+    private int readSample(byte[] buffer, int index) {
+        return (short) ((buffer[index + 1] << 8) | (buffer[index] & 0xFF));
+    }
+}
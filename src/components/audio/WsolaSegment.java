@@ -0,0 +1,211 @@
+package components.audio;
+
+import javax.sound.sampled.AudioFormat;
+import java.util.Arrays;
+
+/**
+ * WsolaSegment Class that implements the AudioSegment interface. The segment plays a Salsa audio recording slower or
+ * faster without changing its pitch, using WSOLA (waveform similarity overlap-add). The output is built from windows
+ * of the recording that overlap by half. Each window is taken from roughly where the recording should be at that
+ * point of the output, moved by up to TOLERANCE frames so that it lines up with the waveform that it overlaps.
+ *
+ * The audio is stretched as it is read, so a recording can be played at a new tempo straight away. Reading on from
+ * where the last read ended carries on the stretch, while reading from anywhere else starts it again from the
+ * beginning and skips forward, so the same range is always stretched to the same samples.
+ *
+ * @author Gareth Iguasnia
+ * @date 19/04/2020
+ */
+public class WsolaSegment implements AudioSegment {
+    // The length of each window in frames, about 23 ms at 44.1 kHz. Windows start HOP frames apart in the output
+    public static final int WINDOW = 1024;
+    public static final int HOP = WINDOW / 2;
+
+    // The furthest a window can be moved from where it should be to line up with the previous window. This is also
+    // the furthest the stretched audio can be from its beat timeline
+    public static final int TOLERANCE = 128;
+
+    private final String name;
+    private final AudioFormat format;
+    private final int channels;
+
+    // The interleaved samples of the recording, and its channels summed for lining up the windows
+    private final short[] source;
+    private final float[] mono;
+    private final int sourceFrames;
+
+    // How many frames of the recording the output moves on by for each HOP frames of output
+    private final double analysisHop;
+    private final long frameLength;
+
+    // A Hann window, which sums to 1 when the windows overlap by half
+    private final float[] hann;
+
+    // The state of the stretch: the windows added so far, and the frames of output that have been finished but
+    // not read yet
+    private final float[] overlap;
+    private final short[] ready;
+    private int readyFrames;
+    private int readyIndex;
+    private int nextWindow;
+    private int previousPosition;
+    private long streamPosition;
+
+    /**
+     * Constructor for the WsolaSegment Class.
+     *
+     * @param name String object representing the name of the segment
+     * @param format AudioFormat object of the samples, which are 16 bit signed little endian PCM
+     * @param source The interleaved 16 bit samples of the recording
+     * @param ratio A double representing the length of the output over the length of the recording i.e. 1.1 plays
+     *              the recording at 1/1.1 of its tempo
+     */
+    public WsolaSegment(String name, AudioFormat format, short[] source, double ratio) {
+        if (ratio <= 0)
+            throw new IllegalArgumentException("Cannot stretch " + name + " by " + ratio);
+
+        this.name = name;
+        this.format = format;
+        this.channels = format.getChannels();
+        this.source = source;
+        this.sourceFrames = source.length / channels;
+        this.analysisHop = HOP / ratio;
+        this.frameLength = Math.round(sourceFrames * ratio);
+
+        this.mono = new float[sourceFrames];
+        for (int frame = 0; frame < sourceFrames; frame++) {
+            for (int channel = 0; channel < channels; channel++)
+                mono[frame] += source[frame * channels + channel];
+        }
+
+        this.hann = new float[WINDOW];
+        for (int i = 0; i < WINDOW; i++)
+            hann[i] = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * i / WINDOW));
+
+        this.overlap = new float[WINDOW * channels];
+        this.ready = new short[HOP * channels];
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public long getFrameLength() {
+        return frameLength;
+    }
+
+    @Override
+    public synchronized int read(long bytePosition, byte[] buffer, int offset, int length) {
+        long byteLength = getByteLength();
+        if (bytePosition >= byteLength)
+            return -1;
+
+        int frameSize = format.getFrameSize();
+        int frames = (int) (Math.min(length, byteLength - bytePosition) / frameSize);
+        long firstFrame = bytePosition / frameSize;
+
+        // Starting the stretch again when reading from anywhere other than where the last read ended
+        if (firstFrame != streamPosition) {
+            if (firstFrame < streamPosition)
+                reset();
+            while (streamPosition < firstFrame)
+                nextSamples(null, 0, (int) Math.min(firstFrame - streamPosition, Integer.MAX_VALUE));
+        }
+
+        nextSamples(buffer, offset, frames);
+        return frames * frameSize;
+    }
+
+    /* Helper method that writes the next frames of the stretched audio into the buffer, or skips them if the buffer
+     * is null */
+    private void nextSamples(byte[] buffer, int offset, int frames) {
+        for (int frame = 0; frame < frames; frame++) {
+            if (readyIndex == readyFrames)
+                addWindow();
+
+            if (buffer != null) {
+                for (int channel = 0; channel < channels; channel++) {
+                    short sample = ready[readyIndex * channels + channel];
+                    int index = offset + 2 * (frame * channels + channel);
+                    buffer[index] = (byte) sample;
+                    buffer[index + 1] = (byte) (sample >> 8);
+                }
+            }
+            readyIndex++;
+            streamPosition++;
+        }
+    }
+
+    /* Helper method that adds the next window to the output. Once it has been added, the first HOP frames of the
+     * overlap will not be added to again and are moved into the ready buffer */
+    private void addWindow() {
+        int position = findPosition(nextWindow);
+
+        for (int i = 0; i < WINDOW && position + i < sourceFrames; i++) {
+            // The first window has nothing to overlap with so it is not faded in
+            float weight = nextWindow == 0 && i < HOP ? 1f : hann[i];
+            for (int channel = 0; channel < channels; channel++)
+                overlap[i * channels + channel] += weight * source[(position + i) * channels + channel];
+        }
+
+        for (int i = 0; i < HOP * channels; i++) {
+            int sample = Math.round(overlap[i]);
+            ready[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, sample));
+        }
+        System.arraycopy(overlap, HOP * channels, overlap, 0, (WINDOW - HOP) * channels);
+        Arrays.fill(overlap, (WINDOW - HOP) * channels, overlap.length, 0f);
+
+        readyFrames = HOP;
+        readyIndex = 0;
+        previousPosition = position;
+        nextWindow++;
+    }
+
+    /* Helper method that finds where the window should be taken from in the recording. This is the position within
+     * TOLERANCE of where the recording should be that best matches the waveform carrying on from the previous window */
+    private int findPosition(int window) {
+        int ideal = (int) Math.round(window * analysisHop);
+        if (window == 0)
+            return 0;
+
+        int natural = previousPosition + HOP;
+        int overlapFrames = WINDOW - HOP;
+        int from = Math.max(0, ideal - TOLERANCE);
+        int to = Math.min(sourceFrames - WINDOW, ideal + TOLERANCE);
+        if (from > to || natural + overlapFrames > sourceFrames)
+            return Math.max(0, Math.min(ideal, sourceFrames));
+
+        int best = ideal;
+        double bestCorrelation = Double.NEGATIVE_INFINITY;
+        for (int candidate = from; candidate <= to; candidate++) {
+            double correlation = 0;
+            for (int i = 0; i < overlapFrames; i++)
+                correlation += mono[candidate + i] * mono[natural + i];
+
+            // Ties go to the position nearest to where the recording should be
+            if (correlation > bestCorrelation || (correlation == bestCorrelation &&
+                    Math.abs(candidate - ideal) < Math.abs(best - ideal))) {
+                bestCorrelation = correlation;
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    /* Helper method that starts the stretch again from the beginning of the recording */
+    private void reset() {
+        Arrays.fill(overlap, 0f);
+        readyFrames = 0;
+        readyIndex = 0;
+        nextWindow = 0;
+        previousPosition = 0;
+        streamPosition = 0;
+    }
+}
@@ -0,0 +1,35 @@
+package components.enums;
+
+/**
+ * InputSource Enum Class that holds the devices that the user's try at finding a beat can come from, with a
+ * description of each in a String format
+ *
+ * @author Gareth Iguasnia
+ * @date 19/04/2020
+ */
+public enum InputSource {
+    MOUSE("Mouse"),
+    KEYBOARD("Keyboard"),
+    MIDI("MIDI");
+
+    // Description of the device
+    private String name;
+
+    /**
+     * Constructor for the InputSource Enum Class
+     *
+     * @param name The description of the device in a String format
+     */
+    InputSource(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Method returns the description of the device in a String format
+     *
+     * @return A String representing the device
+     */
+    public String getName() {
+        return name;
+    }
+}
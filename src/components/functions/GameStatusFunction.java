@@ -2,6 +2,8 @@ package components.functions;
 
 import components.State;
 
+import java.util.List;
+
 /**
  * GameStatusFunction interface that will be implemented by the game status function chosen to be used in this
  * MVC application. This makes the code extensible so that if changes need to be made in how the next State is chosen,
@@ -22,4 +24,15 @@ public interface GameStatusFunction {
     State getNextState(State currentState);
 
     double getThreshold();
+
+    /**
+     * Method returns the State objects that getNextState(...) could choose from once the user has been tested on the
+     * current state. This is used to get the audio of the next State ready while the current State is being played
+     *
+     * @param currentState A State object representing the current state that the user is being currently tested on
+     * @return A List of State objects that the simulation could move on to next
+     */
+    default List<State> getCandidateStates(State currentState) {
+        return currentState.getNeighbours();
+    }
 }
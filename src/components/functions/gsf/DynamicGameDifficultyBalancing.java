@@ -4,6 +4,7 @@ import components.State;
 import components.functions.GameStatusFunction;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 /**
@@ -113,6 +114,33 @@ public abstract class DynamicGameDifficultyBalancing implements GameStatusFuncti
         return nextState;
     }
 
+    @Override
+    public List<State> getCandidateStates(State currentState) {
+        ArrayList<State> neighbours = currentState.getNeighbours();
+        ArrayList<State> candidates = new ArrayList<>();
+
+        ArrayList<State> harderExploredNeighbours = sortNeighbours(neighbours, currentState, 1);
+        ArrayList<State> harderUnexploredNeighbours = sortNeighbours(neighbours, currentState, 2);
+        ArrayList<State> easierExploredNeighbours = sortNeighbours(neighbours, currentState, 3);
+        ArrayList<State> easierUnexploredNeighbours = sortNeighbours(neighbours, currentState, 4);
+
+        // The user may not click at all in which case the State stays unexplored
+        if (!currentState.hasBeenExplored()) {
+            ArrayList<State> unexploredNeighbours = sortNeighbours(neighbours, currentState, 5);
+            addCandidates(candidates, unexploredNeighbours.isEmpty() ?
+                    sortNeighbours(neighbours, currentState, 6) : unexploredNeighbours);
+        }
+
+        // The error value is only known once the State has ended, so the user could be moved either way. The lists are
+        // taken in the same order as getNextState(...)
+        addCandidates(candidates, firstNonEmpty(harderUnexploredNeighbours, harderExploredNeighbours,
+                easierUnexploredNeighbours, easierExploredNeighbours));
+        addCandidates(candidates, firstNonEmpty(easierUnexploredNeighbours, easierExploredNeighbours,
+                harderUnexploredNeighbours, harderExploredNeighbours));
+
+        return candidates;
+    }
+
     /**
      * Method to to be overridden to determine what State objects would be set as the hard and explored neighbours
      *
@@ -157,6 +185,24 @@ public abstract class DynamicGameDifficultyBalancing implements GameStatusFuncti
         return possibleCandidates.get(rndIndex);
     }
 
+    /* Helper method that returns the first list of State objects that is not empty */
+    @SafeVarargs
+    private ArrayList<State> firstNonEmpty(ArrayList<State>... lists) {
+        for (ArrayList<State> list: lists) {
+            if (!list.isEmpty())
+                return list;
+        }
+        return new ArrayList<>();
+    }
+
+    /* Helper method that adds the State objects that have not already been added to the candidates */
+    private void addCandidates(ArrayList<State> candidates, ArrayList<State> states) {
+        for (State state: states) {
+            if (!candidates.contains(state))
+                candidates.add(state);
+        }
+    }
+
     /*
     * Helper method sorts the neighbouring states into a list of easier/harder and/or un/explored states
     * Code:
@@ -1,35 +1,33 @@
 package components.gui;
 
+import components.ingame.BeatScheduler;
 import views.GameView;
 
 import javax.swing.*;
 import java.awt.*;
 import java.util.ArrayList;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 public class LightSwitch {
     // The time in between each beat
     private long one_beat;
 
     // To turn on and off the lights at a specific time
-    private ScheduledExecutorService scheduledExecutorService;
+    private BeatScheduler beatScheduler;
+    private BeatScheduler.ScheduledBeat lights;
 
     // To access the lights
     private GameView gameView;
 
-    public LightSwitch(GameView gameView, long one_beat) {
+    public LightSwitch(GameView gameView, long one_beat, BeatScheduler beatScheduler) {
         this.gameView = gameView;
         this.one_beat = one_beat;
+        this.beatScheduler = beatScheduler;
     }
 
     public void lightSwitchStart() {
-        scheduledExecutorService = Executors.newScheduledThreadPool(1);
-
         //1400 -> Get the length of the clip
-        scheduledExecutorService.scheduleAtFixedRate(new Lights(), 0,
-                one_beat, TimeUnit.MILLISECONDS );
+        lights = beatScheduler.scheduleAtFixedRate("Lights", new Lights(), System.nanoTime(),
+                one_beat * 1_000_000L);
     }
 
     private class Lights implements Runnable {
@@ -52,7 +50,7 @@ public class LightSwitch {
                 cardLayout.show(selectedLight, "on_light");
             }
             else {
-                scheduledExecutorService.shutdownNow();
+                lights.cancel();
             }
         }
     }
@@ -0,0 +1,321 @@
+package components.ingame;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * BeatScheduler Class that runs every timed event of a game from a single thread at a target System.nanoTime()
+ * timestamp: the start of each 8-beat bar, the end of each State, the opening and closing of the time windows and the
+ * lights. Previously the GameProgress and each of its four TimeWindows had their own java.util.Timer, so five threads
+ * were created and thrown away for every State and the events were only as accurate as a millisecond.
+ *
+ * The events are handed over through a lock-free queue and kept in order of their targets. The scheduler thread parks
+ * until just before the earliest target and then spins for the last part of the wait, the lookahead, so that the event
+ * is not run late because the thread was woken up late. An event that repeats is
+ * scheduled again from the target it should have run at rather than from when it did run, so a late event does not
+ * push back the ones after it. How late every event was run is recorded, both for the event and for the scheduler.
+ *
+ * The events are run on the scheduler thread, so they must not block. An event that throws is reported and the other
+ * events carry on being run. The AudioScheduler starts the Clips of the game with a BeatScheduler of its own, which has
+ * a longer lookahead.
+ *
+ * @author Gareth Iguasnia
+ * @date 19/04/2020
+ */
+public class BeatScheduler {
+    // How long before the target the scheduler thread stops parking and spins until the target is reached, when no
+    // other lookahead is given
+    public static final long LOOKAHEAD_NANOS = 1_000_000L;
+
+    // An event run later than this is reported as it happens
+    public static final long LATE_WARNING_NANOS = 5_000_000L;
+
+    // Events handed over by the threads of the game that the scheduler thread has not taken yet
+    private final ConcurrentLinkedQueue<ScheduledBeat> submissions;
+
+    // Orders the events that have been scheduled at the same target
+    private final AtomicLong sequence;
+
+    private final Thread thread;
+    private volatile boolean running;
+
+    // How long before the target the scheduler thread stops parking and spins until the target is reached
+    private final long lookaheadNanos;
+
+    // How late the events were run. These are only written by the scheduler thread
+    private volatile long runEvents;
+    private volatile long lateEvents;
+    private volatile long lastLatenessNanos;
+    private volatile long maxLatenessNanos;
+    private volatile long totalLatenessNanos;
+
+    /**
+     * Constructor for the BeatScheduler Class with the lookahead of LOOKAHEAD_NANOS
+     *
+     * @param threadName String object representing the name of the scheduler thread
+     */
+    public BeatScheduler(String threadName) {
+        this(threadName, LOOKAHEAD_NANOS);
+    }
+
+    /**
+     * Constructor for the BeatScheduler Class. The scheduler thread is started straight away and parks until an event
+     * is scheduled
+     *
+     * @param threadName String object representing the name of the scheduler thread
+     * @param lookaheadNanos A long representing how long before the target the scheduler thread stops parking and
+     *                       spins until the target is reached
+     */
+    public BeatScheduler(String threadName, long lookaheadNanos) {
+        this.submissions = new ConcurrentLinkedQueue<>();
+        this.sequence = new AtomicLong();
+        this.lookaheadNanos = lookaheadNanos;
+        this.running = true;
+
+        this.thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                schedulerLoop();
+            }
+        }, threadName);
+        this.thread.setDaemon(true);
+        this.thread.setPriority(Thread.MAX_PRIORITY);
+        this.thread.start();
+    }
+
+    /**
+     * Method schedules an event to be run once at the target timestamp. If the target has already passed, the event is
+     * run straight away
+     *
+     * @param name String object representing the name of the event, which its lateness is reported under
+     * @param task Runnable object holding the logic of the event
+     * @param targetNanos A long representing the System.nanoTime() at which the event should be run
+     * @return The ScheduledBeat object that can be used to cancel the event
+     */
+    public ScheduledBeat schedule(String name, Runnable task, long targetNanos) {
+        return submit(new ScheduledBeat(name, task, targetNanos, 0));
+    }
+
+    /**
+     * Method schedules an event to be run at the target timestamp and then every period after it, until it is cancelled
+     *
+     * @param name String object representing the name of the event, which its lateness is reported under
+     * @param task Runnable object holding the logic of the event
+     * @param firstTargetNanos A long representing the System.nanoTime() at which the event should first be run
+     * @param periodNanos A long representing the time between the targets of the event in nanoseconds
+     * @return The ScheduledBeat object that can be used to cancel the event
+     */
+    public ScheduledBeat scheduleAtFixedRate(String name, Runnable task, long firstTargetNanos, long periodNanos) {
+        if (periodNanos <= 0)
+            throw new IllegalArgumentException("The period of " + name + " must be positive");
+        return submit(new ScheduledBeat(name, task, firstTargetNanos, periodNanos));
+    }
+
+    public long getLookaheadNanos() {
+        return lookaheadNanos;
+    }
+
+    public long getRunEvents() {
+        return runEvents;
+    }
+
+    /**
+     * Method returns the number of events that were run more than LATE_WARNING_NANOS after their target
+     *
+     * @return A long representing the number of late events
+     */
+    public long getLateEvents() {
+        return lateEvents;
+    }
+
+    /**
+     * Method returns how late the last event was run compared to its target
+     *
+     * @return A long representing the lateness in nanoseconds
+     */
+    public long getLastLatenessNanos() {
+        return lastLatenessNanos;
+    }
+
+    public long getMaxLatenessNanos() {
+        return maxLatenessNanos;
+    }
+
+    /**
+     * Method returns how late the events were run on average compared to their targets
+     *
+     * @return A long representing the mean lateness in nanoseconds, or 0 if no event has been run
+     */
+    public long getMeanLatenessNanos() {
+        long run = runEvents;
+        return run == 0 ? 0 : totalLatenessNanos / run;
+    }
+
+    /**
+     * Method stops the scheduler thread. Events that have not been run yet are dropped
+     */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    @Override
+    public String toString() {
+        return "BeatScheduler[run=" + runEvents + ", late=" + lateEvents + ", lateness last=" +
+                lastLatenessNanos / 1000 + "us, mean=" + getMeanLatenessNanos() / 1000 + "us, max=" +
+                maxLatenessNanos / 1000 + "us]";
+    }
+
+    /* Helper method that hands an event to the scheduler thread */
+    private ScheduledBeat submit(ScheduledBeat beat) {
+        beat.sequence = sequence.getAndIncrement();
+        submissions.offer(beat);
+        LockSupport.unpark(thread);
+        return beat;
+    }
+
+    /* Helper method run by the scheduler thread. Only this thread touches the ordered queue of pending events */
+    private void schedulerLoop() {
+        PriorityQueue<ScheduledBeat> pending = new PriorityQueue<>(new Comparator<ScheduledBeat>() {
+            @Override
+            public int compare(ScheduledBeat a, ScheduledBeat b) {
+                int byTarget = Long.compare(a.targetNanos - b.targetNanos, 0);
+                return byTarget != 0 ? byTarget : Long.compare(a.sequence, b.sequence);
+            }
+        });
+
+        while (running) {
+            ScheduledBeat submitted;
+            while ((submitted = submissions.poll()) != null)
+                pending.add(submitted);
+
+            ScheduledBeat next = pending.peek();
+            if (next == null) {
+                LockSupport.park(this);
+                continue;
+            }
+            if (next.cancelled) {
+                pending.poll();
+                continue;
+            }
+
+            long wait = next.targetNanos - System.nanoTime();
+            if (wait > lookaheadNanos) {
+                // Woken up early by a new submission, which might have an earlier target
+                LockSupport.parkNanos(this, wait - lookaheadNanos);
+                continue;
+            }
+            while (next.targetNanos - System.nanoTime() > 0)
+                Thread.onSpinWait();
+
+            pending.poll();
+            run(next);
+
+            // The next target is worked out from the target that was missed, so the event does not drift
+            if (next.periodNanos > 0 && !next.cancelled) {
+                next.targetNanos += next.periodNanos;
+                pending.add(next);
+            }
+        }
+    }
+
+    /* Helper method that records how late an event was and runs it */
+    private void run(ScheduledBeat beat) {
+        long lateness = System.nanoTime() - beat.targetNanos;
+        beat.runs++;
+        beat.lastLatenessNanos = lateness;
+        if (lateness > beat.maxLatenessNanos)
+            beat.maxLatenessNanos = lateness;
+
+        runEvents++;
+        lastLatenessNanos = lateness;
+        totalLatenessNanos += lateness;
+        if (lateness > maxLatenessNanos)
+            maxLatenessNanos = lateness;
+        if (lateness > LATE_WARNING_NANOS) {
+            lateEvents++;
+            System.out.println(beat.name + " was run " + lateness / 1000 + "us late");
+        }
+
+        try {
+            beat.task.run();
+        }
+        catch (Exception ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * ScheduledBeat Innerclass that holds an event and the System.nanoTime() at which the scheduler should run it. This
+     * is handed back when the event is scheduled so that it can be cancelled and its lateness read
+     *
+     * @author Gareth Iguasnia
+     * @date 19/04/2020
+     */
+    public static class ScheduledBeat {
+        private final String name;
+        private final Runnable task;
+        private final long periodNanos;
+        private long sequence;
+
+        // These are only written by the scheduler thread
+        private volatile long targetNanos;
+        private volatile long runs;
+        private volatile long lastLatenessNanos;
+        private volatile long maxLatenessNanos;
+
+        private volatile boolean cancelled;
+
+        private ScheduledBeat(String name, Runnable task, long targetNanos, long periodNanos) {
+            this.name = name;
+            this.task = task;
+            this.targetNanos = targetNanos;
+            this.periodNanos = periodNanos;
+        }
+
+        /**
+         * Method stops the event from being run again. An event that is being run is finished
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Method returns the target of the next run of the event
+         *
+         * @return A long representing a System.nanoTime() timestamp
+         */
+        public long getTargetNanos() {
+            return targetNanos;
+        }
+
+        public long getRuns() {
+            return runs;
+        }
+
+        public long getLastLatenessNanos() {
+            return lastLatenessNanos;
+        }
+
+        public long getMaxLatenessNanos() {
+            return maxLatenessNanos;
+        }
+
+        @Override
+        public String toString() {
+            return name + "[runs=" + runs + ", lateness last=" + lastLatenessNanos / 1000 + "us, max=" +
+                    maxLatenessNanos / 1000 + "us]";
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package components.ingame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BeatSchedulerTest {
+
+    @Test
+    void eventsAreRunInOrderOfTheirTargets() throws InterruptedException {
+        BeatScheduler beatScheduler = new BeatScheduler("test-beat-scheduler");
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(3);
+        long now = System.nanoTime();
+
+        // Scheduled out of order, and one of them is cancelled before it is due
+        beatScheduler.schedule("third", record(order, "third", done), now + 60_000_000L);
+        beatScheduler.schedule("first", record(order, "first", done), now + 20_000_000L);
+        beatScheduler.schedule("cancelled", record(order, "cancelled", done), now + 30_000_000L).cancel();
+        beatScheduler.schedule("second", record(order, "second", done), now + 40_000_000L);
+
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of("first", "second", "third"), order);
+        assertEquals(3, beatScheduler.getRunEvents());
+        beatScheduler.shutdown();
+    }
+
+    @Test
+    void fixedRateEventsDoNotDrift() throws InterruptedException {
+        BeatScheduler beatScheduler = new BeatScheduler("test-beat-scheduler");
+        long period = 10_000_000L;
+        long first = System.nanoTime() + period;
+        long[] runTimes = new long[20];
+        CountDownLatch done = new CountDownLatch(runTimes.length);
+
+        BeatScheduler.ScheduledBeat beat = beatScheduler.scheduleAtFixedRate("bar", new Runnable() {
+            private int run = 0;
+
+            @Override
+            public void run() {
+                if (run < runTimes.length) {
+                    runTimes[run++] = System.nanoTime();
+                    done.countDown();
+                }
+            }
+        }, first, period);
+
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        beat.cancel();
+
+        // Every run is timed from the first target rather than from the run before it, so the error does not build up
+        long lastError = runTimes[runTimes.length - 1] - (first + (runTimes.length - 1) * period);
+        assertTrue(lastError >= 0 && lastError < period, beat.toString());
+        assertTrue(beat.getRuns() >= runTimes.length);
+        assertTrue(beat.getMaxLatenessNanos() >= beat.getLastLatenessNanos());
+        beatScheduler.shutdown();
+    }
+
+    @Test
+    void anEventThatThrowsDoesNotStopTheScheduler() throws InterruptedException {
+        BeatScheduler beatScheduler = new BeatScheduler("test-beat-scheduler");
+        CountDownLatch done = new CountDownLatch(1);
+        long now = System.nanoTime();
+
+        beatScheduler.schedule("throws", new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("Expected by the test");
+            }
+        }, now);
+        beatScheduler.schedule("after", record(new ArrayList<>(), "after", done), now + 5_000_000L);
+
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> beatScheduler.scheduleAtFixedRate("no period",
+                record(new ArrayList<>(), "no period", done), now, 0));
+        beatScheduler.shutdown();
+    }
+
+    /* Helper method that returns an event recording its name */
+    private Runnable record(List<String> order, String name, CountDownLatch done) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                order.add(name);
+                done.countDown();
+            }
+        };
+    }
+}
@@ -0,0 +1,216 @@
+package components.ingame;
+
+import components.audio.AudioClock;
+
+import java.util.ArrayList;
+
+/**
+ * BeatTimeline Class that holds the timing of the 32 beats of a Salsa audio clip in frames of the audio line. The
+ * beats are taken from the beat table of the recording when it has one, otherwise they are worked out from the frame
+ * the clip started on and its length in frames, so there is no rounding error that builds up from one beat to the
+ * next. The user's input is converted into the same timebase with the AudioClock.
+ *
+ * When the clip is looped, the time that has passed is measured from the start of the iteration being heard, so the
+ * same timeline is used for every iteration without being built again.
+ *
+ * @author Gareth Iguasnia
+ * @date 14/04/2020
+ */
+public class BeatTimeline {
+    // Number of beats in a group of 4 8-beat bars
+    public static final int BEATS_PER_STATE = 32;
+
+    private final AudioClock audioClock;
+
+    // The frame of the line that the Salsa audio clip started on
+    private final long startFrame;
+
+    // The length of the Salsa audio clip in frames
+    private final long frameLength;
+
+    private final float frameRate;
+
+    // The frame of each beat from the start of the clip, found by onset detection. This is null if the beats are
+    // evenly spaced
+    private final long[] beatFrames;
+
+    // Whether the clip is played again on the frame after its end
+    private final boolean looping;
+
+    /**
+     * Constructor for the BeatTimeline Class where the beats are evenly spaced across the clip.
+     *
+     * @param audioClock The AudioClock object of the line playing the Salsa audio clip
+     * @param startFrame A long representing the frame of the line that the clip started on
+     * @param frameLength A long representing the length of the clip in frames
+     * @param frameRate A float representing the number of frames per second of the clip
+     */
+    public BeatTimeline(AudioClock audioClock, long startFrame, long frameLength, float frameRate) {
+        this(audioClock, startFrame, frameLength, frameRate, null);
+    }
+
+    /**
+     * Constructor for the BeatTimeline Class where the beats are taken from the beat table of the recording.
+     *
+     * @param audioClock The AudioClock object of the line playing the Salsa audio clip
+     * @param startFrame A long representing the frame of the line that the clip started on
+     * @param frameLength A long representing the length of the clip in frames
+     * @param frameRate A float representing the number of frames per second of the clip
+     * @param beatFrames An array of 32 longs representing the frame of each beat from the start of the clip, or null
+     *                   if the beats are evenly spaced
+     */
+    public BeatTimeline(AudioClock audioClock, long startFrame, long frameLength, float frameRate, long[] beatFrames) {
+        this(audioClock, startFrame, frameLength, frameRate, beatFrames, false);
+    }
+
+    /**
+     * Constructor for the BeatTimeline Class where the clip may be looped.
+     *
+     * @param audioClock The AudioClock object of the line playing the Salsa audio clip
+     * @param startFrame A long representing the frame of the line that the first iteration of the clip started on
+     * @param frameLength A long representing the length of the clip in frames
+     * @param frameRate A float representing the number of frames per second of the clip
+     * @param beatFrames An array of 32 longs representing the frame of each beat from the start of the clip, or null
+     *                   if the beats are evenly spaced
+     * @param looping true if the clip is played again on the frame after its end
+     */
+    public BeatTimeline(AudioClock audioClock, long startFrame, long frameLength, float frameRate, long[] beatFrames,
+                        boolean looping) {
+        this.audioClock = audioClock;
+        this.startFrame = startFrame;
+        this.frameLength = frameLength;
+        this.frameRate = frameRate;
+        this.beatFrames = beatFrames != null && beatFrames.length == BEATS_PER_STATE ? beatFrames : null;
+        this.looping = looping && frameLength > 0;
+    }
+
+    /**
+     * Method returns the frame of the line on which the beat is heard
+     *
+     * @param beatIndex Integer representing the index of the beat, from 0 to 31
+     * @return A long representing the frame position of the beat
+     */
+    public long getBeatFrame(int beatIndex) {
+        if (beatFrames != null)
+            return startFrame + beatFrames[beatIndex];
+        return startFrame + Math.round(beatIndex * (double) frameLength / BEATS_PER_STATE);
+    }
+
+    /**
+     * Method creates the beat timeline in milliseconds from the start of the clip. This is the timeline used by the
+     * model to set up the time windows and the error function
+     *
+     * @return An ArrayList of Long values representing when each beat (index + 1) occurs
+     */
+    public ArrayList<Long> createMillisecondTimeline() {
+        ArrayList<Long> beatTimeline = new ArrayList<>(BEATS_PER_STATE);
+        for (int i = 0; i < BEATS_PER_STATE; i++)
+            beatTimeline.add(framesToMilliseconds(getBeatFrame(i) - startFrame));
+        return beatTimeline;
+    }
+
+    /**
+     * Method returns the time that has passed since the start of the clip according to the audio line
+     *
+     * @return A long representing the number of milliseconds of the clip that have been heard
+     */
+    public long getElapsedMilliseconds() {
+        return framesToMilliseconds(getElapsedFrames(audioClock.getFramePosition()));
+    }
+
+    /**
+     * Method returns the time between the start of the clip and a System.nanoTime() timestamp according to the audio
+     * line
+     *
+     * @param nanoTime A long representing a timestamp taken with System.nanoTime()
+     * @return A long representing the number of milliseconds of the clip that had been heard at the timestamp
+     */
+    public long getElapsedMilliseconds(long nanoTime) {
+        return framesToMilliseconds(getElapsedFrames(audioClock.getFramePosition(nanoTime)));
+    }
+
+    /**
+     * Method returns the time between the start of the clip and a System.nanoTime() timestamp according to the audio
+     * line, without rounding it to a millisecond
+     *
+     * @param nanoTime A long representing a timestamp taken with System.nanoTime()
+     * @return A long representing the number of nanoseconds of the clip that had been heard at the timestamp
+     */
+    public long getElapsedNanos(long nanoTime) {
+        return framesToNanoseconds(getElapsedFrames(audioClock.getFramePosition(nanoTime)));
+    }
+
+    /**
+     * Method returns when a beat is heard in nanoseconds from the start of the clip
+     *
+     * @param beatIndex Integer representing the index of the beat, from 0 to 31
+     * @return A long representing the time of the beat in nanoseconds
+     */
+    public long getBeatNanos(int beatIndex) {
+        return framesToNanoseconds(getBeatFrame(beatIndex) - startFrame);
+    }
+
+    /**
+     * Method returns when the iteration of the clip heard at a timestamp started, on the System.nanoTime() timebase.
+     * The events of the BeatScheduler are timed from this, so they land on the beats the line is playing
+     *
+     * @param nanoTime A long representing a timestamp taken with System.nanoTime()
+     * @return A long representing the System.nanoTime() at which the iteration of the clip started
+     */
+    public long getStartNanos(long nanoTime) {
+        long elapsedFrames = getElapsedFrames(audioClock.getFramePosition(nanoTime));
+        return nanoTime - framesToNanoseconds(elapsedFrames);
+    }
+
+    /**
+     * Method returns the iteration of a looped clip that is heard at a frame of the line
+     *
+     * @param framePosition A long representing a frame position of the line
+     * @return A long representing the iteration from 0, which is always 0 if the clip is not looped
+     */
+    public long getIteration(long framePosition) {
+        if (!looping || framePosition < startFrame)
+            return 0;
+        return (framePosition - startFrame) / frameLength;
+    }
+
+    public long getStartFrame() {
+        return startFrame;
+    }
+
+    public long getFrameLength() {
+        return frameLength;
+    }
+
+    public float getFrameRate() {
+        return frameRate;
+    }
+
+    /**
+     * Method returns whether the beats were found by onset detection rather than evenly spaced
+     *
+     * @return true if the beat table of the recording is being used
+     */
+    public boolean hasBeatTable() {
+        return beatFrames != null;
+    }
+
+    public boolean isLooping() {
+        return looping;
+    }
+
+    /* Helper method that returns the frames from the start of the iteration heard at the frame position */
+    private long getElapsedFrames(long framePosition) {
+        return framePosition - startFrame - getIteration(framePosition) * frameLength;
+    }
+
+    /* Helper method that converts a number of frames into nanoseconds */
+    private long framesToNanoseconds(long frames) {
+        return Math.round(frames * 1_000_000_000.0 / frameRate);
+    }
+
+    /* Helper method that converts a number of frames into milliseconds */
+    private long framesToMilliseconds(long frames) {
+        return Math.round(frames * 1000.0 / frameRate);
+    }
+}
@@ -0,0 +1,266 @@
+package components.ingame;
+
+import java.util.Arrays;
+
+/**
+ * FreeTapScorer Class that scores every tap of the user in the free tap mode, rather than one click per time window.
+ * Each tap is matched to the nearest beat of the State by a binary search over the beat timeline, and how early or late
+ * it was is added to the statistics of that beat. Running estimates of the tempo and the phase the user is tapping at
+ * are updated with every tap.
+ *
+ * The timeline and the statistics are held in arrays of primitives that are created once, so a tap does not allocate
+ * anything and hundreds of taps a second can be scored. The offset and variance of each beat are kept with Welford's
+ * method, and the tempo and phase are smoothed with an exponentially weighted moving average.
+ *
+ * The taps are scored on the Event Dispatch Thread and the statistics are taken at the end of the State by the
+ * BeatScheduler, so every method is synchronized.
+ *
+ * @author Gareth Iguasnia
+ * @date 19/04/2020
+ */
+public class FreeTapScorer {
+    // The weight of the latest tap in the running tempo and phase
+    public static final double SMOOTHING = 0.125;
+
+    // Two taps further apart than this many beats are not used for the tempo, as the user has stopped for a while
+    public static final int MAX_TEMPO_GAP = 4;
+
+    // Put in place of the mean offset of a beat that has not been tapped
+    public static final long NO_TAPS = Long.MIN_VALUE;
+
+    // The time of each beat in nanoseconds from the start of the Salsa audio clip, in ascending order
+    private final long[] beatTimeline;
+    private int beats;
+
+    // The length of a beat of the timeline in nanoseconds
+    private long beatLengthNanos;
+
+    // The number of taps, mean offset and sum of squared differences from the mean of each beat
+    private final int[] beatTaps;
+    private final double[] meanOffsets;
+    private final double[] squaredDifferences;
+
+    // The same for every tap scored
+    private int taps;
+    private int rejectedTaps;
+    private double meanOffset;
+    private double squaredDifference;
+
+    // The running estimates of the time between two beats and of how far from the beat the user is tapping
+    private double tapPeriodNanos;
+    private double phaseOffsetNanos;
+    private boolean phaseKnown;
+
+    // The beat and time of the previous tap, for the tempo
+    private int lastBeat;
+    private long lastTapNanos;
+
+    /**
+     * Constructor for the FreeTapScorer Class.
+     *
+     * @param capacity Integer representing the most beats that a timeline can have
+     */
+    public FreeTapScorer(int capacity) {
+        this.beatTimeline = new long[capacity];
+        this.beatTaps = new int[capacity];
+        this.meanOffsets = new double[capacity];
+        this.squaredDifferences = new double[capacity];
+        this.lastBeat = -1;
+    }
+
+    /**
+     * Method sets the timeline of the State being played and clears every tap scored against the previous one
+     *
+     * @param beatNanos An array of longs holding the time of each beat in nanoseconds from the start of the clip, in
+     *                  ascending order
+     * @param length Integer representing the number of beats of the array that are used
+     */
+    public synchronized void setBeatTimeline(long[] beatNanos, int length) {
+        if (length > beatTimeline.length)
+            throw new IllegalArgumentException("The scorer can only hold " + beatTimeline.length + " beats");
+        System.arraycopy(beatNanos, 0, beatTimeline, 0, length);
+        beats = length;
+        beatLengthNanos = length > 1 ? (beatTimeline[length - 1] - beatTimeline[0]) / (length - 1) : 0;
+
+        clearTaps();
+        tapPeriodNanos = 0;
+        phaseOffsetNanos = 0;
+        phaseKnown = false;
+    }
+
+    /**
+     * Method scores a tap against the nearest beat of the timeline. A tap more than half a beat before the first beat
+     * or after the last beat is not scored
+     *
+     * @param tapNanos A long representing the time of the tap in nanoseconds from the start of the clip, with the
+     *                 latency offset of the user taken away
+     * @return The index of the beat that the tap was matched to, or -1 if it was not scored
+     */
+    public synchronized int tap(long tapNanos) {
+        if (beats == 0) {
+            rejectedTaps++;
+            return -1;
+        }
+
+        // The nearest beat is either side of where the tap would be put in the timeline
+        int beat = Arrays.binarySearch(beatTimeline, 0, beats, tapNanos);
+        if (beat < 0) {
+            int after = -beat - 1;
+            if (after == beats)
+                beat = beats - 1;
+            else if (after == 0 || beatTimeline[after] - tapNanos < tapNanos - beatTimeline[after - 1])
+                beat = after;
+            else
+                beat = after - 1;
+        }
+
+        long offset = tapNanos - beatTimeline[beat];
+        if (beatLengthNanos > 0 && Math.abs(offset) > beatLengthNanos / 2) {
+            rejectedTaps++;
+            return -1;
+        }
+
+        // Welford's method, for the beat and for all of the taps
+        beatTaps[beat]++;
+        double difference = offset - meanOffsets[beat];
+        meanOffsets[beat] += difference / beatTaps[beat];
+        squaredDifferences[beat] += difference * (offset - meanOffsets[beat]);
+
+        taps++;
+        difference = offset - meanOffset;
+        meanOffset += difference / taps;
+        squaredDifference += difference * (offset - meanOffset);
+
+        // The tempo is worked out from the time between this tap and the previous one over the beats between them
+        int beatsApart = beat - lastBeat;
+        if (lastBeat >= 0 && beatsApart > 0 && beatsApart <= MAX_TEMPO_GAP) {
+            double period = (double) (tapNanos - lastTapNanos) / beatsApart;
+            tapPeriodNanos = tapPeriodNanos == 0 ? period : tapPeriodNanos + SMOOTHING * (period - tapPeriodNanos);
+        }
+        phaseOffsetNanos = phaseKnown ? phaseOffsetNanos + SMOOTHING * (offset - phaseOffsetNanos) : offset;
+        phaseKnown = true;
+        lastBeat = beat;
+        lastTapNanos = tapNanos;
+        return beat;
+    }
+
+    /**
+     * Method hands over the mean offset of every beat and clears the taps, keeping the timeline and the running tempo
+     * and phase. This is used at the end of a State to add the taps to the UserProfile
+     *
+     * @param meanOffsetsNanos An array of longs that is filled with the mean offset of each beat in nanoseconds, or
+     *                         NO_TAPS for a beat that has not been tapped
+     * @return The number of beats that have been tapped
+     */
+    public synchronized int takeMeanOffsets(long[] meanOffsetsNanos) {
+        int tappedBeats = 0;
+        for (int i = 0; i < meanOffsetsNanos.length; i++) {
+            if (i < beats && beatTaps[i] > 0) {
+                meanOffsetsNanos[i] = Math.round(meanOffsets[i]);
+                tappedBeats++;
+            }
+            else
+                meanOffsetsNanos[i] = NO_TAPS;
+        }
+        clearTaps();
+        return tappedBeats;
+    }
+
+    /**
+     * Method clears the taps scored so far, keeping the timeline and the running tempo and phase
+     */
+    public synchronized void clearTaps() {
+        Arrays.fill(beatTaps, 0);
+        Arrays.fill(meanOffsets, 0);
+        Arrays.fill(squaredDifferences, 0);
+        taps = 0;
+        rejectedTaps = 0;
+        meanOffset = 0;
+        squaredDifference = 0;
+        lastBeat = -1;
+    }
+
+    public synchronized int getBeats() {
+        return beats;
+    }
+
+    public synchronized int getTaps() {
+        return taps;
+    }
+
+    public synchronized int getRejectedTaps() {
+        return rejectedTaps;
+    }
+
+    public synchronized int getBeatTaps(int beat) {
+        return beatTaps[beat];
+    }
+
+    /**
+     * Method returns how early or late the taps on a beat were on average
+     *
+     * @param beat Integer representing the index of the beat, from 0
+     * @return A double representing the mean offset in nanoseconds, negative if the taps were early
+     */
+    public synchronized double getMeanOffsetNanos(int beat) {
+        return meanOffsets[beat];
+    }
+
+    /**
+     * Method returns how much the offsets of the taps on a beat varied
+     *
+     * @param beat Integer representing the index of the beat, from 0
+     * @return A double representing the sample variance of the offsets in nanoseconds squared, or 0 if the beat has
+     * fewer than two taps
+     */
+    public synchronized double getOffsetVariance(int beat) {
+        return beatTaps[beat] < 2 ? 0 : squaredDifferences[beat] / (beatTaps[beat] - 1);
+    }
+
+    public synchronized double getMeanOffsetNanos() {
+        return meanOffset;
+    }
+
+    public synchronized double getOffsetVariance() {
+        return taps < 2 ? 0 : squaredDifference / (taps - 1);
+    }
+
+    /**
+     * Method returns the tempo the user is tapping at
+     *
+     * @return A double representing the running estimate of the tempo in beats per minute, or 0 if there have not been
+     * two taps close enough together
+     */
+    public synchronized double getTempo() {
+        return tapPeriodNanos == 0 ? 0 : 60_000_000_000.0 / tapPeriodNanos;
+    }
+
+    /**
+     * Method returns the tempo of the beat timeline, which the tempo of the taps can be compared to
+     *
+     * @return A double representing the tempo of the timeline in beats per minute, or 0 if there is no timeline
+     */
+    public synchronized double getTimelineTempo() {
+        return beatLengthNanos == 0 ? 0 : 60_000_000_000.0 / beatLengthNanos;
+    }
+
+    /**
+     * Method returns how far from the beat the user is tapping, as a fraction of a beat
+     *
+     * @return A double representing the running estimate of the phase, negative if the user is tapping early
+     */
+    public synchronized double getPhase() {
+        return beatLengthNanos == 0 ? 0 : phaseOffsetNanos / beatLengthNanos;
+    }
+
+    public synchronized double getPhaseOffsetNanos() {
+        return phaseOffsetNanos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("FreeTapScorer[taps=%d, rejected=%d, mean offset=%.1f ms, sd=%.1f ms, tempo=%.1f BPM " +
+                        "(timeline %.1f BPM), phase=%.3f beats]", taps, rejectedTaps, meanOffset / 1_000_000.0,
+                Math.sqrt(getOffsetVariance()) / 1_000_000.0, getTempo(), getTimelineTempo(), getPhase());
+    }
+}
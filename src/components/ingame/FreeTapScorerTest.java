@@ -0,0 +1,104 @@
+package components.ingame;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FreeTapScorerTest {
+    // 200 BPM
+    private static final long BEAT = 300_000_000L;
+
+    @Test
+    void everyTapIsMatchedToTheNearestBeat() {
+        FreeTapScorer freeTapScorer = createScorer();
+
+        // Early, late and exactly on the beat
+        assertEquals(0, freeTapScorer.tap(-10_000_000L));
+        assertEquals(0, freeTapScorer.tap(30_000_000L));
+        assertEquals(4, freeTapScorer.tap(4 * BEAT));
+        assertEquals(5, freeTapScorer.tap(5 * BEAT + 149_000_000L));
+        assertEquals(6, freeTapScorer.tap(6 * BEAT - 149_000_000L));
+        assertEquals(31, freeTapScorer.tap(31 * BEAT + 100_000_000L));
+
+        // More than half a beat outside of the timeline
+        assertEquals(-1, freeTapScorer.tap(-200_000_000L));
+        assertEquals(-1, freeTapScorer.tap(32 * BEAT));
+        assertEquals(6, freeTapScorer.getTaps());
+        assertEquals(2, freeTapScorer.getRejectedTaps());
+
+        assertEquals(2, freeTapScorer.getBeatTaps(0));
+        assertEquals(10_000_000.0, freeTapScorer.getMeanOffsetNanos(0), 1e-6);
+        assertEquals(8e14, freeTapScorer.getOffsetVariance(0), 1);
+        assertEquals(0, freeTapScorer.getOffsetVariance(4));
+
+        long[] meanOffsets = new long[BeatTimeline.BEATS_PER_STATE];
+        assertEquals(5, freeTapScorer.takeMeanOffsets(meanOffsets));
+        assertEquals(10_000_000L, meanOffsets[0]);
+        assertEquals(0, meanOffsets[4]);
+        assertEquals(-149_000_000L, meanOffsets[6]);
+        assertEquals(FreeTapScorer.NO_TAPS, meanOffsets[1]);
+        assertEquals(0, freeTapScorer.getTaps());
+    }
+
+    @Test
+    void theTempoAndPhaseFollowTheTaps() {
+        FreeTapScorer freeTapScorer = createScorer();
+        assertEquals(200, freeTapScorer.getTimelineTempo(), 1e-9);
+        assertEquals(0, freeTapScorer.getTempo());
+
+        // Tapping 25 ms behind every beat, skipping one now and then
+        for (int beat = 0; beat < 32; beat++) {
+            if (beat % 5 != 3)
+                freeTapScorer.tap(beat * BEAT + 25_000_000L);
+        }
+        assertEquals(200, freeTapScorer.getTempo(), 1e-6);
+        assertEquals(25.0 / 300, freeTapScorer.getPhase(), 1e-9);
+
+        // Speeding up to 210 BPM for 10 beats, before the taps are more than half a beat early. The running tempo moves
+        // towards it and the user is tapping ahead of the beat
+        freeTapScorer.clearTaps();
+        long period = 60_000_000_000L / 210;
+        for (int beat = 0; beat < 10; beat++)
+            assertEquals(beat, freeTapScorer.tap(beat * period));
+        assertTrue(freeTapScorer.getTempo() > 205 && freeTapScorer.getTempo() < 210, freeTapScorer.toString());
+        assertTrue(freeTapScorer.getPhase() < 0, freeTapScorer.toString());
+    }
+
+    @Test
+    void aTapDoesNotAllocate() {
+        FreeTapScorer freeTapScorer = createScorer();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        // Warming up so that the tap is compiled before it is measured
+        tapAlong(freeTapScorer, 200_000);
+        long before = threads.getThreadAllocatedBytes(thread);
+        tapAlong(freeTapScorer, 200_000);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        assertTrue(allocated < 1024, allocated + " bytes were allocated for 200000 taps");
+        assertTrue(freeTapScorer.getTempo() > 0);
+    }
+
+    /* Helper method that creates a scorer with 32 beats 300 ms apart */
+    private FreeTapScorer createScorer() {
+        long[] beatTimeline = new long[BeatTimeline.BEATS_PER_STATE];
+        for (int i = 0; i < beatTimeline.length; i++)
+            beatTimeline[i] = i * BEAT;
+
+        FreeTapScorer freeTapScorer = new FreeTapScorer(BeatTimeline.BEATS_PER_STATE);
+        freeTapScorer.setBeatTimeline(beatTimeline, beatTimeline.length);
+        return freeTapScorer;
+    }
+
+    /* Helper method that taps through the timeline again and again, a few milliseconds either side of the beats */
+    private void tapAlong(FreeTapScorer freeTapScorer, int taps) {
+        for (int i = 0; i < taps; i++) {
+            freeTapScorer.tap((i % 32) * BEAT + ((i * 7919L) % 41 - 20) * 1_000_000L);
+            if (i % 32 == 31)
+                freeTapScorer.clearTaps();
+        }
+    }
+}
@@ -1,25 +1,38 @@
 package components.ingame;
 
 import components.State;
+import components.audio.StreamingPlaybackEngine;
 import controllers.GameController;
+import controllers.MusicController;
+import main.SalsaModel;
 
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Random;
-import java.util.Timer;
-import java.util.TimerTask;
+
 /**
  * GameProgress Class to be used by a GameController so that the events for a new state and new beat can be fired
  * at the correct times for the simulation to continue. This is also takes care of noting when the simulation has ended
  * and firing the appropriate event for it. Lastly, it also deals with limiting user input to 1 input per 8-beat bar
  * of music during the simulation
  *
+ * The bars and the end of the State are run by the BeatScheduler of the model, timed from when the Salsa audio clip
+ * started on the audio line, so no thread is created for a State.
+ *
+ * When the practice loop of the model is on as the clip starts, the clip is looped and the same events and time
+ * windows carry on into every iteration of it. The State is only left once the practice loop has been turned off.
+ * Whether the clip is looped again is decided before the StreamingPlaybackEngine starts writing the next iteration to
+ * its line, so turning the practice loop off does not play the clip one more time.
+ *
  * @author Gareth Iguasnia
  * @date 27/02/2020
  */
 public abstract class GameProgress {
-    // Timer object to carry out a task repeatedly
-    private Timer timer;
+    // The events of the State that are run by the BeatScheduler of the model
+    private BeatScheduler beatScheduler;
+    private BeatScheduler.ScheduledBeat remindTask;
+    private BeatScheduler.ScheduledBeat endOfStateTask;
+    private BeatScheduler.ScheduledBeat loopTask;
 
     // In order for the RemindTask Class to have access to this data
     private GameController gameController;
@@ -37,6 +50,13 @@ public abstract class GameProgress {
     // The first beat that the user will be tested on
     int currentBeat;
 
+    // Whether the Salsa audio clip is being looped, and the time windows that are opened in every iteration of it
+    private final boolean looping;
+    private final ArrayList<TimeWindow> timeWindows;
+
+    // Whether the looped clip is played again after the iteration being heard, as decided by the LoopTask
+    private volatile boolean loopKept;
+
     /**
      * Constructor: This will be used throughout all of the simulation bar at the start of the simulation
      *
@@ -44,8 +64,8 @@ public abstract class GameProgress {
      * @param clipSalsa The length of the Salsa audio clip in milliseconds
      */
     public GameProgress(GameController gameController, long clipSalsa) {
-        this.timer = new Timer();
         this.gameController = gameController;
+        this.beatScheduler = gameController.getSalsaModel().getBeatScheduler();
         this.clipSalsa = clipSalsa;
         this.randomGenerator = new Random();
         this.nextBeats = createNextBeats(randomGenerator); // createNextBeats() ABSTRACT METHOD - Keep it to one number for one state so easy would need to know the next beat
@@ -54,6 +74,13 @@ public abstract class GameProgress {
         // Record what the first beat in the group of 4 8-beat bars that the user will be tested on
         this.currentBeat = gameController.getSalsaModel().getNextBeat();
 
+        // The same beats are tested in every iteration of a looped clip, so the beat after the last bar is the first
+        this.looping = gameController.getSalsaModel().isPracticeLoop();
+        this.loopKept = looping;
+        this.timeWindows = new ArrayList<>(4);
+        if (looping)
+            this.nextBeats.set(3, currentBeat);
+
         // The beats that the system will test the user in this State
         this.gameController.getSalsaModel().setTestingBeats(createTestingBeats());
 
@@ -64,17 +91,36 @@ public abstract class GameProgress {
 
     public void start() {
         // This is when the 1 beat of the second bar will be
-        long quarter = clipSalsa/4;
+        long quarter = clipSalsa * 1_000_000L / 4;
 
         // This timestamp will be the new 0 for the next 4 8-beat bars
         gameController.getSalsaModel().setTimeAccumulation(System.currentTimeMillis());
 
-        timer.schedule(new RemindTask(),
-                0,
-                quarter);
+        // The events are timed from when the clip started on the audio line, which the beat timeline is measured from
+        long startNanos = findStartNanos(quarter);
+
+        // The next State is decided half a beat before the end of the Salsa audio clip, once the last time window has
+        // closed. This leaves enough time for the next clip to be queued and played on the sample after this one
+        long halfBeat = quarter/16;
+
+        // The bars are run at a fixed rate so that they do not drift, and carry on into every iteration of a looped clip
+        remindTask = beatScheduler.scheduleAtFixedRate("Bar", new RemindTask(), startNanos, quarter);
+        if (looping) {
+            // The playback engine writes the next iteration up to a line buffer ahead of what is being heard, so
+            // whether to loop again is decided before the largest buffer it can use
+            long lineBuffer = StreamingPlaybackEngine.BUFFER_CANDIDATES_MILLIS[
+                    StreamingPlaybackEngine.BUFFER_CANDIDATES_MILLIS.length - 1] * 1_000_000L;
+            loopTask = beatScheduler.scheduleAtFixedRate("Loop", new LoopTask(),
+                    startNanos + 4*quarter - halfBeat - lineBuffer, 4*quarter);
+            endOfStateTask = beatScheduler.scheduleAtFixedRate("End of State", new EndOfStateTask(),
+                    startNanos + 4*quarter - halfBeat, 4*quarter);
+        }
+        else
+            endOfStateTask = beatScheduler.schedule("End of State", new EndOfStateTask(),
+                    startNanos + 4*quarter - halfBeat);
 
         // The 4 time windows in which the user can click once are set up for all states except the 1st
-        startWindows();
+        startWindows(startNanos);
     }
 
     public GameController getGameController() {
@@ -82,21 +128,27 @@ public abstract class GameProgress {
     }
 
     /**
-     * RemindTask Innerclass that extends TimerTask. This will be the logic that will be executed after every 8-beat
-     * bar of salsa music and will be called by the timer schedule
+     * RemindTask Innerclass that implements Runnable. This will be the logic that will be executed after every 8-beat
+     * bar of salsa music and will be run by the BeatScheduler
      *
      * @author Gareth Iguasnia
      * @date 27/02/2020
      */
-    class RemindTask extends TimerTask {
+    class RemindTask implements Runnable {
         // The number of 8-beat bars per audio file being played
         private volatile int numBars = 4;
 
         /**
-         * Run method that covers the start of the Salsa/Countdown audio clip to the end of the Salsa audio clip
+         * Run method that covers the start of each of the 4 8-beat bars of the Salsa audio clip
          */
         @Override
         public void run() {
+            // The first bar of the next iteration of a looped clip
+            if (numBars == 0 && looping) {
+                numBars = 4;
+                barNumber = 1;
+            }
+
             if (numBars > 0) {
                 // Went through one 8-beat bar of music
                 numBars--;
@@ -113,60 +165,125 @@ public abstract class GameProgress {
                 // An event is thrown here for to show the new beats
                 newBeat();
             }
-            // We need to signal the system internally that we have reached the final 8-beat bar of the State
-            else {
-                // If the simulation has not finished yet
-                if (gameController.getSalsaModel().getNumTransitionedStates() > 1) {
-                    // We travelled to one State and must decrease the counter in the model
-                    gameController.getSalsaModel().decreaseNumTransitionedStates();
+        }
+    }
 
-                    // If there are error values recorded in the State, then calculate the total average error value
-                    if (!gameController.getSalsaModel().getCurrentState().getErrorValues().isEmpty()) {
-                        // The State has been explored since error values have been recorded
-                        gameController.getSalsaModel().getCurrentState().setHasBeenExplored(true);
+    /**
+     * LoopTask Innerclass that implements Runnable. This is run before the end of every iteration of a looped Salsa
+     * audio clip and stops the clip being looped once the practice loop has been turned off
+     *
+     * @author Gareth Iguasnia
+     * @date 19/04/2020
+     */
+    class LoopTask implements Runnable {
+
+        /**
+         * Run method that decides whether the looped clip is played again
+         */
+        @Override
+        public void run() {
+            if (gameController.getSalsaModel().isPracticeLoop())
+                return;
+
+            // The iteration being heard is the last one, and the State is left at its end
+            loopKept = false;
+            MusicController.stopPracticeLoop();
+            loopTask.cancel();
+        }
+    }
 
-                        // Calculate the total average error value of the current state
-                        calculateAverageErrorValue(gameController.getSalsaModel().getCurrentState());
-                    }
+    /**
+     * EndOfStateTask Innerclass that implements Runnable. This will be the logic that will be executed once the 4 8-beat
+     * bars of the State have been played to move on to the next State or to end the simulation
+     *
+     * @author Gareth Iguasnia
+     * @date 08/04/2020
+     */
+    class EndOfStateTask implements Runnable {
 
-                    System.out.println("The total average error value is: " +
-                            gameController.getSalsaModel().getCurrentState().getCurrentAverageErrorValue());
+        /**
+         * Run method that covers the end of the Salsa audio clip
+         */
+        @Override
+        public void run() {
+            // The taps of the free tap mode are added to the error values of the State before they are averaged
+            gameController.scoreFreeTaps();
+
+            // Practising on the State: the next iteration of the clip is already on its way, so the events are kept
+            if (looping && loopKept) {
+                // If there are error values recorded in the State, then calculate the total average error value
+                if (!gameController.getSalsaModel().getCurrentState().getErrorValues().isEmpty()) {
+                    gameController.getSalsaModel().getCurrentState().setHasBeenExplored(true);
+                    calculateAverageErrorValue(gameController.getSalsaModel().getCurrentState());
+                }
+                return;
+            }
 
-                    // Logic to determine which new State to move onto next
-                    State currentState = gameController.getSalsaModel().getCurrentState();
+            // The practice loop has been turned off, so the time windows of the looped clip are not opened again
+            for (TimeWindow timeWindow: timeWindows)
+                timeWindow.cancel();
 
-                    // The desired event will be thrown in this abstract method
-                    stateTransitionBehaviour(currentState);
+            // The practice loop has been turned on, or turned back on after the looped clip was stopped, so the State is
+            // played again instead of moving on
+            if (gameController.getSalsaModel().isPracticeLoop()) {
+                if (!gameController.getSalsaModel().getCurrentState().getErrorValues().isEmpty()) {
+                    gameController.getSalsaModel().getCurrentState().setHasBeenExplored(true);
+                    calculateAverageErrorValue(gameController.getSalsaModel().getCurrentState());
                 }
-                // If the simulation has finished
-                else {
-                    // If there are error values recorded in the State, then calculate the total average error value
-                    if (!gameController.getSalsaModel().getCurrentState().getErrorValues().isEmpty()) {
-                        // The State has been explored since error values have been recorded
-                        gameController.getSalsaModel().getCurrentState().setHasBeenExplored(true);
+                repeatStateBehaviour(gameController.getSalsaModel().getCurrentState());
+            }
 
-                        // Calculate the total average error value of the current state
-                        calculateAverageErrorValue(gameController.getSalsaModel().getCurrentState());
-                    }
+            // If the simulation has not finished yet
+            else if (gameController.getSalsaModel().getNumTransitionedStates() > 1) {
+                // We travelled to one State and must decrease the counter in the model
+                gameController.getSalsaModel().decreaseNumTransitionedStates();
 
-                    System.out.println("The total average error value is: " +
-                            gameController.getSalsaModel().getCurrentState().getCurrentAverageErrorValue());
+                // If there are error values recorded in the State, then calculate the total average error value
+                if (!gameController.getSalsaModel().getCurrentState().getErrorValues().isEmpty()) {
+                    // The State has been explored since error values have been recorded
+                    gameController.getSalsaModel().getCurrentState().setHasBeenExplored(true);
 
-                    // Clean up the model to set it back to its default state
-                    gameController.getSalsaModel().resetModel();
+                    // Calculate the total average error value of the current state
+                    calculateAverageErrorValue(gameController.getSalsaModel().getCurrentState());
+                }
+
+                System.out.println("The total average error value is: " +
+                        gameController.getSalsaModel().getCurrentState().getCurrentAverageErrorValue());
 
-                    // Save the game progress
-                    saveGameProgress();
+                // Logic to determine which new State to move onto next
+                State currentState = gameController.getSalsaModel().getCurrentState();
 
-                    // We must end the simulation here and notify the other controllers working during the simulation
-                    gameFinished();
+                // The desired event will be thrown in this abstract method
+                stateTransitionBehaviour(currentState);
+            }
+            // If the simulation has finished
+            else {
+                // If there are error values recorded in the State, then calculate the total average error value
+                if (!gameController.getSalsaModel().getCurrentState().getErrorValues().isEmpty()) {
+                    // The State has been explored since error values have been recorded
+                    gameController.getSalsaModel().getCurrentState().setHasBeenExplored(true);
+
+                    // Calculate the total average error value of the current state
+                    calculateAverageErrorValue(gameController.getSalsaModel().getCurrentState());
                 }
-                // Reset the beat cache tracker
-                gameController.getSalsaModel().resetBeatCacheTracker();
 
-                // Terminate the timer thread
-                timer.cancel();
+                System.out.println("The total average error value is: " +
+                        gameController.getSalsaModel().getCurrentState().getCurrentAverageErrorValue());
+
+                // Clean up the model to set it back to its default state
+                gameController.getSalsaModel().resetModel();
+
+                // Save the game progress
+                saveGameProgress();
+
+                // We must end the simulation here and notify the other controllers working during the simulation
+                gameFinished();
             }
+            // The bars of the State are not run again
+            remindTask.cancel();
+            endOfStateTask.cancel();
+            if (loopTask != null)
+                loopTask.cancel();
         }
     }
 
@@ -217,17 +334,40 @@ public abstract class GameProgress {
 
     public abstract void stateTransitionBehaviour(State currentState);
 
+    /**
+     * Method plays the current State again when the practice loop has been turned on. The event for a new State is
+     * fired without changing the State, so that its clip is looped
+     *
+     * @param currentState The State being practised
+     */
+    public abstract void repeatStateBehaviour(State currentState);
+
     public abstract void newBeat();
 
     public abstract void gameFinished();
 
     /* Helper method to initiate the time windows */
-    private void startWindows() {
+    private void startWindows(long startNanos) {
         System.out.println("The time windows are being setup: " + System.currentTimeMillis());
-        new TimeWindow(gameController.getSalsaModel(), currentBeat, 1 );
-        new TimeWindow(gameController.getSalsaModel(), nextBeats.get(0), 2);
-        new TimeWindow(gameController.getSalsaModel(), nextBeats.get(1), 3);
-        new TimeWindow(gameController.getSalsaModel(), nextBeats.get(2), 4);
+        SalsaModel model = gameController.getSalsaModel();
+        long loopLength = looping ? clipSalsa * 1_000_000L : 0;
+        int timeWindow = gameController.getTIME_WINDOW();
+        timeWindows.add(new TimeWindow(model, startNanos, currentBeat, 1, timeWindow, loopLength));
+        timeWindows.add(new TimeWindow(model, startNanos, nextBeats.get(0), 2, timeWindow, loopLength));
+        timeWindows.add(new TimeWindow(model, startNanos, nextBeats.get(1), 3, timeWindow, loopLength));
+        timeWindows.add(new TimeWindow(model, startNanos, nextBeats.get(2), 4, timeWindow, loopLength));
+    }
+
+    /* Helper method that returns the System.nanoTime() at which the Salsa audio clip started on the audio line. The
+     * clip is taken to start now if there is no audio line, or if the beat timeline of the line is not for this clip */
+    private long findStartNanos(long quarter) {
+        long now = System.nanoTime();
+        BeatTimeline audioBeatTimeline = gameController.getSalsaModel().getAudioBeatTimeline();
+        if (audioBeatTimeline == null)
+            return now;
+
+        long startNanos = audioBeatTimeline.getStartNanos(now);
+        return Math.abs(now - startNanos) < quarter ? startNanos : now;
     }
 
     /* Helper method to calculate the average value in an ArrayList<Float> */
@@ -0,0 +1,234 @@
+package components.ingame;
+
+import main.SalsaModel;
+import org.apache.commons.math3.distribution.TDistribution;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * LatencyCalibration Class that estimates how late the user's input arrives compared to the beat they heard. The
+ * audio is buffered by the line and the mixer of the operating system before it is heard, and the click of the user
+ * takes time to reach the game, so every input is late by roughly the same amount on a given machine.
+ *
+ * The user taps along to a click track played through the normal audio path. Each tap is compared to the click
+ * nearest to it, and the mean of the differences is the latency offset. A 95% confidence interval is worked out with
+ * the t distribution. The offset is saved in a .latency file next to the .ser file of the user.
+ *
+ * @author Gareth Iguasnia
+ * @date 17/04/2020
+ */
+public class LatencyCalibration implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // The fewest taps needed for the offset to be trusted
+    public static final int MIN_TAPS = 8;
+
+    // The clicks at the start of the track that the user needs to find the pulse. Taps on these are ignored
+    public static final int LEAD_IN_CLICKS = 4;
+
+    // The confidence level of the interval around the offset
+    private static final double CONFIDENCE = 0.95;
+
+    // Taps further than this many median absolute deviations from the median are ignored as mistakes
+    private static final double OUTLIER_DEVIATIONS = 3;
+
+    // Taps closer than this to the median are always kept, so that very consistent taps do not make every small
+    // difference an outlier
+    private static final double MIN_OUTLIER_MILLIS = 20;
+
+    // The time between two clicks of the click track in milliseconds
+    private final long intervalMillis;
+
+    // The number of clicks in the click track
+    private final int clicks;
+
+    // How late each tap was compared to its click in milliseconds
+    private final ArrayList<Long> tapOffsets;
+
+    // The result of the calibration, worked out by estimate()
+    private double offset;
+    private double lowerBound;
+    private double upperBound;
+    private double standardDeviation;
+    private int tapsUsed;
+
+    /**
+     * Constructor for the LatencyCalibration Class.
+     *
+     * @param clicks Integer representing the number of clicks in the click track
+     * @param intervalMillis A long representing the time between two clicks in milliseconds
+     */
+    public LatencyCalibration(int clicks, long intervalMillis) {
+        this.clicks = clicks;
+        this.intervalMillis = intervalMillis;
+        this.tapOffsets = new ArrayList<>();
+    }
+
+    /**
+     * Method records a tap of the user. The tap is compared to the click nearest to it. Taps during the lead in or
+     * after the last click are ignored
+     *
+     * @param tapMillis A long representing the time of the tap in milliseconds from the start of the click track
+     * @return true if the tap was recorded, false if it was ignored
+     */
+    public synchronized boolean addTap(long tapMillis) {
+        long click = Math.round((double) tapMillis / intervalMillis);
+        if (click < LEAD_IN_CLICKS || click >= clicks)
+            return false;
+
+        tapOffsets.add(tapMillis - click * intervalMillis);
+        return true;
+    }
+
+    /**
+     * Method works out the latency offset and its confidence interval from the taps recorded so far
+     *
+     * @return true if there were enough taps for the offset to be trusted
+     */
+    public synchronized boolean estimate() {
+        double[] offsets = withoutOutliers();
+        tapsUsed = offsets.length;
+        if (tapsUsed < MIN_TAPS)
+            return false;
+
+        double sum = 0;
+        for (double tapOffset: offsets)
+            sum += tapOffset;
+        offset = sum / tapsUsed;
+
+        double squares = 0;
+        for (double tapOffset: offsets)
+            squares += (tapOffset - offset) * (tapOffset - offset);
+        standardDeviation = Math.sqrt(squares / (tapsUsed - 1));
+
+        // The interval of the mean of a small sample uses the t distribution
+        double t = new TDistribution(tapsUsed - 1).inverseCumulativeProbability(1 - (1 - CONFIDENCE) / 2);
+        double halfWidth = t * standardDeviation / Math.sqrt(tapsUsed);
+        lowerBound = offset - halfWidth;
+        upperBound = offset + halfWidth;
+        return true;
+    }
+
+    /**
+     * Method returns the latency offset. This is taken away from the time of the user's input before it is scored
+     *
+     * @return A long representing the offset in milliseconds, positive if the input arrives late
+     */
+    public synchronized long getOffset() {
+        return Math.round(offset);
+    }
+
+    public synchronized double getLowerBound() {
+        return lowerBound;
+    }
+
+    public synchronized double getUpperBound() {
+        return upperBound;
+    }
+
+    public synchronized double getStandardDeviation() {
+        return standardDeviation;
+    }
+
+    /**
+     * Method returns the number of taps that the offset was worked out from
+     *
+     * @return An integer representing the taps used by estimate(), without those ignored as mistakes
+     */
+    public synchronized int getTapsUsed() {
+        return tapsUsed;
+    }
+
+    public synchronized int getTapsRecorded() {
+        return tapOffsets.size();
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public int getClicks() {
+        return clicks;
+    }
+
+    /**
+     * Method saves the calibration in the file
+     *
+     * @param filename String object representing the path of the .latency file
+     */
+    public synchronized void save(String filename) {
+        try (ObjectOutputStream objectOutput = new ObjectOutputStream(new FileOutputStream(filename))) {
+            objectOutput.writeObject(this);
+            System.out.println("The latency calibration has been saved");
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Method loads a calibration saved with save(...)
+     *
+     * @param filename String object representing the path of the .latency file
+     * @return The LatencyCalibration object that was saved, or null if there is none
+     */
+    public static LatencyCalibration load(String filename) {
+        try (ObjectInputStream objectInput = new ObjectInputStream(new FileInputStream(filename))) {
+            return (LatencyCalibration) objectInput.readObject();
+        }
+        catch (IOException e) {
+            System.out.println("There is no latency calibration to load");
+        }
+        catch (ClassNotFoundException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Method returns the path of the .latency file of the user. This is in the same directory as the JAR file, or in
+     * the data folder when running the application in an IDE, just like the .ser file
+     *
+     * @param salsaModel The SalsaModel object holding the name of the user
+     * @return A String object representing the path of the .latency file
+     */
+    public static String getFilename(SalsaModel salsaModel) {
+        String jarPathFile = LatencyCalibration.class.getProtectionDomain().getCodeSource().getLocation().getPath();
+        if (new File(jarPathFile).isFile())
+            return jarPathFile.substring(0, jarPathFile.length() - 12) + salsaModel.getNameOfUser() + ".latency";
+        return salsaModel.getDATA() + salsaModel.getNameOfUser() + ".latency";
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("LatencyCalibration[offset=%d ms, 95%% interval=%.1f..%.1f ms, sd=%.1f ms, taps=%d/%d]",
+                getOffset(), lowerBound, upperBound, standardDeviation, tapsUsed, tapOffsets.size());
+    }
+
+    /* Helper method that returns the tap offsets that are within OUTLIER_DEVIATIONS of the median */
+    private double[] withoutOutliers() {
+        double[] offsets = new double[tapOffsets.size()];
+        for (int i = 0; i < offsets.length; i++)
+            offsets[i] = tapOffsets.get(i);
+        if (offsets.length == 0)
+            return offsets;
+
+        double median = median(offsets);
+        double[] deviations = new double[offsets.length];
+        for (int i = 0; i < offsets.length; i++)
+            deviations[i] = Math.abs(offsets[i] - median);
+        double limit = Math.max(OUTLIER_DEVIATIONS * median(deviations), MIN_OUTLIER_MILLIS);
+
+        return Arrays.stream(offsets).filter(o -> Math.abs(o - median) <= limit).toArray();
+    }
+
+    /* Helper method that returns the median of the values */
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+}
@@ -0,0 +1,59 @@
+package components.ingame;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyCalibrationTest {
+
+    @Test
+    void estimate() {
+        // Taps that are 80 ms late give or take 15 ms
+        LatencyCalibration calibration = new LatencyCalibration(24, 600);
+        Random random = new Random(3);
+        for (int click = 0; click < 24; click++)
+            calibration.addTap(click * 600 + 80 + Math.round(random.nextGaussian() * 15));
+
+        // One mistaken tap half way between two clicks
+        calibration.addTap(10 * 600 + 290);
+
+        assertTrue(calibration.estimate());
+        assertEquals(21, calibration.getTapsRecorded());
+        assertEquals(20, calibration.getTapsUsed());
+        assertTrue(calibration.getLowerBound() < 80 && calibration.getUpperBound() > 80);
+        assertTrue(Math.abs(calibration.getOffset() - 80) <= 10);
+    }
+
+    @Test
+    void notEnoughTaps() {
+        LatencyCalibration calibration = new LatencyCalibration(24, 600);
+
+        // Taps on the lead in are ignored
+        for (int click = 0; click < LatencyCalibration.LEAD_IN_CLICKS; click++)
+            assertFalse(calibration.addTap(click * 600 + 50));
+        for (int click = 4; click < 4 + LatencyCalibration.MIN_TAPS - 1; click++)
+            assertTrue(calibration.addTap(click * 600 + 50));
+
+        assertFalse(calibration.estimate());
+    }
+
+    @Test
+    void saveAndLoad() throws Exception {
+        LatencyCalibration calibration = new LatencyCalibration(24, 600);
+        for (int click = 4; click < 24; click++)
+            calibration.addTap(click * 600 - 30 + click % 3);
+        assertTrue(calibration.estimate());
+
+        File file = File.createTempFile("salsa", ".latency");
+        file.deleteOnExit();
+        calibration.save(file.getPath());
+
+        LatencyCalibration loaded = LatencyCalibration.load(file.getPath());
+        assertNotNull(loaded);
+        assertEquals(calibration.getOffset(), loaded.getOffset());
+        assertEquals(calibration.getUpperBound(), loaded.getUpperBound());
+    }
+}
@@ -0,0 +1,317 @@
+package components.ingame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * WindowRegistry Class that holds the time windows in which the user's click is taken as a try at finding a beat.
+ * Previously the model could only hold two windows, through the hasClickedOnce1/2 flags, two trackers and three
+ * caches, which the TimeWindows and the click of the beat clicker read and wrote one after another, so a click and a
+ * window closing at the same time could both act on the same window.
+ *
+ * The windows are held in a ring of descriptors. Each descriptor holds its beat, bar and the System.nanoTime() at which
+ * it opens and closes, and its state only moves out of OPEN, to CLAIMED, CLOSED, OVERWRITTEN or CLEARED, through a
+ * compare and set.
+ * A click claims the window that was opened first out of the ones still open, as before, so exactly one window is
+ * claimed by a click and a window is never both claimed and missed. Nothing is locked, so the scheduler thread opening
+ * and closing the windows never waits on the Event Dispatch Thread and the other way around.
+ *
+ * A click that has been timestamped when it was captured claims the window that was open at that time instead, even if
+ * the window has closed by the time the Event Dispatch Thread hands the click over. The window is then no longer missed.
+ * Only a window closed by close(...) can be claimed late, as it is the only one that was counted as missed.
+ *
+ * Any number of windows can overlap, up to the size of the ring. A window is put in the first slot that does not hold
+ * an open window, which it takes with a compare and set. If every slot holds an open window, the window in the slot
+ * of its place in the ring is moved to OVERWRITTEN and counted as overwritten.
+ *
+ * @author Gareth Iguasnia
+ * @date 19/04/2020
+ */
+public class WindowRegistry {
+    // The default number of slots in the ring
+    public static final int DEFAULT_CAPACITY = 16;
+
+    // The states of a window
+    public static final int OPEN = 0;
+    public static final int CLAIMED = 1;
+    public static final int CLOSED = 2;
+    public static final int OVERWRITTEN = 3;
+    public static final int CLEARED = 4;
+
+    // The names of the states, by state
+    private static final String[] STATE_NAMES = {"open", "claimed", "closed", "overwritten", "cleared"};
+
+    private final AtomicReferenceArray<Window> slots;
+
+    // The sequence number of the next window to be opened, which also picks its slot
+    private final AtomicLong sequence;
+
+    // Counters of what happened to the windows and the clicks
+    private final AtomicInteger opened;
+    private final AtomicInteger claimed;
+    private final AtomicInteger missed;
+    private final AtomicInteger overwritten;
+    private final AtomicInteger rejectedClicks;
+
+    // Windows claimed by a click that was captured while they were open but handed over after they had closed
+    private final AtomicInteger lateClaims;
+
+    /**
+     * Constructor for the WindowRegistry Class with DEFAULT_CAPACITY slots
+     */
+    public WindowRegistry() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for the WindowRegistry Class.
+     *
+     * @param capacity Integer representing the most windows that can be open at once
+     */
+    public WindowRegistry(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("The registry needs at least one slot");
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequence = new AtomicLong();
+        this.opened = new AtomicInteger();
+        this.claimed = new AtomicInteger();
+        this.missed = new AtomicInteger();
+        this.overwritten = new AtomicInteger();
+        this.rejectedClicks = new AtomicInteger();
+        this.lateClaims = new AtomicInteger();
+    }
+
+    /**
+     * Method opens a time window in which a click can be taken as a try at finding the beat
+     *
+     * @param beat Integer representing the beat that the user needs to find in the window
+     * @param barNumber Integer representing the bar of the beat, from 1 to 4
+     * @param openNanos A long representing the System.nanoTime() at which the window opens
+     * @param closeNanos A long representing the System.nanoTime() at which the window closes
+     * @return The Window object that has been opened, which is handed back to close(...)
+     */
+    public Window open(int beat, int barNumber, long openNanos, long closeNanos) {
+        long windowSequence = sequence.getAndIncrement();
+        Window window = new Window(windowSequence, beat, barNumber, openNanos, closeNanos);
+        opened.incrementAndGet();
+
+        // The window takes the first slot from its place in the ring that does not hold an open window
+        int first = (int) (windowSequence % slots.length());
+        for (int i = 0; i < slots.length(); i++) {
+            int index = (first + i) % slots.length();
+            Window current = slots.get(index);
+            if ((current == null || current.state.get() != OPEN) && slots.compareAndSet(index, current, window))
+                return window;
+        }
+
+        // Every slot holds an open window, so the one in the place of the window in the ring is overwritten
+        Window previous = slots.getAndSet(first, window);
+        if (previous != null && previous.state.compareAndSet(OPEN, OVERWRITTEN))
+            overwritten.incrementAndGet();
+        return window;
+    }
+
+    /**
+     * Method closes a time window. A window that has not been claimed by a click is counted as missed
+     *
+     * @param window Window object returned by open(...)
+     * @return true if the window was closed without being claimed, false if it had been claimed or already closed
+     */
+    public boolean close(Window window) {
+        if (window.state.compareAndSet(OPEN, CLOSED)) {
+            missed.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Method claims the window for a click. The window that was opened first out of the ones still open is claimed, so
+     * that the click is taken as a try at the earliest beat that has not been tried yet
+     *
+     * @return The Window object that has been claimed, or null if there is no open window to take the click
+     */
+    public Window claim() {
+        while (true) {
+            Window oldest = null;
+            for (int i = 0; i < slots.length(); i++) {
+                Window window = slots.get(i);
+                if (window != null && window.state.get() == OPEN &&
+                        (oldest == null || window.sequence < oldest.sequence))
+                    oldest = window;
+            }
+
+            if (oldest == null) {
+                rejectedClicks.incrementAndGet();
+                return null;
+            }
+
+            // Another click or the closing of the window got there first, so the windows are looked through again
+            if (oldest.state.compareAndSet(OPEN, CLAIMED)) {
+                claimed.incrementAndGet();
+                return oldest;
+            }
+        }
+    }
+
+    /**
+     * Method claims the window for a click that was captured at a System.nanoTime() timestamp. The window that was opened
+     * first out of the ones that were open at that time and have not been claimed is claimed, even if it has closed
+     * since, so that how long the click waited to be handed over does not change which beat it is taken as a try at
+     *
+     * @param atNanos A long representing the System.nanoTime() at which the click was captured
+     * @return The Window object that has been claimed, or null if no window that could take the click was open then
+     */
+    public Window claim(long atNanos) {
+        while (true) {
+            Window oldest = null;
+            for (int i = 0; i < slots.length(); i++) {
+                Window window = slots.get(i);
+                if (window == null)
+                    continue;
+                int state = window.state.get();
+                if ((state == OPEN || state == CLOSED) && window.openNanos - atNanos <= 0 &&
+                        atNanos - window.closeNanos <= 0 && (oldest == null || window.sequence < oldest.sequence))
+                    oldest = window;
+            }
+
+            if (oldest == null) {
+                rejectedClicks.incrementAndGet();
+                return null;
+            }
+
+            if (oldest.state.compareAndSet(OPEN, CLAIMED)) {
+                claimed.incrementAndGet();
+                return oldest;
+            }
+
+            // The window closed before the click was handed over, so it is no longer counted as missed. A window that
+            // was overwritten or cleared was never counted as missed, so it cannot be claimed late
+            if (oldest.state.compareAndSet(CLOSED, CLAIMED)) {
+                missed.decrementAndGet();
+                lateClaims.incrementAndGet();
+                claimed.incrementAndGet();
+                return oldest;
+            }
+        }
+    }
+
+    /**
+     * Method returns the number of windows that are open and have not been claimed
+     *
+     * @return An integer representing the number of windows that can take a click
+     */
+    public int getOpenWindows() {
+        int open = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            Window window = slots.get(i);
+            if (window != null && window.state.get() == OPEN)
+                open++;
+        }
+        return open;
+    }
+
+    /**
+     * Method closes every window so that no click is taken until the next window is opened. This is used when a game
+     * has finished
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            Window window = slots.getAndSet(i, null);
+            if (window != null)
+                window.state.compareAndSet(OPEN, CLEARED);
+        }
+    }
+
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    public int getOpened() {
+        return opened.get();
+    }
+
+    public int getClaimed() {
+        return claimed.get();
+    }
+
+    public int getMissed() {
+        return missed.get();
+    }
+
+    public int getOverwritten() {
+        return overwritten.get();
+    }
+
+    public int getRejectedClicks() {
+        return rejectedClicks.get();
+    }
+
+    /**
+     * Method returns the number of windows that were claimed by a click after they had closed
+     *
+     * @return An integer representing the number of windows claimed by a click captured while they were open
+     */
+    public int getLateClaims() {
+        return lateClaims.get();
+    }
+
+    @Override
+    public String toString() {
+        return "WindowRegistry[open=" + getOpenWindows() + ", opened=" + opened.get() + ", claimed=" + claimed.get() +
+                ", missed=" + missed.get() + ", overwritten=" + overwritten.get() + ", rejected clicks=" +
+                rejectedClicks.get() + ", late claims=" + lateClaims.get() + "]";
+    }
+
+    /**
+     * Window Innerclass that describes one time window. Everything but its state is fixed when it is opened
+     *
+     * @author Gareth Iguasnia
+     * @date 19/04/2020
+     */
+    public static class Window {
+        private final long sequence;
+        private final int beat;
+        private final int barNumber;
+        private final long openNanos;
+        private final long closeNanos;
+
+        // OPEN, CLAIMED, CLOSED, OVERWRITTEN or CLEARED
+        private final AtomicInteger state;
+
+        private Window(long sequence, int beat, int barNumber, long openNanos, long closeNanos) {
+            this.sequence = sequence;
+            this.beat = beat;
+            this.barNumber = barNumber;
+            this.openNanos = openNanos;
+            this.closeNanos = closeNanos;
+            this.state = new AtomicInteger(OPEN);
+        }
+
+        public int getBeat() {
+            return beat;
+        }
+
+        public int getBarNumber() {
+            return barNumber;
+        }
+
+        public long getOpenNanos() {
+            return openNanos;
+        }
+
+        public long getCloseNanos() {
+            return closeNanos;
+        }
+
+        public int getState() {
+            return state.get();
+        }
+
+        @Override
+        public String toString() {
+            return "Window[beat=" + beat + ", bar=" + barNumber + ", state=" + STATE_NAMES[state.get()] + "]";
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package components.ingame;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindowRegistryTest {
+
+    @Test
+    void aClickClaimsTheOldestOpenWindow() {
+        WindowRegistry windowRegistry = new WindowRegistry(4);
+        assertNull(windowRegistry.claim());
+
+        // Three windows overlap, which the two flags of the model could not hold
+        WindowRegistry.Window first = windowRegistry.open(5, 1, 0, 100);
+        WindowRegistry.Window second = windowRegistry.open(2, 2, 50, 150);
+        WindowRegistry.Window third = windowRegistry.open(7, 3, 80, 180);
+        assertEquals(3, windowRegistry.getOpenWindows());
+
+        assertSame(first, windowRegistry.claim());
+        assertEquals(WindowRegistry.CLAIMED, first.getState());
+
+        // A claimed window is not missed when it closes, and an open one is
+        assertFalse(windowRegistry.close(first));
+        assertTrue(windowRegistry.close(second));
+        assertFalse(windowRegistry.close(second));
+
+        assertSame(third, windowRegistry.claim());
+        assertNull(windowRegistry.claim());
+        assertEquals(2, windowRegistry.getClaimed());
+        assertEquals(1, windowRegistry.getMissed());
+        assertEquals(2, windowRegistry.getRejectedClicks());
+
+        // The ring going all the way round closes a window that is still open
+        WindowRegistry.Window stale = windowRegistry.open(1, 4, 200, 300);
+        for (int i = 0; i < 4; i++)
+            windowRegistry.open(1, 1, 300, 400);
+        assertEquals(WindowRegistry.OVERWRITTEN, stale.getState());
+        assertEquals(1, windowRegistry.getOverwritten());
+
+        windowRegistry.clear();
+        assertEquals(0, windowRegistry.getOpenWindows());
+        assertNull(windowRegistry.claim());
+    }
+
+    @Test
+    void aCapturedClickClaimsTheWindowThatWasOpenWhenItWasCaptured() {
+        WindowRegistry windowRegistry = new WindowRegistry(4);
+        WindowRegistry.Window first = windowRegistry.open(5, 1, 0, 100);
+        WindowRegistry.Window second = windowRegistry.open(2, 2, 50, 150);
+
+        // The first window closed while the click was waiting to be handed over, so it is claimed late
+        assertTrue(windowRegistry.close(first));
+        assertSame(first, windowRegistry.claim(60));
+        assertEquals(0, windowRegistry.getMissed());
+        assertEquals(1, windowRegistry.getLateClaims());
+
+        // A click captured before a window opened or after it closed is not taken by it
+        assertNull(windowRegistry.claim(40));
+        assertNull(windowRegistry.claim(151));
+        assertSame(second, windowRegistry.claim(150));
+        assertNull(windowRegistry.claim(120));
+        assertEquals(2, windowRegistry.getClaimed());
+        assertEquals(3, windowRegistry.getRejectedClicks());
+        assertFalse(windowRegistry.close(second));
+    }
+
+    @Test
+    void aWindowOverwrittenOrClearedIsNotClaimedLate() {
+        WindowRegistry windowRegistry = new WindowRegistry(2);
+        WindowRegistry.Window first = windowRegistry.open(5, 1, 0, 100);
+        WindowRegistry.Window second = windowRegistry.open(2, 2, 0, 100);
+
+        // The ring overflows, so the first window is overwritten without being missed
+        WindowRegistry.Window third = windowRegistry.open(7, 3, 0, 100);
+        assertEquals(WindowRegistry.OVERWRITTEN, first.getState());
+        assertEquals(1, windowRegistry.getOverwritten());
+        assertFalse(windowRegistry.close(first));
+
+        // A click captured while all three were open claims the oldest window still in the ring
+        assertSame(second, windowRegistry.claim(50));
+        assertEquals(WindowRegistry.OVERWRITTEN, first.getState());
+
+        // A window closed by close(...) is claimed late, one that was cleared is not
+        assertTrue(windowRegistry.close(third));
+        assertSame(third, windowRegistry.claim(50));
+        WindowRegistry.Window fourth = windowRegistry.open(1, 4, 0, 100);
+        windowRegistry.clear();
+        assertEquals(WindowRegistry.CLEARED, fourth.getState());
+        assertFalse(windowRegistry.close(fourth));
+        assertNull(windowRegistry.claim(50));
+
+        assertEquals(2, windowRegistry.getClaimed());
+        assertEquals(0, windowRegistry.getMissed());
+        assertEquals(1, windowRegistry.getLateClaims());
+    }
+
+    @Test
+    void everyWindowIsClaimedOnceOrMissedUnderContention() throws Exception {
+        WindowRegistry windowRegistry = new WindowRegistry();
+        BeatScheduler beatScheduler = new BeatScheduler("test-beat-scheduler");
+        ConcurrentLinkedQueue<WindowRegistry.Window> opened = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<WindowRegistry.Window> claimed = new ConcurrentLinkedQueue<>();
+        AtomicBoolean clicking = new AtomicBoolean(true);
+
+        // The windows are opened and closed by the scheduler thread and by two threads standing in for the timers,
+        // with at most 12 of them open at once
+        int windowsPerThread = 3000;
+        CountDownLatch windowsDone = new CountDownLatch(3);
+        Runnable openAndClose = new Runnable() {
+            @Override
+            public void run() {
+                WindowRegistry.Window[] open = new WindowRegistry.Window[4];
+                for (int i = 0; i < windowsPerThread; i += open.length) {
+                    for (int j = 0; j < open.length; j++) {
+                        open[j] = windowRegistry.open(j + 1, j + 1, i, i + 1);
+                        opened.add(open[j]);
+                    }
+                    Thread.yield();
+                    for (WindowRegistry.Window window: open)
+                        windowRegistry.close(window);
+                }
+                windowsDone.countDown();
+            }
+        };
+        beatScheduler.schedule("windows", openAndClose, System.nanoTime());
+        new Thread(openAndClose, "test-timer-1").start();
+        new Thread(openAndClose, "test-timer-2").start();
+
+        // The clicks come from the Event Dispatch Thread and from another thread at the same time
+        Runnable click = new Runnable() {
+            @Override
+            public void run() {
+                WindowRegistry.Window window = windowRegistry.claim();
+                if (window != null)
+                    claimed.add(window);
+            }
+        };
+        Thread clicker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (clicking.get())
+                    click.run();
+            }
+        }, "test-clicker");
+        clicker.start();
+        while (windowsDone.getCount() > 0) {
+            for (int i = 0; i < 100; i++)
+                SwingUtilities.invokeLater(click);
+            SwingUtilities.invokeAndWait(click);
+        }
+
+        assertTrue(windowsDone.await(10, TimeUnit.SECONDS));
+        clicking.set(false);
+        clicker.join();
+        SwingUtilities.invokeAndWait(click);
+        beatScheduler.shutdown();
+
+        // No window was claimed by two clicks
+        Set<WindowRegistry.Window> claimedOnce = Collections.newSetFromMap(new IdentityHashMap<>());
+        claimedOnce.addAll(claimed);
+        assertEquals(claimed.size(), claimedOnce.size());
+
+        // Every window was either claimed or missed, and the counters agree with the windows themselves
+        int claimedWindows = 0;
+        for (WindowRegistry.Window window: opened) {
+            assertNotEquals(WindowRegistry.OPEN, window.getState());
+            if (window.getState() == WindowRegistry.CLAIMED) {
+                claimedWindows++;
+                assertTrue(claimedOnce.contains(window));
+            }
+        }
+        assertEquals(3 * windowsPerThread, windowRegistry.getOpened());
+        assertEquals(claimed.size(), claimedWindows);
+        assertEquals(claimedWindows, windowRegistry.getClaimed());
+        assertEquals(windowRegistry.getOpened(), windowRegistry.getClaimed() + windowRegistry.getMissed(),
+                windowRegistry.toString());
+        assertEquals(0, windowRegistry.getOverwritten());
+        assertTrue(windowRegistry.getClaimed() > 0, windowRegistry.toString());
+    }
+}
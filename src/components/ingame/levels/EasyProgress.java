@@ -61,6 +61,12 @@ public class EasyProgress extends GameProgress {
         easySimulationController.getSalsaModel().fireEasyNewStateEvent();
     }
 
+    @Override
+    public void repeatStateBehaviour(State currentState) {
+        // The model fires an event to play the same State again
+        easySimulationController.getSalsaModel().fireEasyNewStateEvent();
+    }
+
     @Override
     public void newBeat() {
         getGameController().getSalsaModel().fireEasyNewBeatEvent();
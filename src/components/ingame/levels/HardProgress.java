@@ -63,6 +63,12 @@ public class HardProgress extends GameProgress {
         // you can add the pause before the next state for the beginners
     }
 
+    @Override
+    public void repeatStateBehaviour(State currentState) {
+        // The model fires an event to play the same State again
+        hardSimulationController.getSalsaModel().fireNewStateEvent();
+    }
+
     @Override
     public void newBeat() {
         getGameController().getSalsaModel().fireNewBeatEvent();
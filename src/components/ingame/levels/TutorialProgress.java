@@ -57,6 +57,12 @@ public class TutorialProgress extends GameProgress {
         tutorialController.getSalsaModel().fireTutorialNewStateEvent();
     }
 
+    @Override
+    public void repeatStateBehaviour(State currentState) {
+        // The model fires an event to play the same State again
+        tutorialController.getSalsaModel().fireTutorialNewStateEvent();
+    }
+
     @Override
     public void newBeat() {
         getGameController().getSalsaModel().fireTutorialNewBeatEvent();
@@ -0,0 +1,76 @@
+package components.input;
+
+import components.enums.InputSource;
+
+import java.awt.event.InputEvent;
+
+/**
+ * InputCapture Class that timestamps the user's input from when the device sent it rather than from when a listener
+ * is run. A listener on the beat clicker is only run once the Event Dispatch Thread has worked through the events
+ * queued before the click, such as the repaints of the gauge's needle or a change of view, and that wait used to be
+ * added to the user's error value.
+ *
+ * The native toolkit stamps every mouse and key event with the time the operating system received it, which
+ * InputEvent.getWhen() returns in milliseconds of the system clock. That is moved onto the System.nanoTime() timebase by
+ * taking away how long ago it was from the current System.nanoTime(), so the tap can be compared with the time windows
+ * and the audio line, which both use System.nanoTime(). The MidiInput moves the timestamps of its devices onto the same
+ * timebase with backdate(...).
+ *
+ * @author Gareth Iguasnia
+ * @date 19/04/2020
+ */
+public final class InputCapture {
+    // An input older than this is taken to have been stamped by a clock that has since been changed, and its stamp is
+    // not used
+    public static final long MAX_EVENT_AGE_MILLIS = 2000;
+
+    private InputCapture() {
+    }
+
+    /**
+     * Method returns the user's input as a tap timestamped at the time that the device sent it
+     *
+     * @param event InputEvent object of the mouse press or key press
+     * @param source The InputSource that the event came from
+     * @return An InputTap object holding when the event was captured and its source
+     */
+    public static InputTap capture(InputEvent event, InputSource source) {
+        return new InputTap(toNanoTime(event.getWhen()), source);
+    }
+
+    /**
+     * Method converts the timestamp of an event into the System.nanoTime() at which it happened
+     *
+     * @param when A long representing the time of the event in milliseconds of the system clock, as returned by
+     *             InputEvent.getWhen() or ActionEvent.getWhen()
+     * @return A long representing the System.nanoTime() at which the event happened, or the current System.nanoTime() if
+     * the event has no usable timestamp
+     */
+    public static long toNanoTime(long when) {
+        long nanoTime = System.nanoTime();
+        long age = System.currentTimeMillis() - when;
+
+        // Events created by the application rather than the native toolkit can have no timestamp
+        if (when <= 0)
+            return nanoTime;
+        return backdate(nanoTime, age * 1_000_000L);
+    }
+
+    /**
+     * Method returns the System.nanoTime() at which an input was sent, from how long ago a device says it was sent
+     *
+     * @param nanoTime A long representing the current System.nanoTime()
+     * @param ageNanos A long representing how long ago the input was sent in nanoseconds
+     * @return A long representing the System.nanoTime() at which the input was sent, or nanoTime if the age cannot be
+     * trusted
+     */
+    public static long backdate(long nanoTime, long ageNanos) {
+        if (ageNanos <= 0)
+            return nanoTime;
+        if (ageNanos > MAX_EVENT_AGE_MILLIS * 1_000_000L) {
+            System.out.println("The input was stamped " + ageNanos / 1_000_000L + " ms ago, so it is timed from now");
+            return nanoTime;
+        }
+        return nanoTime - ageNanos;
+    }
+}
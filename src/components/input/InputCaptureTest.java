@@ -0,0 +1,63 @@
+package components.input;
+
+import components.enums.InputSource;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InputCaptureTest {
+
+    @Test
+    void aTapIsTimedFromWhenItWasSentNotWhenItWasHandedOver() throws Exception {
+        JButton beatClicker = new JButton("Click");
+        long[] tapNanos = new long[1];
+        long[] listenerNanos = new long[1];
+        CountDownLatch pressed = new CountDownLatch(1);
+        beatClicker.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                listenerNanos[0] = System.nanoTime();
+                tapNanos[0] = InputCapture.capture(e, InputSource.MOUSE).getTimestampNanos();
+                pressed.countDown();
+            }
+        });
+
+        // The Event Dispatch Thread is kept busy for 100 ms, as a repaint or a change of view would, before it gets to
+        // the press
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                }
+                catch (InterruptedException ex) {
+                    ex.printStackTrace();
+                }
+            }
+        });
+        long sentNanos = System.nanoTime();
+        Toolkit.getDefaultToolkit().getSystemEventQueue().postEvent(new MouseEvent(beatClicker,
+                MouseEvent.MOUSE_PRESSED, System.currentTimeMillis(), 0, 10, 10, 1, false, MouseEvent.BUTTON1));
+
+        assertTrue(pressed.await(2, TimeUnit.SECONDS));
+        assertTrue(listenerNanos[0] - sentNanos >= 90_000_000L);
+
+        // The timestamp is only as fine as the millisecond of the system clock
+        assertTrue(Math.abs(tapNanos[0] - sentNanos) < 3_000_000L, (tapNanos[0] - sentNanos) + "ns");
+    }
+
+    @Test
+    void anEventWithoutAUsableStampIsTimedFromNow() {
+        long before = System.nanoTime();
+        assertTrue(InputCapture.toNanoTime(0) - before >= 0);
+        assertTrue(InputCapture.toNanoTime(System.currentTimeMillis() + 10_000) - before >= 0);
+        assertTrue(InputCapture.toNanoTime(System.currentTimeMillis() - 60_000) - before >= 0);
+    }
+}
@@ -0,0 +1,42 @@
+package components.input;
+
+import components.enums.InputSource;
+
+/**
+ * InputTap Class that holds a single try of the user at finding a beat: the System.nanoTime() at which the input was
+ * captured and the device that it came from. This is all that the scoring of a click needs, so the scoring does not
+ * depend on when the Event Dispatch Thread got round to handing the event to a listener.
+ *
+ * @author Gareth Iguasnia
+ * @date 19/04/2020
+ */
+public final class InputTap {
+    // When the input was captured, on the System.nanoTime() timebase
+    private final long timestampNanos;
+
+    private final InputSource source;
+
+    /**
+     * Constructor for the InputTap Class
+     *
+     * @param timestampNanos A long representing the System.nanoTime() at which the input was captured
+     * @param source The InputSource that the input came from
+     */
+    public InputTap(long timestampNanos, InputSource source) {
+        this.timestampNanos = timestampNanos;
+        this.source = source;
+    }
+
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    public InputSource getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return "InputTap[" + source.getName() + " at " + timestampNanos + "ns]";
+    }
+}
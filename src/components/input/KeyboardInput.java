@@ -0,0 +1,145 @@
+package components.input;
+
+import components.enums.InputSource;
+import listeners.TapListener;
+
+import javax.swing.*;
+import javax.swing.text.JTextComponent;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.util.BitSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * KeyboardInput Class that lets the user tap the beat with keys of the keyboard, wherever the focus is. Previously a
+ * key could only fire the beat clicker when the button had the focus, and only once the key was released.
+ *
+ * The KeyboardInput is added to the KeyboardFocusManager as a KeyEventDispatcher, so it sees every key press before it
+ * is handed to the component with the focus. A press of a tap key is timestamped by the InputCapture and handed to the
+ * TapListeners. The key repeating while it is held down is not taken as another tap, and neither is typing into a text
+ * field. A key whose press was taken by a TapListener is consumed, along with its repeats and its release, so that it
+ * does not also press the button that has the focus, such as SPACE flipping the Loop toggle during a game. Any other
+ * key is still handed to the component with the focus.
+ *
+ * The tap keys can be set with the salsa.input.keys system property as a list of key names separated by commas, such
+ * as "SPACE,F,J", which are the keys used if the property is not set.
+ *
+ * @author Gareth Iguasnia
+ * @date 19/04/2020
+ */
+public class KeyboardInput implements KeyEventDispatcher {
+    // The system property that sets the tap keys and the keys used when it is not set
+    public static final String KEYS_PROPERTY = "salsa.input.keys";
+    public static final String DEFAULT_KEYS = "SPACE,F,J";
+
+    // The key codes that are taken as a tap
+    private final BitSet tapKeys;
+
+    // The tap keys that are being held down, so that their repeats are not taken as taps. Only touched by the Event
+    // Dispatch Thread
+    private final BitSet heldKeys;
+
+    // The tap keys being held down whose press was taken by a TapListener, so that their repeats and release are
+    // consumed as well. Only touched by the Event Dispatch Thread
+    private final BitSet takenKeys;
+
+    private final CopyOnWriteArrayList<TapListener> tapListeners;
+
+    /**
+     * Constructor for the KeyboardInput Class with the keys set by the system property
+     */
+    public KeyboardInput() {
+        this(System.getProperty(KEYS_PROPERTY, DEFAULT_KEYS));
+    }
+
+    /**
+     * Constructor for the KeyboardInput Class.
+     *
+     * @param keys String object holding the names of the tap keys separated by commas, as used by
+     *             KeyStroke.getKeyStroke(...)
+     */
+    public KeyboardInput(String keys) {
+        this.tapKeys = parseKeys(keys);
+        this.heldKeys = new BitSet();
+        this.takenKeys = new BitSet();
+        this.tapListeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Method starts taking taps from the keyboard
+     */
+    public void install() {
+        KeyboardFocusManager.getCurrentKeyboardFocusManager().addKeyEventDispatcher(this);
+    }
+
+    /**
+     * Method stops taking taps from the keyboard
+     */
+    public void uninstall() {
+        KeyboardFocusManager.getCurrentKeyboardFocusManager().removeKeyEventDispatcher(this);
+        heldKeys.clear();
+        takenKeys.clear();
+    }
+
+    public void addTapListener(TapListener tapListener) {
+        tapListeners.add(tapListener);
+    }
+
+    public void removeTapListener(TapListener tapListener) {
+        tapListeners.remove(tapListener);
+    }
+
+    /**
+     * Method returns whether a key is taken as a tap
+     *
+     * @param keyCode Integer representing the key code of the key, from KeyEvent
+     * @return true if a press of the key is a tap
+     */
+    public boolean isTapKey(int keyCode) {
+        return keyCode >= 0 && tapKeys.get(keyCode);
+    }
+
+    /**
+     * Method is called by the KeyboardFocusManager on the Event Dispatch Thread for every key event. A press of a tap
+     * key that is not a repeat is handed to the TapListeners
+     *
+     * @param e KeyEvent object of the key event
+     * @return true if the press of the key was taken as a tap, so that the key event is consumed, or false if it is
+     * still handed to the component with the focus
+     */
+    @Override
+    public boolean dispatchKeyEvent(KeyEvent e) {
+        int keyCode = e.getKeyCode();
+        if (!isTapKey(keyCode) || e.getComponent() instanceof JTextComponent)
+            return false;
+
+        if (e.getID() == KeyEvent.KEY_RELEASED) {
+            boolean taken = takenKeys.get(keyCode);
+            heldKeys.clear(keyCode);
+            takenKeys.clear(keyCode);
+            return taken;
+        }
+        if (e.getID() == KeyEvent.KEY_PRESSED && !heldKeys.get(keyCode)) {
+            heldKeys.set(keyCode);
+            InputTap tap = InputCapture.capture(e, InputSource.KEYBOARD);
+            boolean taken = false;
+            for (TapListener tapListener: tapListeners)
+                taken |= tapListener.onTap(tap);
+            takenKeys.set(keyCode, taken);
+        }
+        return takenKeys.get(keyCode);
+    }
+
+    /* Helper method that converts the names of the keys into a set of key codes */
+    private static BitSet parseKeys(String keys) {
+        BitSet keyCodes = new BitSet();
+        for (String key: keys.split(",")) {
+            KeyStroke keyStroke = KeyStroke.getKeyStroke(key.trim().toUpperCase());
+            if (keyStroke == null || keyStroke.getKeyCode() == KeyEvent.VK_UNDEFINED)
+                System.out.println("There is no key called " + key.trim() + ", so it cannot be used to tap");
+            else
+                keyCodes.set(keyStroke.getKeyCode());
+        }
+        return keyCodes;
+    }
+}
@@ -0,0 +1,115 @@
+package components.input;
+
+import components.enums.InputSource;
+import listeners.TapListener;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyboardInputTest {
+
+    @Test
+    void aHeldKeyIsOneTap() {
+        KeyboardInput keyboardInput = new KeyboardInput("space, f ,NOT_A_KEY");
+        List<InputTap> taps = new ArrayList<>();
+        keyboardInput.addTapListener(new TapListener() {
+            @Override
+            public boolean onTap(InputTap tap) {
+                taps.add(tap);
+                return false;
+            }
+        });
+        assertTrue(keyboardInput.isTapKey(KeyEvent.VK_SPACE));
+        assertTrue(keyboardInput.isTapKey(KeyEvent.VK_F));
+        assertFalse(keyboardInput.isTapKey(KeyEvent.VK_J));
+
+        // The key repeating while it is held down is not another tap, and the key is not consumed when no TapListener
+        // took the tap
+        JButton beatClicker = new JButton("Click");
+        long pressed = System.currentTimeMillis();
+        assertFalse(keyboardInput.dispatchKeyEvent(key(beatClicker, KeyEvent.KEY_PRESSED, KeyEvent.VK_SPACE, pressed)));
+        keyboardInput.dispatchKeyEvent(key(beatClicker, KeyEvent.KEY_PRESSED, KeyEvent.VK_SPACE, pressed + 30));
+        keyboardInput.dispatchKeyEvent(key(beatClicker, KeyEvent.KEY_PRESSED, KeyEvent.VK_SPACE, pressed + 60));
+        assertEquals(1, taps.size());
+        assertEquals(InputSource.KEYBOARD, taps.get(0).getSource());
+
+        // Another tap key can be pressed while the first one is held down
+        keyboardInput.dispatchKeyEvent(key(beatClicker, KeyEvent.KEY_PRESSED, KeyEvent.VK_F, pressed + 70));
+        keyboardInput.dispatchKeyEvent(key(beatClicker, KeyEvent.KEY_RELEASED, KeyEvent.VK_SPACE, pressed + 80));
+        keyboardInput.dispatchKeyEvent(key(beatClicker, KeyEvent.KEY_PRESSED, KeyEvent.VK_SPACE, pressed + 90));
+        assertEquals(3, taps.size());
+
+        // Keys that are not tap keys and typing into a text field are not taps
+        keyboardInput.dispatchKeyEvent(key(beatClicker, KeyEvent.KEY_PRESSED, KeyEvent.VK_J, pressed + 100));
+        keyboardInput.dispatchKeyEvent(key(new JTextField(), KeyEvent.KEY_RELEASED, KeyEvent.VK_F, pressed + 110));
+        keyboardInput.dispatchKeyEvent(key(new JTextField(), KeyEvent.KEY_PRESSED, KeyEvent.VK_F, pressed + 120));
+        assertEquals(3, taps.size());
+    }
+
+    @Test
+    void aTakenTapDoesNotPressTheFocusedToggle() {
+        KeyboardInput keyboardInput = new KeyboardInput("SPACE");
+        List<InputTap> taps = new ArrayList<>();
+        boolean[] taking = {true};
+        keyboardInput.addTapListener(new TapListener() {
+            @Override
+            public boolean onTap(InputTap tap) {
+                taps.add(tap);
+                return taking[0];
+            }
+        });
+
+        // The Loop toggle has the focus while the game takes the tap, so none of the press, its repeat or the release
+        // reaches the toggle
+        FocusedToggle practiceLoop = new FocusedToggle("Loop");
+        long pressed = System.currentTimeMillis();
+        assertTrue(dispatch(keyboardInput, practiceLoop, KeyEvent.KEY_PRESSED, pressed));
+        assertTrue(dispatch(keyboardInput, practiceLoop, KeyEvent.KEY_PRESSED, pressed + 30));
+        assertTrue(dispatch(keyboardInput, practiceLoop, KeyEvent.KEY_RELEASED, pressed + 60));
+        assertEquals(1, taps.size());
+        assertFalse(practiceLoop.isSelected());
+
+        // Once no game takes the tap, the key is handed to the toggle as before
+        taking[0] = false;
+        assertFalse(dispatch(keyboardInput, practiceLoop, KeyEvent.KEY_PRESSED, pressed + 100));
+        assertFalse(dispatch(keyboardInput, practiceLoop, KeyEvent.KEY_RELEASED, pressed + 130));
+        assertEquals(2, taps.size());
+        assertTrue(practiceLoop.isSelected());
+    }
+
+    /* Helper method that hands a SPACE key event to the KeyboardInput and then, unless it was consumed, to the toggle
+     * with the focus as the KeyboardFocusManager would. Returns whether the event was consumed */
+    private boolean dispatch(KeyboardInput keyboardInput, FocusedToggle focused, int id, long when) {
+        KeyEvent e = key(focused, id, KeyEvent.VK_SPACE, when);
+        if (keyboardInput.dispatchKeyEvent(e))
+            return true;
+        focused.processKeyEvent(e);
+        return false;
+    }
+
+    /* Helper method that creates a key event as the native toolkit would */
+    private KeyEvent key(Component source, int id, int keyCode, long when) {
+        return new KeyEvent(source, id, when, 0, keyCode, KeyEvent.CHAR_UNDEFINED);
+    }
+
+    /**
+     * FocusedToggle Innerclass that stands in for a toggle that has the focus, which takes the key events through its
+     * key bindings
+     */
+    private static class FocusedToggle extends JToggleButton {
+        private FocusedToggle(String text) {
+            super(text);
+        }
+
+        @Override
+        protected void processKeyEvent(KeyEvent e) {
+            super.processKeyEvent(e);
+        }
+    }
+}
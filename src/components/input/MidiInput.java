@@ -0,0 +1,160 @@
+package components.input;
+
+import components.enums.InputSource;
+import listeners.TapListener;
+
+import javax.sound.midi.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * MidiInput Class that lets the user tap the beat on a MIDI device, such as the pads of a controller or a footswitch.
+ * The pad or switch is read straight from the device by the thread of the MIDI driver, so the tap does not wait on the
+ * Event Dispatch Thread or on the jitter of a mouse click on a button.
+ *
+ * A Note On with a velocity above 0 is a tap, which is what a pad or a drum trigger sends when it is hit. A Control
+ * Change is a tap when its value goes from below 64 to 64 or above, which is what a footswitch sends when it is
+ * pressed down. When the device stamps its messages, the tap is timed from that stamp on the System.nanoTime()
+ * timebase, otherwise it is timed from when the message was received.
+ *
+ * Every MIDI device with an output is opened by openAll(), and a device such as a virtual MIDI port can be connected
+ * on its own with connect(...).
+ *
+ * @author Gareth Iguasnia
+ * @date 19/04/2020
+ */
+public class MidiInput {
+    // The value at and above which a Control Change is taken as the switch being down
+    public static final int SWITCH_DOWN = 64;
+
+    // The devices that have been opened to take taps from
+    private final List<MidiDevice> devices;
+
+    private final CopyOnWriteArrayList<TapListener> tapListeners;
+
+    /**
+     * Constructor for the MidiInput Class. No device is opened until openAll() or connect(...) is called
+     */
+    public MidiInput() {
+        this.devices = new ArrayList<>();
+        this.tapListeners = new CopyOnWriteArrayList<>();
+    }
+
+    public void addTapListener(TapListener tapListener) {
+        tapListeners.add(tapListener);
+    }
+
+    public void removeTapListener(TapListener tapListener) {
+        tapListeners.remove(tapListener);
+    }
+
+    /**
+     * Method opens every MIDI device of the system that has an output, apart from the software sequencer and
+     * synthesizers. A device that cannot be opened is left out
+     *
+     * @return An integer representing the number of devices that are taking taps
+     */
+    public synchronized int openAll() {
+        for (MidiDevice.Info info: MidiSystem.getMidiDeviceInfo()) {
+            try {
+                MidiDevice device = MidiSystem.getMidiDevice(info);
+                if (!(device instanceof Sequencer) && !(device instanceof Synthesizer) &&
+                        device.getMaxTransmitters() != 0 && !devices.contains(device))
+                    connect(device);
+            }
+            catch (MidiUnavailableException ex) {
+                System.out.println("The MIDI device " + info.getName() + " cannot be used to tap: " + ex.getMessage());
+            }
+        }
+        return devices.size();
+    }
+
+    /**
+     * Method opens a MIDI device and takes taps from it
+     *
+     * @param device MidiDevice object that has an output
+     * @throws MidiUnavailableException If the device cannot be opened or has no output
+     */
+    public synchronized void connect(MidiDevice device) throws MidiUnavailableException {
+        if (!device.isOpen())
+            device.open();
+        device.getTransmitter().setReceiver(new TapReceiver(device));
+        devices.add(device);
+        System.out.println("Taps are taken from the MIDI device " + device.getDeviceInfo().getName());
+    }
+
+    /**
+     * Method closes every device that was opened to take taps
+     */
+    public synchronized void close() {
+        for (MidiDevice device: devices)
+            device.close();
+        devices.clear();
+    }
+
+    public synchronized int getDevices() {
+        return devices.size();
+    }
+
+    /* Helper method that hands a tap to the TapListeners. There is no key to keep from the rest of the application, so
+     * whether the tap was taken does not matter */
+    private void fireTap(InputTap tap) {
+        for (TapListener tapListener: tapListeners)
+            tapListener.onTap(tap);
+    }
+
+    /**
+     * TapReceiver Innerclass that implements Receiver. This is run by the thread of the MIDI driver for every message
+     * sent by a device and works out which of them are taps
+     *
+     * @author Gareth Iguasnia
+     * @date 19/04/2020
+     */
+    class TapReceiver implements Receiver {
+        private final MidiDevice device;
+
+        // Whether the switch of each controller is down, by channel and controller number
+        private final boolean[] switchesDown;
+
+        TapReceiver(MidiDevice device) {
+            this.device = device;
+            this.switchesDown = new boolean[16 * 128];
+        }
+
+        @Override
+        public void send(MidiMessage message, long timeStamp) {
+            if (!(message instanceof ShortMessage))
+                return;
+            ShortMessage shortMessage = (ShortMessage) message;
+
+            boolean tapped = false;
+            if (shortMessage.getCommand() == ShortMessage.NOTE_ON)
+                tapped = shortMessage.getData2() > 0;
+            else if (shortMessage.getCommand() == ShortMessage.CONTROL_CHANGE) {
+                int controller = shortMessage.getChannel() * 128 + shortMessage.getData1();
+                boolean down = shortMessage.getData2() >= SWITCH_DOWN;
+                tapped = down && !switchesDown[controller];
+                switchesDown[controller] = down;
+            }
+
+            if (tapped)
+                fireTap(new InputTap(toNanoTime(timeStamp), InputSource.MIDI));
+        }
+
+        @Override
+        public void close() {
+        }
+
+        /* Helper method that converts the timestamp of the device in microseconds into a System.nanoTime() */
+        private long toNanoTime(long timeStamp) {
+            long nanoTime = System.nanoTime();
+            if (timeStamp < 0)
+                return nanoTime;
+            long microsecondPosition = device.getMicrosecondPosition();
+            if (microsecondPosition < 0)
+                return nanoTime;
+            return InputCapture.backdate(nanoTime, (microsecondPosition - timeStamp) * 1000L);
+        }
+    }
+}
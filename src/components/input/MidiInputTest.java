@@ -0,0 +1,162 @@
+package components.input;
+
+import components.enums.InputSource;
+import listeners.TapListener;
+import org.junit.jupiter.api.Test;
+
+import javax.sound.midi.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MidiInputTest {
+
+    @Test
+    void padsAndFootswitchesAreTaps() throws Exception {
+        VirtualMidiDevice device = new VirtualMidiDevice();
+        MidiInput midiInput = new MidiInput();
+        List<InputTap> taps = new ArrayList<>();
+        midiInput.addTapListener(new TapListener() {
+            @Override
+            public boolean onTap(InputTap tap) {
+                return taps.add(tap);
+            }
+        });
+        midiInput.connect(device);
+        assertTrue(device.isOpen());
+        assertEquals(1, midiInput.getDevices());
+
+        // A pad being hit is a tap, and a Note On with no velocity is the pad being let go
+        device.send(new ShortMessage(ShortMessage.NOTE_ON, 9, 36, 100), -1);
+        device.send(new ShortMessage(ShortMessage.NOTE_ON, 9, 36, 0), -1);
+        device.send(new ShortMessage(ShortMessage.NOTE_OFF, 9, 36, 0), -1);
+        assertEquals(1, taps.size());
+        assertEquals(InputSource.MIDI, taps.get(0).getSource());
+
+        // A footswitch is a tap when it is pressed down, not while it stays down
+        device.send(new ShortMessage(ShortMessage.CONTROL_CHANGE, 0, 64, 127), -1);
+        device.send(new ShortMessage(ShortMessage.CONTROL_CHANGE, 0, 64, 127), -1);
+        device.send(new ShortMessage(ShortMessage.CONTROL_CHANGE, 0, 64, 0), -1);
+        device.send(new ShortMessage(ShortMessage.CONTROL_CHANGE, 0, 64, 100), -1);
+        assertEquals(3, taps.size());
+
+        midiInput.close();
+        assertFalse(device.isOpen());
+    }
+
+    @Test
+    void aTapIsTimedFromTheStampOfTheDevice() throws Exception {
+        VirtualMidiDevice device = new VirtualMidiDevice();
+        MidiInput midiInput = new MidiInput();
+        List<InputTap> taps = new ArrayList<>();
+        midiInput.addTapListener(new TapListener() {
+            @Override
+            public boolean onTap(InputTap tap) {
+                return taps.add(tap);
+            }
+        });
+        midiInput.connect(device);
+
+        // The pad was hit 30 ms before the message was handed over
+        device.microsecondPosition = 1_050_000L;
+        long before = System.nanoTime();
+        device.send(new ShortMessage(ShortMessage.NOTE_ON, 9, 38, 90), 1_020_000L);
+        long after = System.nanoTime();
+        assertEquals(1, taps.size());
+        assertTrue(taps.get(0).getTimestampNanos() >= before - 30_000_000L);
+        assertTrue(taps.get(0).getTimestampNanos() <= after - 30_000_000L);
+
+        // A stamp from the future is timed from when it was received
+        device.send(new ShortMessage(ShortMessage.NOTE_ON, 9, 38, 90), 2_000_000L);
+        assertTrue(taps.get(1).getTimestampNanos() >= after);
+        midiInput.close();
+    }
+
+    /**
+     * VirtualMidiDevice Innerclass that stands in for a MIDI controller with a single output, which the test sends
+     * messages through
+     */
+    static class VirtualMidiDevice implements MidiDevice {
+        private final List<Transmitter> transmitters = new ArrayList<>();
+        private Receiver receiver;
+        private boolean open;
+        private long microsecondPosition = -1;
+
+        void send(MidiMessage message, long timeStamp) {
+            receiver.send(message, timeStamp);
+        }
+
+        @Override
+        public Info getDeviceInfo() {
+            return new Info("Virtual pads", "SalsaAUI", "A virtual MIDI device for the tests", "1.0") {
+            };
+        }
+
+        @Override
+        public void open() {
+            open = true;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public long getMicrosecondPosition() {
+            return microsecondPosition;
+        }
+
+        @Override
+        public int getMaxReceivers() {
+            return 0;
+        }
+
+        @Override
+        public int getMaxTransmitters() {
+            return -1;
+        }
+
+        @Override
+        public Receiver getReceiver() throws MidiUnavailableException {
+            throw new MidiUnavailableException("The virtual device has no input");
+        }
+
+        @Override
+        public List<Receiver> getReceivers() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public Transmitter getTransmitter() {
+            Transmitter transmitter = new Transmitter() {
+                @Override
+                public void setReceiver(Receiver newReceiver) {
+                    receiver = newReceiver;
+                }
+
+                @Override
+                public Receiver getReceiver() {
+                    return receiver;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+            transmitters.add(transmitter);
+            return transmitter;
+        }
+
+        @Override
+        public List<Transmitter> getTransmitters() {
+            return transmitters;
+        }
+    }
+}
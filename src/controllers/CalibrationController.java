@@ -0,0 +1,175 @@
+package controllers;
+
+import components.audio.AudioSegment;
+import components.audio.ClickTrack;
+import components.audio.StreamingPlaybackEngine;
+import components.enums.InputSource;
+import components.ingame.BeatTimeline;
+import components.ingame.LatencyCalibration;
+import components.input.InputCapture;
+import components.input.InputTap;
+import listeners.TapListener;
+import main.SalsaController;
+import main.SalsaModel;
+import views.CalibrationView;
+
+import javax.swing.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * CalibrationController Class that extends the SalsaController Class. This controller plays a click track through the
+ * StreamingPlaybackEngine used by the games and times the taps of the user against the frame position of its line,
+ * exactly like the user's input is timed during a game. The latency offset found is set in the model, which takes it
+ * away from every input of the user, and is saved for the next time the user plays. The taps are captured in the same
+ * way as during a game, from a press of the Tap button, a tap key or a MIDI device, so the offset found is the one that
+ * the game's input has.
+ *
+ * @author Gareth Iguasnia
+ * @date 17/04/2020
+ */
+public class CalibrationController extends SalsaController implements TapListener {
+
+    // The click track is 100 BPM so that there is plenty of time between two clicks
+    private final int CLICKS = 24;
+    private final long INTERVAL = 600;
+
+    // How long after the end of the click track the taps are still recorded
+    private final long TAIL = 500;
+
+    private CalibrationView calibrationView;
+
+    // The calibration being recorded and the timeline of the click track once it is being heard
+    private volatile LatencyCalibration calibration;
+    private volatile BeatTimeline clickTimeline;
+
+    /**
+     * Constructor for the CalibrationController Class.
+     *
+     * @param salsaModel A SalsaModel object that contains the data of the MVC
+     * @param controllerName A String object representing the name of the controller
+     * @param calibrationView A CalibrationView object that holds the buttons of the calibration
+     */
+    public CalibrationController(SalsaModel salsaModel, String controllerName, CalibrationView calibrationView) {
+        super(salsaModel, controllerName);
+        this.calibrationView = calibrationView;
+
+        initStartButton();
+        initTapButton();
+    }
+
+    /* Helper method that plays the click track when the Start button is clicked */
+    private void initStartButton() {
+        ActionListener start = new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                calibrationView.getStartButton().setEnabled(false);
+                calibrationView.getResult().setText(" ");
+                calibration = new LatencyCalibration(CLICKS, INTERVAL);
+                clickTimeline = null;
+
+                AudioSegment clickTrack = ClickTrack.create(CLICKS, INTERVAL);
+                MusicController.getPlaybackEngine().enqueue(clickTrack, new StreamingPlaybackEngine.SegmentListener() {
+                    @Override
+                    public void segmentStarted(AudioSegment segment, long startFrame) {
+                        clickTimeline = new BeatTimeline(MusicController.getAudioClock(), startFrame,
+                                segment.getFrameLength(), segment.getFormat().getFrameRate());
+                        SwingUtilities.invokeLater(new Runnable() {
+                            @Override
+                            public void run() {
+                                calibrationView.getTapButton().setEnabled(true);
+                            }
+                        });
+
+                        // Working out the offset once the click track has been played
+                        new Timer().schedule(new TimerTask() {
+                            @Override
+                            public void run() {
+                                SwingUtilities.invokeLater(new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        calibrationFinished();
+                                    }
+                                });
+                                cancel();
+                            }
+                        }, segment.getMillisecondLength() + TAIL);
+                    }
+                });
+            }
+        };
+        calibrationView.getStartButton().addActionListener(start);
+    }
+
+    /**
+     * This method deals with a tap from the keyboard or a MIDI device, which is recorded like a press of the Tap button
+     * while the button can be pressed
+     *
+     * @param tap An InputTap object holding when the tap was captured and the device it came from
+     * @return true if the tap was recorded
+     */
+    @Override
+    public boolean onTap(InputTap tap) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    onTap(tap);
+                }
+            });
+            return false;
+        }
+
+        if (!calibrationView.getTapButton().isShowing() || !calibrationView.getTapButton().isEnabled())
+            return false;
+        addTap(tap);
+        return true;
+    }
+
+    /* Helper method that records a tap when the Tap button is pressed, timed from when the press was sent as
+     * GameController does */
+    private void initTapButton() {
+        calibrationView.getTapButton().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                if (e.getButton() == MouseEvent.BUTTON1 && calibrationView.getTapButton().isEnabled())
+                    addTap(InputCapture.capture(e, InputSource.MOUSE));
+            }
+        });
+    }
+
+    /* Helper method that records the time of a tap in the timebase of the click track */
+    private void addTap(InputTap tap) {
+        BeatTimeline timeline = clickTimeline;
+        LatencyCalibration currentCalibration = calibration;
+        if (timeline != null && currentCalibration != null)
+            currentCalibration.addTap(timeline.getElapsedMilliseconds(tap.getTimestampNanos()));
+    }
+
+    /* Helper method run on the Event Dispatch Thread that works out the offset and saves it if it can be trusted */
+    private void calibrationFinished() {
+        calibrationView.getTapButton().setEnabled(false);
+        calibrationView.getStartButton().setEnabled(true);
+        clickTimeline = null;
+
+        if (!calibration.estimate()) {
+            calibrationView.getResult().setText("Not enough taps were recorded, please try again");
+            return;
+        }
+        System.out.println(calibration);
+
+        getSalsaModel().setLatencyCalibration(calibration);
+        if (getSalsaModel().getNameOfUser() != null)
+            calibration.save(LatencyCalibration.getFilename(getSalsaModel()));
+
+        calibrationView.getResult().setText(String.format("Your input arrives %d ms late (95%% between %.0f and %.0f ms)",
+                calibration.getOffset(), calibration.getLowerBound(), calibration.getUpperBound()));
+
+        // The line of the playback engine is not needed until the next game
+        MusicController.closeAudioLines();
+    }
+}
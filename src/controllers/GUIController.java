@@ -91,6 +91,17 @@ public abstract class GUIController extends SalsaController implements GameProgr
      */
     @Override
     public void onNewErrorValueEvent(GameEvent e) {
+        // The taps of the free tap mode are scored on the BeatScheduler thread
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    onNewErrorValueEvent(e);
+                }
+            });
+            return;
+        }
+
         // My assumption is that the error value should be between [0, 1]
         assert (e.getErrorValue() > 1 || e.getErrorValue() < 0);
 
@@ -120,10 +131,17 @@ public abstract class GUIController extends SalsaController implements GameProgr
         this.scheduledExecutorService.shutdownNow();
         this.scheduledExecutorService = Executors.newScheduledThreadPool(1);
 
+        // Closing the audio lines of the game so that their native buffers are not held on to in the menus
+        MusicController.closeAudioLines();
+
         // Making the instruments, tempo and "Beat-Clicker" invisible
         makeInstrumentGUIInvisible();
         gameView.getTempos().setVisible(false);
         gameView.getBeatClicker().setVisible(false);
+        gameView.getPracticeLoop().setSelected(false);
+        gameView.getPracticeLoop().setVisible(false);
+        gameView.getFreeTap().setSelected(false);
+        gameView.getFreeTap().setVisible(false);
 
         // Make the Start button visible again
         gameView.getStartButton().setVisible(true);
@@ -183,6 +201,12 @@ public abstract class GUIController extends SalsaController implements GameProgr
         // Making the "Beat-Clicker" visible so that user knows where they should click
         gameView.getBeatClicker().setVisible(true);
 
+        // Making the "Loop" button visible so that the user can practise on a State
+        gameView.getPracticeLoop().setVisible(true);
+
+        // Making the "Free tap" button visible so that the user can tap along to every beat
+        gameView.getFreeTap().setVisible(true);
+
         // Makes the Start button disappear so that it can be clicked on once
         gameView.getStartButton().setVisible(false);
 
@@ -215,10 +239,10 @@ public abstract class GUIController extends SalsaController implements GameProgr
     @Override
     public void onLightsTurnOn(){
         // The time between one beat
-        long one_beat = getSalsaModel().getBeatTimeline().get(1);
+        long one_beat = getSalsaModel().getBeatLength();
 
         // Sets the executor in motion to turn the lights on according to the beat timeline
-        LightSwitch lightSwitch = new LightSwitch(gameView, one_beat);
+        LightSwitch lightSwitch = new LightSwitch(gameView, one_beat, getSalsaModel().getBeatScheduler());
         lightSwitch.lightSwitchStart();
     }
 
@@ -1,21 +1,32 @@
 package controllers;
 
 import components.State;
+import components.enums.InputSource;
 import components.functions.GameStatusFunction;
+import components.ingame.BeatTimeline;
+import components.ingame.FreeTapScorer;
+import components.ingame.WindowRegistry;
+import components.input.InputCapture;
+import components.input.InputTap;
 import events.ClipInformationEvent;
 import listeners.ClipInformationListener;
+import listeners.TapListener;
 import main.SalsaController;
 import main.SalsaModel;
 import views.GameView;
 
+import javax.swing.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 
-public abstract class GameController extends SalsaController implements ClipInformationListener {
+public abstract class GameController extends SalsaController implements ClipInformationListener, TapListener {
     // To have access to the buttons in the HardSimulationView Class
     private GameView gameView;
 
@@ -35,6 +46,14 @@ public abstract class GameController extends SalsaController implements ClipInfo
     // As we are programming to an interface, we can switch out the GameStatusFunction with ease
     private GameStatusFunction gameStatusFunction;
 
+    // The beats of the current State handed to the FreeTapScorer. This is kept so that the free tap mode does not create
+    // an array for every State
+    private final long[] freeTapTimeline;
+
+    // Held while an input is scored, as the clicks are scored on the Event Dispatch Thread and the taps of the free tap
+    // mode on the BeatScheduler thread, and both go through the errorFunction and the error values of the State
+    private final Object scoringLock;
+
     /**
      * Constructor for the GameController. This will only be called by sub classes using the super
      * keyword as this class should never be instantiated.
@@ -48,9 +67,13 @@ public abstract class GameController extends SalsaController implements ClipInfo
         //this.gameStatusFunction = new DynamicGameDifficultyBalancing();
         this.randomGenerator = new Random();
         this.scheduledExecutorService = Executors.newScheduledThreadPool(6);
+        this.freeTapTimeline = new long[BeatTimeline.BEATS_PER_STATE];
+        this.scoringLock = new Object();
 
         initClickerButton();
         initStartButton();
+        initPracticeLoopButton();
+        initFreeTapButton();
     }
 
     /**
@@ -73,8 +96,10 @@ public abstract class GameController extends SalsaController implements ClipInfo
      *
      * @param currentBeat The beat that the user needs to find
      * @param barNumber   The bar number that the beat requested is on
+     * @param clickTSNormalised The time of the user's input in milliseconds from the start of the Salsa audio clip, as
+     *                          returned by getNormalisedClickTime(...)
      */
-    protected abstract void calculateErrorValue(int currentBeat, int barNumber);
+    protected abstract void calculateErrorValue(int currentBeat, int barNumber, long clickTSNormalised);
 
     /**
      * Abstract method to be used to add an action listener to the Start button of the GameView
@@ -82,11 +107,24 @@ public abstract class GameController extends SalsaController implements ClipInfo
     protected abstract void initStartButton();
 
     /**
-     * Abstract method to choose the state that the game will start on
+     * Method chooses the state that the game will start on at random from getStartingStateCandidates()
      *
      * @return A State object that will be the first state that the game will begin on
      */
-    protected abstract State chooseStartingState();
+    public State chooseStartingState() {
+        // Randomly choosing one of the State objects that the game can start on
+        List<State> candidates = getStartingStateCandidates();
+        int rndIndex = this.getRandomGenerator().nextInt(candidates.size());
+        return candidates.get(rndIndex);
+    }
+
+    /**
+     * Abstract method to list the states that chooseStartingState() picks from. This lets the audio of these states be
+     * decoded before the user has clicked on Start
+     *
+     * @return A List of State objects that the game could begin on
+     */
+    public abstract List<State> getStartingStateCandidates();
 
     /**
      * Abstract method to execute the needed to progress the game. The reason this method is abstract is to allow the
@@ -107,15 +145,111 @@ public abstract class GameController extends SalsaController implements ClipInfo
      */
     @Override
     public void onClipInfoReadyEvent(ClipInformationEvent e) {
-        // Adding a beat timeline so that the HardSimulationController can have the correct times that each beat occurs at
-        long quarter = e.getClipSalsa()/4;
-        getSalsaModel().setBeatTimeline(createBeatTimeline(quarter));
+        // Adding a beat timeline so that the HardSimulationController can have the correct times that each beat occurs at.
+        // The timeline is taken from the frames of the audio line when the clip is being played through it
+        BeatTimeline audioBeatTimeline = getSalsaModel().getAudioBeatTimeline();
+        if (audioBeatTimeline != null)
+            getSalsaModel().setBeatTimeline(audioBeatTimeline.createMillisecondTimeline());
+        else
+            getSalsaModel().setBeatTimeline(createBeatTimeline(e.getClipSalsa()));
+
+        // The taps of the free tap mode are matched to the beats of this clip
+        for (int i = 0; i < BeatTimeline.BEATS_PER_STATE; i++)
+            freeTapTimeline[i] = audioBeatTimeline != null ? audioBeatTimeline.getBeatNanos(i) :
+                    getSalsaModel().getBeatTimeline().get(i) * 1_000_000L;
+        getSalsaModel().getFreeTapScorer().setBeatTimeline(freeTapTimeline, BeatTimeline.BEATS_PER_STATE);
 
         // This method will be different for the TutorialController and the HardSimulationController as the Tutorial is
         // the only one the will display the lights
         clipReady(e.getClipSalsa());
     }
 
+    /**
+     * This method deals with a tap from the keyboard or a MIDI device. The tap is scored like a click of the beat
+     * clicker, but only while the beat clicker of this game can be clicked, so that the games that are not being played
+     * do not take it
+     *
+     * @param tap An InputTap object holding when the tap was captured and the device it came from
+     * @return true if the tap was scored by this game
+     */
+    @Override
+    public boolean onTap(InputTap tap) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    onTap(tap);
+                }
+            });
+            return false;
+        }
+
+        if (!gameView.getBeatClicker().isShowing() || !gameView.getBeatClicker().isEnabled())
+            return false;
+        click(tap);
+        return true;
+    }
+
+    /**
+     * Method returns the time of the user's input in milliseconds from the start of the Salsa audio clip. The frame
+     * position of the audio line at the time the input was captured is used when there is one, otherwise the system
+     * clock is used. The latency offset found by calibrating the user is taken away so that every
+     * calculateErrorValue(...) scores the beat as heard
+     *
+     * @param timestampNanos A long representing the System.nanoTime() at which the user's input was captured
+     * @return A long representing the normalised timestamp of the user's input
+     */
+    public long getNormalisedClickTime(long timestampNanos) {
+        long latencyOffset = getSalsaModel().getLatencyOffset();
+
+        BeatTimeline audioBeatTimeline = getSalsaModel().getAudioBeatTimeline();
+        if (audioBeatTimeline != null)
+            return audioBeatTimeline.getElapsedMilliseconds(timestampNanos) - latencyOffset;
+        long clickMillis = System.currentTimeMillis() - (System.nanoTime() - timestampNanos) / 1_000_000L;
+        return clickMillis - getSalsaModel().getTimeAccumulation() - latencyOffset;
+    }
+
+    /**
+     * Method returns the time of the user's input in nanoseconds from the start of the Salsa audio clip, in the same
+     * way as getNormalisedClickTime(...) but without rounding it to a millisecond. This is used by the free tap mode
+     *
+     * @param timestampNanos A long representing the System.nanoTime() at which the user's input was captured
+     * @return A long representing the normalised timestamp of the user's input in nanoseconds
+     */
+    public long getNormalisedClickNanos(long timestampNanos) {
+        long latencyOffsetNanos = getSalsaModel().getLatencyOffset() * 1_000_000L;
+
+        BeatTimeline audioBeatTimeline = getSalsaModel().getAudioBeatTimeline();
+        if (audioBeatTimeline != null)
+            return audioBeatTimeline.getElapsedNanos(timestampNanos) - latencyOffsetNanos;
+        long clickNanos = System.currentTimeMillis() * 1_000_000L - (System.nanoTime() - timestampNanos);
+        return clickNanos - getSalsaModel().getTimeAccumulation() * 1_000_000L - latencyOffsetNanos;
+    }
+
+    /**
+     * Method scores the taps of the free tap mode at the end of a State. The mean offset of every beat that was tapped
+     * is scored by calculateErrorValue(...) as if it were a click on that beat, so it is added to the same UserProfile
+     * statistics. This is called by the GameProgress on the BeatScheduler thread before the average error value of the
+     * State is worked out. The taps are scored under the same lock as the clicks, so the BeatScheduler never waits on
+     * the Event Dispatch Thread
+     */
+    public void scoreFreeTaps() {
+        FreeTapScorer freeTapScorer = getSalsaModel().getFreeTapScorer();
+        if (freeTapScorer.getTaps() == 0)
+            return;
+
+        long[] meanOffsets = new long[BeatTimeline.BEATS_PER_STATE];
+        freeTapScorer.takeMeanOffsets(meanOffsets);
+        ArrayList<Long> beatTimeline = getSalsaModel().getBeatTimeline();
+        synchronized (scoringLock) {
+            for (int i = 0; i < meanOffsets.length && i < beatTimeline.size(); i++) {
+                if (meanOffsets[i] != FreeTapScorer.NO_TAPS)
+                    calculateErrorValue(i % 8 + 1, i / 8 + 1,
+                            beatTimeline.get(i) + Math.round(meanOffsets[i] / 1_000_000.0));
+            }
+        }
+    }
+
     /**
      * Method returns the nextBeats field
      *
@@ -154,6 +288,23 @@ public abstract class GameController extends SalsaController implements ClipInfo
         return TIME_WINDOW;
     }
 
+    /**
+     * Method returns when the time window of a beat starts, TIME_WINDOW beats before the beat. The free tap mode also
+     * scores the first beats of the State, whose time window starts before the first beat of the beat timeline, so it
+     * is worked out from the length of a beat instead
+     *
+     * @param currentBeat Integer representing the beat, from 1 to 8
+     * @param barNumber Integer representing the bar of the beat, from 1 to 4
+     * @return A long representing the start of the time window in milliseconds from the start of the Salsa audio clip
+     */
+    public long getLeftTimeWindow(int currentBeat, int barNumber) {
+        ArrayList<Long> beatTimeline = getSalsaModel().getBeatTimeline();
+        int index = currentBeat - 1 + 8*(barNumber - 1);
+        if (index - TIME_WINDOW >= 0)
+            return beatTimeline.get(index - TIME_WINDOW);
+        return beatTimeline.get(index) - TIME_WINDOW * getSalsaModel().getBeatLength();
+    }
+
     /**
      * Returns the GameView associated to the GameController. This will be used to add functionality to
      * the buttons on the GameView
@@ -166,72 +317,77 @@ public abstract class GameController extends SalsaController implements ClipInfo
 
     /* Helper method that sets up the clicker button - calculateErrorValue() will be kept as abstract so that
     * additional functionality can be included i.e. whether we want to record the error value in the UserProfile or
-    * not  */
+    * not. A mouse click is taken when the button is pressed rather than when the button fires on its release, and is
+    * timestamped with when the press was sent rather than when it was handed to the listener. The keyboard is taken
+    * through onTap(...) by the KeyboardInput, so the button firing on a key does nothing */
     private void initClickerButton() {
-        ActionListener click = new ActionListener() {
+        gameView.getBeatClicker().addMouseListener(new MouseAdapter() {
             @Override
-            public synchronized void actionPerformed(ActionEvent e) {
-                System.out.println("The time I perceive the beat to be: " + System.currentTimeMillis());
-                System.out.println();
-
-                // If a Salsa audio clip is currently playing, then proceed
-                if (!getSalsaModel().isCountdownCurrentlyPlaying()) {
-                    // Checking if has previously clicked in the assigned time windows
-                    System.out.println("In InitButtonClicker");
-                    System.out.println("Button Clicker b4 change: " + getSalsaModel().getButtonClickerTracker());
-                    System.out.println("Window Tracker b4 change: " + getSalsaModel().getWindowTracker());
-                    System.out.println("hasClickedOnce1 b4 change: " + getSalsaModel().hasClickedOnce1());
-                    System.out.println("hasClickedOnce2 b4 change: " + getSalsaModel().hasClickedOnce2());
-
-                    if (getSalsaModel().getButtonClickerTracker() == 1 && !getSalsaModel().hasClickedOnce1()) {
-                        getSalsaModel().setHasClickedOnce1(true);
-                        getSalsaModel().increaseButtonClickerTracker();
-                        System.out.println("Button Clicker after change: " + getSalsaModel().getButtonClickerTracker());
-                        System.out.println("Window Tracker after change: " + getSalsaModel().getWindowTracker());
-                        System.out.println("hasClickedOnce1 after change: " + getSalsaModel().hasClickedOnce1());
-                        System.out.println("hasClickedOnce2 after change: " + getSalsaModel().hasClickedOnce2());
-
-                        //Logic to determine the beat to the current time window
-                        calculateErrorValue(getSalsaModel().getBeatCaching().get(0),
-                                getSalsaModel().getBarCaching().get(0));
-                    }
-
-                    else if (getSalsaModel().getButtonClickerTracker() == 2 && !getSalsaModel().hasClickedOnce2()) {
-                        getSalsaModel().setHasClickedOnce2(true);
-                        getSalsaModel().decreaseButtonClickerTracker();
-                        System.out.println("Button Clicker after change: " + getSalsaModel().getButtonClickerTracker());
-                        System.out.println("Window Tracker after change: " + getSalsaModel().getWindowTracker());
-                        System.out.println("hasClickedOnce1 after change: " + getSalsaModel().hasClickedOnce1());
-                        System.out.println("hasClickedOnce2 after change: " + getSalsaModel().hasClickedOnce2());
-
-                        // Logic to determine the beat to the current time window
-                        calculateErrorValue(getSalsaModel().getBeatCaching().get(1),
-                                getSalsaModel().getBarCaching().get(1));
-                    }
+            public void mousePressed(MouseEvent e) {
+                if (e.getButton() == MouseEvent.BUTTON1 && gameView.getBeatClicker().isEnabled())
+                    click(InputCapture.capture(e, InputSource.MOUSE));
+            }
+        });
+    }
+
+    /* Helper method that claims the time window that was open when the user's input was captured and scores it */
+    private void click(InputTap tap) {
+        // If a Salsa audio clip is currently playing, then proceed
+        if (!getSalsaModel().isCountdownCurrentlyPlaying()) {
+            // Every tap is scored against the nearest beat and added to the UserProfile at the end of the State. This
+            // is done for every tap, so nothing is printed
+            if (getSalsaModel().isFreeTap()) {
+                getSalsaModel().getFreeTapScorer().tap(getNormalisedClickNanos(tap.getTimestampNanos()));
+                return;
+            }
+
+            // The click is taken by the time window that was opened first out of the ones open when it was captured.
+            // A window that has already been clicked in cannot take the click
+            WindowRegistry.Window window = getSalsaModel().getWindowRegistry().claim(tap.getTimestampNanos());
+
+            //Logic to determine the beat to the current time window
+            if (window != null) {
+                synchronized (scoringLock) {
+                    calculateErrorValue(window.getBeat(), window.getBarNumber(),
+                            getNormalisedClickTime(tap.getTimestampNanos()));
                 }
             }
-        };
-        gameView.getBeatClicker().addActionListener(click);
+
+            System.out.println("The time I perceive the beat to be: " + tap + ", taken by: " + window + " " +
+                    (System.nanoTime() - tap.getTimestampNanos()) / 1000 + "us after it was captured");
+        }
     }
 
-    /* Helper method to create a beat timeline for each beat in a group of 4 8-beat bars */
-    private ArrayList<Long> createBeatTimeline(long quarter) {
-        // Number of beats in a group of 4 8-beat bars
-        int numBeatsPerState = 32;
+    /* Helper method that sets up the "Loop" button. The State being played is looped from the end of its clip for as
+     * long as the button is selected */
+    private void initPracticeLoopButton() {
+        gameView.getPracticeLoop().addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                getSalsaModel().setPracticeLoop(gameView.getPracticeLoop().isSelected());
+            }
+        });
+    }
 
-        ArrayList<Long> beatTimeline = new ArrayList<>(numBeatsPerState);
+    /* Helper method that sets up the "Free tap" button. Every tap is scored for as long as the button is selected */
+    private void initFreeTapButton() {
+        gameView.getFreeTap().addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                getSalsaModel().setFreeTap(gameView.getFreeTap().isSelected());
+            }
+        });
+    }
 
-        // Beat 1 of a new group of 4 8-beat bars is 0
-        long beatTime = 0;
+    /* Helper method to create a beat timeline for each beat in a group of 4 8-beat bars */
+    private ArrayList<Long> createBeatTimeline(long clipSalsa) {
+        ArrayList<Long> beatTimeline = new ArrayList<>(BeatTimeline.BEATS_PER_STATE);
 
-        // The time each beat is spread out with
-        long anEighth = quarter/8;
+        // Each beat is worked out from the length of the whole clip so that the rounding error does not build up from
+        // one beat to the next. Beat 1 of a new group of 4 8-beat bars is 0
+        for (int i = 0; i < BeatTimeline.BEATS_PER_STATE; i++)
+            beatTimeline.add(Math.round(i * (double) clipSalsa / BeatTimeline.BEATS_PER_STATE));
 
-        // Incrementally adding anEighth to the beatTime to get the beat timeline
-        for (int i = 0; i < numBeatsPerState; i++) {
-            beatTimeline.add(beatTime);
-            beatTime += anEighth;
-        }
         return beatTimeline;
     }
 }
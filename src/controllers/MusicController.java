@@ -1,8 +1,27 @@
 package controllers;
 
-import components.enums.Instrument;
+import components.audio.AudioBackend;
+import components.audio.AudioClock;
+import components.audio.AudioProfile;
+import components.audio.AudioScheduler;
+import components.audio.AudioSegment;
+import components.audio.BeatTableIndex;
+import components.audio.ClipCache;
+import components.audio.ClipPrefetcher;
+import components.audio.LinePool;
+import components.audio.PatternSequencer;
+import components.audio.PcmSegment;
+import components.audio.SoundAssetIndex;
+import components.audio.SoundBank;
+import components.audio.SoundPack;
+import components.audio.StemMixer;
+import components.audio.StreamingPlaybackEngine;
+import components.audio.TimeStretcher;
 import components.PlayFile;
 import components.State;
+import components.enums.BPM;
+import components.functions.GameStatusFunction;
+import components.ingame.BeatTimeline;
 import listeners.GameProgressionListener;
 import events.GameEvent;
 import main.SalsaController;
@@ -10,17 +29,20 @@ import main.SalsaModel;
 
 import javax.sound.sampled.LineEvent;
 import javax.sound.sampled.LineListener;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.Enumeration;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -36,14 +58,81 @@ public abstract class MusicController extends SalsaController implements GamePro
 
     // The field is used to access the necessary WAV files for the MVC application
     //private final String sounds = "src/assets/sounds/";
-    private final String sounds = "assets/sounds/";
+    private static final String sounds = "assets/sounds/";
 
-    // To organise the PlayFile threads so that the sounds play after another
-    private ExecutorService executor = Executors.newFixedThreadPool(1);
+    // Decoded Salsa audio clips shared between the music controllers of every game mode so that revisiting a State
+    // does not decode the WAV file again. The clips are kept the way set by the AudioProfile chosen at start up
+    private static final AudioProfile startupProfile = AudioProfile.create();
+    private static final ClipCache clipCache = new ClipCache(startupProfile.getByteBudget(), startupProfile);
+
+    // Decodes the clips of the States that could come next into the ClipCache while the current clip is playing
+    private static final ClipPrefetcher clipPrefetcher = new ClipPrefetcher(clipCache, 1);
+
+    // The output lines of every game mode. These are closed once a game has finished. The lines are silent when there
+    // is no sound device so that the game can still be played through
+    private static final LinePool linePool = new LinePool(AudioBackend.create());
+
+    // Plays the Salsa audio clips back to back through a single line that stays open
+    private static final StreamingPlaybackEngine playbackEngine = new StreamingPlaybackEngine(linePool);
+
+    // The frame position of the line of the playback engine is the clock that the user's input is timed against
+    private static final AudioClock audioClock = new AudioClock(playbackEngine);
+
+    // Every Salsa audio file grouped by tempo and instruments. This is built once when the application starts up
+    private static final SoundAssetIndex soundAssetIndex = SoundAssetIndex.build(sounds);
+
+    // The memory mapped pack of the Salsa audio. This is null if the application has been packaged without one, in
+    // which case the WAV files are decoded into the ClipCache
+    private static final SoundPack soundPack = SoundPack.find(SoundPack.DEFAULT_FILE_NAME);
+
+    // Mixes the stem of each instrument in real time for combinations of instruments that have no recording
+    private static final StemMixer stemMixer = new StemMixer(soundAssetIndex, clipCache);
+
+    // The frame of each beat of every recording found by onset detection. The recordings that are not in the index
+    // file yet are analysed in the background, and their beats are evenly spaced until then
+    private static final BeatTableIndex beatTableIndex = BeatTableIndex.find(BeatTableIndex.DEFAULT_FILE_NAME);
+    static {
+        beatTableIndex.buildInBackground(soundAssetIndex.getAllFiles(), BeatTimeline.BEATS_PER_STATE);
+    }
+
+    // The countdown and other short sounds kept in open Clips for as long as the application runs, so that starting
+    // one is only a rewind. These are shared by every game mode and are not closed when a game has finished. The
+    // countdown is loaded by warmUpCountdown() when the application starts
+    private static final SoundBank soundBank = new SoundBank(linePool.getAudioBackend());
+    private static final String COUNTDOWN = sounds + "countdown/countdown_5-0.wav";
+
+    // Starts the Clips of every game mode at their target time from a single thread so that the sounds play after
+    // another. This is used for the countdown clip
+    private static final AudioScheduler audioScheduler = new AudioScheduler("salsa-audio-scheduler");
+
+    // Whether the stems are mixed even when there is a pre-mixed recording of the combination of instruments
+    private static volatile boolean mixStems = false;
+
+    // Renders the Salsa audio from the patterns of the instruments at any tempo. This is used when there is neither a
+    // recording nor the stems of a State, or for every State when sequencePatterns is set
+    private static final PatternSequencer patternSequencer = new PatternSequencer();
+    private static volatile boolean sequencePatterns = false;
+
+    // Plays the recordings at the tempo set for their BPM when it is not the tempo they were recorded at. The
+    // recordings of the next States are stretched ahead of time into the ClipCache
+    private static final TimeStretcher timeStretcher = new TimeStretcher(clipCache, 1);
+    private static final Map<BPM, Double> tempos = Collections.synchronizedMap(new EnumMap<>(BPM.class));
 
     // A Random Generator to select a WAV file from a specific directory
     private Random randomGenerator;
 
+    // Used to find the States that the game could move on to next. This is null if the game mode does not have one
+    private GameStatusFunction gameStatusFunction;
+
+    // Key - A State the game could move on to next. Value - The WAV file chosen in advance for that State so that the
+    // file that has been prefetched is the one that is played. The States of the UserProfile are compared by identity
+    private final Map<State, String> plannedFiles = new IdentityHashMap<>();
+
+    // The last State played and its Salsa audio, which is looped without being decoded again while the user practises
+    // on the State
+    private State lastState;
+    private AudioSegment lastSalsaAudio;
+
     /**
      * Constructor for the MusicController. This will only be called by sub classes using the super
      * keyword as this class should never be instantiated.
@@ -85,16 +174,23 @@ public abstract class MusicController extends SalsaController implements GamePro
      */
     @Override
     public void onGameStartedEvent(GameEvent e) {
-        // Create the clip to play the countdown WAV file and join it to the queue
-        String countdownFilePath = sounds + "countdown/countdown_5-0.wav";
-        PlayFile countdown = new PlayFile(countdownFilePath);
+        // The time Start was clicked, from which the SoundBank measures how long the countdown takes to be heard
+        long requested = System.nanoTime();
+
+        // Counting the underruns of the line for this game only
+        playbackEngine.startSession();
+
+        // Take the resident clip of the countdown from the sound bank and join it to the queue
+        PlayFile countdown = soundBank.getPlayFile(COUNTDOWN, requested);
+        if (countdown == null)
+            countdown = new PlayFile(COUNTDOWN, linePool);
 
         // The length of the Countdown clip
         Long countdownLength = countdown.getMillisecondLength();
 
         // Adding a Line Listener to the countdown clip so that the next pieces of logic are only executed once the
-        // music has finished playing
-        countdown.getClip().addLineListener(new LineListener() {
+        // music has finished playing. The listener is taken off once the pooled clip has been played
+        countdown.addLineListener(new LineListener() {
             @Override
             public void update(LineEvent event) {
                 // The moment the audio file starts playing
@@ -111,6 +207,9 @@ public abstract class MusicController extends SalsaController implements GamePro
             }
         });
         initSoundClip(countdown);
+
+        // Getting the audio of the first State ready while the countdown is playing
+        prepareFirstState(e.getCurrentState());
     }
 
     /**
@@ -125,131 +224,426 @@ public abstract class MusicController extends SalsaController implements GamePro
         // Getting the new State that the simulation is moving to
         State currentState = e.getCurrentState();
 
-        PlayFile salsaAudio = getSalsaAudio(currentState); System.out.println("Adding the linelistener");
+        // The practice loop plays the audio of the State that has just been played again rather than choosing new audio
+        boolean practiceLoop = getSalsaModel().isPracticeLoop();
+        AudioSegment salsaAudio = practiceLoop && currentState == lastState && lastSalsaAudio != null ?
+                lastSalsaAudio : getSalsaAudio(currentState);
+        lastState = currentState;
+        lastSalsaAudio = salsaAudio;
 
-        // Adding a LineListener so that the user input matches the sound
-        salsaAudio.getClip().addLineListener(new LineListener() {
+        // Queue the salsa audio clip to be played on the sample after the previous salsa audio clip. The listener is
+        // notified once the clip is heard so that the user input matches the sound
+        StreamingPlaybackEngine.SegmentListener listener = new StreamingPlaybackEngine.SegmentListener() {
             @Override
-            public void update(LineEvent event) {
+            public void segmentStarted(AudioSegment segment, long startFrame) {
                 // Fire off the event to let the relevant GameController know about the Clip information
-                if (event.getType() == LineEvent.Type.START) {
-                    System.out.println("The Line listener has been added");
-                    clipReady(salsaAudio.getMillisecondLength());
-                }
+                System.out.println("The Salsa audio clip started on frame " + startFrame);
+                // The beats of sequenced or stretched audio are known exactly, the beats of a recording are found by
+                // onset detection
+                long[] beatFrames = segment.getBeatFrames();
+                if (beatFrames == null)
+                    beatFrames = beatTableIndex.getBeatFrames(segment.getName());
+                getSalsaModel().setAudioBeatTimeline(new BeatTimeline(audioClock, startFrame,
+                        segment.getFrameLength(), segment.getFormat().getFrameRate(), beatFrames, practiceLoop));
+                clipReady(segment.getMillisecondLength());
+
+                // Getting the clips of the next State ready while this one plays
+                prefetchNextStates(currentState);
             }
-        });
+        };
 
-        // Play the salsa audio clip and join it to the queue
-        initSoundClip(salsaAudio);
+        // A looped clip is played again on the sample after its end until the next State is queued
+        if (practiceLoop)
+            playbackEngine.loop(salsaAudio, listener);
+        else
+            playbackEngine.enqueue(salsaAudio, listener);
     }
 
-    /* Helper method that allows the Clips to be played one after the other during the simulation */
-    private synchronized void initSoundClip( PlayFile clip ) {
-        new Thread(new Runnable() {
-            @Override
-            public void run() {
-                // Adds the thread PlayFile to the queue to be played once the current audio thread
-                // in the ExecutorService is being played and will thus play afterwards
-                System.out.println("Submitting the clip to the queue");
-                Future<?> f2 = executor.submit(clip);
-                try {
-                    f2.get();
-                }
-                catch (InterruptedException | ExecutionException ex) {
-                    ex.printStackTrace();
-                }
-            }
-        }).start();
+    /**
+     * Method returns the ClipCache shared by the music controllers. The counters of the cache can be used to size its
+     * byte budget
+     *
+     * @return The ClipCache object holding the decoded Salsa audio clips
+     */
+    public static ClipCache getClipCache() {
+        return clipCache;
     }
 
-    /* Helper method that creates the final part of the file path needed to get the correct folder with
-     * the necessary WAV files */
-    private String getFilePath(State currentState) {
-        String filePath = "src/" + sounds + currentState.getBpm().getBPM();
+    /**
+     * Method returns the StreamingPlaybackEngine that plays the Salsa audio clips of every game mode
+     *
+     * @return The StreamingPlaybackEngine object shared by the music controllers
+     */
+    public static StreamingPlaybackEngine getPlaybackEngine() {
+        return playbackEngine;
+    }
 
-        String instruments = "";
+    /**
+     * Method returns the LinePool holding the output lines of the music controllers. The gauges of the pool show the
+     * lines that are open
+     *
+     * @return The LinePool object shared by the music controllers
+     */
+    public static LinePool getLinePool() {
+        return linePool;
+    }
 
-        ArrayList<Instrument> instrumentList = currentState.getInstruments();
+    /**
+     * Method stops the Salsa audio clip that is being looped for practice once the iteration being written to the line
+     * has been played
+     */
+    public static void stopPracticeLoop() {
+        playbackEngine.stopLoop();
+    }
 
-        for (int i = 0; i < instrumentList.size() - 1; i++)
-            instruments+= instrumentList.get(i).getName() + "_";
-        instruments += instrumentList.get(instrumentList.size() - 1).getName();
+    /**
+     * Method closes the output lines once a game has finished. The line of the playback engine is closed as soon as
+     * the last Salsa audio clip has been played
+     */
+    public static void closeAudioLines() {
+        // A clip that is being looped for practice is played to the end of its iteration and is not looped again
+        playbackEngine.stopLoop();
+        linePool.closeAll();
+    }
 
-        return filePath + "/" + instruments;
+    /**
+     * Method checks the countdown and opens its Clip in the SoundBank. Until this is done, the countdown is opened from
+     * the WAV file when a game starts. This is called by the AssetWarmUp while the main menu is displayed
+     *
+     * @throws IOException If the WAV file of the countdown cannot be found or read
+     * @throws UnsupportedAudioFileException If the WAV file of the countdown is not in a supported format
+     * @throws LineUnavailableException If the mixer cannot open the Clip of the countdown
+     */
+    public static void warmUpCountdown() throws IOException, UnsupportedAudioFileException, LineUnavailableException {
+        if (!soundBank.contains(COUNTDOWN))
+            soundBank.load(COUNTDOWN, 1);
     }
 
-    /* Helper method that creates a PlayFile object depending on the State object passed as a parameter */
-    private PlayFile getSalsaAudio(State currentState) {
-        // Creating the file path of the folder that contains WAV files that pertain to the current State object
-        String folder = getFilePath(currentState);
-        //System.out.println("Is the file path correct?");
-        //System.out.println(folder);
+    /**
+     * Method decodes a recording of the State into the ClipCache so that a game starting on the State does not wait
+     * for it to be decoded. Nothing is decoded if a recording of the State is already resident, if the warmed clips
+     * would take more than half of the budget of the cache, or if the clips are not decoded from the WAV files i.e.
+     * they are read from the pack, mixed from the stems or sequenced. This is called by the AssetWarmUp
+     *
+     * @param state State object that a game could start on
+     * @return true if a recording was decoded, false otherwise
+     * @throws IOException If the WAV file cannot be read
+     * @throws UnsupportedAudioFileException If the WAV file is not in a supported format
+     */
+    public static boolean warmUp(State state) throws IOException, UnsupportedAudioFileException {
+        if (soundPack != null || mixStems || sequencePatterns || findResidentFile(state) != null)
+            return false;
+        if (clipCache.getResidentBytes() >= clipCache.getByteBudget() / 2)
+            return false;
+
+        String filePath = soundAssetIndex.randomFile(state, ThreadLocalRandom.current());
+        return filePath != null && clipCache.warm(filePath) != null;
+    }
 
-        // Create a new cLip with the salsa audio file path found
-        String salsaFilePath = "";
+    /**
+     * Method returns the SoundBank holding the countdown of every game mode. The bank records how long the countdown
+     * took to start playing after Start was clicked
+     *
+     * @return The SoundBank object shared by the music controllers
+     */
+    public static SoundBank getSoundBank() {
+        return soundBank;
+    }
 
-        final File jarFile = new File(getClass().getProtectionDomain().getCodeSource().getLocation().getPath());
+    /**
+     * Method returns the AudioScheduler that starts the Clips of the music controllers. This holds the depth of its
+     * queue and how late the Clips were started
+     *
+     * @return The AudioScheduler object shared by the music controllers
+     */
+    public static AudioScheduler getAudioScheduler() {
+        return audioScheduler;
+    }
 
-        // This was added so that the directories can be found in the Jar File
-        if(jarFile.isFile()) {
-            try {
-                // Preparing the list of files in the directory
-                ArrayList<String> possibleFiles = new ArrayList<>();
-                final JarFile jar = new JarFile(jarFile);
-                final Enumeration<JarEntry> entries = jar.entries();
-                while (entries.hasMoreElements()) {
-                    final String name = entries.nextElement().getName();
-                    String prefix = folder.substring(4) + "/";
-                    if ((name.startsWith(prefix)) && (name.length() > prefix.length())){
-                        //System.out.println(name);
-                        possibleFiles.add(name);
-                    }
-                }
+    /**
+     * Method returns the AudioClock of the line that plays the Salsa audio clips
+     *
+     * @return The AudioClock object shared by the music controllers
+     */
+    public static AudioClock getAudioClock() {
+        return audioClock;
+    }
 
-                // Randomly selecting a WAV file from this directory
-                int rndIndex = randomGenerator.nextInt(possibleFiles.size());
-                //System.out.println("The random index is: " + Integer.toString(rndIndex));
+    /**
+     * Method sets the GameStatusFunction of the game mode so that the clips of the States it could choose next can be
+     * prefetched. Without one, the clips of every neighbour of the current State are prefetched
+     *
+     * @param gameStatusFunction The GameStatusFunction used by the GameController of the same game mode
+     */
+    public void setGameStatusFunction(GameStatusFunction gameStatusFunction) {
+        this.gameStatusFunction = gameStatusFunction;
+    }
 
-                // Create a new cLip with the salsa audio file path found
-                salsaFilePath += possibleFiles.get(rndIndex);
+    /**
+     * Method returns the ClipPrefetcher shared by the music controllers. This holds the accuracy of the prefetching
+     *
+     * @return The ClipPrefetcher object decoding the likely next clips
+     */
+    public static ClipPrefetcher getClipPrefetcher() {
+        return clipPrefetcher;
+    }
 
-                jar.close();
-            }
+    /**
+     * Method returns the BeatTableIndex holding the beats of the recordings found by onset detection
+     *
+     * @return The BeatTableIndex object shared by the music controllers
+     */
+    public static BeatTableIndex getBeatTableIndex() {
+        return beatTableIndex;
+    }
+
+    /**
+     * Method changes the way the Salsa audio clips are kept resident i.e. to the LOW_MEMORY profile on a machine with
+     * little memory. The clips already decoded are dropped and the budget of the ClipCache is set for the profile
+     *
+     * @param profile The AudioProfile to keep the clips with
+     */
+    public static void setAudioProfile(AudioProfile profile) {
+        clipCache.setProfile(profile);
+        clipCache.setByteBudget(profile.getByteBudget());
+    }
+
+    /**
+     * Method returns the way the Salsa audio clips are being kept resident
+     *
+     * @return The AudioProfile of the ClipCache
+     */
+    public static AudioProfile getAudioProfile() {
+        return clipCache.getProfile();
+    }
+
+    /**
+     * Method returns the StemMixer used to play the combinations of instruments. The gain of each instrument is set
+     * through this object
+     *
+     * @return The StemMixer object shared by the music controllers
+     */
+    public static StemMixer getStemMixer() {
+        return stemMixer;
+    }
+
+    /**
+     * Method sets whether the Salsa audio is always mixed from the stems of the instruments rather than played from
+     * the pre-mixed recordings
+     *
+     * @param mixStems true if the stems should always be mixed, false if the recordings should be played when there is
+     *                 one for the State
+     */
+    public static void setMixStems(boolean mixStems) {
+        MusicController.mixStems = mixStems;
+    }
+
+    /**
+     * Method returns the PatternSequencer that renders the Salsa audio of the States that have no recording
+     *
+     * @return The PatternSequencer object shared by the music controllers
+     */
+    public static PatternSequencer getPatternSequencer() {
+        return patternSequencer;
+    }
+
+    /**
+     * Method sets whether the Salsa audio is always sequenced from the patterns of the instruments rather than played
+     * from the recordings or mixed from the stems
+     *
+     * @param sequencePatterns true if every State should be sequenced, false if the recordings or stems should be
+     *                         played when there are some for the State
+     */
+    public static void setSequencePatterns(boolean sequencePatterns) {
+        MusicController.sequencePatterns = sequencePatterns;
+    }
+
+    /**
+     * Method returns the TimeStretcher that plays the recordings at the tempos set with setTempo(...)
+     *
+     * @return The TimeStretcher object shared by the music controllers
+     */
+    public static TimeStretcher getTimeStretcher() {
+        return timeStretcher;
+    }
 
-            catch (IOException ioe) {
-                // More sophisticated logic needs to be here to restart the simulation and throw a JOptionPane
-                ioe.printStackTrace();
+    /**
+     * Method sets the tempo that the States of a BPM are played at. The recordings of the BPM are stretched to the
+     * tempo, keeping their pitch, and the sequenced audio is sequenced at it
+     *
+     * @param bpm The BPM of the States
+     * @param tempo A double representing the beats per minute to play the States at. The tempo of the BPM plays the
+     *              recordings as they are
+     */
+    public static void setTempo(BPM bpm, double tempo) {
+        if (tempo <= 0)
+            throw new IllegalArgumentException("The tempo of " + bpm.getName() + " must be above 0");
+        if (tempo == bpm.getBPM())
+            tempos.remove(bpm);
+        else
+            tempos.put(bpm, tempo);
+    }
+
+    /**
+     * Method returns the tempo that the States of a BPM are played at
+     *
+     * @param bpm The BPM of the States
+     * @return A double representing the beats per minute the States are played at
+     */
+    public static double getTempo(BPM bpm) {
+        Double tempo = tempos.get(bpm);
+        return tempo == null ? bpm.getBPM() : tempo;
+    }
+
+    /* Helper method that allows the Clips to be played one after the other during the simulation */
+    private void initSoundClip( PlayFile clip ) {
+        // Starts the clip once the clip queued before it has finished, without parking a thread on it
+        audioScheduler.scheduleNext(clip);
+    }
+
+    /* Helper method that gets the decoded Salsa audio depending on the State object passed as a parameter */
+    private AudioSegment getSalsaAudio(State currentState) {
+        if (sequencePatterns)
+            return sequence(currentState);
+
+        // Using the WAV file chosen when the State was prefetched, otherwise randomly selecting one of the WAV files
+        // recorded for the tempo and instruments of the current State
+        String salsaFilePath;
+        synchronized (plannedFiles) {
+            salsaFilePath = plannedFiles.remove(currentState);
+            plannedFiles.clear();
+        }
+        if (salsaFilePath == null && !mixStems)
+            salsaFilePath = soundAssetIndex.randomFile(currentState, randomGenerator);
+
+        // Mixing the stems of the instruments when there is no recording of the combination
+        if (salsaFilePath == null) {
+            // Sequencing the patterns of the instruments when nothing has been recorded for the State
+            if (!stemMixer.hasStems(currentState))
+                return sequence(currentState);
+            try {
+                AudioSegment salsaAudio = stemMixer.mix(currentState, randomGenerator);
+                System.out.println(salsaAudio.getName());
+                return salsaAudio;
             }
+            catch (IOException | UnsupportedAudioFileException ex) {
+                throw new IllegalStateException("The stems of " + currentState.getInstruments() +
+                        " could not be mixed", ex);
+            }
+        }
+
+        System.out.println(salsaFilePath);
+
+        // The pack is already mapped into memory so there is nothing to decode or cache
+        if (soundPack != null && soundPack.contains(salsaFilePath))
+            return stretchToTempo(currentState, salsaFilePath, soundPack.getSegment(salsaFilePath));
+
+        try {
+            clipPrefetcher.recordChosen(salsaFilePath);
+            AudioSegment salsaAudio = clipCache.get(salsaFilePath);
+            return stretchToTempo(currentState, salsaFilePath, salsaAudio);
+        }
+        catch (IOException | UnsupportedAudioFileException ex) {
+            throw new IllegalStateException("The Salsa audio " + salsaFilePath + " could not be decoded", ex);
         }
+    }
 
-        else { // This code works when being executed from an IDE
+    /* Helper method that sequences the patterns of the instruments of the State at the tempo set for its BPM */
+    private AudioSegment sequence(State currentState) {
+        AudioSegment salsaAudio = patternSequencer.sequence(currentState.getInstruments(),
+                getTempo(currentState.getBpm()), BeatTimeline.BEATS_PER_STATE);
+        System.out.println(salsaAudio.getName());
+        return salsaAudio;
+    }
 
-            // Preparing the list of files in the directory
-            File directory = new File(folder);
-            //System.out.println("Directory has been created");
-            //System.out.println("The directory is: " + directory.toString());
-            File[] files = directory.listFiles();
-            //System.out.println("List of Files have been created");
-            //System.out.println("The list of files: " + files.toString());
+    /* Helper method that stretches the recording to the tempo set for the BPM of the State. The recording is returned
+     * as it is if it is played at the tempo it was recorded at */
+    private AudioSegment stretchToTempo(State currentState, String salsaFilePath, AudioSegment salsaAudio) {
+        BPM bpm = currentState.getBpm();
+        double tempo = getTempo(bpm);
+        if (tempo == bpm.getBPM())
+            return salsaAudio;
+
+        try {
+            return timeStretcher.stretch(salsaFilePath, salsaAudio, bpm.getBPM(), tempo,
+                    beatTableIndex.getBeatFrames(salsaFilePath));
+        }
+        catch (UnsupportedAudioFileException ex) {
+            // Playing the recording at the tempo it was recorded at instead
+            ex.printStackTrace();
+            return salsaAudio;
+        }
+    }
 
-            // Randomly selecting a WAV file from this directory
-            int rndIndex = randomGenerator.nextInt(files.length);
-            //System.out.println("The random index is: " + Integer.toString(rndIndex));
+    /* Helper method that stretches the recording ahead of time when its State is not played at its recorded tempo */
+    private void prerenderTempo(State state, String filePath) {
+        double tempo = getTempo(state.getBpm());
+        if (tempo != state.getBpm().getBPM())
+            timeStretcher.prerender(filePath, state.getBpm().getBPM(), tempo, beatTableIndex.getBeatFrames(filePath));
+    }
 
-            // Create a new cLip with the salsa audio file path found
-            salsaFilePath += files[rndIndex].getPath();
+    /* Helper method that chooses the WAV file of the first State so that it is decoded, and its line opened, while the
+     * countdown is playing */
+    private void prepareFirstState(State firstState) {
+        if (firstState == null)
+            return;
+
+        // A recording of the State that was decoded while the main menu was displayed is played if there is one
+        String filePath = findResidentFile(firstState);
+        if (filePath == null)
+            filePath = soundAssetIndex.randomFile(firstState, randomGenerator);
+        if (filePath == null)
+            return;
+
+        synchronized (plannedFiles) {
+            plannedFiles.clear();
+            if (!mixStems && !sequencePatterns)
+                plannedFiles.put(firstState, filePath);
         }
+        if (soundPack == null && !mixStems && !sequencePatterns)
+            clipPrefetcher.prefetch(Collections.singletonList(filePath));
+        if (!mixStems && !sequencePatterns)
+            prerenderTempo(firstState, filePath);
 
-        //System.out.println("What is the Salsa file playing?");
+        try {
+            playbackEngine.prepareLine(PcmSegment.readFormat(filePath));
+        }
+        catch (IOException | UnsupportedAudioFileException ex) {
+            ex.printStackTrace();
+        }
+    }
 
-        // remove the src from the file path by using .substring()
-        if (salsaFilePath.startsWith("src/")){
-            salsaFilePath = salsaFilePath.substring(4);
+    /* Helper method that returns the resource path of a recording of the State that is resident in the ClipCache, or
+     * null if there is none */
+    private static String findResidentFile(State state) {
+        for (String filePath: soundAssetIndex.getFiles(state.getBpm(), state.getInstruments())) {
+            if (clipCache.contains(filePath))
+                return filePath;
         }
-        System.out.println(salsaFilePath);
-        PlayFile salsaAudio = new PlayFile(salsaFilePath);
+        return null;
+    }
 
-        return salsaAudio;
+    /* Helper method that chooses the WAV files of the States that could come next and prefetches them. Nothing is
+     * prefetched when the clips are read from the pack, mixed from the stems or sequenced, as they are not decoded */
+    private void prefetchNextStates(State currentState) {
+        if (mixStems || sequencePatterns)
+            return;
+
+        List<State> candidates = gameStatusFunction == null ? currentState.getNeighbours() :
+                gameStatusFunction.getCandidateStates(currentState);
+
+        synchronized (plannedFiles) {
+            plannedFiles.clear();
+            for (State candidate: candidates) {
+                String filePath = soundAssetIndex.randomFile(candidate, randomGenerator);
+                if (filePath != null) {
+                    plannedFiles.put(candidate, filePath);
+                    prerenderTempo(candidate, filePath);
+                }
+            }
+            if (soundPack == null)
+                clipPrefetcher.prefetch(plannedFiles.values());
+        }
     }
 
     public static void main(String[] args) throws IOException {
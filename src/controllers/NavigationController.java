@@ -1,9 +1,11 @@
 package controllers;
 
 import components.UserProfile;
+import components.ingame.LatencyCalibration;
 import main.MainFrame;
 import main.SalsaController;
 import main.SalsaModel;
+import views.CalibrationView;
 import views.GameLevelView;
 import views.games.EasySimulationView;
 import views.games.HardSimulationView;
@@ -47,6 +49,14 @@ public class NavigationController extends SalsaController {
         initTutorialNavigationButtonActionListeners();
         initJUPNavigationButtonActionListeners();
         initLevelNavigationButtonActionListeners();
+        initCalibrationNavigationButtonActionListeners();
+    }
+
+    /* Helper method to initialise the navigation buttons in the CalibrationView */
+    private void initCalibrationNavigationButtonActionListeners() {
+        CalibrationView calibration = (CalibrationView) this.mainFrame.getPanels().get(mainFrame.getCALIBRATION());
+
+        goToView(calibration.getNavigationButtons().get(mainFrame.getMAIN()), mainFrame.getMAIN());
     }
 
     /* Helper method to initialise the navigation buttons in the JustifiedUserProfileView */
@@ -89,6 +99,10 @@ public class NavigationController extends SalsaController {
         buttonUnderConstruction(main.getNavigationButtons().get(mainFrame.getJUP()), mainFrame.getJUP());
         //goToView(main.getNavigationButtons().get(mainFrame.getJUP()), mainFrame.getJUP());
 
+        // Initialises the ActionListener for the "calibration" button. The offset is saved for the user so they must
+        // register a name first
+        beforePlayingTheGame(main.getNavigationButtons().get(mainFrame.getCALIBRATION()), mainFrame.getCALIBRATION());
+
         // Caching the result of the current view
         this.getSalsaModel().setCurrentView(mainFrame.getMAIN());
     }
@@ -207,5 +221,12 @@ public class NavigationController extends SalsaController {
         catch (ClassNotFoundException e) {
             e.printStackTrace();
         }
+
+        // The latency offset of the user is kept in its own file next to the .ser file
+        LatencyCalibration latencyCalibration = LatencyCalibration.load(LatencyCalibration.getFilename(getSalsaModel()));
+        if (latencyCalibration != null) {
+            getSalsaModel().setLatencyCalibration(latencyCalibration);
+            System.out.println(latencyCalibration);
+        }
     }
 }
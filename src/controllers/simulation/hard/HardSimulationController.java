@@ -14,6 +14,7 @@ import views.GameView;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -52,10 +53,7 @@ public class HardSimulationController extends GameController {
     }
 
     @Override
-    public void calculateErrorValue(int currentBeat, int barNumber) {
-        // Normalising the time stamp of the user's input
-        long clickTSNormalised = System.currentTimeMillis() - getSalsaModel().getTimeAccumulation();
-
+    public void calculateErrorValue(int currentBeat, int barNumber, long clickTSNormalised) {
         // Necessary information to initialise the error function
         long requiredBeatTime = getSalsaModel().getBeatTimeline().get(currentBeat - 1 + 8*(barNumber - 1));
         System.out.println("Bar number: " + barNumber);
@@ -63,9 +61,8 @@ public class HardSimulationController extends GameController {
         System.out.println("Required beat time: " + requiredBeatTime);
 
         // Initialising the error function for the Linear Error Function
-        long one_beat = getSalsaModel().getBeatTimeline().get(1);
-        long left_time_window = getSalsaModel().getBeatTimeline().get(
-                currentBeat - 1 + 8*(barNumber - 1) - getTIME_WINDOW());
+        long one_beat = getSalsaModel().getBeatLength();
+        long left_time_window = getLeftTimeWindow(currentBeat, barNumber);
         System.out.println("Left time window: " + left_time_window);
         this.errorFunction = new LinearErrorFunction(one_beat, left_time_window);
 
@@ -107,9 +104,7 @@ public class HardSimulationController extends GameController {
     }
 
     @Override
-    public State chooseStartingState() {
-        // The random starting State that has been chosen
-        State randState;
+    public List<State> getStartingStateCandidates() {
         // To loop through all of the State objects in the User Profile
         Map<String, State> states = getSalsaModel().getUserProfile().getStates();
 
@@ -126,16 +121,10 @@ public class HardSimulationController extends GameController {
                 exploredStates.add(entry.getValue());
         }
 
-        // If there are some States that have not been explored, then randomly choose one of those State objects
-        if (!unexploredStates.isEmpty()) {
-            int rndIndex = this.getRandomGenerator().nextInt(unexploredStates.size());
-            randState = unexploredStates.get(rndIndex);
-        }
-        // Otherwise, randomly choose a starting State from all possible State objects
-        else {
-            int rndIndex = this.getRandomGenerator().nextInt(exploredStates.size());
-            randState = exploredStates.get(rndIndex);
-        }
-        return randState;
+        // If there are some States that have not been explored, then the game starts on one of those State objects
+        // Otherwise, the game can start on any of the possible State objects
+        if (!unexploredStates.isEmpty())
+            return unexploredStates;
+        return exploredStates;
     }
 }
@@ -2,11 +2,15 @@ package controllers.simulation.hard;
 
 import components.State;
 import components.UserProfile;
+import events.GameEvent;
+import listeners.GameGUIListener;
 import main.SalsaModel;
 import org.junit.jupiter.api.Test;
 import views.games.HardSimulationView;
 
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -34,4 +38,59 @@ class HardSimulationControllerTest {
 
         assertTrue(isStateFound);
     }
-}
\ No newline at end of file
+
+    @Test
+    void aTapOnTheFirstBeatsOfTheStateScoresFromAWholeTimeWindow() {
+        SalsaModel model = new SalsaModel();
+        HardSimulationView view = new HardSimulationView("test", new Dimension(10,10));
+        HardSimulationController controller = new HardSimulationController(model, "test", view);
+
+        // 4 8-beat bars of 500 ms beats, starting 200 ms into the clip
+        ArrayList<Long> beatTimeline = new ArrayList<>();
+        for (int i = 0; i < 32; i++)
+            beatTimeline.add(200L + 500L*i);
+        model.setBeatTimeline(beatTimeline);
+        State state = model.getUserProfile().getStates().values().iterator().next();
+        model.setCurrentState(state);
+
+        // The error values shown on the gauge
+        List<Double> shown = new ArrayList<>();
+        model.addSimulationGUIListener(new GameGUIListener() {
+            @Override
+            public void onNewBeatEvent(GameEvent e) {
+            }
+
+            @Override
+            public void onNewErrorValueEvent(GameEvent e) {
+                shown.add(e.getErrorValue());
+            }
+
+            @Override
+            public void onGameFinishedEvent(GameEvent e) {
+            }
+
+            @Override
+            public void onCountdownStartedEvent() {
+            }
+
+            @Override
+            public void onCountdownFinishedEvent() {
+            }
+
+            @Override
+            public void onLightsTurnOn() {
+            }
+        });
+
+        // The time window of the first beats starts before the first beat, but a tap right on the beat still scores 1
+        assertEquals(200L - 1500L, controller.getLeftTimeWindow(1, 1));
+        assertEquals((long) beatTimeline.get(1), controller.getLeftTimeWindow(5, 1));
+        for (int beat = 1; beat <= 4; beat++)
+            controller.calculateErrorValue(beat, 1, beatTimeline.get(beat - 1));
+        List<Double> errorValues = state.getErrorValues();
+        assertEquals(4, errorValues.size());
+        for (double errorValue: errorValues)
+            assertEquals(1.0, errorValue, 1e-9);
+        assertEquals(errorValues, shown);
+    }
+}
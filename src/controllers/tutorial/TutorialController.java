@@ -16,6 +16,7 @@ import views.TutorialView;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -84,21 +85,13 @@ public class TutorialController extends GameController {
      * accordingly. The error value is not recorded in the UserProfile
      */
     @Override
-    public void calculateErrorValue(int currentBeat, int barNumber) {
-        // Normalising the time stamp of the user's input
-        long clickTSNormalised = System.currentTimeMillis() - getSalsaModel().getTimeAccumulation();
-
+    public void calculateErrorValue(int currentBeat, int barNumber, long clickTSNormalised) {
         // Necessary information to initialise the error function
         long requiredBeatTime = getSalsaModel().getBeatTimeline().get(currentBeat - 1 + 8*(barNumber - 1));
 
-        // Determining the index of the left time window
-        int index_left_TW = currentBeat - 1 + 8*(barNumber - 1) - getTIME_WINDOW();
-        if (index_left_TW < 0)
-            index_left_TW = 0;
-
         // Initialising the error function for the Linear Error Function
-        long one_beat = getSalsaModel().getBeatTimeline().get(1);
-        long left_time_window = getSalsaModel().getBeatTimeline().get(index_left_TW);
+        long one_beat = getSalsaModel().getBeatLength();
+        long left_time_window = getLeftTimeWindow(currentBeat, barNumber);
         this.errorFunction = new LinearErrorFunction(one_beat, left_time_window);
 
         // Error value calculated using the error function and then added to the UserProfile
@@ -144,12 +137,10 @@ public class TutorialController extends GameController {
     /**
      * The starting state must have the slowest tempo to help train the user
      *
-     * @return State object that the Tutorial will begin with
+     * @return A List of State objects with the slowest tempo that the Tutorial could begin with
      */
     @Override
-    public State chooseStartingState() {
-        // The random starting State that has been chosen
-        State randState;
+    public List<State> getStartingStateCandidates() {
         // To loop through all of the State objects in the User Profile
         Map<String, State> states = getSalsaModel().getUserProfile().getStates();
 
@@ -168,17 +159,11 @@ public class TutorialController extends GameController {
                 exploredStates.add(entry.getValue());
         }
 
-        // If there are some States that have not been explored, then randomly choose one of those State objects
-        if (!unexploredStates.isEmpty()) {
-            int rndIndex = this.getRandomGenerator().nextInt(unexploredStates.size());
-            randState = unexploredStates.get(rndIndex);
-        }
-        // Otherwise, randomly choose a starting State from all possible State objects
-        else {
-            int rndIndex = this.getRandomGenerator().nextInt(exploredStates.size());
-            randState = exploredStates.get(rndIndex);
-        }
-        return randState;
+        // If there are some States that have not been explored, then the game starts on one of those State objects
+        // Otherwise, the game can start on any of the possible State objects
+        if (!unexploredStates.isEmpty())
+            return unexploredStates;
+        return exploredStates;
     }
 
     /**
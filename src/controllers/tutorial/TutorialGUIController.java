@@ -1,6 +1,7 @@
 package controllers.tutorial;
 
 import controllers.GUIController;
+import events.GameEvent;
 import listeners.TutorialGUIListener;
 import main.SalsaModel;
 import views.GameView;
@@ -35,6 +36,16 @@ public class TutorialGUIController extends GUIController implements TutorialGUIL
         this.tutorialView = (TutorialView) gameView;
     }
 
+    @Override
+    public void onGameStartedEvent(GameEvent e) {
+        super.onGameStartedEvent(e);
+
+        // The lights of the Tutorial are timed for a single play of each clip and ask for one click per bar, so there is
+        // no practice loop or free tap mode
+        tutorialView.getPracticeLoop().setVisible(false);
+        tutorialView.getFreeTap().setVisible(false);
+    }
+
     @Override
     public void onTutorialStarted() {
         onKeepLights();
@@ -0,0 +1,23 @@
+package listeners;
+
+import components.input.InputTap;
+
+import java.util.EventListener;
+
+/**
+ * TapListener Interface that will be implemented by the class that needs to be notified when the user taps a beat with
+ * a device other than the beat clicker, such as a key of the keyboard or a pad of a MIDI device. The tap is timestamped
+ * when it was captured, so it can be handed over from any thread.
+ */
+public interface TapListener extends EventListener {
+
+    /**
+     * This method deals with the user's tap. It can be called from the thread of the device that captured the tap, so
+     * anything touching the GUI needs to be handed to the Event Dispatch Thread.
+     *
+     * @param tap An InputTap object holding when the tap was captured and the device it came from
+     * @return true if the tap was taken, in which case the key that made it is kept from the component with the focus.
+     * A tap that is handed to the Event Dispatch Thread returns false
+     */
+    boolean onTap(InputTap tap);
+}
@@ -0,0 +1,325 @@
+package main;
+
+import components.State;
+import controllers.MusicController;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * AssetWarmUp Class that loads the assets of the MVC application on every core while the main menu is displayed, so
+ * that the first game does not wait for them. The images are decoded into the image cache of the Toolkit, which is
+ * where the views take their ImageIcons from, and the countdown is opened in the SoundBank. Once the game controllers
+ * have been set up, a recording of each State that a game could start on is decoded into the ClipCache.
+ *
+ * Every asset is a leaf of a RecursiveAction that is split in half until one asset is left, so the ForkJoinPool keeps
+ * all of its threads busy however long each asset takes. An asset that is missing or cannot be decoded is reported and
+ * counted as a failure, and the application carries on loading it as it did before.
+ *
+ * @author Gareth Iguasnia
+ * @date 19/04/2020
+ */
+public class AssetWarmUp {
+    // The folder holding the images of the views
+    private static final String GRAPHICS = "assets/graphics/";
+
+    /**
+     * ProgressListener Interface to be implemented by the view that displays how far the warm-up has got. The method
+     * is called on the Event Dispatch Thread
+     *
+     * @author Gareth Iguasnia
+     * @date 19/04/2020
+     */
+    public interface ProgressListener {
+        void onWarmUpProgress(int completed, int total, int failures);
+    }
+
+    private final ForkJoinPool pool;
+
+    // Counters of the assets that have been handed to the pool and that have been loaded
+    private final AtomicInteger total;
+    private final AtomicInteger completed;
+    private final AtomicInteger failures;
+
+    // The time the warm-up started at, and the time it took to load every asset handed to it so far
+    private final long startNanos;
+    private volatile long elapsedNanos;
+
+    private volatile ProgressListener progressListener;
+
+    /**
+     * Constructor for the AssetWarmUp Class. One core is left for the Event Dispatch Thread that builds the views
+     */
+    public AssetWarmUp() {
+        this.pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+                new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("salsa-warm-up-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }, null, false);
+        this.total = new AtomicInteger();
+        this.completed = new AtomicInteger();
+        this.failures = new AtomicInteger();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Method starts loading the countdown and the images of the views. This can be called before the views are built
+     */
+    public void start() {
+        List<Asset> assets = new ArrayList<>();
+        assets.add(new Asset("countdown") {
+            @Override
+            boolean load() throws Exception {
+                MusicController.warmUpCountdown();
+                return true;
+            }
+        });
+        for (String image: listGraphics()) {
+            assets.add(new Asset(image) {
+                @Override
+                boolean load() {
+                    return loadImage(image);
+                }
+            });
+        }
+        submit(assets);
+    }
+
+    /**
+     * Method starts decoding a recording of each of the States that a game could start on. A State that is a
+     * candidate of more than one game mode is only warmed once
+     *
+     * @param states A List of State objects in the order they should be warmed in
+     */
+    public void warmStates(List<State> states) {
+        List<Asset> assets = new ArrayList<>();
+        for (State state: new LinkedHashSet<>(states)) {
+            assets.add(new Asset(state.getBpm() + " " + state.getInstruments()) {
+                @Override
+                boolean load() throws Exception {
+                    MusicController.warmUp(state);
+                    return true;
+                }
+            });
+        }
+        submit(assets);
+    }
+
+    /**
+     * Method sets the view that displays the progress of the warm-up. The view is told straight away how far the
+     * warm-up has got
+     *
+     * @param progressListener A class that has implemented the ProgressListener interface
+     */
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+        fireProgress();
+    }
+
+    /**
+     * Method waits for every asset handed to the warm-up so far to be loaded
+     *
+     * @param timeoutMillis A long representing the longest time to wait in milliseconds
+     * @return true if every asset was loaded in time, false otherwise
+     */
+    public boolean awaitCompletion(long timeoutMillis) {
+        return pool.awaitQuiescence(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public int getTotal() {
+        return total.get();
+    }
+
+    public int getCompleted() {
+        return completed.get();
+    }
+
+    public int getFailures() {
+        return failures.get();
+    }
+
+    public boolean isDone() {
+        return completed.get() == total.get();
+    }
+
+    @Override
+    public String toString() {
+        return "AssetWarmUp[assets=" + completed.get() + "/" + total.get() + ", failures=" + failures.get() +
+                ", threads=" + pool.getParallelism() + ", time=" + elapsedNanos / 1_000_000 + " ms]";
+    }
+
+    /**
+     * Method lists the resource paths of the images of the views. This works whether the application is running from
+     * the JAR file or from an IDE
+     *
+     * @return A List of String objects representing the resource paths of the PNG and JPG files
+     */
+    public static List<String> listGraphics() {
+        List<String> images = new ArrayList<>();
+        try {
+            final File jarFile = new File(AssetWarmUp.class.getProtectionDomain().getCodeSource().getLocation()
+                    .toURI());
+
+            if (jarFile.isFile()) {
+                try (JarFile jar = new JarFile(jarFile)) {
+                    Enumeration<JarEntry> entries = jar.entries();
+                    while (entries.hasMoreElements()) {
+                        String name = entries.nextElement().getName();
+                        if (name.startsWith(GRAPHICS) && isImage(name))
+                            images.add(name);
+                    }
+                }
+            }
+            else {
+                URL url = Thread.currentThread().getContextClassLoader().getResource(GRAPHICS);
+                File[] files = url == null ? null : new File(url.toURI()).listFiles();
+                if (files != null) {
+                    for (File file: files) {
+                        if (isImage(file.getName()))
+                            images.add(GRAPHICS + file.getName());
+                    }
+                }
+            }
+        }
+        catch (IOException | URISyntaxException e) {
+            e.printStackTrace();
+        }
+        return images;
+    }
+
+    /**
+     * Method decodes an image into the image cache of the Toolkit, which the ImageIcons of the views are taken from
+     *
+     * @param image String object representing the resource path of the image
+     * @return true if the image was found and decoded, false otherwise
+     */
+    public static boolean loadImage(String image) {
+        URL resource = AssetWarmUp.class.getClassLoader().getResource(image);
+        if (resource == null)
+            return false;
+
+        // The ImageIcon waits for the image to be decoded
+        ImageIcon icon = new ImageIcon(Toolkit.getDefaultToolkit().getImage(resource));
+        return icon.getImageLoadStatus() == MediaTracker.COMPLETE;
+    }
+
+    /**
+     * Asset Innerclass that represents one asset to be loaded by the warm-up
+     *
+     * @author Gareth Iguasnia
+     * @date 19/04/2020
+     */
+    abstract static class Asset {
+        private final String name;
+
+        Asset(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Method loads the asset
+         *
+         * @return true if the asset was loaded, false if it was not found or could not be decoded
+         * @throws Exception If the asset could not be loaded
+         */
+        abstract boolean load() throws Exception;
+    }
+
+    /**
+     * WarmUpTask Innerclass that extends RecursiveAction. This splits the assets in half until there is one asset
+     * left, which it then loads
+     *
+     * @author Gareth Iguasnia
+     * @date 19/04/2020
+     */
+    class WarmUpTask extends RecursiveAction {
+        private final List<Asset> assets;
+        private final int from;
+        private final int to;
+
+        WarmUpTask(List<Asset> assets, int from, int to) {
+            this.assets = assets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new WarmUpTask(assets, from, middle), new WarmUpTask(assets, middle, to));
+                return;
+            }
+
+            Asset asset = assets.get(from);
+            boolean loaded = false;
+            try {
+                loaded = asset.load();
+            }
+            catch (Exception e) {
+                e.printStackTrace();
+            }
+            if (!loaded) {
+                failures.incrementAndGet();
+                System.out.println("Could not warm up " + asset.name);
+            }
+
+            elapsedNanos = System.nanoTime() - startNanos;
+            if (completed.incrementAndGet() == total.get())
+                System.out.println(AssetWarmUp.this);
+            fireProgress();
+        }
+    }
+
+    /* Helper method that hands the assets to the pool */
+    private void submit(List<Asset> assets) {
+        if (assets.isEmpty())
+            return;
+        total.addAndGet(assets.size());
+        fireProgress();
+        pool.execute(new WarmUpTask(assets, 0, assets.size()));
+    }
+
+    /* Helper method that tells the view how far the warm-up has got on the Event Dispatch Thread */
+    private void fireProgress() {
+        ProgressListener listener = progressListener;
+        if (listener == null)
+            return;
+
+        int completed = this.completed.get();
+        int total = this.total.get();
+        int failures = this.failures.get();
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                listener.onWarmUpProgress(completed, total, failures);
+            }
+        });
+    }
+
+    /* Helper method that checks whether a file is an image the views use */
+    private static boolean isImage(String name) {
+        String lowerCase = name.toLowerCase();
+        return lowerCase.endsWith(".png") || lowerCase.endsWith(".jpg");
+    }
+}
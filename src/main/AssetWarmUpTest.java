@@ -0,0 +1,34 @@
+package main;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssetWarmUpTest {
+
+    @Test
+    void listGraphics() {
+        // Every image the views use is found and can be decoded
+        List<String> images = AssetWarmUp.listGraphics();
+        assertTrue(images.contains("assets/graphics/start.png"));
+        assertTrue(images.contains("assets/graphics/salsa_background.jpg"));
+        for (String image: images)
+            assertTrue(AssetWarmUp.loadImage(image), image);
+
+        assertFalse(AssetWarmUp.loadImage("assets/graphics/missing.png"));
+    }
+
+    @Test
+    void startLoadsEveryAsset() {
+        AssetWarmUp assetWarmUp = new AssetWarmUp();
+        assetWarmUp.start();
+
+        // The countdown and every image are loaded
+        assertTrue(assetWarmUp.awaitCompletion(30000));
+        assertTrue(assetWarmUp.isDone());
+        assertEquals(AssetWarmUp.listGraphics().size() + 1, assetWarmUp.getTotal());
+        assertEquals(0, assetWarmUp.getFailures(), assetWarmUp.toString());
+    }
+}
@@ -10,17 +10,29 @@ import controllers.simulation.hard.HardSimulationController;
 import controllers.tutorial.TutorialController;
 import controllers.tutorial.TutorialGUIController;
 import controllers.tutorial.TutorialMusicController;
+import components.State;
+import components.input.KeyboardInput;
+import components.input.MidiInput;
 import listeners.ClipInformationListener;
 import listeners.GameGUIListener;
 import listeners.GameProgressionListener;
+import listeners.TapListener;
 import listeners.TutorialGUIListener;
 import views.games.EasySimulationView;
 import views.games.HardSimulationView;
+import views.CalibrationView;
+import views.MenuView;
 import views.TutorialView;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class MainApp {
 
     public static void main(String[] args) {
+        // The images and the countdown are loaded on the other cores while the views are being built
+        AssetWarmUp assetWarmUp = new AssetWarmUp();
+        assetWarmUp.start();
 
         javax.swing.SwingUtilities.invokeLater(new Runnable() {
             @Override
@@ -37,14 +49,26 @@ public class MainApp {
                         "navigation", mainFrame);
 
                 // Setting up the controllers to listen to the model
-                main.setupHardSimulation(mainFrame, model);
-                main.setupEasySimulation(mainFrame, model);
-                main.setupTutorial(mainFrame, model);
+                GameController hardController = main.setupHardSimulation(mainFrame, model);
+                GameController easyController = main.setupEasySimulation(mainFrame, model);
+                GameController tutorialController = main.setupTutorial(mainFrame, model);
+                CalibrationController calibrationController = main.setupCalibration(mainFrame, model);
+
+                // The beat can be tapped on the keyboard and on MIDI devices as well as with the beat clicker
+                main.setupTapInput(hardController, easyController, tutorialController, calibrationController);
+
+                // The main menu shows the assets being loaded. The recordings of the States that the games could start
+                // on are decoded too, the slow States shared by the Tutorial and the Easy Simulation first
+                assetWarmUp.setProgressListener((MenuView) mainFrame.getPanels().get(mainFrame.getMAIN()));
+                List<State> startingStates = new ArrayList<>(tutorialController.getStartingStateCandidates());
+                startingStates.addAll(easyController.getStartingStateCandidates());
+                startingStates.addAll(hardController.getStartingStateCandidates());
+                assetWarmUp.warmStates(startingStates);
             }
         });
     }
 
-    public void setupEasySimulation(MainFrame mainFrame, SalsaModel salsaModel) {
+    public GameController setupEasySimulation(MainFrame mainFrame, SalsaModel salsaModel) {
         // Isolating the simulation view
         EasySimulationView easySimulationView = (EasySimulationView) mainFrame.getPanels().get("easy");
 
@@ -57,6 +81,9 @@ public class MainApp {
         SalsaController simulationMusicController = new EasySimulationMusicController(salsaModel,
                 "easy_simulation_music");
 
+        // The music controller prefetches the clips of the States that the simulation controller could choose next
+        ((MusicController) simulationMusicController).setGameStatusFunction(
+                ((GameController) simulationController).getGameStatusFunction());
 
         // Casting as we only want the model to have the Listener version of the controller so that any methods
         // that the SalsaController has will not be present in the model
@@ -64,9 +91,10 @@ public class MainApp {
         salsaModel.addSimulationListener((GameProgressionListener) simulationMusicController);
         salsaModel.addClipInformationListener((ClipInformationListener) simulationController);
         salsaModel.addSimulationGUIListener((GameGUIListener) simulationGUIController);
+        return (GameController) simulationController;
     }
 
-    public void setupHardSimulation(MainFrame mainFrame, SalsaModel salsaModel) {
+    public GameController setupHardSimulation(MainFrame mainFrame, SalsaModel salsaModel) {
         // Isolating the simulation view
         HardSimulationView hardSimulationView = (HardSimulationView) mainFrame.getPanels().get("hard");
 
@@ -79,6 +107,9 @@ public class MainApp {
         SalsaController simulationMusicController = new HardSimulationMusicController(salsaModel,
                 "hard_simulation_music");
 
+        // The music controller prefetches the clips of the States that the simulation controller could choose next
+        ((MusicController) simulationMusicController).setGameStatusFunction(
+                ((GameController) simulationController).getGameStatusFunction());
 
         // Casting as we only want the model to have the Listener version of the controller so that any methods
         // that the SalsaController has will not be present in the model
@@ -86,9 +117,10 @@ public class MainApp {
         salsaModel.addSimulationListener((GameProgressionListener) simulationMusicController);
         salsaModel.addClipInformationListener((ClipInformationListener) simulationController);
         salsaModel.addSimulationGUIListener((GameGUIListener) simulationGUIController);
+        return (GameController) simulationController;
     }
 
-    public void setupTutorial(MainFrame mainFrame, SalsaModel salsaModel) {
+    public GameController setupTutorial(MainFrame mainFrame, SalsaModel salsaModel) {
         TutorialView tutorialView = (TutorialView) mainFrame.getPanels().get("tutorial");
         SalsaController tutorialController = new TutorialController(salsaModel,
                 "tutorial", tutorialView);
@@ -97,6 +129,10 @@ public class MainApp {
         SalsaController tutorialMusicController = new TutorialMusicController(salsaModel,
                 "tutorial_music");
 
+        // The music controller prefetches the clips of the States that the tutorial controller could choose next
+        ((MusicController) tutorialMusicController).setGameStatusFunction(
+                ((TutorialController) tutorialController).getGameStatusFunction());
+
         salsaModel.addTutorialGUIListener((GameProgressionListener) tutorialGUIController);
         salsaModel.addTutorialMusicListener((GameProgressionListener) tutorialMusicController);
 
@@ -105,6 +141,32 @@ public class MainApp {
         salsaModel.addTutorialGameGUIListener((GameGUIListener) tutorialGUIController);
 
         salsaModel.addTeachTutorialGUIListener((TutorialGUIListener) tutorialGUIController);
+        return (GameController) tutorialController;
+    }
+
+    public CalibrationController setupCalibration(MainFrame mainFrame, SalsaModel salsaModel) {
+        CalibrationView calibrationView = (CalibrationView) mainFrame.getPanels().get(mainFrame.getCALIBRATION());
+        return new CalibrationController(salsaModel, "calibration", calibrationView);
+    }
+
+    public void setupTapInput(TapListener... tapListeners) {
+        KeyboardInput keyboardInput = new KeyboardInput();
+        MidiInput midiInput = new MidiInput();
+        for (TapListener tapListener: tapListeners) {
+            keyboardInput.addTapListener(tapListener);
+            midiInput.addTapListener(tapListener);
+        }
+        keyboardInput.install();
+
+        // Looking for the MIDI devices can take a while, so it is not done on the Event Dispatch Thread
+        Thread midiThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                System.out.println(midiInput.openAll() + " MIDI devices can be used to tap");
+            }
+        }, "salsa-midi-input");
+        midiThread.setDaemon(true);
+        midiThread.start();
     }
 
 }
@@ -1,5 +1,6 @@
 package main;
 
+import views.CalibrationView;
 import views.GameLevelView;
 import views.JustifiedUserProfileView;
 import views.MenuView;
@@ -40,6 +41,7 @@ public class MainFrame extends JFrame {
     private final String LEVELS = "levels";
     private final String HARD = "hard";
     private final String EASY = "easy";
+    private final String CALIBRATION = "calibration";
 
 
     /**
@@ -131,6 +133,15 @@ public class MainFrame extends JFrame {
         return EASY;
     }
 
+    /**
+     * Method that returns the field CALIBRATION
+     *
+     * @return String object that is held by the field CALIBRATION
+     */
+    public String getCALIBRATION() {
+        return CALIBRATION;
+    }
+
     @Override
     public Dimension getPreferredSize() {
         return new Dimension(WIDTH,HEIGHT);
@@ -156,6 +167,9 @@ public class MainFrame extends JFrame {
         SalsaView gameLevel = new GameLevelView(LEVELS, this.getContentPane().getSize());
         setupOneView(gameLevel);
 
+        SalsaView calibration = new CalibrationView(CALIBRATION, this.getContentPane().getSize());
+        setupOneView(calibration);
+
         // Adding the cards to the frame
         this.getContentPane().add(cards);
     }
@@ -2,6 +2,11 @@ package main;
 
 import components.State;
 import components.UserProfile;
+import components.ingame.BeatScheduler;
+import components.ingame.BeatTimeline;
+import components.ingame.FreeTapScorer;
+import components.ingame.LatencyCalibration;
+import components.ingame.WindowRegistry;
 import events.*;
 import listeners.ClipInformationListener;
 import listeners.GameGUIListener;
@@ -10,7 +15,6 @@ import listeners.TutorialGUIListener;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /**
  * SalsaModel Class that represents the single Model in this MVC application
@@ -40,17 +44,9 @@ public class SalsaModel implements Serializable {
     private volatile int nextBeat;
     private volatile int barNumber;
 
-    // Keeping track whether the user has previously clicked before during each 8-beat bar of music
-    // and which beat pertains to which time window.
-    // Variables have been set as volatile since different threads will be accessing this data
-    private volatile boolean hasClickedOnce1;
-    private volatile boolean hasClickedOnce2;
-    private volatile int windowTracker;
-    private volatile int buttonClickerTracker;
-    private AtomicIntegerArray windowCaching;
-    private AtomicIntegerArray beatCaching;
-    private AtomicIntegerArray barCaching;
-    private volatile int beatCacheTracker;
+    // The time windows that are open, which the user's click claims one of. This is shared by the threads opening and
+    // closing the windows and the Event Dispatch Thread without a lock
+    private transient WindowRegistry windowRegistry;
 
     // To keep track of the number of State objects we have transitioned
     private int numTransitionedStates;
@@ -58,6 +54,12 @@ public class SalsaModel implements Serializable {
     // A beat timeline so that we can use the error function to compare the user's input to the correct timing
     private volatile ArrayList<Long> beatTimeline;
 
+    // The beat timeline in frames of the audio line, so that the user's input can be timed against the audio itself
+    private volatile BeatTimeline audioBeatTimeline;
+
+    // How late the user's input arrives on this machine. This is null until the user has been calibrated
+    private volatile LatencyCalibration latencyCalibration;
+
     // The 4 beats that the user will be tested on in this State run
     private volatile ArrayList<Integer> testingBeats;
 
@@ -67,6 +69,19 @@ public class SalsaModel implements Serializable {
     // Flag to determine whether the countdown audio clip is playing or a Salsa audio clip
     private volatile boolean countdownCurrentlyPlaying;
 
+    // Flag to determine whether the current State is played again and again for the user to practise on
+    private volatile boolean practiceLoop;
+
+    // Flag to determine whether every tap of the user is scored against the beats of the State instead of one click per
+    // time window
+    private volatile boolean freeTap;
+
+    // Scores the taps of the free tap mode
+    private transient FreeTapScorer freeTapScorer;
+
+    // Runs the bars, the end of each State, the time windows and the lights of every game from a single thread
+    private transient BeatScheduler beatScheduler;
+
     // GameProgressionListeners for both the Tutorial and Simulation controllers
     private ArrayList<GameProgressionListener> simListeners;
     private GameProgressionListener tutProgressGUIListener;
@@ -93,6 +108,8 @@ public class SalsaModel implements Serializable {
         // Initialise all of the States along with their respective neighbours
         userProfile = new UserProfile();
 
+        this.beatScheduler = new BeatScheduler("salsa-beat-scheduler");
+
         // Initialise the ArrayList to be able to add Listeners
         this.simListeners = new ArrayList<>(4);
         this.clipInfoListeners = new ArrayList<>(4);
@@ -105,29 +122,9 @@ public class SalsaModel implements Serializable {
         // We will only go through 4 bars per Salsa audio clip. 0 is the default.
         this.barNumber = 0;
 
-        // Default is true as we do not want to take any user input until the simulation starts
-        this.hasClickedOnce1 = true;
-        this.hasClickedOnce2 = true;
-        this.windowTracker = 1;
-        this.buttonClickerTracker = 1;
-
-        // Setting the cache for the bar number of that the State is in to know which time window pertains to which
-        // bar number
-        this.barCaching = new AtomicIntegerArray(2);
-        this.barCaching.set(0, 0);
-        this.barCaching.set(1, 0);
-
-        // Setting the window cache to know which time window should be closed when they are overlapping
-        this.windowCaching = new AtomicIntegerArray(2);
-        this.windowCaching.set(0, 0);
-        this.windowCaching.set(1, 0);
-
-        // Setting up the beat cache to know which beat pertains to which time window
-        this.beatCaching = new AtomicIntegerArray(2);
-        this.beatCaching.set(0, 0);
-        this.beatCaching.set(1, 0);
-
-        this.beatCacheTracker = 0;
+        // No user input is taken until the first time window of the simulation is opened
+        this.windowRegistry = new WindowRegistry();
+        this.freeTapScorer = new FreeTapScorer(BeatTimeline.BEATS_PER_STATE);
 
         // Default will be 0
         this.timeAccumulation = 0;
@@ -517,16 +514,12 @@ public class SalsaModel implements Serializable {
         // Bar number begins at 1
         this.barNumber = 1;
 
-        // ClickedOnce flags default is true
-        this.hasClickedOnce1 = true;
-        this.hasClickedOnce2 = true;
-
-        // These trackers are default set to 1
-        this.windowTracker = 1;
-        this.buttonClickerTracker = 1;
+        // No user input is taken until the next simulation opens its time windows
+        this.windowRegistry.clear();
 
         // No beat timeline as the simulation is not running
         this.beatTimeline = null;
+        this.audioBeatTimeline = null;
 
         // Default is 0
         this.timeAccumulation = 0;
@@ -534,57 +527,10 @@ public class SalsaModel implements Serializable {
         // Default is true, ready for when the simulation is played again
         this.countdownCurrentlyPlaying = true;
 
-        // Resetting the cache
-        this.beatCacheTracker = 0;
-        for (int i = 0; i < 2; i ++) {
-            this.beatCaching.set(i, 0);
-            this.windowCaching.set(i, 0);
-        }
-    }
-
-    /**
-     * Method increases the windowTracker by 1 iff windowTracker currently has a value of 1
-     */
-    public synchronized void increaseWindowTracker() {
-        if (this.windowTracker == 1)
-            this.windowTracker++;
-    }
-
-    /**
-     * Method decreases the windowTracker by 1 iff windowTracker currently has a value of 2
-     */
-    public synchronized void decreaseWindowTracker() {
-        if (this.windowTracker == 2)
-            this.windowTracker--;
-    }
-
-    /**
-     * Method sets the buttonClickerTracker to 2
-     */
-    public synchronized void increaseButtonClickerTracker() {
-        this.buttonClickerTracker = 2;
-    }
-
-    /**
-     * Method sets the buttonClickerTracker to 1
-     */
-    public synchronized void decreaseButtonClickerTracker() {
-        this.buttonClickerTracker = 1;
-    }
-
-    /**
-     * Method increases the beatCacheTracker by 1
-     */
-    public synchronized void increaseBeatCacheTracker() {
-        if (this.beatCacheTracker < 4)
-            this.beatCacheTracker++;
-    }
-
-    /**
-     * Method resets the beatCacheTracker back to 0
-     */
-    public synchronized void resetBeatCacheTracker() {
-        this.beatCacheTracker = 0;
+        // The next game starts without the practice loop, scoring one click per time window
+        this.practiceLoop = false;
+        this.freeTap = false;
+        this.freeTapScorer.clearTaps();
     }
 
     /* SETTERS */
@@ -661,6 +607,16 @@ public class SalsaModel implements Serializable {
         this.beatTimeline = beatTimeline;
     }
 
+    /**
+     * Method sets the beat timeline in frames of the audio line for the Salsa audio clip that has just started playing.
+     * This is set by the MusicController as it is the only one that knows on which frame the clip started
+     *
+     * @param audioBeatTimeline A BeatTimeline object holding the frame of each beat of the current clip
+     */
+    public void setAudioBeatTimeline(BeatTimeline audioBeatTimeline) {
+        this.audioBeatTimeline = audioBeatTimeline;
+    }
+
     /**
      * Method sets the countdownCurrentlyPlaying flag with a boolean variable. This will be true once the simulation
      * has ended and false once the countdown clip has finished playing
@@ -672,23 +628,23 @@ public class SalsaModel implements Serializable {
     }
 
     /**
-     * Method sets the hasClickedOnce1 flag with the boolean parameter. This will be true if the user has clicked in
-     * the time window or there is no time window currently open for this flag.
+     * Method sets the practiceLoop flag. While this is true, the State being played is looped instead of moving on to
+     * the next State, and the game does not move any closer to its end
      *
-     * @param hasClickedOnce1 Boolean variable indicating whether the system will take the user's input
+     * @param practiceLoop Boolean flag representing whether the current State should be looped
      */
-    public synchronized void setHasClickedOnce1(boolean hasClickedOnce1) {
-        this.hasClickedOnce1 = hasClickedOnce1;
+    public void setPracticeLoop(boolean practiceLoop) {
+        this.practiceLoop = practiceLoop;
     }
 
     /**
-     * Method sets the hasClickedOnce2 flag with the boolean parameter. This will be true if the user has clicked in
-     * the time window or there is no time window currently open for this flag.
+     * Method sets the freeTap flag. While this is true, every tap of the user is scored against the nearest beat of the
+     * State rather than only the first click in each time window
      *
-     * @param hasClickedOnce2 Boolean variable indicating whether the system will take the user's input
+     * @param freeTap Boolean flag representing whether the free tap mode is on
      */
-    public synchronized void setHasClickedOnce2(boolean hasClickedOnce2) {
-        this.hasClickedOnce2 = hasClickedOnce2;
+    public void setFreeTap(boolean freeTap) {
+        this.freeTap = freeTap;
     }
 
     /**
@@ -748,6 +704,34 @@ public class SalsaModel implements Serializable {
         return currentView;
     }
 
+    /**
+     * Method returns the WindowRegistry holding the time windows that the user's click can be taken in
+     *
+     * @return The WindowRegistry object of the model
+     */
+    public WindowRegistry getWindowRegistry() {
+        return windowRegistry;
+    }
+
+    /**
+     * Method returns the FreeTapScorer that scores every tap of the user in the free tap mode
+     *
+     * @return A FreeTapScorer object holding the beats of the current State and the taps scored against them
+     */
+    public FreeTapScorer getFreeTapScorer() {
+        return freeTapScorer;
+    }
+
+    /**
+     * Method returns the BeatScheduler that times the events of every game. This is kept for as long as the
+     * application runs, so no thread is created for a State
+     *
+     * @return The BeatScheduler object of the model
+     */
+    public BeatScheduler getBeatScheduler() {
+        return beatScheduler;
+    }
+
     /**
      *  Method returns the timeAccumulation field
      *
@@ -767,6 +751,14 @@ public class SalsaModel implements Serializable {
         return countdownCurrentlyPlaying;
     }
 
+    public boolean isPracticeLoop() {
+        return practiceLoop;
+    }
+
+    public boolean isFreeTap() {
+        return freeTap;
+    }
+
     /**
      * Method returns the numTransitionedStates field
      *
@@ -804,41 +796,52 @@ public class SalsaModel implements Serializable {
     }
 
     /**
-     *  Method returns the hasClickedOnce1 field
+     * Method returns the average time between two beats of the beat timeline. The beats of a recording are not evenly
+     * spaced, and the first beat is not always at 0, so this is worked out from the first and last beats
      *
-     * @return A boolean representing whether a user has clicked before in the allocated time or whether they missed
-     * their chance to click.
+     * @return A long representing the length of one beat in milliseconds
      */
-    public boolean hasClickedOnce1() {
-        return hasClickedOnce1;
+    public long getBeatLength() {
+        ArrayList<Long> timeline = beatTimeline;
+        return Math.round((timeline.get(timeline.size() - 1) - timeline.get(0)) / (double) (timeline.size() - 1));
     }
 
     /**
-     *  Method returns the hasClickedOnce2 field
+     * Method returns the audioBeatTimeline field
      *
-     * @return A boolean representing whether a user has clicked before in the allocated time or whether they missed
-     * their chance to click.
+     * @return A BeatTimeline object of the current Salsa audio clip, or null if the audio line is not being used
      */
-    public boolean hasClickedOnce2() {
-        return hasClickedOnce2;
+    public BeatTimeline getAudioBeatTimeline() {
+        return audioBeatTimeline;
     }
 
     /**
-     * Method returns the windowTracker field
+     * Method returns the latencyCalibration field
      *
-     * @return An integer representing the time window that is still active
+     * @return A LatencyCalibration object of the user, or null if the user has not been calibrated
      */
-    public int getWindowTracker() {
-        return this.windowTracker;
+    public LatencyCalibration getLatencyCalibration() {
+        return latencyCalibration;
     }
 
     /**
-     * Method returns the buttonClickerTracker field
+     * Method sets the latencyCalibration field. This is kept when the model is reset as it belongs to the machine
+     * rather than to a game
      *
-     * @return An integer representing the previous time window
+     * @param latencyCalibration A LatencyCalibration object, or null to stop correcting the user's input
      */
-    public int getButtonClickerTracker() {
-        return this.buttonClickerTracker;
+    public void setLatencyCalibration(LatencyCalibration latencyCalibration) {
+        this.latencyCalibration = latencyCalibration;
+    }
+
+    /**
+     * Method returns how late the user's input arrives on this machine
+     *
+     * @return A long representing the latency offset in milliseconds, or 0 if the user has not been calibrated
+     */
+    public long getLatencyOffset() {
+        LatencyCalibration calibration = latencyCalibration;
+        return calibration == null ? 0 : calibration.getOffset();
     }
 
     /**
@@ -878,45 +881,6 @@ public class SalsaModel implements Serializable {
         return testingBeats;
     }
 
-    /**
-     * Method returns the tracker used to get the current beat that the system is testing the user on
-     *
-     * @return An integer representing the index to be used for the testingBeats
-     */
-    public int getBeatCacheTracker() {
-        return beatCacheTracker;
-    }
-
-    /**
-     * Method returns the cache of the current window time lines that are open
-     *
-     * @return An AtomicIntegerArray where the first index represents one window, and the second index represents
-     * the other window. Only 2 windows can be up at a time.
-     */
-    public AtomicIntegerArray getWindowCaching() {
-        return windowCaching;
-    }
-
-    /**
-     * Method returns the cache of the current beat according to which time windows are open
-     *
-     * @return An AtomicIntegerArray where the first index represents the beat that the user needs to locate in
-     * Time Window 1, and the second index is the beat that the user needs to locate in Time Window 2
-     */
-    public AtomicIntegerArray getBeatCaching() {
-        return beatCaching;
-    }
-
-    /**
-     * Method return the cache of the current bar according to which time windows are open
-     *
-     * @return An AtomicIntegerArray where the first index represents the bar number for Time Window 1 and the second
-     * index is the bar number for Time Window 2
-     */
-    public AtomicIntegerArray getBarCaching() {
-        return barCaching;
-    }
-
     /**
      * Method to get the file path of where the Game data is saved
      *
@@ -0,0 +1,115 @@
+package views;
+
+import main.SalsaView;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * CalibrationView class that extends the SalsaView class. This view plays a click track and lets the user tap along
+ * to it so that the latency of their machine can be measured and taken away from their input during the games
+ *
+ * @author Gareth Iguasnia
+ * @date 17/04/2020
+ */
+public class CalibrationView extends SalsaView {
+
+    private JButton startButton;
+    private JButton tapButton;
+
+    // Tells the user what to do and then the result of the calibration
+    private JLabel instructions;
+    private JLabel result;
+
+    // Dimensions for buttons and spacing
+    int BUTTON_HEIGHT = 100;
+    int BUTTON_WIDTH = 400;
+    int TAP_BUTTON_HEIGHT = 200;
+    int SPACES_BETWEEN_BUTTONS = 50;
+
+    /**
+     * Constructor for the CalibrationView Class.
+     *
+     * @param name A String object representing the name of the view
+     * @param dimension A Dimension object representing the size of this JPanel
+     */
+    public CalibrationView(String name, Dimension dimension) {
+        super(name, dimension, false);
+        setupComponents();
+        layoutComponents();
+    }
+
+    /**
+     * Method returns the JButton startButton. This starts the click track
+     *
+     * @return JButton object that starts the calibration
+     */
+    public JButton getStartButton() {
+        return startButton;
+    }
+
+    /**
+     * Method returns the JButton tapButton. The user clicks this on every click of the click track
+     *
+     * @return JButton object that records the taps of the user
+     */
+    public JButton getTapButton() {
+        return tapButton;
+    }
+
+    /**
+     * Method returns the JLabel that displays the result of the calibration
+     *
+     * @return JLabel object to display the latency offset of the user
+     */
+    public JLabel getResult() {
+        return result;
+    }
+
+    /* Helper method to start up the buttons and labels on the screen */
+    private void setupComponents() {
+        this.instructions = new JLabel("Press Start and click Tap on every click you hear, after the first 4 clicks");
+        this.add(instructions);
+
+        this.startButton = new JButton("Start");
+        this.startButton.setPreferredSize(new Dimension(BUTTON_WIDTH, BUTTON_HEIGHT));
+        this.startButton.setEnabled(true);
+        this.add(startButton); startButton.setBackground(null);
+
+        // The user can only tap once the click track is playing
+        this.tapButton = new JButton("Tap");
+        this.tapButton.setPreferredSize(new Dimension(BUTTON_WIDTH, TAP_BUTTON_HEIGHT));
+        this.tapButton.setEnabled(false);
+        this.add(tapButton); tapButton.setBackground(null);
+
+        this.result = new JLabel(" ");
+        this.add(result);
+    }
+
+    /* Helper method to layout the buttons and labels */
+    private void layoutComponents() {
+        int panelHeight = (int) getDimension().getHeight();
+        int panelWidth = (int) getDimension().getWidth();
+        int totalHeight = BUTTON_HEIGHT + SPACES_BETWEEN_BUTTONS + TAP_BUTTON_HEIGHT;
+
+        this.getPanelLayout().putConstraint(SpringLayout.HORIZONTAL_CENTER, instructions,
+                0, SpringLayout.HORIZONTAL_CENTER, this);
+        this.getPanelLayout().putConstraint(SpringLayout.SOUTH, instructions,
+                -SPACES_BETWEEN_BUTTONS / 2, SpringLayout.NORTH, startButton);
+
+        this.getPanelLayout().putConstraint(SpringLayout.NORTH, startButton,
+                (panelHeight - totalHeight)/2, SpringLayout.NORTH, this);
+        this.getPanelLayout().putConstraint(SpringLayout.WEST, startButton,
+                (panelWidth - BUTTON_WIDTH)/2, SpringLayout.WEST, this );
+
+        this.getPanelLayout().putConstraint(SpringLayout.WEST, tapButton,
+                (panelWidth - BUTTON_WIDTH)/2, SpringLayout.WEST, this );
+        this.getPanelLayout().putConstraint(SpringLayout.NORTH, tapButton,
+                SPACES_BETWEEN_BUTTONS, SpringLayout.SOUTH, startButton);
+
+        this.getPanelLayout().putConstraint(SpringLayout.HORIZONTAL_CENTER, result,
+                0, SpringLayout.HORIZONTAL_CENTER, this);
+        this.getPanelLayout().putConstraint(SpringLayout.NORTH, result,
+                SPACES_BETWEEN_BUTTONS / 2, SpringLayout.SOUTH, tapButton);
+    }
+}
@@ -22,6 +22,12 @@ public abstract class GameView extends SalsaView {
     private JButton beatClicker;
     private JButton startButton;
 
+    // Toggle button to loop the current State so that the user can practise on it
+    private JToggleButton practiceLoop;
+
+    // Toggle button to score every tap of the user rather than one click per time window
+    private JToggleButton freeTap;
+
     // JPanels that will hold 9 JLabels that were created from the Digital Number PNG files
     private JPanel currentBeat;
     private JPanel nextBeat;
@@ -120,6 +126,24 @@ public abstract class GameView extends SalsaView {
      */
     public JButton getStartButton() { return startButton; }
 
+    /**
+     * Method returns the JToggleButton practiceLoop. While it is selected, the current State is looped
+     *
+     * @return A JToggleButton object that turns the practice loop on and off
+     */
+    public JToggleButton getPracticeLoop() {
+        return practiceLoop;
+    }
+
+    /**
+     * Method returns the JToggleButton freeTap. While it is selected, every tap is scored against the nearest beat
+     *
+     * @return A JToggleButton object that turns the free tap mode on and off
+     */
+    public JToggleButton getFreeTap() {
+        return freeTap;
+    }
+
     /**
      * Method returns the JPanel currentBeat. To be used by the HardSimulationGUIController so that we can swap the JLabels
      * according to the model changes for a new current and next beat.
@@ -297,6 +321,17 @@ public abstract class GameView extends SalsaView {
         // Taking away the blue background that JButtons usually have
         startButton.setOpaque(false); startButton.setContentAreaFilled(false);
         startButton.setBorderPainted(false);
+
+        // Button to be used by the user to keep practising on the current State
+        this.practiceLoop = new JToggleButton("Loop");
+        practiceLoop.setToolTipText("Keep playing the current music until this is clicked again");
+        practiceLoop.setVisible(false); // This will be set to true by the onSimulationStartedEvent
+        this.add(practiceLoop);
+
+        this.freeTap = new JToggleButton("Free tap");
+        freeTap.setToolTipText("Score every tap against the nearest beat instead of one click per beat asked for");
+        freeTap.setVisible(false); // This will be set to true by the onSimulationStartedEvent
+        this.add(freeTap);
     }
 
     /* Helper method sets up the JLabels for the instrument GUI */
@@ -451,6 +486,14 @@ public abstract class GameView extends SalsaView {
                 - (this.getHeightBuffer() + 85), SpringLayout.SOUTH, this);
         this.getPanelLayout().putConstraint(SpringLayout.EAST, beatClicker,
                 - (this.getWidthBuffer() + 160), SpringLayout.EAST, this);
+
+        // The Loop button - Above the Beat Clicker button
+        this.getPanelLayout().putConstraint(SpringLayout.SOUTH, practiceLoop, -10, SpringLayout.NORTH, beatClicker);
+        this.getPanelLayout().putConstraint(SpringLayout.EAST, practiceLoop, 0, SpringLayout.EAST, beatClicker);
+
+        // The Free tap button - Above the Loop button
+        this.getPanelLayout().putConstraint(SpringLayout.SOUTH, freeTap, -5, SpringLayout.NORTH, practiceLoop);
+        this.getPanelLayout().putConstraint(SpringLayout.EAST, freeTap, 0, SpringLayout.EAST, beatClicker);
     }
 
     /* Helper method to layout the JLabels for the instrument GUI */
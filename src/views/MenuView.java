@@ -1,25 +1,31 @@
 package views;
 
+import main.AssetWarmUp;
 import main.SalsaView;
 import javax.swing.*;
 import java.awt.*;
 
 /**
  * MenuView class that extends the SalsaView class. This class represents the main menu screen of this MVC
- * application
+ * application. A progress bar at the bottom of the screen shows the assets being loaded when the application starts
  *
  * @author Gareth Iguasnia
  * @date 30/01/2020
  */
-public class MenuView extends SalsaView {
+public class MenuView extends SalsaView implements AssetWarmUp.ProgressListener {
 
     private final String SIMULATION = "simulation";
     private final String TUTORIAL = "tutorial";
     private final String JUSTIFIED_USER_MODEL = "justified_user_profile";
+    private final String CALIBRATION = "calibration";
 
     private JButton simulation;
     private JButton tutorial;
     private JButton justified_user_model;
+    private JButton calibration;
+
+    // Shows how many of the assets have been loaded by the AssetWarmUp
+    private JProgressBar warmUpProgress;
 
     // Dimensions for buttons and spacing
     int BUTTON_HEIGHT = 100;
@@ -37,6 +43,32 @@ public class MenuView extends SalsaView {
         super(name, dimension, true);
         setupButtons();
         layoutButtons();
+        setupWarmUpProgress();
+    }
+
+    /**
+     * Method updates the progress bar with the assets loaded so far. The progress bar is hidden once every asset has
+     * been loaded
+     *
+     * @param completed Integer representing the number of assets that have been loaded
+     * @param total Integer representing the number of assets handed to the warm-up
+     * @param failures Integer representing the number of assets that could not be loaded
+     */
+    @Override
+    public void onWarmUpProgress(int completed, int total, int failures) {
+        warmUpProgress.setMaximum(total);
+        warmUpProgress.setValue(completed);
+        warmUpProgress.setString("Loading " + completed + " of " + total);
+        warmUpProgress.setVisible(completed < total);
+    }
+
+    /**
+     * Method returns the warmUpProgress field
+     *
+     * @return JProgressBar object showing the assets loaded when the application starts
+     */
+    public JProgressBar getWarmUpProgress() {
+        return warmUpProgress;
     }
 
     /* Helper method to start up the buttons on the screen */
@@ -61,6 +93,13 @@ public class MenuView extends SalsaView {
         this.justified_user_model.setEnabled(true);
         this.getNavigationButtons().put(JUSTIFIED_USER_MODEL, justified_user_model);
         this.add(justified_user_model); justified_user_model.setBackground(null);
+
+        // Button to move to the calibration view
+        this.calibration = new JButton("Calibrate");
+        this.calibration.setPreferredSize(new Dimension(BUTTON_WIDTH, BUTTON_HEIGHT));
+        this.calibration.setEnabled(true);
+        this.getNavigationButtons().put(CALIBRATION, calibration);
+        this.add(calibration); calibration.setBackground(null);
     }
 
     /* Helper method to layout the buttons */
@@ -87,6 +126,24 @@ public class MenuView extends SalsaView {
                 (panelWidth - BUTTON_WIDTH)/2, SpringLayout.WEST, this );
         this.getPanelLayout().putConstraint(SpringLayout.NORTH, justified_user_model,
                 SPACES_BETWEEN_BUTTONS, SpringLayout.SOUTH, tutorial);
+
+        this.getPanelLayout().putConstraint(SpringLayout.WEST, calibration,
+                (panelWidth - BUTTON_WIDTH)/2, SpringLayout.WEST, this );
+        this.getPanelLayout().putConstraint(SpringLayout.NORTH, calibration,
+                SPACES_BETWEEN_BUTTONS, SpringLayout.SOUTH, justified_user_model);
     }
 
+    /* Helper method to set up the progress bar of the assets being loaded below the buttons */
+    private void setupWarmUpProgress() {
+        this.warmUpProgress = new JProgressBar();
+        this.warmUpProgress.setPreferredSize(new Dimension(BUTTON_WIDTH, BUTTON_HEIGHT / 4));
+        this.warmUpProgress.setStringPainted(true);
+        this.warmUpProgress.setVisible(false);
+        this.add(warmUpProgress);
+
+        this.getPanelLayout().putConstraint(SpringLayout.WEST, warmUpProgress,
+                (int) (getDimension().getWidth() - BUTTON_WIDTH)/2, SpringLayout.WEST, this );
+        this.getPanelLayout().putConstraint(SpringLayout.NORTH, warmUpProgress,
+                SPACES_BETWEEN_BUTTONS, SpringLayout.SOUTH, calibration);
+    }
 }